@@ -5,6 +5,7 @@ import com.nadia.library.models.Loan.Status;
 import com.nadia.library.repositories.*;
 
 import java.time.LocalDate;
+import java.util.List;
 
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.stereotype.Component;
@@ -42,84 +43,40 @@ public class DataLoader implements CommandLineRunner {
     this.authorRepository = authorRepository;
   }
 
-  /**
-   * Helper method to create and save a book with associated inventory.
-   * @param authorId The ID of the author of the book.
-   * @param title The title of the book.
-   * @param inventoryCount The count of books in inventory.
-   * @return The created Book entity.
-   */
-  private Book createAndSaveBook(Long authorId, String title, int inventoryCount) {
-    Book book = new Book(authorId, title);
-    bookRepository.save(book);
-
-    Inventory inventory = new Inventory(book.getId(), inventoryCount);
-    inventoryRepository.save(inventory);
-
-    return book;
-  }
-
-  /**
-   * Helper method to create and save a user.
-   * @param name The name of the user.
-   * @param address The address of the user.
-   * @param email The email of the user.
-   * @return The created User entity.
-   */
-  private User createAndSaveUser(String name, String address, String email) {
-    User user = new User(name, address, email);
-    userRepository.save(user);
-    return user;
-  }
-
-  /**
-   * Helper method to create and save an author.
-   * @param name The name of the author.
-   * @param country The country of the author.
-   * @return The created Author entity.
-   */
-  private Author createAndSaveAuthor(String name, String country) {
-    Author author = new Author(name, country);
-    authorRepository.save(author);
-    return author;
-  }
-
-  /**
-  * Helper method to create and save a loan.
-  * @param bookId The ID of the book for the loan.
-  * @param userId The ID of the user for the loan.
-  * @param status The status of the loan.
-  * @param loanDate The date of the loan.
-  * @return The created Loan entity.
-  */
-  private Loan createAndSaveLoan(Long bookId, Long userId, Status status, LocalDate loanDate) {
-    Loan loan = new Loan(bookId, userId, status, loanDate);
-    loanRepository.save(loan);
-    return loan;
-  }
-
   /**
    * This method is executed when the application starts and populates the database with initial data.
    * It creates and saves Book, Inventory, User, Author, and Loan entries.
    * It also associates Inventory entries with Books and Loan entries with Books and Users.
+   * Entries of the same type are saved together so that they are inserted in JDBC batches.
    * @param args Command-line arguments (not used in this method).
    */
   @Override
   public void run(String... args) {
-    Author author1 = createAndSaveAuthor("Edgar Allan Poe", "United States");
-    Author author2 = createAndSaveAuthor("Selma Lagerlöf", "Sweden");
-    Author author3 = createAndSaveAuthor("Albert Camus", "France");
+    Author author1 = new Author("Edgar Allan Poe", "United States");
+    Author author2 = new Author("Selma Lagerlöf", "Sweden");
+    Author author3 = new Author("Albert Camus", "France");
+    authorRepository.saveAll(List.of(author1, author2, author3));
+
+    Book book1 = new Book(author1.getId(), "The Narrative of Arthur Gordon Pym of Nantucket");
+    Book book2 = new Book(author2.getId(), "Holgerssons underbara resa genom Sverige");
+    Book book3 = new Book(author3.getId(), "L'étranger");
+    bookRepository.saveAll(List.of(book1, book2, book3));
 
-    Book book1 = createAndSaveBook(author1.getId(), "The Narrative of Arthur Gordon Pym of Nantucket", 4);
-    Book book2 = createAndSaveBook(author2.getId(), "Holgerssons underbara resa genom Sverige", 4);
-    Book book3 = createAndSaveBook(author3.getId(), "L'étranger", 4);
+    inventoryRepository.saveAll(List.of(
+      new Inventory(book1.getId(), 4),
+      new Inventory(book2.getId(), 4),
+      new Inventory(book3.getId(), 4)
+    ));
 
-    User user1 = createAndSaveUser("Sofia B", "123 Main St.", "sofia@example.com");
-    User user2 = createAndSaveUser("Freja L", "456 Main St.", "freja@example.com");
+    User user1 = new User("Sofia B", "123 Main St.", "sofia@example.com");
+    User user2 = new User("Freja L", "456 Main St.", "freja@example.com");
+    userRepository.saveAll(List.of(user1, user2));
 
-    createAndSaveLoan(book1.getId(), user1.getId(), Status.NEW_LOAN, LocalDate.parse("2023-10-30"));
-    createAndSaveLoan(book2.getId(), user2.getId(), Status.NEW_LOAN, LocalDate.parse("2023-10-05"));
-    createAndSaveLoan(book1.getId(), user2.getId(), Status.RENEWAL, LocalDate.now());
-    createAndSaveLoan(book3.getId(), user2.getId(), Status.NEW_LOAN, LocalDate.parse("2023-11-07"));
+    loanRepository.saveAll(List.of(
+      new Loan(book1.getId(), user1.getId(), Status.NEW_LOAN, LocalDate.parse("2023-10-30")),
+      new Loan(book2.getId(), user2.getId(), Status.NEW_LOAN, LocalDate.parse("2023-10-05")),
+      new Loan(book1.getId(), user2.getId(), Status.RENEWAL, LocalDate.now()),
+      new Loan(book3.getId(), user2.getId(), Status.NEW_LOAN, LocalDate.parse("2023-11-07"))
+    ));
   }
 }
@@ -2,12 +2,14 @@ package com.nadia.library;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * LibraryApplication is the main class of the library management application.
  * It uses Spring Boot to start the application.
  */
 @SpringBootApplication
+@EnableScheduling
 public class LibraryApplication {
 	/**
 	 * The main method is the entry point of the application.
@@ -0,0 +1,279 @@
+package com.nadia.library.conditional;
+
+import com.nadia.library.datasource.ReplicaLagMonitor;
+import com.nadia.library.stream.InventoryChangedEvent;
+import com.nadia.library.transaction.AfterCommit;
+
+import java.time.Clock;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.context.request.WebRequest;
+
+/**
+ * Keeps a version number for each table, and for each row of the tables served by ID, that
+ * changes whenever the table or the row is written.
+ *
+ * The versions make up the strong ETags and the Last-Modified dates of the GET endpoints, so
+ * a conditional request can be answered with 304 Not Modified from memory, before any query
+ * runs. They are bumped once the writing transaction has committed: a response read while
+ * the transaction is in progress is then never labelled with the version that follows it.
+ *
+ * When reads are sent to a replica, a read following the commit may still find the previous
+ * state there. Until a change is older than the replica can be behind, responses of its
+ * table carry no ETag or Last-Modified date and conditional requests are not answered, so
+ * that a stale body is never labelled with the new version.
+ *
+ * Versions are held by this instance only and start over on restart; ETags include the
+ * startup time so that those of a previous run never match.
+ */
+@Component
+public class ChangeTracker {
+  /**
+   * The tables whose changes are tracked.
+   */
+  public enum Table {
+    BOOK,
+    AUTHOR,
+    INVENTORY
+  }
+
+  private final Clock clock;
+  private final String epoch;
+  private final Map<Table, TableVersion> tables = new EnumMap<>(Table.class);
+
+  @Autowired(required = false)
+  private ReplicaLagMonitor replicaLagMonitor;
+
+  /**
+   * Create a tracker using the system clock.
+   */
+  public ChangeTracker() {
+    this(Clock.systemUTC());
+  }
+
+  /**
+   * Create a tracker using the given clock.
+   *
+   * @param clock The clock giving the Last-Modified dates.
+   */
+  ChangeTracker(Clock clock) {
+    this.clock = clock;
+    long now = clock.millis();
+    this.epoch = Long.toString(now, 36);
+
+    for (Table table : Table.values()) {
+      tables.put(table, new TableVersion(now));
+    }
+  }
+
+  /**
+   * Record that a row of a table was written.
+   *
+   * Within a transaction, the versions change when it commits and not at all if it rolls back.
+   *
+   * @param table The table written.
+   * @param id    The ID of the row written, or null if the table is not served by ID.
+   */
+  public void recordChange(Table table, Long id) {
+    AfterCommit.run(() -> tables.get(table).bump(id, clock.millis()));
+  }
+
+  /**
+   * Record a committed change of a book's in-stock value.
+   *
+   * @param event The change.
+   */
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onInventoryChanged(InventoryChangedEvent event) {
+    tables.get(Table.INVENTORY).bump(null, clock.millis());
+  }
+
+  /**
+   * Get the ETag of a whole table, as returned by its collection endpoint.
+   *
+   * @param table The table.
+   * @return The quoted strong ETag.
+   */
+  public String etag(Table table) {
+    return etag(tables.get(table).version());
+  }
+
+  /**
+   * Get the ETag of a row of a table.
+   *
+   * @param table The table.
+   * @param id    The ID of the row.
+   * @return The quoted strong ETag.
+   */
+  public String etag(Table table, Long id) {
+    return etag(tables.get(table).version(id));
+  }
+
+  /**
+   * Get the time of the last change of a table, rounded down to the second.
+   *
+   * @param table The table.
+   * @return The time in milliseconds since the epoch, a whole number of seconds.
+   */
+  public long lastModified(Table table) {
+    return tables.get(table).lastModified();
+  }
+
+  /**
+   * Check the conditional headers of a request against the version of a whole table.
+   *
+   * The ETag and Last-Modified headers are added to the response either way.
+   *
+   * @param request The request.
+   * @param table   The table served.
+   * @return True if the response was set to 304 Not Modified and nothing else must be written.
+   */
+  public boolean checkNotModified(WebRequest request, Table table) {
+    return checkNotModified(request, table, etag(table));
+  }
+
+  /**
+   * Check the conditional headers of a request against the version of a row of a table.
+   *
+   * The Last-Modified date is the one of the whole table, as only the latest change of each
+   * table is dated.
+   *
+   * @param request The request.
+   * @param table   The table served.
+   * @param id      The ID of the row served.
+   * @return True if the response was set to 304 Not Modified and nothing else must be written.
+   */
+  public boolean checkNotModified(WebRequest request, Table table, Long id) {
+    return checkNotModified(request, table, etag(table, id));
+  }
+
+  /**
+   * Check the conditional headers of a request against an ETag and the last change of a table.
+   *
+   * HTTP dates only have a resolution of a second, so a response sent during the second of
+   * the last change could be followed by another change within that second, which
+   * If-Modified-Since could not tell apart. Such responses carry no Last-Modified date and
+   * only If-None-Match is checked.
+   *
+   * @param request The request.
+   * @param table   The table served.
+   * @param etag    The ETag of the resource.
+   * @return True if the response was set to 304 Not Modified.
+   */
+  private boolean checkNotModified(WebRequest request, Table table, String etag) {
+    TableVersion tableVersion = tables.get(table);
+    long now = clock.millis();
+
+    if (replicaLagMonitor != null && now - tableVersion.changedAt() <= replicaLagMonitor.getStalenessBoundMillis()) {
+      return false;
+    }
+
+    long lastModified = tableVersion.lastModified();
+
+    if (lastModified >= toSeconds(now)) {
+      return request.checkNotModified(etag);
+    }
+
+    return request.checkNotModified(etag, lastModified);
+  }
+
+  /**
+   * Build a strong ETag from a version number.
+   *
+   * @param version The version number.
+   * @return The quoted ETag.
+   */
+  private String etag(long version) {
+    return "\"" + epoch + "-" + version + "\"";
+  }
+
+  /**
+   * The change counter of a table, with the version at which each of its rows last changed.
+   *
+   * Rows that have not changed since startup are at version 0.
+   */
+  private static final class TableVersion {
+    private final Map<Long, Long> rowVersions = new ConcurrentHashMap<>();
+    private long version;
+    private long lastModified;
+    private long changedAt;
+
+    /**
+     * Create the counter of a table that has not changed since startup.
+     *
+     * @param now The startup time in milliseconds.
+     */
+    TableVersion(long now) {
+      this.lastModified = toSeconds(now);
+      this.changedAt = now;
+    }
+
+    /**
+     * Move the table, and optionally one of its rows, to the next version.
+     *
+     * @param id  The ID of the row written, or null.
+     * @param now The current time in milliseconds.
+     */
+    synchronized void bump(Long id, long now) {
+      version++;
+      lastModified = Math.max(lastModified, toSeconds(now));
+      changedAt = Math.max(changedAt, now);
+
+      if (id != null) {
+        rowVersions.put(id, version);
+      }
+    }
+
+    /**
+     * Get the current version of the table.
+     *
+     * @return The number of changes since startup.
+     */
+    synchronized long version() {
+      return version;
+    }
+
+    /**
+     * Get the version of the table at which a row last changed.
+     *
+     * @param id The ID of the row.
+     * @return The version, or 0 if the row has not changed since startup.
+     */
+    long version(Long id) {
+      return rowVersions.getOrDefault(id, 0L);
+    }
+
+    /**
+     * Get the time of the last change of the table.
+     *
+     * @return The time in milliseconds, rounded down to the second.
+     */
+    synchronized long lastModified() {
+      return lastModified;
+    }
+
+    /**
+     * Get the exact time of the last change of the table.
+     *
+     * @return The time in milliseconds, or the startup time if the table has not changed.
+     */
+    synchronized long changedAt() {
+      return changedAt;
+    }
+  }
+
+  /**
+   * Round a time down to the second.
+   *
+   * @param millis The time in milliseconds.
+   * @return The time in milliseconds, a whole number of seconds.
+   */
+  private static long toSeconds(long millis) {
+    return millis - millis % 1000;
+  }
+}
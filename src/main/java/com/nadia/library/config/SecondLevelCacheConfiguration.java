@@ -0,0 +1,47 @@
+package com.nadia.library.config;
+
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+
+import java.net.URI;
+import java.util.UUID;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration of the Hibernate second-level cache.
+ *
+ * The cache regions are Caffeine caches whose size limits are set in `application.conf`.
+ * Each application context gets its own cache manager, so cached entities never outlive
+ * the database they were read from (for example between test contexts).
+ */
+@Configuration
+public class SecondLevelCacheConfiguration {
+  /**
+   * Create the JCache manager holding the second-level cache regions.
+   *
+   * @return A Caffeine JCache manager dedicated to this application context.
+   */
+  @Bean(destroyMethod = "close")
+  public CacheManager hibernateCacheManager() {
+    URI managerUri = URI.create("library:hibernate-" + UUID.randomUUID());
+    return Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+      .getCacheManager(managerUri, getClass().getClassLoader());
+  }
+
+  /**
+   * Hand the cache manager over to Hibernate.
+   *
+   * @param hibernateCacheManager The JCache manager holding the second-level cache regions.
+   * @return A customizer adding the cache manager to the Hibernate properties.
+   */
+  @Bean
+  public HibernatePropertiesCustomizer secondLevelCacheCustomizer(CacheManager hibernateCacheManager) {
+    return properties -> properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+  }
+}
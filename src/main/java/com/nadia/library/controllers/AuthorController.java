@@ -1,6 +1,10 @@
 package com.nadia.library.controllers;
 
+import com.nadia.library.conditional.ChangeTracker;
+import com.nadia.library.conditional.ChangeTracker.Table;
+import com.nadia.library.export.CatalogSnapshot;
 import com.nadia.library.models.Author;
+import com.nadia.library.pagination.KeysetPagination;
 import com.nadia.library.services.AuthorService;
 
 import java.util.List;
@@ -9,8 +13,11 @@ import jakarta.validation.Valid;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 /**
  * Controller for handling Author-related operations.
@@ -22,25 +29,76 @@ import org.springframework.web.bind.annotation.*;
 public class AuthorController {
   @Autowired
   private AuthorService authorService;
+  @Autowired
+  private ChangeTracker changeTracker;
+  @Autowired
+  private CatalogSnapshot catalogSnapshot;
 
   /**
-   * Get a list of all authors.
+   * Get a page of authors, ordered by ID.
    *
-   * @return A list of Author entities.
+   * The cursor of the next page is returned in the `X-Next-Cursor` and `Link` headers. Every
+   * page carries the ETag of the whole table, and a matching `If-None-Match` or
+   * `If-Modified-Since` is answered with 304 Not Modified without reading the table.
+   *
+   * @param after   The cursor of the previous page, omitted for the first page.
+   * @param limit   The maximum number of authors to return.
+   * @param request The request, for its conditional headers.
+   * @return A ResponseEntity containing a list of Author entities, or null if not modified.
    */
   @GetMapping("")
-  public List<Author> getAllAuthors() {
-    return authorService.getAllAuthors();
+  public ResponseEntity<List<Author>> getAllAuthors(
+    @RequestParam(required = false) String after,
+    @RequestParam(defaultValue = "" + KeysetPagination.DEFAULT_LIMIT) int limit,
+    WebRequest request
+  ) {
+    if (changeTracker.checkNotModified(request, Table.AUTHOR)) {
+      return null;
+    }
+
+    return authorService.getAllAuthors(after, limit);
+  }
+
+  /**
+   * Export every author as newline-delimited JSON (`Accept: application/x-ndjson`).
+   *
+   * The export is served from its in-memory snapshot when it is up to date (gzipped if the
+   * client accepts it), and otherwise streamed from the database.
+   *
+   * @param request The request, for its conditional and Accept-Encoding headers.
+   * @return A ResponseEntity containing one Author entity per line, or null if not modified.
+   */
+  @GetMapping(value = "", produces = MediaType.APPLICATION_NDJSON_VALUE)
+  public ResponseEntity<?> exportAllAuthors(WebRequest request) {
+    if (changeTracker.checkNotModified(request, Table.AUTHOR)) {
+      return null;
+    }
+
+    ResponseEntity<byte[]> snapshot = catalogSnapshot.respond(Table.AUTHOR, request);
+
+    if (snapshot != null) {
+      return snapshot;
+    }
+
+    StreamingResponseBody body = out -> authorService.exportAllAuthors(out);
+    return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
   }
 
   /**
    * Get an author by their ID.
    *
-   * @param id The ID of the author to retrieve.
-   * @return A ResponseEntity containing the Author entity if found.
+   * The ETag changes whenever this author is written.
+   *
+   * @param id      The ID of the author to retrieve.
+   * @param request The request, for its conditional headers.
+   * @return A ResponseEntity containing the Author entity if found, or null if not modified.
    */
   @GetMapping("/{id}")
-  public ResponseEntity<Author> getAuthorById(@PathVariable("id") Long id) {
+  public ResponseEntity<Author> getAuthorById(@PathVariable("id") Long id, WebRequest request) {
+    if (changeTracker.checkNotModified(request, Table.AUTHOR, id)) {
+      return null;
+    }
+
     return authorService.getAuthorById(id);
   }
 
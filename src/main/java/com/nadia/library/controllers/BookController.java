@@ -1,16 +1,31 @@
 package com.nadia.library.controllers;
 
+import com.nadia.library.conditional.ChangeTracker;
+import com.nadia.library.conditional.ChangeTracker.Table;
+import com.nadia.library.dto.BookImportResult;
+import com.nadia.library.dto.BookSearchHit;
+import com.nadia.library.export.CatalogSnapshot;
+import com.nadia.library.ingest.CatalogReader;
+import com.nadia.library.ingest.CatalogReader.Format;
 import com.nadia.library.models.Book;
+import com.nadia.library.pagination.KeysetPagination;
+import com.nadia.library.search.TitleSearchIndex;
 import com.nadia.library.services.BookService;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 
 import jakarta.validation.Valid;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 /**
  * Controller for handling Book-related operations.
@@ -22,25 +37,92 @@ import org.springframework.web.bind.annotation.*;
 public class BookController {
   @Autowired
   private BookService bookService;
+  @Autowired
+  private ChangeTracker changeTracker;
+  @Autowired
+  private CatalogSnapshot catalogSnapshot;
 
   /**
-   * Get a list of all books.
+   * Get a page of books, ordered by ID.
    *
-   * @return A list of Book entities.
+   * The cursor of the next page is returned in the `X-Next-Cursor` and `Link` headers. Every
+   * page carries the ETag of the whole table, and a matching `If-None-Match` or
+   * `If-Modified-Since` is answered with 304 Not Modified without reading the table.
+   *
+   * @param after   The cursor of the previous page, omitted for the first page.
+   * @param limit   The maximum number of books to return.
+   * @param request The request, for its conditional headers.
+   * @return A ResponseEntity containing a list of Book entities, or null if not modified.
    */
   @GetMapping("")
-  public List<Book> getAllBooks() {
-    return bookService.getAllBooks();
+  public ResponseEntity<List<Book>> getAllBooks(
+    @RequestParam(required = false) String after,
+    @RequestParam(defaultValue = "" + KeysetPagination.DEFAULT_LIMIT) int limit,
+    WebRequest request
+  ) {
+    if (changeTracker.checkNotModified(request, Table.BOOK)) {
+      return null;
+    }
+
+    return bookService.getAllBooks(after, limit);
+  }
+
+  /**
+   * Export every book as newline-delimited JSON (`Accept: application/x-ndjson`).
+   *
+   * The export is served from its in-memory snapshot when it is up to date (gzipped if the
+   * client accepts it). Otherwise the rows are written to the response as they are read from
+   * the database.
+   *
+   * @param request The request, for its conditional and Accept-Encoding headers.
+   * @return A ResponseEntity containing one Book entity per line, or null if not modified.
+   */
+  @GetMapping(value = "", produces = MediaType.APPLICATION_NDJSON_VALUE)
+  public ResponseEntity<?> exportAllBooks(WebRequest request) {
+    if (changeTracker.checkNotModified(request, Table.BOOK)) {
+      return null;
+    }
+
+    ResponseEntity<byte[]> snapshot = catalogSnapshot.respond(Table.BOOK, request);
+
+    if (snapshot != null) {
+      return snapshot;
+    }
+
+    StreamingResponseBody body = out -> bookService.exportAllBooks(out);
+    return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+  }
+
+  /**
+   * Search books by words of their title or of their author's name, most relevant first.
+   *
+   * @param q     The search query; its last word also matches as a prefix.
+   * @param limit The maximum number of books to return.
+   * @return A ResponseEntity containing the matching books and their scores.
+   */
+  @GetMapping("/search")
+  public ResponseEntity<List<BookSearchHit>> searchBooks(
+    @RequestParam String q,
+    @RequestParam(defaultValue = "" + TitleSearchIndex.DEFAULT_LIMIT) int limit
+  ) {
+    return bookService.searchBooks(q, limit);
   }
 
   /**
    * Get a book by its ID.
    *
-   * @param id The ID of the book to retrieve.
-   * @return A ResponseEntity containing the Book entity if found.
+   * The ETag changes whenever this book is written.
+   *
+   * @param id      The ID of the book to retrieve.
+   * @param request The request, for its conditional headers.
+   * @return A ResponseEntity containing the Book entity if found, or null if not modified.
    */
   @GetMapping("/{id}")
-  public ResponseEntity<Book> getBookById(@PathVariable("id") Long id) {
+  public ResponseEntity<Book> getBookById(@PathVariable("id") Long id, WebRequest request) {
+    if (changeTracker.checkNotModified(request, Table.BOOK, id)) {
+      return null;
+    }
+
     return bookService.getBookById(id);
   }
 
@@ -55,6 +137,25 @@ public class BookController {
     return bookService.addBook(book);
   }
 
+  /**
+   * Import books from a CSV (`text/csv`) or NDJSON (`application/x-ndjson`) upload.
+   *
+   * The upload is read as it arrives, one book per line. Copies of books that already exist
+   * are added to their inventory; other books are created.
+   *
+   * @param contentType The Content-Type of the upload, for its format.
+   * @param body        The upload.
+   * @return A ResponseEntity containing the numbers of books and copies added and the rejected rows.
+   * @throws IOException If reading the upload fails.
+   */
+  @PostMapping(value = "/import", consumes = {CatalogReader.TEXT_CSV_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+  public ResponseEntity<BookImportResult> importBooks(
+    @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+    InputStream body
+  ) throws IOException {
+    return bookService.importBooks(body, Format.of(contentType));
+  }
+
   /**
    * Update an existing Book by its ID.
    *
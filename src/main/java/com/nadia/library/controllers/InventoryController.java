@@ -1,6 +1,9 @@
 package com.nadia.library.controllers;
 
+import com.nadia.library.conditional.ChangeTracker;
+import com.nadia.library.conditional.ChangeTracker.Table;
 import com.nadia.library.models.Inventory;
+import com.nadia.library.pagination.KeysetPagination;
 import com.nadia.library.services.InventoryService;
 
 import java.util.List;
@@ -8,8 +11,11 @@ import java.util.List;
 import jakarta.validation.Valid;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 /**
  * Controller for handling Inventory-related operations.
@@ -21,25 +27,64 @@ import org.springframework.web.bind.annotation.*;
 public class InventoryController {
   @Autowired
   private InventoryService inventoryService;
+  @Autowired
+  private ChangeTracker changeTracker;
 
   /**
-   * Get a list of all inventory items.
+   * Get a page of inventory items, ordered by ID.
+   *
+   * The cursor of the next page is returned in the `X-Next-Cursor` and `Link` headers. Every
+   * page carries the ETag of the whole table, and a matching `If-None-Match` or
+   * `If-Modified-Since` is answered with 304 Not Modified without reading the table.
    *
-   * @return A list of Inventory entities.
+   * @param after   The cursor of the previous page, omitted for the first page.
+   * @param limit   The maximum number of inventory items to return.
+   * @param request The request, for its conditional headers.
+   * @return A ResponseEntity containing a list of Inventory entities, or null if not modified.
    */
   @GetMapping("")
-  public List<Inventory> getAllInventory() {
-    return inventoryService.getAllInventory();
+  public ResponseEntity<List<Inventory>> getAllInventory(
+    @RequestParam(required = false) String after,
+    @RequestParam(defaultValue = "" + KeysetPagination.DEFAULT_LIMIT) int limit,
+    WebRequest request
+  ) {
+    if (changeTracker.checkNotModified(request, Table.INVENTORY)) {
+      return null;
+    }
+
+    return inventoryService.getAllInventory(after, limit);
+  }
+
+  /**
+   * Follow the in-stock values of some books as Server-Sent Events.
+   *
+   * The current value of each book is sent first, then each committed change as an
+   * `inventory` event carrying the inventory item.
+   *
+   * @param bookIds The IDs of the books to follow (at most 100).
+   * @return A ResponseEntity containing the event stream.
+   */
+  @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public ResponseEntity<SseEmitter> streamInventory(@RequestParam List<Long> bookIds) {
+    return inventoryService.streamInventory(bookIds);
   }
 
   /**
    * Get an inventory item by its ID.
    *
-   * @param id The ID of the inventory item to retrieve.
-   * @return A ResponseEntity containing the Inventory entity if found.
+   * Stock changes are tracked by book rather than by inventory item, so the ETag is the one of
+   * the whole table.
+   *
+   * @param id      The ID of the inventory item to retrieve.
+   * @param request The request, for its conditional headers.
+   * @return A ResponseEntity containing the Inventory entity if found, or null if not modified.
    */
   @GetMapping("/{id}")
-  public ResponseEntity<Inventory> getInventoryItemById(@PathVariable("id") Long id) {
+  public ResponseEntity<Inventory> getInventoryItemById(@PathVariable("id") Long id, WebRequest request) {
+    if (changeTracker.checkNotModified(request, Table.INVENTORY)) {
+      return null;
+    }
+
     return inventoryService.getInventoryItemById(id);
   }
 
@@ -0,0 +1,53 @@
+package com.nadia.library.controllers;
+
+import com.nadia.library.dto.LedgerDrift;
+import com.nadia.library.models.CirculationEvent;
+import com.nadia.library.pagination.KeysetPagination;
+import com.nadia.library.services.LedgerService;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Controller for reading the circulation ledger.
+ *
+ * A controller class exposing the history of books and the consistency of the inventory with the ledger.
+ */
+@RestController
+@RequestMapping("/ledger")
+public class LedgerController {
+  @Autowired
+  private LedgerService ledgerService;
+
+  /**
+   * Get a page of the circulation events of a book (checkouts, renewals, returns and stock adjustments), oldest first.
+   *
+   * The cursor of the next page is returned in the `X-Next-Cursor` and `Link` headers.
+   *
+   * @param bookId The ID of the book.
+   * @param after  The cursor of the previous page, omitted for the first page.
+   * @param limit  The maximum number of events to return.
+   * @return A ResponseEntity containing a list of CirculationEvent entities.
+   */
+  @GetMapping("/books/{bookId}")
+  public ResponseEntity<List<CirculationEvent>> getBookHistory(
+    @PathVariable("bookId") Long bookId,
+    @RequestParam(required = false) String after,
+    @RequestParam(defaultValue = "" + KeysetPagination.DEFAULT_LIMIT) int limit
+  ) {
+    return ledgerService.getBookHistory(bookId, after, limit);
+  }
+
+  /**
+   * Get the books whose inventory or loan count differs from the state rebuilt from the ledger.
+   *
+   * @return A ResponseEntity containing the books that drifted.
+   */
+  @GetMapping("/drift")
+  public ResponseEntity<List<LedgerDrift>> getDrift() {
+    return ledgerService.getDrift();
+  }
+}
@@ -1,6 +1,9 @@
 package com.nadia.library.controllers;
 
+import com.nadia.library.dto.BatchLoanRequest;
+import com.nadia.library.dto.BatchLoanResult;
 import com.nadia.library.models.Loan;
+import com.nadia.library.pagination.KeysetPagination;
 import com.nadia.library.services.LoanService;
 
 import java.util.List;
@@ -8,9 +11,12 @@ import java.util.List;
 import jakarta.validation.Valid;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 /**
  * Controller for handling Loan-related operations.
@@ -24,24 +30,48 @@ public class LoanController {
   private LoanService loanService;
 
   /**
-   * Get a list of all loans.
+   * Get a page of loans, ordered by ID.
    *
-   * @return A list of Loan entities.
+   * The cursor of the next page is returned in the `X-Next-Cursor` and `Link` headers.
+   *
+   * @param after The cursor of the previous page, omitted for the first page.
+   * @param limit The maximum number of loans to return.
+   * @return A ResponseEntity containing a list of Loan entities.
    */
   @GetMapping("")
-  public List<Loan> getAllLoans() {
-    return loanService.getAllLoans();
+  public ResponseEntity<List<Loan>> getAllLoans(
+    @RequestParam(required = false) String after,
+    @RequestParam(defaultValue = "" + KeysetPagination.DEFAULT_LIMIT) int limit
+  ) {
+    return loanService.getAllLoans(after, limit);
   }
 
+  /**
+   * Export every loan as newline-delimited JSON (`Accept: application/x-ndjson`).
+   *
+   * The rows are written to the response as they are read from the database.
+   *
+   * @return A ResponseEntity streaming one Loan entity per line.
+   */
+  @GetMapping(value = "", produces = MediaType.APPLICATION_NDJSON_VALUE)
+  public ResponseEntity<StreamingResponseBody> exportAllLoans() {
+    StreamingResponseBody body = out -> loanService.exportAllLoans(out);
+    return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+  }
 
   /**
-   * Get a list of all late loans.
+   * Get a page of late loans, oldest first.
    *
+   * @param loanLength The number of days a book can be kept before the loan is late.
+   * @param pageable   The page to retrieve (`page` and `size` query parameters).
    * @return A list of late Loan entities.
    */
   @GetMapping("/late")
-  public List<Loan> getAllLateLoans() {
-    return loanService.getAllLateLoans();
+  public List<Loan> getAllLateLoans(
+    @RequestParam(defaultValue = "" + LoanService.DEFAULT_LOAN_LENGTH) int loanLength,
+    Pageable pageable
+  ) {
+    return loanService.getAllLateLoans(loanLength, pageable);
   }
 
   /**
@@ -66,6 +96,17 @@ public class LoanController {
     return loanService.createLoan(loan);
   }
 
+  /**
+   * Create loans for several books borrowed by the same user at once.
+   *
+   * @param request The user ID and the IDs of the books to loan.
+   * @return A ResponseEntity containing the result for each requested book.
+   */
+  @PostMapping("/batch")
+  public ResponseEntity<List<BatchLoanResult>> createLoans(@Valid @RequestBody BatchLoanRequest request) {
+    return loanService.createLoans(request);
+  }
+
   /**
    * Renew an existing loan by its ID (if renewable).
    *
@@ -1,6 +1,8 @@
 package com.nadia.library.controllers;
 
+import com.nadia.library.dto.UserLoan;
 import com.nadia.library.models.User;
+import com.nadia.library.pagination.KeysetPagination;
 import com.nadia.library.services.UserService;
 
 import java.util.List;
@@ -24,13 +26,20 @@ public class UserController {
   private UserService userService;
 
   /**
-   * Get a list of all users.
+   * Get a page of users, ordered by ID.
    *
-   * @return A list of User entities.
+   * The cursor of the next page is returned in the `X-Next-Cursor` and `Link` headers.
+   *
+   * @param after The cursor of the previous page, omitted for the first page.
+   * @param limit The maximum number of users to return.
+   * @return A ResponseEntity containing a list of User entities.
    */
   @GetMapping("")
-  public List<User> getAllUsers() {
-    return userService.getAllUsers();
+  public ResponseEntity<List<User>> getAllUsers(
+    @RequestParam(required = false) String after,
+    @RequestParam(defaultValue = "" + KeysetPagination.DEFAULT_LIMIT) int limit
+  ) {
+    return userService.getAllUsers(after, limit);
   }
 
   /**
@@ -44,6 +53,25 @@ public class UserController {
     return userService.getUserById(id);
   }
 
+  /**
+   * Get a page of the loans of a user, oldest first.
+   *
+   * The cursor of the next page is returned in the `X-Next-Cursor` and `Link` headers.
+   *
+   * @param id    The ID of the user.
+   * @param after The cursor of the previous page, omitted for the first page.
+   * @param limit The maximum number of loans to return.
+   * @return A ResponseEntity containing the loans of the user.
+   */
+  @GetMapping("/{id}/loans")
+  public ResponseEntity<List<UserLoan>> getUserLoans(
+    @PathVariable("id") Long id,
+    @RequestParam(required = false) String after,
+    @RequestParam(defaultValue = "" + KeysetPagination.DEFAULT_LIMIT) int limit
+  ) {
+    return userService.getUserLoans(id, after, limit);
+  }
+
   /**
    * Create a new User.
    *
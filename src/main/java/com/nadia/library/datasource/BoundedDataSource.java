@@ -0,0 +1,161 @@
+package com.nadia.library.datasource;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * A data source that lets at most a fixed number of threads hold a connection at once.
+ *
+ * Threads wait for a permit in FIFO order before asking the connection pool for a connection,
+ * and give it back when they close the connection. When too many threads are already waiting,
+ * or a permit does not become free in time, getConnection fails fast instead of queuing more
+ * work for the database. This matters with virtual threads, which are cheap enough that
+ * thousands of requests can reach the pool at the same time.
+ */
+public class BoundedDataSource extends DelegatingDataSource {
+  private final Semaphore permits;
+  private final int maxWaiting;
+  private final long timeoutNanos;
+
+  /**
+   * Wrap a data source.
+   *
+   * @param target     The data source to limit (usually the connection pool).
+   * @param permits    The largest number of connections held at once.
+   * @param maxWaiting The largest number of threads waiting for a connection.
+   * @param timeout    How long to wait for a connection before failing.
+   */
+  public BoundedDataSource(DataSource target, int permits, int maxWaiting, Duration timeout) {
+    super(target);
+    this.permits = new Semaphore(permits, true);
+    this.maxWaiting = maxWaiting;
+    this.timeoutNanos = timeout.toNanos();
+  }
+
+  /**
+   * Get a connection once a permit is free.
+   *
+   * @return A connection that gives its permit back when closed.
+   * @throws SQLException If too many threads are waiting, the wait times out or the pool fails.
+   */
+  @Override
+  public Connection getConnection() throws SQLException {
+    acquire();
+    return withPermit(() -> obtainTargetDataSource().getConnection());
+  }
+
+  /**
+   * Get a connection for the given user once a permit is free.
+   *
+   * @param username The database user.
+   * @param password The password of the user.
+   * @return A connection that gives its permit back when closed.
+   * @throws SQLException If too many threads are waiting, the wait times out or the pool fails.
+   */
+  @Override
+  public Connection getConnection(String username, String password) throws SQLException {
+    acquire();
+    return withPermit(() -> obtainTargetDataSource().getConnection(username, password));
+  }
+
+  /**
+   * Get the number of permits currently free.
+   *
+   * @return The number of connections that can be taken without waiting.
+   */
+  public int getAvailablePermits() {
+    return permits.availablePermits();
+  }
+
+  /**
+   * Get the number of threads waiting for a permit.
+   *
+   * @return The number of waiting threads (an estimate).
+   */
+  public int getWaitingThreads() {
+    return permits.getQueueLength();
+  }
+
+  /**
+   * Take a permit, waiting up to the timeout.
+   *
+   * @throws SQLException If too many threads are waiting, the wait times out or is interrupted.
+   */
+  private void acquire() throws SQLException {
+    if (permits.tryAcquire()) {
+      return;
+    }
+
+    if (permits.getQueueLength() >= maxWaiting) {
+      throw new SQLTransientConnectionException("Too many threads waiting for a database connection");
+    }
+
+    try {
+      if (!permits.tryAcquire(timeoutNanos, TimeUnit.NANOSECONDS)) {
+        throw new SQLTransientConnectionException("Timed out waiting for a database connection");
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new SQLTransientConnectionException("Interrupted while waiting for a database connection", e);
+    }
+  }
+
+  /**
+   * Open a connection while holding a permit, and tie the permit to the connection.
+   *
+   * @param opener Opens the connection from the target data source.
+   * @return A connection that gives its permit back the first time it is closed.
+   * @throws SQLException If the connection cannot be opened; the permit is then given back.
+   */
+  private Connection withPermit(ConnectionOpener opener) throws SQLException {
+    Connection connection;
+
+    try {
+      connection = opener.open();
+    } catch (SQLException | RuntimeException e) {
+      permits.release();
+      throw e;
+    }
+
+    AtomicBoolean released = new AtomicBoolean();
+    return (Connection) Proxy.newProxyInstance(
+        Connection.class.getClassLoader(),
+        new Class<?>[] {Connection.class},
+        (proxy, method, args) -> {
+          if (method.getName().equals("close") && released.compareAndSet(false, true)) {
+            try {
+              return method.invoke(connection, args);
+            } catch (InvocationTargetException e) {
+              throw e.getCause();
+            } finally {
+              permits.release();
+            }
+          }
+
+          try {
+            return method.invoke(connection, args);
+          } catch (InvocationTargetException e) {
+            throw e.getCause();
+          }
+        });
+  }
+
+  /**
+   * Opens a connection from the target data source.
+   */
+  @FunctionalInterface
+  private interface ConnectionOpener {
+    Connection open() throws SQLException;
+  }
+}
@@ -0,0 +1,74 @@
+package com.nadia.library.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import java.time.Duration;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+/**
+ * Puts a BoundedDataSource in front of the Hikari connection pool.
+ *
+ * Enabled with `library.datasource.limiter.enabled=true`, which is recommended together with
+ * virtual threads. By default as many threads as the pool has connections may hold one, and
+ * threads wait for a connection as long as Hikari's `connectionTimeout`.
+ */
+@Configuration
+@ConditionalOnProperty(name = "library.datasource.limiter.enabled", havingValue = "true")
+public class DataSourceLimiterConfiguration {
+  /**
+   * Wrap every HikariDataSource bean in a BoundedDataSource.
+   *
+   * @param environment The application properties.
+   * @return The bean post-processor.
+   */
+  @Bean
+  static BeanPostProcessor boundedDataSourcePostProcessor(Environment environment) {
+    return new BeanPostProcessor() {
+      @Override
+      public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!(bean instanceof HikariDataSource pool)) {
+          return bean;
+        }
+
+        int permits = environment.getProperty("library.datasource.limiter.permits", Integer.class, pool.getMaximumPoolSize());
+        int maxWaiting = environment.getProperty("library.datasource.limiter.max-waiting", Integer.class, 10_000);
+        Duration timeout = environment.getProperty(
+            "library.datasource.limiter.timeout", Duration.class, Duration.ofMillis(pool.getConnectionTimeout()));
+        return new BoundedDataSource(pool, permits, maxWaiting, timeout);
+      }
+    };
+  }
+
+  /**
+   * Publish the free permits and the waiting threads of each limiter as gauges, tagged with
+   * the name of the data source bean (there are two pools when a read replica is configured).
+   *
+   * @param dataSources The data sources of the application, by bean name.
+   * @return The meter binder.
+   */
+  @Bean
+  MeterBinder boundedDataSourceMetrics(Map<String, DataSource> dataSources) {
+    return registry -> dataSources.forEach((name, dataSource) -> {
+      if (dataSource instanceof BoundedDataSource limiter) {
+        Gauge.builder("library.datasource.limiter.available", limiter, BoundedDataSource::getAvailablePermits)
+            .description("Database connections that can be taken without waiting")
+            .tag("name", name)
+            .register(registry);
+        Gauge.builder("library.datasource.limiter.waiting", limiter, BoundedDataSource::getWaitingThreads)
+            .description("Threads waiting for a database connection")
+            .tag("name", name)
+            .register(registry);
+      }
+    });
+  }
+}
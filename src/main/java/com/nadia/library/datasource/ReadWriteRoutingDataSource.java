@@ -0,0 +1,58 @@
+package com.nadia.library.datasource;
+
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * A data source that sends read-only transactions to a replica and everything else to the primary.
+ *
+ * The route is chosen when a connection is requested, so this data source must be wrapped in
+ * a LazyConnectionDataSourceProxy: transaction managers ask for the connection before the
+ * transaction is marked read-only. Reads go to the primary while the replica is unusable
+ * (not reachable, or lagging too far behind).
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+  /**
+   * The data sources a connection can come from.
+   */
+  public enum Route {
+    PRIMARY,
+    REPLICA
+  }
+
+  private final BooleanSupplier replicaUsable;
+
+  /**
+   * Route between two data sources.
+   *
+   * @param primary       The data source that accepts writes.
+   * @param replica       The read-only copy.
+   * @param replicaUsable Tells whether the replica is currently fresh enough to read from.
+   */
+  public ReadWriteRoutingDataSource(DataSource primary, DataSource replica, BooleanSupplier replicaUsable) {
+    this.replicaUsable = replicaUsable;
+    setTargetDataSources(Map.of(Route.PRIMARY, primary, Route.REPLICA, replica));
+    setDefaultTargetDataSource(primary);
+    setLenientFallback(false);
+    afterPropertiesSet();
+  }
+
+  /**
+   * Choose the data source of the next connection.
+   *
+   * @return REPLICA inside a read-only transaction when the replica is usable, PRIMARY otherwise.
+   */
+  @Override
+  protected Route determineCurrentLookupKey() {
+    if (TransactionSynchronizationManager.isCurrentTransactionReadOnly() && replicaUsable.getAsBoolean()) {
+      return Route.REPLICA;
+    }
+
+    return Route.PRIMARY;
+  }
+}
@@ -0,0 +1,160 @@
+package com.nadia.library.datasource;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Measures how far a replica is behind the primary, using a heartbeat row.
+ *
+ * Each check writes the current time to the `replica_heartbeat` table of the primary and
+ * reads it back from the replica: the difference with the current time is the replication
+ * lag (plus at most one check interval). This works with any database and replication setup,
+ * as long as the table is replicated. The replica is usable while the lag is within the
+ * tolerance; it is not usable before the first successful check, nor when it cannot be read.
+ *
+ * The checks run on a thread of their own, so that a long scheduled job cannot delay them. The
+ * replica is also not usable once the last successful check is older than the tolerance,
+ * whatever the lag it measured: the replica may have fallen behind since.
+ */
+public class ReplicaLagMonitor {
+  private static final Logger log = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+
+  private final JdbcTemplate primary;
+  private final JdbcTemplate replica;
+  private final Duration maxLag;
+  private final Duration checkInterval;
+  private final Clock clock;
+  private volatile long lagMillis = -1;
+  private volatile long checkedAt;
+  private volatile boolean usable;
+  private ScheduledExecutorService scheduler;
+
+  /**
+   * Monitor a replica.
+   *
+   * @param primary The primary data source, where the heartbeat is written.
+   * @param replica The replica data source, where the heartbeat is read.
+   * @param maxLag        The largest lag at which the replica is still read from.
+   * @param checkInterval The delay between the end of a check and the start of the next one.
+   * @param clock         The clock of the heartbeat.
+   */
+  public ReplicaLagMonitor(DataSource primary, DataSource replica, Duration maxLag, Duration checkInterval, Clock clock) {
+    this.primary = new JdbcTemplate(primary);
+    this.replica = new JdbcTemplate(replica);
+    this.maxLag = maxLag;
+    this.checkInterval = checkInterval;
+    this.clock = clock;
+  }
+
+  /**
+   * Start checking the lag on the monitor's own thread.
+   */
+  public void start() {
+    scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+      Thread thread = new Thread(task, "replica-lag-monitor");
+      thread.setDaemon(true);
+      return thread;
+    });
+    scheduler.scheduleWithFixedDelay(() -> {
+      try {
+        check();
+      } catch (RuntimeException e) {
+        log.warn("Could not check the replica lag", e);
+      }
+    }, 0, checkInterval.toMillis(), TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Stop checking the lag.
+   */
+  public void stop() {
+    if (scheduler != null) {
+      scheduler.shutdownNow();
+    }
+  }
+
+  /**
+   * Create the heartbeat table on the primary if it does not exist.
+   */
+  public void createHeartbeatTable() {
+    primary.execute("CREATE TABLE IF NOT EXISTS replica_heartbeat (id INT PRIMARY KEY, beat_at BIGINT NOT NULL)");
+  }
+
+  /**
+   * Write a heartbeat to the primary and measure the lag of the replica.
+   */
+  public void check() {
+    long now = clock.millis();
+
+    try {
+      if (primary.update("UPDATE replica_heartbeat SET beat_at = ? WHERE id = 1", now) == 0) {
+        primary.update("INSERT INTO replica_heartbeat (id, beat_at) VALUES (1, ?)", now);
+      }
+    } catch (DataAccessException e) {
+      log.warn("Could not write the replica heartbeat to the primary: {}", e.getMessage());
+    }
+
+    try {
+      Long beatAt = replica.queryForObject("SELECT MAX(beat_at) FROM replica_heartbeat", Long.class);
+      lagMillis = beatAt == null ? -1 : Math.max(0, now - beatAt);
+      checkedAt = now;
+    } catch (DataAccessException e) {
+      lagMillis = -1;
+    }
+
+    boolean wasUsable = usable;
+    usable = lagMillis >= 0 && lagMillis <= maxLag.toMillis();
+
+    if (wasUsable != usable) {
+      log.info("Replica is now {} (lag: {}ms)", usable ? "used for reads" : "skipped, reads go to the primary", lagMillis);
+    }
+  }
+
+  /**
+   * Check if reads can be sent to the replica.
+   *
+   * @return True if the last check found the replica within the lag tolerance, and is recent enough to rely on.
+   */
+  public boolean isReplicaUsable() {
+    return usable && clock.millis() - checkedAt <= maxLag.toMillis();
+  }
+
+  /**
+   * Get how far behind the primary a read sent now may be.
+   *
+   * The lag cannot have grown faster than time since the last check, so a usable replica is
+   * at most the measured lag plus the age of the check behind. When the replica is not
+   * usable, reads go to the primary, but it may become usable again before the read is
+   * routed, so the tolerance itself is returned.
+   *
+   * @return The bound in milliseconds.
+   */
+  public long getStalenessBoundMillis() {
+    long sinceCheck = clock.millis() - checkedAt;
+
+    if (usable && sinceCheck <= maxLag.toMillis()) {
+      return lagMillis + sinceCheck;
+    }
+
+    return maxLag.toMillis();
+  }
+
+  /**
+   * Get the lag of the replica measured by the last check.
+   *
+   * @return The lag in milliseconds, or -1 if the replica could not be read.
+   */
+  public long getLagMillis() {
+    return lagMillis;
+  }
+}
@@ -0,0 +1,116 @@
+package com.nadia.library.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import java.time.Clock;
+import java.time.Duration;
+
+import javax.sql.DataSource;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+/**
+ * Splits reads and writes between the primary database and a read replica.
+ *
+ * Enabled by setting `library.datasource.replica.jdbc-url`. The primary pool is configured by
+ * the usual `spring.datasource.*` properties and the replica pool by
+ * `library.datasource.replica.*` (Hikari property names: `jdbc-url`, `username`, `password`,
+ * `maximum-pool-size`...). Connections of read-only transactions come from the replica while
+ * its lag is within `library.datasource.replica.max-lag`; all others come from the primary.
+ */
+@Configuration
+@ConditionalOnProperty("library.datasource.replica.jdbc-url")
+public class ReplicaRoutingConfiguration {
+  /**
+   * The connection pool of the primary database.
+   *
+   * @param properties The `spring.datasource.*` properties.
+   * @return The pool.
+   */
+  @Bean
+  @ConfigurationProperties("spring.datasource.hikari")
+  HikariDataSource primaryDataSource(DataSourceProperties properties) {
+    HikariDataSource pool = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    pool.setPoolName("primary");
+    return pool;
+  }
+
+  /**
+   * The connection pool of the replica, whose connections are read-only.
+   *
+   * @return The pool.
+   */
+  @Bean
+  @ConfigurationProperties("library.datasource.replica")
+  HikariDataSource replicaDataSource() {
+    HikariDataSource pool = new HikariDataSource();
+    pool.setPoolName("replica");
+    pool.setReadOnly(true);
+    return pool;
+  }
+
+  /**
+   * The monitor of the replication lag.
+   *
+   * @param primary The primary pool.
+   * @param replica The replica pool.
+   * @param environment The application properties.
+   * @return The monitor, with the heartbeat table created.
+   */
+  @Bean(initMethod = "start", destroyMethod = "stop")
+  ReplicaLagMonitor replicaLagMonitor(
+    @Qualifier("primaryDataSource") DataSource primary,
+    @Qualifier("replicaDataSource") DataSource replica,
+    Environment environment
+  ) {
+    Binder binder = Binder.get(environment);
+    Duration maxLag = binder.bind("library.datasource.replica.max-lag", Duration.class).orElse(Duration.ofSeconds(5));
+    Duration checkInterval = Duration.ofMillis(binder.bind("library.datasource.replica.lag-check-interval-ms", Long.class).orElse(1000L));
+    ReplicaLagMonitor monitor = new ReplicaLagMonitor(primary, replica, maxLag, checkInterval, Clock.systemUTC());
+    monitor.createHeartbeatTable();
+    return monitor;
+  }
+
+  /**
+   * The data source used by the application, routing each connection to the primary or the replica.
+   *
+   * @param primary The primary pool.
+   * @param replica The replica pool.
+   * @param monitor The monitor of the replication lag.
+   * @return The routing data source.
+   */
+  @Bean
+  @Primary
+  DataSource dataSource(
+    @Qualifier("primaryDataSource") DataSource primary,
+    @Qualifier("replicaDataSource") DataSource replica,
+    ReplicaLagMonitor monitor
+  ) {
+    return new LazyConnectionDataSourceProxy(new ReadWriteRoutingDataSource(primary, replica, monitor::isReplicaUsable));
+  }
+
+  /**
+   * Publish the replication lag as a gauge.
+   *
+   * @param monitor The monitor of the replication lag.
+   * @return The meter binder.
+   */
+  @Bean
+  MeterBinder replicaLagMetrics(ReplicaLagMonitor monitor) {
+    return registry -> Gauge.builder("library.datasource.replica.lag", monitor, ReplicaLagMonitor::getLagMillis)
+        .description("Replication lag of the read replica (-1 if it cannot be read)")
+        .baseUnit("milliseconds")
+        .register(registry);
+  }
+}
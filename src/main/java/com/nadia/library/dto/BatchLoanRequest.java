@@ -0,0 +1,82 @@
+package com.nadia.library.dto;
+
+import java.util.List;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+/**
+ * Represents a request to loan several books to the same user at once.
+ */
+public class BatchLoanRequest {
+  /**
+   * The largest number of books that can be loaned in one request.
+   */
+  public static final int MAX_BOOKS = 50;
+
+  /**
+   * The ID of the user who borrows the books.
+   */
+  @NotNull(message = "`userId` is a mandatory field: must not be null")
+  private Long userId;
+
+  /**
+   * The IDs of the books to loan, one entry per copy.
+   */
+  @NotEmpty(message = "`bookIds` is a mandatory field: must contain at least one book ID")
+  @Size(max = MAX_BOOKS, message = "`bookIds` can't contain more than " + MAX_BOOKS + " book IDs")
+  private List<@NotNull Long> bookIds;
+
+  /**
+   * Default constructor for the BatchLoanRequest class.
+   */
+  public BatchLoanRequest() {}
+
+  /**
+   * Constructor to create a BatchLoanRequest with a user ID and book IDs.
+   *
+   * @param userId  The ID of the user who borrows the books.
+   * @param bookIds The IDs of the books to loan.
+   */
+  public BatchLoanRequest(Long userId, List<Long> bookIds) {
+    this.userId = userId;
+    this.bookIds = bookIds;
+  }
+
+  /**
+   * Get the ID of the user who borrows the books.
+   *
+   * @return The user ID.
+   */
+  public Long getUserId() {
+    return userId;
+  }
+
+  /**
+   * Set the ID of the user who borrows the books.
+   *
+   * @param userId The user ID.
+   */
+  public void setUserId(Long userId) {
+    this.userId = userId;
+  }
+
+  /**
+   * Get the IDs of the books to loan.
+   *
+   * @return The book IDs.
+   */
+  public List<Long> getBookIds() {
+    return bookIds;
+  }
+
+  /**
+   * Set the IDs of the books to loan.
+   *
+   * @param bookIds The book IDs.
+   */
+  public void setBookIds(List<Long> bookIds) {
+    this.bookIds = bookIds;
+  }
+}
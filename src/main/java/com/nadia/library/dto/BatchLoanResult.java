@@ -0,0 +1,66 @@
+package com.nadia.library.dto;
+
+import com.nadia.library.models.Loan;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * Represents the result of loaning one book of a batch loan request.
+ */
+public class BatchLoanResult {
+  /**
+   * The ID of the requested book.
+   */
+  private final Long bookId;
+
+  /**
+   * The outcome for this book, using the same statuses as a single loan creation
+   * (CREATED, BAD_REQUEST if the book does not exist, FORBIDDEN if no copy is in stock).
+   */
+  private final HttpStatus status;
+
+  /**
+   * The created loan, or null if the book could not be loaned.
+   */
+  private final Loan loan;
+
+  /**
+   * Constructor to create a BatchLoanResult.
+   *
+   * @param bookId The ID of the requested book.
+   * @param status The outcome for this book.
+   * @param loan   The created loan, or null if the book could not be loaned.
+   */
+  public BatchLoanResult(Long bookId, HttpStatus status, Loan loan) {
+    this.bookId = bookId;
+    this.status = status;
+    this.loan = loan;
+  }
+
+  /**
+   * Get the ID of the requested book.
+   *
+   * @return The book ID.
+   */
+  public Long getBookId() {
+    return bookId;
+  }
+
+  /**
+   * Get the outcome for this book.
+   *
+   * @return The HTTP status of the outcome.
+   */
+  public HttpStatus getStatus() {
+    return status;
+  }
+
+  /**
+   * Get the created loan.
+   *
+   * @return The created Loan entity, or null if the book could not be loaned.
+   */
+  public Loan getLoan() {
+    return loan;
+  }
+}
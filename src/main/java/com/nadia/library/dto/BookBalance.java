@@ -0,0 +1,27 @@
+package com.nadia.library.dto;
+
+/**
+ * Projection of the net effect of circulation events on one book.
+ */
+public interface BookBalance {
+  /**
+   * Get the ID of the book.
+   *
+   * @return The book ID.
+   */
+  Long getBookId();
+
+  /**
+   * Get the net change of the number of copies in stock.
+   *
+   * @return The sum of the stock changes.
+   */
+  Long getStockDelta();
+
+  /**
+   * Get the net change of the number of copies on loan.
+   *
+   * @return The number of checkouts minus the number of returns.
+   */
+  Long getLoanDelta();
+}
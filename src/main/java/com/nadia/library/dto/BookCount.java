@@ -0,0 +1,20 @@
+package com.nadia.library.dto;
+
+/**
+ * Projection of a number of rows per book.
+ */
+public interface BookCount {
+  /**
+   * Get the ID of the book.
+   *
+   * @return The book ID.
+   */
+  Long getBookId();
+
+  /**
+   * Get the number of rows for the book.
+   *
+   * @return The count.
+   */
+  Long getCount();
+}
@@ -0,0 +1,94 @@
+package com.nadia.library.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Represents the outcome of a catalog import.
+ */
+public class BookImportResult {
+  /**
+   * The largest number of error messages returned; further rejected rows are only counted.
+   */
+  public static final int MAX_ERRORS = 100;
+
+  /**
+   * The number of books created.
+   */
+  private long booksCreated;
+
+  /**
+   * The number of copies added, to new and existing books.
+   */
+  private long copiesAdded;
+
+  /**
+   * The number of rows that could not be imported.
+   */
+  private long rowsRejected;
+
+  /**
+   * The reasons of the first rows rejected, prefixed with their line number.
+   */
+  private final List<String> errors = new ArrayList<>();
+
+  /**
+   * Record the books and copies added by a chunk of rows.
+   *
+   * @param booksCreated The number of books created.
+   * @param copiesAdded  The number of copies added.
+   */
+  public void addImported(long booksCreated, long copiesAdded) {
+    this.booksCreated += booksCreated;
+    this.copiesAdded += copiesAdded;
+  }
+
+  /**
+   * Record that a row could not be imported.
+   *
+   * @param error The reason, prefixed with the line number.
+   */
+  public void reject(String error) {
+    rowsRejected++;
+
+    if (errors.size() < MAX_ERRORS) {
+      errors.add(error);
+    }
+  }
+
+  /**
+   * Get the number of books created.
+   *
+   * @return The number of books.
+   */
+  public long getBooksCreated() {
+    return booksCreated;
+  }
+
+  /**
+   * Get the number of copies added.
+   *
+   * @return The number of copies.
+   */
+  public long getCopiesAdded() {
+    return copiesAdded;
+  }
+
+  /**
+   * Get the number of rows that could not be imported.
+   *
+   * @return The number of rows.
+   */
+  public long getRowsRejected() {
+    return rowsRejected;
+  }
+
+  /**
+   * Get the reasons of the first rows rejected.
+   *
+   * @return At most MAX_ERRORS messages, in the order the rows were rejected.
+   */
+  public List<String> getErrors() {
+    return errors;
+  }
+}
@@ -0,0 +1,119 @@
+package com.nadia.library.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+/**
+ * Represents one row of a catalog import: copies of a book, identified by its author and title.
+ */
+public class BookImportRow {
+  /**
+   * The ID of the author of the book.
+   */
+  private Long authorId;
+
+  /**
+   * The title of the book.
+   */
+  private String title;
+
+  /**
+   * The number of copies received, 1 if omitted.
+   */
+  private Integer copies;
+
+  /**
+   * The line of the upload the row was read from, for error messages.
+   */
+  @JsonIgnore
+  private long line;
+
+  /**
+   * Default constructor for the BookImportRow class.
+   */
+  public BookImportRow() {}
+
+  /**
+   * Constructor to create a BookImportRow.
+   *
+   * @param authorId The ID of the author of the book.
+   * @param title    The title of the book.
+   * @param copies   The number of copies received, or null for 1.
+   */
+  public BookImportRow(Long authorId, String title, Integer copies) {
+    this.authorId = authorId;
+    this.title = title;
+    this.copies = copies;
+  }
+
+  /**
+   * Get the ID of the author of the book.
+   *
+   * @return The author ID.
+   */
+  public Long getAuthorId() {
+    return authorId;
+  }
+
+  /**
+   * Set the ID of the author of the book.
+   *
+   * @param authorId The author ID.
+   */
+  public void setAuthorId(Long authorId) {
+    this.authorId = authorId;
+  }
+
+  /**
+   * Get the title of the book.
+   *
+   * @return The title.
+   */
+  public String getTitle() {
+    return title;
+  }
+
+  /**
+   * Set the title of the book.
+   *
+   * @param title The title.
+   */
+  public void setTitle(String title) {
+    this.title = title;
+  }
+
+  /**
+   * Get the number of copies received.
+   *
+   * @return The number of copies, or null for 1.
+   */
+  public Integer getCopies() {
+    return copies;
+  }
+
+  /**
+   * Set the number of copies received.
+   *
+   * @param copies The number of copies, or null for 1.
+   */
+  public void setCopies(Integer copies) {
+    this.copies = copies;
+  }
+
+  /**
+   * Get the line of the upload the row was read from.
+   *
+   * @return The line number, starting at 1.
+   */
+  public long getLine() {
+    return line;
+  }
+
+  /**
+   * Set the line of the upload the row was read from.
+   *
+   * @param line The line number, starting at 1.
+   */
+  public void setLine(long line) {
+    this.line = line;
+  }
+}
@@ -0,0 +1,93 @@
+package com.nadia.library.dto;
+
+/**
+ * Represents a book matching a title search, with its relevance score.
+ */
+public class BookSearchHit {
+  /**
+   * The ID of the matching book.
+   */
+  private final Long bookId;
+
+  /**
+   * The ID of the author of the book.
+   */
+  private final Long authorId;
+
+  /**
+   * The title of the book.
+   */
+  private final String title;
+
+  /**
+   * The name of the author of the book, or null if it is unknown.
+   */
+  private final String authorName;
+
+  /**
+   * The BM25 relevance score of the book for the query (higher is more relevant).
+   */
+  private final double score;
+
+  /**
+   * Constructor to create a BookSearchHit.
+   *
+   * @param bookId     The ID of the matching book.
+   * @param authorId   The ID of the author of the book.
+   * @param title      The title of the book.
+   * @param authorName The name of the author of the book.
+   * @param score      The relevance score of the book.
+   */
+  public BookSearchHit(Long bookId, Long authorId, String title, String authorName, double score) {
+    this.bookId = bookId;
+    this.authorId = authorId;
+    this.title = title;
+    this.authorName = authorName;
+    this.score = score;
+  }
+
+  /**
+   * Get the ID of the matching book.
+   *
+   * @return The book ID.
+   */
+  public Long getBookId() {
+    return bookId;
+  }
+
+  /**
+   * Get the ID of the author of the book.
+   *
+   * @return The author ID.
+   */
+  public Long getAuthorId() {
+    return authorId;
+  }
+
+  /**
+   * Get the title of the book.
+   *
+   * @return The title.
+   */
+  public String getTitle() {
+    return title;
+  }
+
+  /**
+   * Get the name of the author of the book.
+   *
+   * @return The author name, or null if it is unknown.
+   */
+  public String getAuthorName() {
+    return authorName;
+  }
+
+  /**
+   * Get the relevance score of the book.
+   *
+   * @return The BM25 score.
+   */
+  public double getScore() {
+    return score;
+  }
+}
@@ -0,0 +1,34 @@
+package com.nadia.library.dto;
+
+/**
+ * Projection of a book with the name of its author, as read to build the title search index.
+ */
+public interface BookTitle {
+  /**
+   * Get the ID of the book.
+   *
+   * @return The book ID.
+   */
+  Long getId();
+
+  /**
+   * Get the ID of the author of the book.
+   *
+   * @return The author ID.
+   */
+  Long getAuthorId();
+
+  /**
+   * Get the title of the book.
+   *
+   * @return The title.
+   */
+  String getTitle();
+
+  /**
+   * Get the name of the author of the book.
+   *
+   * @return The author name, or null if the author does not exist.
+   */
+  String getAuthorName();
+}
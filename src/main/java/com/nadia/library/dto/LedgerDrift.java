@@ -0,0 +1,93 @@
+package com.nadia.library.dto;
+
+/**
+ * Represents a book whose inventory or loans disagree with the circulation ledger.
+ */
+public class LedgerDrift {
+  /**
+   * The ID of the book.
+   */
+  private final Long bookId;
+
+  /**
+   * The number of copies in stock according to the ledger.
+   */
+  private final long ledgerInStock;
+
+  /**
+   * The number of copies in stock according to the inventory table.
+   */
+  private final long inventoryInStock;
+
+  /**
+   * The number of copies on loan according to the ledger.
+   */
+  private final long ledgerActiveLoans;
+
+  /**
+   * The number of copies on loan according to the loan table.
+   */
+  private final long activeLoans;
+
+  /**
+   * Constructor to create a LedgerDrift.
+   *
+   * @param bookId            The ID of the book.
+   * @param ledgerInStock     The number of copies in stock according to the ledger.
+   * @param inventoryInStock  The number of copies in stock according to the inventory table.
+   * @param ledgerActiveLoans The number of copies on loan according to the ledger.
+   * @param activeLoans       The number of copies on loan according to the loan table.
+   */
+  public LedgerDrift(Long bookId, long ledgerInStock, long inventoryInStock, long ledgerActiveLoans, long activeLoans) {
+    this.bookId = bookId;
+    this.ledgerInStock = ledgerInStock;
+    this.inventoryInStock = inventoryInStock;
+    this.ledgerActiveLoans = ledgerActiveLoans;
+    this.activeLoans = activeLoans;
+  }
+
+  /**
+   * Get the ID of the book.
+   *
+   * @return The book ID.
+   */
+  public Long getBookId() {
+    return bookId;
+  }
+
+  /**
+   * Get the number of copies in stock according to the ledger.
+   *
+   * @return The ledger stock.
+   */
+  public long getLedgerInStock() {
+    return ledgerInStock;
+  }
+
+  /**
+   * Get the number of copies in stock according to the inventory table.
+   *
+   * @return The inventory stock.
+   */
+  public long getInventoryInStock() {
+    return inventoryInStock;
+  }
+
+  /**
+   * Get the number of copies on loan according to the ledger.
+   *
+   * @return The ledger loan count.
+   */
+  public long getLedgerActiveLoans() {
+    return ledgerActiveLoans;
+  }
+
+  /**
+   * Get the number of copies on loan according to the loan table.
+   *
+   * @return The loan count.
+   */
+  public long getActiveLoans() {
+    return activeLoans;
+  }
+}
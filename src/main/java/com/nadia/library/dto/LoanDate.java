@@ -0,0 +1,22 @@
+package com.nadia.library.dto;
+
+import java.time.LocalDate;
+
+/**
+ * Projection of the date of a loan.
+ */
+public interface LoanDate {
+  /**
+   * Get the ID of the loan.
+   *
+   * @return The loan ID.
+   */
+  Long getId();
+
+  /**
+   * Get the date on which the book was loaned (or the loan was last renewed).
+   *
+   * @return The loan date.
+   */
+  LocalDate getLoanDate();
+}
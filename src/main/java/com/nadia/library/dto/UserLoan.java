@@ -0,0 +1,41 @@
+package com.nadia.library.dto;
+
+import com.nadia.library.models.Loan.Status;
+
+import java.time.LocalDate;
+
+/**
+ * Projection of a loan as listed for its borrower.
+ *
+ * Every column is part of the `(userId, loanDate, bookId, status)` index, so the rows are
+ * read from the index alone.
+ */
+public interface UserLoan {
+  /**
+   * Get the ID of the loan.
+   *
+   * @return The loan ID.
+   */
+  Long getId();
+
+  /**
+   * Get the ID of the borrowed book.
+   *
+   * @return The book ID.
+   */
+  Long getBookId();
+
+  /**
+   * Get the status of the loan.
+   *
+   * @return NEW_LOAN or RENEWAL.
+   */
+  Status getStatus();
+
+  /**
+   * Get the date on which the book was loaned (or the loan was last renewed).
+   *
+   * @return The loan date.
+   */
+  LocalDate getLoanDate();
+}
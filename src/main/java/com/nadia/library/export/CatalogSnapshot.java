@@ -0,0 +1,197 @@
+package com.nadia.library.export;
+
+import com.nadia.library.conditional.ChangeTracker;
+import com.nadia.library.conditional.ChangeTracker.Table;
+import com.nadia.library.repositories.AuthorRepository;
+import com.nadia.library.repositories.BookRepository;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.WebRequest;
+
+/**
+ * Keeps the NDJSON exports of the books and authors tables serialized in memory.
+ *
+ * Each snapshot holds the bytes of the export, plain and gzipped, with the ETag of the table
+ * when it was read. Every refresh interval, the snapshots whose table has changed since are
+ * rebuilt in the background, so several writes in a row cost a single rebuild. A snapshot is
+ * only served while its ETag is the current one: until it is rebuilt, exports are streamed
+ * from the database as before.
+ */
+@Component
+public class CatalogSnapshot {
+  @Autowired
+  private BookRepository bookRepository;
+
+  @Autowired
+  private AuthorRepository authorRepository;
+
+  @Autowired
+  private NdjsonWriter ndjsonWriter;
+
+  @Autowired
+  private ChangeTracker changeTracker;
+
+  @Autowired
+  private PlatformTransactionManager transactionManager;
+
+  @Value("${library.catalog.snapshot.enabled:true}")
+  private boolean enabled = true;
+
+  private final Map<Table, Snapshot> snapshots = new ConcurrentHashMap<>();
+  private volatile boolean ready;
+
+  /**
+   * A serialized export of a table.
+   *
+   * @param etag    The ETag of the table when it was read.
+   * @param plain   The NDJSON bytes.
+   * @param gzipped The same bytes, gzipped.
+   */
+  record Snapshot(String etag, byte[] plain, byte[] gzipped) {}
+
+  /**
+   * Allow snapshots to be built once the application is ready, after the data loaded at
+   * startup without going through the services.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void start() {
+    ready = true;
+  }
+
+  /**
+   * Rebuild the snapshots of the tables that changed since they were taken.
+   *
+   * Each table is read in its own transaction: reading the books leaves proxies of their
+   * authors in the persistence context, which the authors query would return instead of
+   * the entities. The transactions are not read-only so that rows are read from the primary:
+   * a snapshot read from a lagging replica would be served until the next change of its table.
+   */
+  @Scheduled(fixedDelayString = "${library.catalog.snapshot.refresh-interval-ms:1000}")
+  public void refresh() {
+    if (!enabled || !ready) {
+      return;
+    }
+
+    TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+    transaction.executeWithoutResult(status -> refresh(Table.BOOK, bookRepository::streamAll));
+    transaction.executeWithoutResult(status -> refresh(Table.AUTHOR, authorRepository::streamAll));
+  }
+
+  /**
+   * Build the response of an export from its snapshot, if the snapshot is up to date.
+   *
+   * The gzipped bytes are sent to clients that accept them. The ETag and Last-Modified
+   * headers are expected to be set already by the conditional request check.
+   *
+   * @param table   The table exported.
+   * @param request The request, for its Accept-Encoding header.
+   * @return A ResponseEntity containing the serialized rows, or null if there is no current snapshot.
+   */
+  public ResponseEntity<byte[]> respond(Table table, WebRequest request) {
+    Snapshot snapshot = snapshots.get(table);
+
+    if (snapshot == null || !snapshot.etag().equals(changeTracker.etag(table))) {
+      return null;
+    }
+
+    ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+        .contentType(MediaType.APPLICATION_NDJSON)
+        .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+
+    if (acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING))) {
+      return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(snapshot.gzipped());
+    }
+
+    return response.body(snapshot.plain());
+  }
+
+  /**
+   * Rebuild the snapshot of a table if the table changed since it was taken.
+   *
+   * The ETag is read before the rows: if the table changes while they are read, the
+   * snapshot is labelled with an older ETag than its content, is not served, and is rebuilt
+   * at the next refresh.
+   *
+   * @param table The table.
+   * @param rows  Opens a stream of the rows of the table.
+   */
+  private void refresh(Table table, Supplier<Stream<?>> rows) {
+    String etag = changeTracker.etag(table);
+    Snapshot snapshot = snapshots.get(table);
+
+    if (snapshot != null && snapshot.etag().equals(etag)) {
+      return;
+    }
+
+    ByteArrayOutputStream plain = new ByteArrayOutputStream();
+
+    try (Stream<?> stream = rows.get()) {
+      ndjsonWriter.write(stream, plain);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+
+    byte[] bytes = plain.toByteArray();
+    snapshots.put(table, new Snapshot(etag, bytes, gzip(bytes)));
+  }
+
+  /**
+   * Check whether an Accept-Encoding header allows gzip.
+   *
+   * @param acceptEncoding The header value, or null.
+   * @return True if gzip is listed and not refused with `q=0`.
+   */
+  static boolean acceptsGzip(String acceptEncoding) {
+    if (acceptEncoding == null) {
+      return false;
+    }
+
+    for (String coding : acceptEncoding.split(",")) {
+      String[] parts = coding.trim().split(";");
+
+      if (parts[0].trim().equalsIgnoreCase("gzip")) {
+        return parts.length == 1 || !parts[1].replace(" ", "").matches("q=0(\\.0*)?");
+      }
+    }
+
+    return false;
+  }
+
+  /**
+   * Gzip some bytes.
+   *
+   * @param bytes The bytes to compress.
+   * @return The compressed bytes.
+   */
+  private static byte[] gzip(byte[] bytes) {
+    ByteArrayOutputStream compressed = new ByteArrayOutputStream(bytes.length / 4 + 64);
+
+    try (OutputStream out = new GZIPOutputStream(compressed)) {
+      out.write(bytes);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+
+    return compressed.toByteArray();
+  }
+}
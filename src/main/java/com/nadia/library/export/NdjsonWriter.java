@@ -0,0 +1,77 @@
+package com.nadia.library.export;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Writes rows to an output stream as newline-delimited JSON (NDJSON).
+ *
+ * Rows are serialized one at a time as they are read from the stream and detached from the
+ * persistence context once written, so memory use does not grow with the number of rows.
+ */
+@Component
+public class NdjsonWriter {
+  /**
+   * The number of rows written between two flushes of the output stream.
+   */
+  private static final int FLUSH_INTERVAL = 1000;
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  @PersistenceContext
+  private EntityManager entityManager;
+
+  /**
+   * Write every row of a stream as one JSON document per line.
+   *
+   * Must be called inside the transaction that opened the stream.
+   *
+   * @param rows The rows to write.
+   * @param out  The output stream to write to (left open).
+   * @param <T>  The type of the rows.
+   * @return The number of rows written.
+   * @throws IOException If writing to the output stream fails.
+   */
+  public <T> long write(Stream<T> rows, OutputStream out) throws IOException {
+    ObjectWriter rowWriter = objectMapper.writer()
+      .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+      .withRootValueSeparator("\n");
+    JsonGenerator generator = rowWriter.createGenerator(out);
+    generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+    long count = 0;
+    Iterator<T> iterator = rows.iterator();
+
+    while (iterator.hasNext()) {
+      T row = iterator.next();
+      rowWriter.writeValue(generator, row);
+      entityManager.detach(row);
+      count++;
+
+      if (count % FLUSH_INTERVAL == 0) {
+        generator.flush();
+      }
+    }
+
+    if (count > 0) {
+      generator.writeRaw('\n');
+    }
+
+    generator.close();
+    return count;
+  }
+}
@@ -0,0 +1,216 @@
+package com.nadia.library.index;
+
+import com.nadia.library.dto.LoanDate;
+import com.nadia.library.repositories.LoanRepository;
+import com.nadia.library.transaction.AfterCommit;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+import jakarta.annotation.PostConstruct;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * In-memory index of the open loans, bucketed by loan day.
+ *
+ * The number of days a book can be kept is a parameter of each lookup, so the buckets are
+ * keyed by loan date rather than by due date: the loans late for a given length are those in
+ * the buckets before `today - length`, visited oldest first. A lookup therefore only touches
+ * the late loans up to the end of the requested page, whatever the number of open loans.
+ *
+ * The index is loaded once the application is ready and kept up to date by LoanService.
+ * Changes made inside a transaction are applied when it commits, so a rolled back loan is
+ * never listed. Searches share a read lock; updates take the write lock.
+ */
+@Component
+public class DueDateIndex {
+  @Autowired
+  private LoanRepository loanRepository;
+
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+  private final NavigableMap<LocalDate, NavigableSet<Long>> buckets = new TreeMap<>();
+  private final Map<Long, LocalDate> loanDates = new HashMap<>();
+  private volatile boolean loaded;
+
+  /**
+   * Publish the number of indexed loans as a gauge.
+   */
+  @PostConstruct
+  void registerMetrics() {
+    Gauge.builder("library.due.index.loans", this, DueDateIndex::size)
+        .description("Number of loans in the due-date index")
+        .register(meterRegistry);
+  }
+
+  /**
+   * Load the date of every loan from the database.
+   *
+   * Loans created, renewed or returned while loading are recorded by `put` and `remove` as usual.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  @Transactional(readOnly = true)
+  public void load() {
+    try (Stream<LoanDate> loans = loanRepository.streamLoanDates()) {
+      loans.forEach(loan -> putNow(loan.getId(), loan.getLoanDate()));
+    }
+
+    loaded = true;
+  }
+
+  /**
+   * Check if the index has been loaded.
+   *
+   * @return True once every loan has been loaded from the database, false before.
+   */
+  public boolean isLoaded() {
+    return loaded;
+  }
+
+  /**
+   * Record the date of a new or renewed loan.
+   *
+   * @param loanId   The ID of the loan.
+   * @param loanDate The date on which the book was loaned.
+   */
+  public void put(Long loanId, LocalDate loanDate) {
+    AfterCommit.run(() -> putNow(loanId, loanDate));
+  }
+
+  /**
+   * Record that a loan has ended.
+   *
+   * @param loanId The ID of the loan.
+   */
+  public void remove(Long loanId) {
+    AfterCommit.run(() -> removeNow(loanId));
+  }
+
+  /**
+   * Find a page of the loans made before a given date, oldest first (then by ID).
+   *
+   * @param cutoff The date before which the loans were made (exclusive).
+   * @param offset The number of late loans to skip.
+   * @param limit  The maximum number of loan IDs to return.
+   * @return The IDs of the late loans of the page, in order.
+   */
+  public List<Long> findLoanedBefore(LocalDate cutoff, long offset, int limit) {
+    List<Long> loanIds = new ArrayList<>(Math.min(limit, 1024));
+    long skipped = 0;
+
+    lock.readLock().lock();
+    try {
+      for (NavigableSet<Long> bucket : buckets.headMap(cutoff, false).values()) {
+        if (skipped + bucket.size() <= offset) {
+          skipped += bucket.size();
+          continue;
+        }
+
+        for (Long loanId : bucket) {
+          if (skipped < offset) {
+            skipped++;
+            continue;
+          }
+
+          loanIds.add(loanId);
+
+          if (loanIds.size() == limit) {
+            return loanIds;
+          }
+        }
+      }
+    } finally {
+      lock.readLock().unlock();
+    }
+
+    return loanIds;
+  }
+
+  /**
+   * Get the number of indexed loans.
+   *
+   * @return The number of loans.
+   */
+  public int size() {
+    lock.readLock().lock();
+    try {
+      return loanDates.size();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Add a loan, or move it to another day, taking the write lock.
+   *
+   * @param loanId   The ID of the loan.
+   * @param loanDate The date on which the book was loaned.
+   */
+  private void putNow(Long loanId, LocalDate loanDate) {
+    if (loanId == null || loanDate == null) {
+      return;
+    }
+
+    lock.writeLock().lock();
+    try {
+      removeLocked(loanId);
+      buckets.computeIfAbsent(loanDate, day -> new TreeSet<>()).add(loanId);
+      loanDates.put(loanId, loanDate);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Remove a loan if it is indexed, taking the write lock.
+   *
+   * @param loanId The ID of the loan.
+   */
+  private void removeNow(Long loanId) {
+    lock.writeLock().lock();
+    try {
+      removeLocked(loanId);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Remove a loan if it is indexed. The write lock must be held.
+   *
+   * @param loanId The ID of the loan.
+   */
+  private void removeLocked(Long loanId) {
+    LocalDate loanDate = loanDates.remove(loanId);
+
+    if (loanDate == null) {
+      return;
+    }
+
+    NavigableSet<Long> bucket = buckets.get(loanDate);
+    bucket.remove(loanId);
+
+    if (bucket.isEmpty()) {
+      buckets.remove(loanDate);
+    }
+  }
+}
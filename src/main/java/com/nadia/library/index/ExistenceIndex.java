@@ -0,0 +1,192 @@
+package com.nadia.library.index;
+
+import com.nadia.library.repositories.AuthorRepository;
+import com.nadia.library.repositories.BookRepository;
+import com.nadia.library.repositories.UserRepository;
+import com.nadia.library.transaction.AfterCommit;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import jakarta.annotation.PostConstruct;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * In-memory index of the IDs of existing books, users and authors.
+ *
+ * The index is loaded once the application is ready and is kept up to date by the services
+ * that create and delete those entities, so most existence checks never reach the database.
+ * Their changes are applied once their transaction commits, so a rolled back creation or
+ * deletion leaves the index as it was.
+ * Until loading has finished, and for IDs too large for the bitmap, checks fall back to the
+ * repositories.
+ */
+@Component
+public class ExistenceIndex {
+  /**
+   * The kinds of entities whose IDs are indexed.
+   */
+  public enum Kind {
+    BOOK,
+    USER,
+    AUTHOR
+  }
+
+  @Autowired
+  private BookRepository bookRepository;
+
+  @Autowired
+  private UserRepository userRepository;
+
+  @Autowired
+  private AuthorRepository authorRepository;
+
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  private final Map<Kind, IdBitmap> bitmaps = new EnumMap<>(Kind.class);
+  private volatile boolean loaded;
+
+  /**
+   * Create an empty bitmap for each kind of entity.
+   */
+  public ExistenceIndex() {
+    for (Kind kind : Kind.values()) {
+      bitmaps.put(kind, new IdBitmap());
+    }
+  }
+
+  /**
+   * Publish the number of indexed IDs and the memory used by each bitmap as gauges.
+   */
+  @PostConstruct
+  void registerMetrics() {
+    bitmaps.forEach((kind, ids) -> {
+      String tag = kind.name().toLowerCase();
+      Gauge.builder("library.existence.index.ids", ids, IdBitmap::size)
+          .description("Number of IDs in the existence index")
+          .tag("kind", tag)
+          .register(meterRegistry);
+      Gauge.builder("library.existence.index.bytes", ids, IdBitmap::sizeInBytes)
+          .description("Memory used by the existence index bitmap")
+          .baseUnit("bytes")
+          .tag("kind", tag)
+          .register(meterRegistry);
+    });
+  }
+
+  /**
+   * Load the IDs of every book, user and author from the database.
+   *
+   * Entities created or deleted while loading are recorded by `add` and `remove` as usual.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  @Transactional(readOnly = true)
+  public void load() {
+    load(Kind.BOOK, bookRepository.streamAllIds());
+    load(Kind.USER, userRepository.streamAllIds());
+    load(Kind.AUTHOR, authorRepository.streamAllIds());
+    loaded = true;
+  }
+
+  /**
+   * Check if the index has been loaded.
+   *
+   * @return True once every ID has been loaded from the database, false before.
+   */
+  public boolean isLoaded() {
+    return loaded;
+  }
+
+  /**
+   * Check if an entity with the given ID exists.
+   *
+   * @param kind The kind of entity to look for.
+   * @param id   The ID of the entity.
+   * @return True if the entity exists, false otherwise.
+   */
+  public boolean exists(Kind kind, Long id) {
+    if (id == null) {
+      return false;
+    }
+
+    IdBitmap ids = bitmaps.get(kind);
+
+    if (loaded && ids.covers(id)) {
+      return ids.contains(id);
+    }
+
+    return existsInDatabase(kind, id);
+  }
+
+  /**
+   * Record that an entity has been created, once the current transaction commits.
+   *
+   * @param kind The kind of entity created.
+   * @param id   The ID of the new entity.
+   */
+  public void add(Kind kind, Long id) {
+    if (id != null) {
+      AfterCommit.run(() -> bitmaps.get(kind).add(id));
+    }
+  }
+
+  /**
+   * Record that an entity has been deleted, once the current transaction commits.
+   *
+   * @param kind The kind of entity deleted.
+   * @param id   The ID of the deleted entity.
+   */
+  public void remove(Kind kind, Long id) {
+    if (id != null) {
+      AfterCommit.run(() -> bitmaps.get(kind).remove(id));
+    }
+  }
+
+  /**
+   * Get the number of indexed IDs of a kind of entity.
+   *
+   * @param kind The kind of entity.
+   * @return The number of IDs in the index.
+   */
+  public long size(Kind kind) {
+    return bitmaps.get(kind).size();
+  }
+
+  /**
+   * Add every ID of a stream to the bitmap of a kind of entity, then close the stream.
+   *
+   * @param kind The kind of entity the IDs belong to.
+   * @param ids  The IDs to add.
+   */
+  private void load(Kind kind, Stream<Long> ids) {
+    IdBitmap bitmap = bitmaps.get(kind);
+
+    try (ids) {
+      ids.forEach(bitmap::add);
+    }
+  }
+
+  /**
+   * Check in the database if an entity with the given ID exists.
+   *
+   * @param kind The kind of entity to look for.
+   * @param id   The ID of the entity.
+   * @return True if the entity exists, false otherwise.
+   */
+  private boolean existsInDatabase(Kind kind, Long id) {
+    return switch (kind) {
+      case BOOK -> bookRepository.existsById(id);
+      case USER -> userRepository.existsById(id);
+      case AUTHOR -> authorRepository.existsById(id);
+    };
+  }
+}
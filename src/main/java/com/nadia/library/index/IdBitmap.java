@@ -0,0 +1,135 @@
+package com.nadia.library.index;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A compact, thread-safe set of non-negative IDs stored as a bitmap (one bit per ID).
+ *
+ * IDs generated from a sequence are dense, so a bitmap takes far less memory than a set of
+ * boxed Longs and a lookup is a single array read. Lookups never lock; additions and removals
+ * are serialized, because the bitmap may have to grow. IDs beyond `MAX_ID` are not covered
+ * and must be checked elsewhere.
+ */
+public class IdBitmap {
+  /**
+   * The number of 64-bit words allocated at first (enough for IDs up to 65535).
+   */
+  private static final int INITIAL_WORDS = 1024;
+
+  /**
+   * The largest number of 64-bit words the bitmap may grow to (32 MiB).
+   */
+  private static final int MAX_WORDS = 1 << 22;
+
+  /**
+   * The largest ID the bitmap can hold.
+   */
+  public static final long MAX_ID = (long) MAX_WORDS * Long.SIZE - 1;
+
+  private volatile AtomicLongArray words = new AtomicLongArray(INITIAL_WORDS);
+  private long size;
+
+  /**
+   * Check if an ID is in the range this bitmap can hold.
+   *
+   * @param id The ID to check.
+   * @return True if the ID is between 0 and MAX_ID, false otherwise.
+   */
+  public boolean covers(long id) {
+    return id >= 0 && id <= MAX_ID;
+  }
+
+  /**
+   * Check if an ID is in the set.
+   *
+   * @param id The ID to look up.
+   * @return True if the ID was added (and not removed since), false otherwise.
+   */
+  public boolean contains(long id) {
+    if (!covers(id)) {
+      return false;
+    }
+
+    AtomicLongArray current = words;
+    int wordIndex = (int) (id >>> 6);
+    return wordIndex < current.length() && (current.get(wordIndex) & (1L << id)) != 0;
+  }
+
+  /**
+   * Add an ID to the set. IDs that are not covered are ignored.
+   *
+   * @param id The ID to add.
+   */
+  public synchronized void add(long id) {
+    if (!covers(id)) {
+      return;
+    }
+
+    int wordIndex = (int) (id >>> 6);
+    ensureCapacity(wordIndex);
+    long previous = words.getAndUpdate(wordIndex, word -> word | (1L << id));
+
+    if ((previous & (1L << id)) == 0) {
+      size++;
+    }
+  }
+
+  /**
+   * Remove an ID from the set.
+   *
+   * @param id The ID to remove.
+   */
+  public synchronized void remove(long id) {
+    if (!covers(id) || (id >>> 6) >= words.length()) {
+      return;
+    }
+
+    long previous = words.getAndUpdate((int) (id >>> 6), word -> word & ~(1L << id));
+
+    if ((previous & (1L << id)) != 0) {
+      size--;
+    }
+  }
+
+  /**
+   * Get the number of IDs in the set.
+   *
+   * @return The number of IDs in the set.
+   */
+  public synchronized long size() {
+    return size;
+  }
+
+  /**
+   * Get the memory used by the bitmap words.
+   *
+   * @return The size of the bitmap in bytes.
+   */
+  public long sizeInBytes() {
+    return (long) words.length() * Long.BYTES;
+  }
+
+  /**
+   * Grow the bitmap (doubling its size) until it holds the given word.
+   *
+   * @param wordIndex The index of the word that must exist.
+   */
+  private void ensureCapacity(int wordIndex) {
+    AtomicLongArray current = words;
+
+    if (wordIndex < current.length()) {
+      return;
+    }
+
+    int newLength = current.length();
+    while (newLength <= wordIndex) {
+      newLength = Math.min(newLength * 2, MAX_WORDS);
+    }
+
+    AtomicLongArray grown = new AtomicLongArray(newLength);
+    for (int i = 0; i < current.length(); i++) {
+      grown.set(i, current.get(i));
+    }
+    words = grown;
+  }
+}
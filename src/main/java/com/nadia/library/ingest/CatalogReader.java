@@ -0,0 +1,331 @@
+package com.nadia.library.ingest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nadia.library.dto.BookImportRow;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reads catalog uploads as chunks of rows, parsed in parallel and handed over in order.
+ *
+ * The calling thread reads the upload line by line and cuts it into chunks, which are parsed
+ * on a fixed pool of workers. Parsed chunks are handed to the caller's consumer on the
+ * calling thread, in upload order, so it can write them one after the other. At most twice
+ * as many chunks as there are workers are read ahead of the consumer: when it falls behind,
+ * reading stops, and the client is slowed down by the connection instead of the upload
+ * being buffered in memory.
+ *
+ * Two formats are read, both with one book per line:
+ * <ul>
+ *   <li>CSV (`text/csv`): `authorId,title[,copies]`, with an optional header line; titles
+ *   containing commas or quotes are quoted, with quotes doubled.</li>
+ *   <li>NDJSON (`application/x-ndjson`): `{"authorId": 1, "title": "...", "copies": 2}`.</li>
+ * </ul>
+ */
+@Component
+public class CatalogReader {
+  /**
+   * The media type of CSV uploads.
+   */
+  public static final String TEXT_CSV_VALUE = "text/csv";
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  @Value("${library.catalog.import.chunk-size:1000}")
+  private int chunkSize = 1000;
+
+  @Value("${library.catalog.import.threads:4}")
+  private int threads = 4;
+
+  private ExecutorService parsers;
+
+  /**
+   * The format of an upload.
+   */
+  public enum Format {
+    CSV,
+    NDJSON;
+
+    /**
+     * Get the format of an upload from its content type.
+     *
+     * @param contentType The Content-Type header of the upload.
+     * @return NDJSON for `application/x-ndjson`, CSV otherwise.
+     */
+    public static Format of(String contentType) {
+      return MediaType.APPLICATION_NDJSON.isCompatibleWith(MediaType.parseMediaType(contentType)) ? NDJSON : CSV;
+    }
+  }
+
+  /**
+   * A chunk of an upload, parsed.
+   *
+   * @param rows   The valid rows, in upload order.
+   * @param errors The reasons the other rows were rejected, prefixed with their line number.
+   */
+  public record Chunk(List<BookImportRow> rows, List<String> errors) {}
+
+  /**
+   * Start the parsing workers.
+   */
+  @PostConstruct
+  void start() {
+    parsers = Executors.newFixedThreadPool(threads);
+  }
+
+  /**
+   * Stop the parsing workers.
+   */
+  @PreDestroy
+  void stop() {
+    parsers.shutdownNow();
+  }
+
+  /**
+   * Read an upload, handing each parsed chunk to a consumer, in order, on the calling thread.
+   *
+   * If the consumer throws, reading stops and the chunks parsed ahead are discarded.
+   *
+   * @param in     The upload.
+   * @param format The format of the upload.
+   * @param writer The consumer of the parsed chunks.
+   * @throws IOException If reading the upload fails.
+   */
+  public void read(InputStream in, Format format, Consumer<Chunk> writer) throws IOException {
+    BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+    Deque<Future<Chunk>> parsing = new ArrayDeque<>();
+    List<String> lines = new ArrayList<>(chunkSize);
+    long firstLine = 1;
+    long lineNumber = 0;
+    String line;
+
+    try {
+      while ((line = reader.readLine()) != null) {
+        lineNumber++;
+        lines.add(line);
+
+        if (lines.size() < chunkSize) {
+          continue;
+        }
+
+        parsing.add(submit(lines, firstLine, format));
+        lines = new ArrayList<>(chunkSize);
+        firstLine = lineNumber + 1;
+
+        while (parsing.size() > threads * 2) {
+          writer.accept(await(parsing.poll()));
+        }
+      }
+
+      if (!lines.isEmpty()) {
+        parsing.add(submit(lines, firstLine, format));
+      }
+
+      while (!parsing.isEmpty()) {
+        writer.accept(await(parsing.poll()));
+      }
+    } finally {
+      parsing.forEach(chunk -> chunk.cancel(true));
+    }
+  }
+
+  /**
+   * Parse a chunk of lines on the workers.
+   *
+   * @param lines     The lines of the chunk.
+   * @param firstLine The line number of the first line.
+   * @param format    The format of the lines.
+   * @return The parsed chunk, once parsed.
+   */
+  private Future<Chunk> submit(List<String> lines, long firstLine, Format format) {
+    return parsers.submit(() -> parse(lines, firstLine, format));
+  }
+
+  /**
+   * Wait for a chunk to be parsed.
+   *
+   * @param chunk The chunk being parsed.
+   * @return The parsed chunk.
+   */
+  private static Chunk await(Future<Chunk> chunk) {
+    try {
+      return chunk.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while parsing an import", e);
+    } catch (ExecutionException e) {
+      throw e.getCause() instanceof RuntimeException cause ? cause : new IllegalStateException("Failed to parse an import", e.getCause());
+    }
+  }
+
+  /**
+   * Parse a chunk of lines, skipping blank lines and the CSV header.
+   *
+   * @param lines     The lines of the chunk.
+   * @param firstLine The line number of the first line.
+   * @param format    The format of the lines.
+   * @return The parsed chunk.
+   */
+  Chunk parse(List<String> lines, long firstLine, Format format) {
+    List<BookImportRow> rows = new ArrayList<>(lines.size());
+    List<String> errors = new ArrayList<>();
+
+    for (int i = 0; i < lines.size(); i++) {
+      String line = lines.get(i);
+      long lineNumber = firstLine + i;
+
+      if (line.isBlank() || (lineNumber == 1 && format == Format.CSV && isCsvHeader(line))) {
+        continue;
+      }
+
+      try {
+        BookImportRow row = format == Format.CSV ? parseCsv(line) : objectMapper.readValue(line, BookImportRow.class);
+        String error = validate(row);
+
+        if (error != null) {
+          errors.add("line " + lineNumber + ": " + error);
+          continue;
+        }
+
+        row.setLine(lineNumber);
+        rows.add(row);
+      } catch (JsonProcessingException | IllegalArgumentException e) {
+        errors.add("line " + lineNumber + ": cannot be parsed");
+      }
+    }
+
+    return new Chunk(rows, errors);
+  }
+
+  /**
+   * Check the fields of a row, defaulting its number of copies to 1.
+   *
+   * @param row The row.
+   * @return The reason the row is invalid, or null if it is valid.
+   */
+  private static String validate(BookImportRow row) {
+    if (row == null) {
+      return "not a JSON object";
+    }
+
+    if (row.getAuthorId() == null) {
+      return "`authorId` is a mandatory field";
+    }
+
+    if (row.getTitle() == null || row.getTitle().isBlank()) {
+      return "`title` is a mandatory field";
+    }
+
+    if (row.getCopies() == null) {
+      row.setCopies(1);
+    } else if (row.getCopies() < 1) {
+      return "`copies` must be at least 1";
+    }
+
+    return null;
+  }
+
+  /**
+   * Check if the first line of a CSV upload is a header.
+   *
+   * @param line The line.
+   * @return True if its first field is not a number.
+   */
+  private static boolean isCsvHeader(String line) {
+    String first = line.split(",", 2)[0].trim();
+    return !first.isEmpty() && !Character.isDigit(first.charAt(0));
+  }
+
+  /**
+   * Parse a CSV line into a row.
+   *
+   * @param line The line.
+   * @return The row, with null fields for missing values.
+   * @throws IllegalArgumentException If the line has more than three fields, a quote is not
+   *                                  closed, or a number is invalid.
+   */
+  static BookImportRow parseCsv(String line) {
+    List<String> fields = splitCsv(line);
+
+    if (fields.size() > 3) {
+      throw new IllegalArgumentException("Too many fields");
+    }
+
+    Long authorId = fields.get(0).isEmpty() ? null : Long.valueOf(fields.get(0));
+    String title = fields.size() > 1 ? fields.get(1) : null;
+    Integer copies = fields.size() > 2 && !fields.get(2).isEmpty() ? Integer.valueOf(fields.get(2)) : null;
+    return new BookImportRow(authorId, title, copies);
+  }
+
+  /**
+   * Split a CSV line into fields.
+   *
+   * Unquoted fields are trimmed; quoted fields are kept as they are, with doubled quotes
+   * read as one.
+   *
+   * @param line The line.
+   * @return The fields.
+   * @throws IllegalArgumentException If a quote is not closed.
+   */
+  private static List<String> splitCsv(String line) {
+    List<String> fields = new ArrayList<>(3);
+    StringBuilder field = new StringBuilder();
+    boolean quoted = false;
+    boolean wasQuoted = false;
+
+    for (int i = 0; i < line.length(); i++) {
+      char c = line.charAt(i);
+
+      if (quoted) {
+        if (c != '"') {
+          field.append(c);
+        } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+          field.append('"');
+          i++;
+        } else {
+          quoted = false;
+        }
+      } else if (c == '"' && field.toString().isBlank()) {
+        field.setLength(0);
+        quoted = true;
+        wasQuoted = true;
+      } else if (c == ',') {
+        fields.add(wasQuoted ? field.toString() : field.toString().trim());
+        field.setLength(0);
+        wasQuoted = false;
+      } else if (!wasQuoted) {
+        field.append(c);
+      }
+    }
+
+    if (quoted) {
+      throw new IllegalArgumentException("Unclosed quote");
+    }
+
+    fields.add(wasQuoted ? field.toString() : field.toString().trim());
+    return fields;
+  }
+}
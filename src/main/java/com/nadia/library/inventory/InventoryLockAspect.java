@@ -0,0 +1,105 @@
+package com.nadia.library.inventory;
+
+import com.nadia.library.dto.BatchLoanRequest;
+import com.nadia.library.models.Loan;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Takes the inventory locks of the books a service call changes before its transaction begins.
+ *
+ * The transaction acquires a pooled connection as soon as it begins, so locking inside it
+ * would leave every caller queued on a popular book holding a connection, and a burst of
+ * checkouts of one book could drain the pool for all the others. The advice has the highest
+ * precedence, so it runs outside the transaction advisor: the stripe is taken first and
+ * released once the transaction has committed. The locks the services take inside the
+ * transaction are then already held by the caller, and only re-entered.
+ *
+ * Books held in the write-behind stock are not locked: their stock is taken from memory.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class InventoryLockAspect {
+  @Autowired
+  private InventoryLocks inventoryLocks;
+
+  @Autowired
+  private WriteBehindInventory writeBehindInventory;
+
+  /**
+   * Lock the book of a checkout.
+   *
+   * @param call The call to LoanService.createLoan.
+   * @return The result of the call.
+   * @throws Throwable Whatever the call throws.
+   */
+  @Around("execution(* com.nadia.library.services.LoanService.createLoan(com.nadia.library.models.Loan))")
+  public Object aroundCheckout(ProceedingJoinPoint call) throws Throwable {
+    Loan loan = (Loan) call.getArgs()[0];
+    return inventoryLocks.callLocked(fromTable(Collections.singletonList(loan.getBookId())), call::proceed);
+  }
+
+  /**
+   * Lock the books of a batch checkout.
+   *
+   * @param call The call to LoanService.createLoans.
+   * @return The result of the call.
+   * @throws Throwable Whatever the call throws.
+   */
+  @Around("execution(* com.nadia.library.services.LoanService.createLoans(com.nadia.library.dto.BatchLoanRequest))")
+  public Object aroundBatchCheckout(ProceedingJoinPoint call) throws Throwable {
+    BatchLoanRequest request = (BatchLoanRequest) call.getArgs()[0];
+    List<Long> bookIds = request.getBookIds() == null ? List.of() : request.getBookIds();
+    return inventoryLocks.callLocked(fromTable(bookIds), call::proceed);
+  }
+
+  /**
+   * Lock the book of a stock update or of the deletion of its copies.
+   *
+   * @param call The call to InventoryService.updateStockofInventoryItemByBookId or BookService.deleteAllBookCopies.
+   * @return The result of the call.
+   * @throws Throwable Whatever the call throws.
+   */
+  @Around(
+    "execution(* com.nadia.library.services.InventoryService.updateStockofInventoryItemByBookId(Long, ..))"
+      + " || execution(* com.nadia.library.services.BookService.deleteAllBookCopies(Long))"
+  )
+  public Object aroundStockChange(ProceedingJoinPoint call) throws Throwable {
+    Long bookId = (Long) call.getArgs()[0];
+    return inventoryLocks.callLocked(fromTable(Collections.singletonList(bookId)), call::proceed);
+  }
+
+  /**
+   * Keep the books whose stock is held in the inventory table.
+   *
+   * @param bookIds The IDs of the books.
+   * @return The IDs of the books that are not write-behind.
+   */
+  private Collection<Long> fromTable(Collection<Long> bookIds) {
+    if (!inventoryLocks.isEnabled()) {
+      return List.of();
+    }
+
+    List<Long> fromTable = new ArrayList<>(bookIds.size());
+
+    for (Long bookId : bookIds) {
+      if (bookId != null && !writeBehindInventory.isWriteBehind(bookId)) {
+        fromTable.add(bookId);
+      }
+    }
+
+    return fromTable;
+  }
+}
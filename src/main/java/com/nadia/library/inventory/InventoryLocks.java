@@ -0,0 +1,235 @@
+package com.nadia.library.inventory;
+
+import java.util.Collection;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import jakarta.annotation.PostConstruct;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Striped in-process locks serializing the inventory changes of each book (opt-in).
+ *
+ * When many checkouts of the same book run at once, each `UPDATE` of its inventory row
+ * waits for the row lock held by the previous transaction until it commits, so waiting
+ * transactions pile up in the database, each holding a connection. With this mode enabled,
+ * checkouts, stock updates and deletions of copies take the lock of the book's stripe before
+ * their transaction begins (see InventoryLockAspect) and release it after it has committed:
+ * callers of the same book queue in the application without holding a connection, at most
+ * one of them reaches the database at a time, and books of other stripes are not affected.
+ * Other inventory changes, whose books are only known inside their transaction (returns and
+ * added copies), lock the stripe there, until the transaction completes. Book IDs are spread
+ * over a fixed number of stripes, so memory does not grow with the catalog.
+ *
+ * The locks only exclude callers of this instance: the mode is meant for single-node
+ * deployments (the row updates remain conditional, so several nodes stay correct, only
+ * without the benefit).
+ */
+@Component
+public class InventoryLocks {
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  @Value("${library.inventory.striped-locks.enabled:false}")
+  private boolean enabled;
+
+  @Value("${library.inventory.striped-locks.stripes:1024}")
+  private int stripeCount = 1024;
+
+  private ReentrantLock[] stripes;
+  private Timer waitTime;
+
+  /**
+   * Create the stripes, rounding their number up to a power of two, and publish the lock wait time.
+   */
+  @PostConstruct
+  void init() {
+    int count = stripeCount <= 1 ? 1 : Integer.highestOneBit(stripeCount - 1) << 1;
+    stripes = new ReentrantLock[count];
+
+    for (int i = 0; i < count; i++) {
+      stripes[i] = new ReentrantLock();
+    }
+
+    waitTime = Timer.builder("library.inventory.lock.wait")
+        .description("Time spent waiting for the inventory lock of a book")
+        .register(meterRegistry);
+  }
+
+  /**
+   * Check if inventory changes are serialized in the application.
+   *
+   * @return True if the mode is enabled.
+   */
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Lock the inventory of a book until the current transaction completes.
+   *
+   * Does nothing when the mode is disabled.
+   *
+   * @param bookId The ID of the book.
+   * @throws IllegalStateException If no transaction is active.
+   */
+  public void lock(Long bookId) {
+    if (enabled && bookId != null) {
+      lockStripes(new int[] {stripe(bookId)});
+    }
+  }
+
+  /**
+   * Lock the inventory of several books until the current transaction completes.
+   *
+   * The stripes are taken in index order, so callers locking overlapping sets of books
+   * cannot deadlock. Does nothing when the mode is disabled.
+   *
+   * @param bookIds The IDs of the books.
+   * @throws IllegalStateException If no transaction is active.
+   */
+  public void lockAll(Collection<Long> bookIds) {
+    if (!enabled || bookIds.isEmpty()) {
+      return;
+    }
+
+    lockStripes(stripesOf(bookIds));
+  }
+
+  /**
+   * Run a call holding the inventory locks of some books, taken before it starts.
+   *
+   * Meant to wrap a call to a transactional method from outside any transaction: the locks
+   * are released once the call has returned, after its transaction has committed. Inside a
+   * transaction, the locks are held until that transaction completes instead. Does nothing
+   * more than the call when the mode is disabled.
+   *
+   * @param bookIds The IDs of the books.
+   * @param call    The call.
+   * @param <T>     The type of the result of the call.
+   * @return The result of the call.
+   * @throws Throwable Whatever the call throws.
+   */
+  <T> T callLocked(Collection<Long> bookIds, LockedCall<T> call) throws Throwable {
+    if (!enabled || bookIds.isEmpty() || TransactionSynchronizationManager.isSynchronizationActive()) {
+      lockAll(bookIds);
+      return call.call();
+    }
+
+    int[] indexes = stripesOf(bookIds);
+    acquire(indexes);
+    try {
+      return call.call();
+    } finally {
+      release(indexes);
+    }
+  }
+
+  /**
+   * A call made under inventory locks.
+   *
+   * @param <T> The type of its result.
+   */
+  @FunctionalInterface
+  interface LockedCall<T> {
+    /**
+     * Make the call.
+     *
+     * @return The result.
+     * @throws Throwable Whatever the call throws.
+     */
+    T call() throws Throwable;
+  }
+
+  /**
+   * Check if the inventory lock of a book is held by the current thread.
+   *
+   * @param bookId The ID of the book.
+   * @return True if the stripe of the book is held by the current thread.
+   */
+  boolean isHeldByCurrentThread(long bookId) {
+    return stripes[stripe(bookId)].isHeldByCurrentThread();
+  }
+
+  /**
+   * Get the stripe of a book.
+   *
+   * @param bookId The ID of the book.
+   * @return The index of the stripe.
+   */
+  int stripe(long bookId) {
+    long hash = bookId * 0x9E3779B97F4A7C15L;
+    return (int) (hash >>> 32) & (stripes.length - 1);
+  }
+
+  /**
+   * Get the stripes of some books.
+   *
+   * @param bookIds The IDs of the books.
+   * @return The indexes of their stripes, in increasing order, without duplicates.
+   */
+  private int[] stripesOf(Collection<Long> bookIds) {
+    TreeSet<Integer> indexes = new TreeSet<>();
+
+    for (Long bookId : bookIds) {
+      if (bookId != null) {
+        indexes.add(stripe(bookId));
+      }
+    }
+
+    return indexes.stream().mapToInt(Integer::intValue).toArray();
+  }
+
+  /**
+   * Take some stripes in order, and release them when the current transaction completes.
+   *
+   * @param indexes The indexes of the stripes, in increasing order.
+   */
+  private void lockStripes(int[] indexes) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      throw new IllegalStateException("Inventory locks must be taken inside a transaction");
+    }
+
+    acquire(indexes);
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCompletion(int status) {
+        release(indexes);
+      }
+    });
+  }
+
+  /**
+   * Take some stripes in order, recording the time spent waiting.
+   *
+   * @param indexes The indexes of the stripes, in increasing order.
+   */
+  private void acquire(int[] indexes) {
+    long start = System.nanoTime();
+
+    for (int index : indexes) {
+      stripes[index].lock();
+    }
+
+    waitTime.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Release some stripes, in reverse order.
+   *
+   * @param indexes The indexes of the stripes, in increasing order.
+   */
+  private void release(int[] indexes) {
+    for (int i = indexes.length - 1; i >= 0; i--) {
+      stripes[indexes[i]].unlock();
+    }
+  }
+}
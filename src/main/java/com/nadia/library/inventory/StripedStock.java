@@ -0,0 +1,114 @@
+package com.nadia.library.inventory;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A number of copies in stock, split over several cells that never go below zero.
+ *
+ * Like a LongAdder, the count is spread over cells so that threads mostly update their own
+ * cell instead of all retrying on the same value. Unlike a LongAdder, copies are taken with
+ * a compare-and-set that only succeeds if the cell holds enough of them: a thread whose
+ * cell is empty takes from the next cells, and the stock is out only when every cell is.
+ * Cells are spaced a cache line apart, so neighbouring cells are not invalidated together.
+ */
+final class StripedStock {
+  /**
+   * The distance between two cells, in longs (128 bytes, two cache lines on most CPUs).
+   */
+  private static final int SPACING = 16;
+
+  private final AtomicLongArray cells;
+  private final int cellCount;
+
+  /**
+   * Create a stock, with the copies spread evenly over the cells.
+   *
+   * @param cellCount The number of cells.
+   * @param copies    The initial number of copies, at least 0.
+   */
+  StripedStock(int cellCount, long copies) {
+    this.cellCount = cellCount;
+    this.cells = new AtomicLongArray(cellCount * SPACING);
+
+    for (int i = 0; i < cellCount; i++) {
+      cells.set(i * SPACING, copies / cellCount + (i < copies % cellCount ? 1 : 0));
+    }
+  }
+
+  /**
+   * Take some copies, if that many are in stock.
+   *
+   * Copies are taken from the cell of the current thread first, then from the following
+   * ones. If there are not enough of them, the copies taken are put back; a concurrent
+   * caller may then briefly find the stock lower than it is.
+   *
+   * @param copies The number of copies to take, at least 1.
+   * @return True if the copies were taken, false if fewer were in stock.
+   */
+  boolean tryTake(long copies) {
+    int home = home();
+    long missing = copies;
+
+    for (int i = 0; i < cellCount && missing > 0; i++) {
+      int cell = ((home + i) % cellCount) * SPACING;
+      long available = cells.get(cell);
+
+      while (available > 0) {
+        long taken = Math.min(available, missing);
+
+        if (cells.compareAndSet(cell, available, available - taken)) {
+          missing -= taken;
+          break;
+        }
+
+        available = cells.get(cell);
+      }
+    }
+
+    if (missing > 0) {
+      add(copies - missing);
+      return false;
+    }
+
+    return true;
+  }
+
+  /**
+   * Put copies back in stock, in the cell of the current thread.
+   *
+   * @param copies The number of copies to add, at least 0.
+   */
+  void add(long copies) {
+    if (copies > 0) {
+      cells.addAndGet(home() * SPACING, copies);
+    }
+  }
+
+  /**
+   * Get the number of copies in stock.
+   *
+   * The cells are read one after the other, so the sum is only exact when no copy is being
+   * taken or put back.
+   *
+   * @return The number of copies.
+   */
+  long sum() {
+    long sum = 0;
+
+    for (int i = 0; i < cellCount; i++) {
+      sum += cells.get(i * SPACING);
+    }
+
+    return sum;
+  }
+
+  /**
+   * Get the cell of the current thread.
+   *
+   * @return The index of the cell.
+   */
+  private int home() {
+    long id = Thread.currentThread().getId();
+    return (int) ((id * 0x9E3779B97F4A7C15L) >>> 33) % cellCount;
+  }
+}
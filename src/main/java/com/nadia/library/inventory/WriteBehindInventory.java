@@ -0,0 +1,272 @@
+package com.nadia.library.inventory;
+
+import com.nadia.library.models.Inventory;
+import com.nadia.library.models.StockJournalEntry;
+import com.nadia.library.repositories.InventoryRepository;
+import com.nadia.library.repositories.StockJournalRepository;
+import com.nadia.library.stream.InventoryChangedEvent;
+import com.nadia.library.transaction.AfterCommit;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Write-behind stock of the hottest books, held in memory and flushed to the inventory table.
+ *
+ * Even a conditional `UPDATE` serializes the checkouts of a book on its inventory row. For
+ * the books listed in `library.inventory.write-behind.book-ids`, the stock is instead held
+ * in a StripedStock: a checkout takes a copy from it without touching the row, and only
+ * inserts an entry in the stock journal, in its own transaction. If that transaction rolls
+ * back, the copy is put back; returns and stock changes add their copies once committed.
+ *
+ * Every flush interval, the journal is summed per book, the sums are added to the inventory
+ * rows in one JDBC batch, and the entries are deleted, in the same transaction. After a
+ * crash, the entries still in the journal are flushed at the next start, and the stock of a
+ * book is always rebuilt as its row plus its pending entries, so no change is lost or
+ * applied twice. Between flushes, the inventory table lags behind the checkouts of these
+ * books, and changes are only published to the inventory streams once flushed.
+ *
+ * The stock lives in this instance only: the mode is meant for single-node deployments.
+ */
+@Component
+public class WriteBehindInventory {
+  /**
+   * The number of journal entries flushed per transaction.
+   */
+  private static final int FLUSH_CHUNK_SIZE = 10000;
+
+  @Autowired
+  private InventoryRepository inventoryRepository;
+
+  @Autowired
+  private StockJournalRepository stockJournalRepository;
+
+  @Autowired
+  private PlatformTransactionManager transactionManager;
+
+  @Autowired
+  private ApplicationEventPublisher eventPublisher;
+
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  @Value("${library.inventory.write-behind.book-ids:}")
+  private Set<Long> bookIds = Set.of();
+
+  @Value("${library.inventory.write-behind.stripes:16}")
+  private int stripes = 16;
+
+  private final Map<Long, StripedStock> stocks = new ConcurrentHashMap<>();
+  private final ReentrantLock flushLock = new ReentrantLock();
+  private Counter flushedEntries;
+
+  /**
+   * Publish the number of journal entries flushed and the stock held in memory.
+   */
+  @PostConstruct
+  void registerMetrics() {
+    flushedEntries = Counter.builder("library.inventory.write-behind.flushed")
+        .description("Number of stock journal entries applied to the inventory table")
+        .register(meterRegistry);
+    Gauge.builder("library.inventory.write-behind.books", stocks, Map::size)
+        .description("Number of books whose stock is held in memory")
+        .register(meterRegistry);
+  }
+
+  /**
+   * Flush the entries left in the journal, then load the stock of the write-behind books.
+   *
+   * The stock of each book is loaded as its inventory row plus its pending journal entries,
+   * in one transaction, while no flush runs. No entry can be pending but uncommitted then,
+   * since entries are only written once the stock is loaded.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void load() {
+    flush();
+    TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+    transaction.setReadOnly(true);
+
+    flushLock.lock();
+    try {
+      transaction.executeWithoutResult(status -> bookIds.forEach(bookId -> {
+        Inventory inventory = inventoryRepository.findByBookId(bookId);
+        Long pending = stockJournalRepository.sumDeltaByBookId(bookId);
+        long copies = (inventory == null ? 0 : inventory.getInStock()) + (pending == null ? 0 : pending);
+        stocks.put(bookId, new StripedStock(stripes, Math.max(0, copies)));
+      }));
+    } finally {
+      flushLock.unlock();
+    }
+  }
+
+  /**
+   * Check if the stock of a book is held in memory.
+   *
+   * @param bookId The ID of the book.
+   * @return True if the book is listed as write-behind.
+   */
+  public boolean isWriteBehind(Long bookId) {
+    return bookId != null && bookIds.contains(bookId);
+  }
+
+  /**
+   * Take copies of a book, if that many are in stock, journaling the change in the current
+   * transaction. The copies are put back if the transaction rolls back.
+   *
+   * @param bookId The ID of a write-behind book.
+   * @param copies The number of copies to take, at least 1.
+   * @return True if the copies were taken, false if fewer are in stock.
+   * @throws IllegalStateException If no transaction is active.
+   */
+  public boolean take(Long bookId, int copies) {
+    requireTransaction();
+    StripedStock stock = stock(bookId);
+
+    if (!stock.tryTake(copies)) {
+      return false;
+    }
+
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCompletion(int status) {
+        if (status != STATUS_COMMITTED) {
+          stock.add(copies);
+        }
+      }
+    });
+    stockJournalRepository.save(new StockJournalEntry(bookId, -copies));
+    return true;
+  }
+
+  /**
+   * Add copies of a book, journaling the change in the current transaction. The copies can
+   * be taken once the transaction commits.
+   *
+   * @param bookId The ID of a write-behind book.
+   * @param copies The number of copies to add, at least 1.
+   * @throws IllegalStateException If no transaction is active.
+   */
+  public void add(Long bookId, int copies) {
+    requireTransaction();
+    StripedStock stock = stock(bookId);
+    stockJournalRepository.save(new StockJournalEntry(bookId, copies));
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCommit() {
+        stock.add(copies);
+      }
+    });
+  }
+
+  /**
+   * Get the number of copies of a book in stock.
+   *
+   * @param bookId The ID of a write-behind book.
+   * @return The number of copies, including the changes not yet flushed.
+   */
+  public long inStock(Long bookId) {
+    return stock(bookId).sum();
+  }
+
+  /**
+   * Empty the stock of a book whose copies are deleted, once the current transaction commits.
+   *
+   * @param bookId The ID of a write-behind book.
+   */
+  public void forget(Long bookId) {
+    AfterCommit.run(() -> stocks.put(bookId, new StripedStock(stripes, 0)));
+  }
+
+  /**
+   * Apply the journal to the inventory table, one chunk of entries per transaction.
+   *
+   * Each chunk only deletes the entries it read, so entries committed while it runs are
+   * left for the next flush.
+   */
+  @Scheduled(fixedDelayString = "${library.inventory.write-behind.flush-interval-ms:1000}")
+  @PreDestroy
+  public void flush() {
+    TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+
+    flushLock.lock();
+    try {
+      while (Boolean.TRUE.equals(transaction.execute(status -> flushChunk()))) {
+        // Continue with the next chunk.
+      }
+    } finally {
+      flushLock.unlock();
+    }
+  }
+
+  /**
+   * Apply a chunk of the journal to the inventory table and delete it.
+   *
+   * @return True if the chunk was full, so more entries may be pending.
+   */
+  private boolean flushChunk() {
+    List<StockJournalEntry> entries = stockJournalRepository.findByOrderById(PageRequest.ofSize(FLUSH_CHUNK_SIZE));
+
+    if (entries.isEmpty()) {
+      return false;
+    }
+
+    Map<Long, Integer> stockDeltas = new HashMap<>();
+    entries.forEach(entry -> stockDeltas.merge(entry.getBookId(), entry.getDelta(), Integer::sum));
+    stockDeltas.values().removeIf(delta -> delta == 0);
+
+    inventoryRepository.addToInventories(stockDeltas);
+    stockJournalRepository.deleteAllByIdInBatch(entries.stream().map(StockJournalEntry::getId).toList());
+    stockDeltas.keySet().forEach(bookId -> eventPublisher.publishEvent(new InventoryChangedEvent(bookId)));
+    flushedEntries.increment(entries.size());
+    return entries.size() == FLUSH_CHUNK_SIZE;
+  }
+
+  /**
+   * Get the stock of a book.
+   *
+   * @param bookId The ID of a write-behind book.
+   * @return The stock of the book.
+   * @throws IllegalStateException If the stock is not loaded yet.
+   */
+  private StripedStock stock(Long bookId) {
+    StripedStock stock = stocks.get(bookId);
+
+    if (stock == null) {
+      throw new IllegalStateException("The write-behind stock of book " + bookId + " is not loaded yet");
+    }
+
+    return stock;
+  }
+
+  /**
+   * Check that a transaction is active, since changes are journaled and undone with it.
+   */
+  private static void requireTransaction() {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      throw new IllegalStateException("Write-behind stock changes must be made inside a transaction");
+    }
+  }
+}
@@ -0,0 +1,270 @@
+package com.nadia.library.ledger;
+
+import com.nadia.library.dto.BookBalance;
+import com.nadia.library.dto.BookCount;
+import com.nadia.library.dto.LedgerDrift;
+import com.nadia.library.models.CirculationEvent;
+import com.nadia.library.models.CirculationEvent.Type;
+import com.nadia.library.models.CirculationSnapshot;
+import com.nadia.library.models.Checkpoint;
+import com.nadia.library.models.Loan;
+import com.nadia.library.repositories.CheckpointRepository;
+import com.nadia.library.repositories.CirculationEventRepository;
+import com.nadia.library.repositories.CirculationSnapshotRepository;
+import com.nadia.library.repositories.InventoryRepository;
+import com.nadia.library.repositories.LoanRepository;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Append-only ledger of circulation events, with periodic snapshots of its projections.
+ *
+ * Services record an event in the same transaction as each checkout, renewal, return and
+ * stock change, so the history of every book is kept even though loans are updated in place
+ * and deleted on return. Events are plain inserts sent in the transaction's JDBC batch.
+ *
+ * The inventory and loan tables remain the projections read and locked by the services.
+ * The ledger can rebuild them: replaying starts from the snapshot (one row per book) and
+ * adds the events recorded since, which `findDrift` compares with the tables.
+ *
+ * The snapshot only includes events older than `library.ledger.snapshot-lag`, so that
+ * transactions still running when it is taken cannot commit events behind it.
+ */
+@Component
+public class CirculationLedger {
+  /**
+   * The name of the checkpoint holding the time up to which the snapshot is taken.
+   */
+  static final String SNAPSHOT_CHECKPOINT = "circulation-snapshot";
+
+  /**
+   * The number of snapshot rows read and written at once.
+   */
+  private static final int SNAPSHOT_CHUNK_SIZE = 1000;
+
+  @Autowired
+  private CirculationEventRepository eventRepository;
+
+  @Autowired
+  private CirculationSnapshotRepository snapshotRepository;
+
+  @Autowired
+  private CheckpointRepository checkpointRepository;
+
+  @Autowired
+  private InventoryRepository inventoryRepository;
+
+  @Autowired
+  private LoanRepository loanRepository;
+
+  @Value("${library.ledger.snapshot-lag:5m}")
+  private Duration snapshotLag = Duration.ofMinutes(5);
+
+  /**
+   * The state of a book derived from the ledger.
+   *
+   * @param inStock     The number of copies in stock.
+   * @param activeLoans The number of copies on loan.
+   */
+  public record Balance(long inStock, long activeLoans) {
+    /**
+     * Add the effect of some events to this balance.
+     *
+     * @param stockDelta The net stock change.
+     * @param loanDelta  The net change of the number of loans.
+     * @return The new balance.
+     */
+    Balance plus(long stockDelta, long loanDelta) {
+      return new Balance(inStock + stockDelta, activeLoans + loanDelta);
+    }
+  }
+
+  /**
+   * Record that copies were checked out.
+   *
+   * @param loans The new loans.
+   */
+  public void recordCheckouts(List<Loan> loans) {
+    eventRepository.saveAll(loans.stream().map(loan -> event(Type.CHECKOUT, loan, -1)).toList());
+  }
+
+  /**
+   * Record that a loan was renewed.
+   *
+   * @param loan The renewed loan.
+   */
+  public void recordRenewal(Loan loan) {
+    eventRepository.save(event(Type.RENEWAL, loan, 0));
+  }
+
+  /**
+   * Record that a copy was returned.
+   *
+   * @param loan The loan ending with the return.
+   */
+  public void recordReturn(Loan loan) {
+    eventRepository.save(event(Type.RETURN, loan, 1));
+  }
+
+  /**
+   * Record a change of the stock of a book that is not a checkout or return.
+   *
+   * @param bookId     The ID of the book.
+   * @param stockDelta The change of the number of copies in stock.
+   */
+  public void recordStockAdjustment(Long bookId, int stockDelta) {
+    eventRepository.save(new CirculationEvent(Type.STOCK_ADJUSTMENT, bookId, null, null, stockDelta));
+  }
+
+  /**
+   * Take the first snapshot from the inventory and loan tables, if there is none yet.
+   *
+   * This is the starting point of the ledger for data that existed before it (or that was
+   * loaded at startup without going through the services).
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  @Transactional
+  public void initialize() {
+    if (checkpointRepository.lockByName(SNAPSHOT_CHECKPOINT).isPresent()) {
+      return;
+    }
+
+    Map<Long, Balance> balances = new HashMap<>();
+    inventoryRepository.findStockByBook()
+        .forEach(stock -> balances.put(stock.getBookId(), new Balance(stock.getCount(), 0)));
+    loanRepository.countByBook()
+        .forEach(loans -> balances.merge(loans.getBookId(), new Balance(0, loans.getCount()), (a, b) -> a.plus(0, b.activeLoans())));
+
+    List<CirculationSnapshot> rows = new ArrayList<>();
+    balances.forEach((bookId, balance) -> rows.add(new CirculationSnapshot(bookId, (int) balance.inStock(), balance.activeLoans())));
+    snapshotRepository.saveAll(rows);
+    checkpointRepository.save(new Checkpoint(SNAPSHOT_CHECKPOINT, Instant.now()));
+  }
+
+  /**
+   * Move the snapshot forward, applying the events recorded since the last one.
+   *
+   * Only the books with new events are read and written. The checkpoint row is locked, so
+   * concurrent runs on several instances take turns.
+   */
+  @Scheduled(fixedDelayString = "${library.ledger.snapshot-interval-ms:600000}")
+  @Transactional
+  public void snapshot() {
+    Checkpoint checkpoint = checkpointRepository.lockByName(SNAPSHOT_CHECKPOINT).orElse(null);
+    Instant upTo = Instant.now().minus(snapshotLag);
+
+    if (checkpoint == null || !upTo.isAfter(checkpoint.getUpTo())) {
+      return;
+    }
+
+    List<BookBalance> changes = eventRepository.sumByBook(checkpoint.getUpTo(), upTo);
+
+    for (int start = 0; start < changes.size(); start += SNAPSHOT_CHUNK_SIZE) {
+      List<BookBalance> chunk = changes.subList(start, Math.min(start + SNAPSHOT_CHUNK_SIZE, changes.size()));
+      Map<Long, CirculationSnapshot> rows = new HashMap<>();
+      snapshotRepository.findAllById(chunk.stream().map(BookBalance::getBookId).toList())
+          .forEach(row -> rows.put(row.getBookId(), row));
+
+      for (BookBalance change : chunk) {
+        CirculationSnapshot row = rows.computeIfAbsent(change.getBookId(), bookId -> new CirculationSnapshot(bookId, 0, 0));
+        row.setInStock(row.getInStock() + change.getStockDelta().intValue());
+        row.setActiveLoans(row.getActiveLoans() + change.getLoanDelta());
+      }
+
+      snapshotRepository.saveAll(rows.values());
+    }
+
+    checkpoint.setUpTo(upTo);
+  }
+
+  /**
+   * Rebuild the state of every book from the snapshot and the events recorded since.
+   *
+   * @return The balance of each book known to the ledger.
+   */
+  @Transactional(readOnly = true)
+  public Map<Long, Balance> replay() {
+    Map<Long, Balance> balances = new HashMap<>();
+    Instant after = checkpointRepository.findById(SNAPSHOT_CHECKPOINT).map(Checkpoint::getUpTo).orElse(Instant.EPOCH);
+
+    snapshotRepository.findAll()
+        .forEach(row -> balances.put(row.getBookId(), new Balance(row.getInStock(), row.getActiveLoans())));
+
+    for (BookBalance change : eventRepository.sumByBook(after, Instant.now())) {
+      balances.merge(change.getBookId(), new Balance(change.getStockDelta(), change.getLoanDelta()),
+          (balance, delta) -> balance.plus(delta.inStock(), delta.activeLoans()));
+    }
+
+    return balances;
+  }
+
+  /**
+   * Find the books whose inventory or loan count differs from the ledger.
+   *
+   * Checkouts and returns still being committed can show up as transient differences.
+   *
+   * @return The books that drifted, in no particular order.
+   */
+  @Transactional(readOnly = true)
+  public List<LedgerDrift> findDrift() {
+    Map<Long, Balance> ledger = replay();
+    Map<Long, Long> stock = toMap(inventoryRepository.findStockByBook());
+    Map<Long, Long> loans = toMap(loanRepository.countByBook());
+    Set<Long> bookIds = new HashSet<>(ledger.keySet());
+    bookIds.addAll(stock.keySet());
+    bookIds.addAll(loans.keySet());
+
+    List<LedgerDrift> drift = new ArrayList<>();
+
+    for (Long bookId : bookIds) {
+      Balance balance = ledger.getOrDefault(bookId, new Balance(0, 0));
+      long inStock = stock.getOrDefault(bookId, 0L);
+      long activeLoans = loans.getOrDefault(bookId, 0L);
+
+      if (balance.inStock() != inStock || balance.activeLoans() != activeLoans) {
+        drift.add(new LedgerDrift(bookId, balance.inStock(), inStock, balance.activeLoans(), activeLoans));
+      }
+    }
+
+    return drift;
+  }
+
+  /**
+   * Build the event of a loan.
+   *
+   * @param type       The type of the event.
+   * @param loan       The loan.
+   * @param stockDelta The change of the number of copies in stock.
+   * @return The event.
+   */
+  private static CirculationEvent event(Type type, Loan loan, int stockDelta) {
+    return new CirculationEvent(type, loan.getBookId(), loan.getUserId(), loan.getId(), stockDelta);
+  }
+
+  /**
+   * Index counts by book ID.
+   *
+   * @param counts The counts.
+   * @return The count of each book.
+   */
+  private static Map<Long, Long> toMap(List<BookCount> counts) {
+    Map<Long, Long> map = new HashMap<>();
+    counts.forEach(count -> map.put(count.getBookId(), count.getCount()));
+    return map;
+  }
+}
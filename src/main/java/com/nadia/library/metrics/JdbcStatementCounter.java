@@ -0,0 +1,49 @@
+package com.nadia.library.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Counts the JDBC statements Hibernate prepares on the current thread.
+ *
+ * Registered as the Hibernate statement inspector in `application.properties`. Counting only
+ * happens between `start` and `stop`, which `StatementCountFilter` calls around each request.
+ * Statements run directly through a `JdbcTemplate` are not seen by Hibernate and are not counted.
+ */
+public class JdbcStatementCounter implements StatementInspector {
+  private static final ThreadLocal<int[]> COUNT = new ThreadLocal<>();
+
+  /**
+   * Start counting the statements prepared on the current thread.
+   */
+  public static void start() {
+    COUNT.set(new int[1]);
+  }
+
+  /**
+   * Stop counting the statements prepared on the current thread.
+   *
+   * @return The number of statements prepared since `start` was called, or 0 if it was not.
+   */
+  public static int stop() {
+    int[] count = COUNT.get();
+    COUNT.remove();
+    return count == null ? 0 : count[0];
+  }
+
+  /**
+   * Count a statement about to be prepared, leaving its SQL unchanged.
+   *
+   * @param sql The SQL of the statement.
+   * @return The same SQL.
+   */
+  @Override
+  public String inspect(String sql) {
+    int[] count = COUNT.get();
+
+    if (count != null) {
+      count[0]++;
+    }
+
+    return sql;
+  }
+}
@@ -0,0 +1,104 @@
+package com.nadia.library.metrics;
+
+import java.lang.reflect.Method;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+/**
+ * Times every public service method and every default method of InventoryRepository.
+ *
+ * Service calls are recorded as the `library.service.calls` timer and repository calls as
+ * `library.repository.calls`, tagged with the class, the method and the outcome. The outcome
+ * is the HTTP status of the returned ResponseEntity (for example CREATED or FORBIDDEN),
+ * SUCCESS for other return values, or ERROR if an exception was thrown. The count of each
+ * timer is the number of calls with that outcome.
+ *
+ * Query methods of the repositories are already timed by Spring Boot
+ * (`spring.data.repository.invocations`), but default methods bypass that instrumentation.
+ */
+@Aspect
+@Component
+public class ServiceMetricsAspect {
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  /**
+   * Time a public method of a service.
+   *
+   * @param joinPoint The service method call.
+   * @return The value returned by the service method.
+   * @throws Throwable Any exception thrown by the service method.
+   */
+  @Around("execution(public * com.nadia.library.services.*.*(..))")
+  public Object timeServiceMethod(ProceedingJoinPoint joinPoint) throws Throwable {
+    return time("library.service.calls", joinPoint);
+  }
+
+  /**
+   * Time a default method of InventoryRepository. Other repository methods are left alone.
+   *
+   * @param joinPoint The repository method call.
+   * @return The value returned by the repository method.
+   * @throws Throwable Any exception thrown by the repository method.
+   */
+  @Around("execution(* com.nadia.library.repositories.InventoryRepository.*(..))")
+  public Object timeInventoryRepositoryMethod(ProceedingJoinPoint joinPoint) throws Throwable {
+    Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+
+    if (!method.isDefault()) {
+      return joinPoint.proceed();
+    }
+
+    return time("library.repository.calls", joinPoint);
+  }
+
+  /**
+   * Run a method call and record its duration and outcome.
+   *
+   * @param name      The name of the timer.
+   * @param joinPoint The method call.
+   * @return The value returned by the method.
+   * @throws Throwable Any exception thrown by the method.
+   */
+  private Object time(String name, ProceedingJoinPoint joinPoint) throws Throwable {
+    Timer.Sample sample = Timer.start(meterRegistry);
+    String outcome = "ERROR";
+
+    try {
+      Object result = joinPoint.proceed();
+      outcome = outcomeOf(result);
+      return result;
+    } finally {
+      MethodSignature signature = (MethodSignature) joinPoint.getSignature();
+      sample.stop(Timer.builder(name)
+          .tag("class", signature.getDeclaringType().getSimpleName())
+          .tag("method", signature.getName())
+          .tag("outcome", outcome)
+          .register(meterRegistry));
+    }
+  }
+
+  /**
+   * Get the outcome tag of a method's return value.
+   *
+   * @param result The value returned by the method.
+   * @return The name of the HTTP status for a ResponseEntity, SUCCESS otherwise.
+   */
+  private static String outcomeOf(Object result) {
+    if (result instanceof ResponseEntity<?> response) {
+      HttpStatus status = HttpStatus.resolve(response.getStatusCode().value());
+      return status == null ? String.valueOf(response.getStatusCode().value()) : status.name();
+    }
+
+    return "SUCCESS";
+  }
+}
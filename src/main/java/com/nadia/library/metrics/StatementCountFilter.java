@@ -0,0 +1,55 @@
+package com.nadia.library.metrics;
+
+import java.io.IOException;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Records the number of JDBC statements run by each HTTP request.
+ *
+ * The counts are published as the `library.http.jdbc.statements` distribution summary,
+ * tagged with the request method and URI pattern, so an endpoint that starts making extra
+ * round trips shows up as a higher mean or max.
+ */
+@Component
+public class StatementCountFilter extends OncePerRequestFilter {
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  /**
+   * Count the statements run while the rest of the filter chain handles the request.
+   *
+   * @param request     The HTTP request.
+   * @param response    The HTTP response.
+   * @param filterChain The rest of the filter chain.
+   */
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+      throws ServletException, IOException {
+    JdbcStatementCounter.start();
+
+    try {
+      filterChain.doFilter(request, response);
+    } finally {
+      int statements = JdbcStatementCounter.stop();
+      Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+
+      DistributionSummary.builder("library.http.jdbc.statements")
+          .description("JDBC statements run per HTTP request")
+          .tag("method", request.getMethod())
+          .tag("uri", pattern == null ? "UNKNOWN" : pattern.toString())
+          .register(meterRegistry)
+          .record(statements);
+    }
+  }
+}
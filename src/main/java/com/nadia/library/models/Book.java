@@ -4,26 +4,38 @@ import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 // TODO: change the following code of setters/getters methods to use Lombok instead (less verbose)
 
 /**
  * Represents a Book entity.
  *
  * An entity class representing a book in the database.
+ * Books are read far more often than they change, so they are kept in the second-level cache.
+ * Books are looked up by author and title when copies are added, so that pair is indexed,
+ * and unique: an author has one book per title, as compared by the database collation.
  */
 @Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_book_author_id_title", columnNames = {"authorId", "title"}))
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "book")
 public class Book {
   /**
-   * The primary key for the book, generated using an identity strategy.
+   * The primary key for the book, generated from a pooled sequence.
    */
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "book_seq")
+  @SequenceGenerator(name = "book_seq", sequenceName = "book_seq", allocationSize = 50)
   private Long id;
 
   /**
    * A many-to-one relationship with the `Author` entity.
+   *
+   * Loaded lazily: only `authorId` is part of a book's JSON representation.
    */
-  @ManyToOne
+  @ManyToOne(fetch = FetchType.LAZY)
   @JoinColumn(name = "authorId", referencedColumnName = "id", insertable = false, updatable = false)
   private Author author;
 
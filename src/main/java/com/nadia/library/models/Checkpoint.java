@@ -0,0 +1,92 @@
+package com.nadia.library.models;
+
+import java.time.Instant;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+
+/**
+ * Represents a Checkpoint entity.
+ *
+ * Records how far a background job has processed its input, so that the next run (on any
+ * instance) continues from there. The row is locked while the job runs.
+ */
+@Entity
+public class Checkpoint {
+  /**
+   * The name of the job.
+   */
+  @Id
+  private String name;
+
+  /**
+   * The time up to which the job has processed its input.
+   */
+  private Instant upTo;
+
+  /**
+   * The ID up to which the job has processed its input, for jobs that go through a table by ID.
+   */
+  private Long upToId;
+
+  /**
+   * Default constructor for the Checkpoint class.
+   */
+  public Checkpoint() {}
+
+  /**
+   * Constructor to create a Checkpoint.
+   *
+   * @param name The name of the job.
+   * @param upTo The time up to which the job has processed its input.
+   */
+  public Checkpoint(String name, Instant upTo) {
+    this.name = name;
+    this.upTo = upTo;
+  }
+
+  /**
+   * Get the name of the job.
+   *
+   * @return The name of the job.
+   */
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Get the time up to which the job has processed its input.
+   *
+   * @return The checkpoint time.
+   */
+  public Instant getUpTo() {
+    return upTo;
+  }
+
+  /**
+   * Set the time up to which the job has processed its input.
+   *
+   * @param upTo The checkpoint time.
+   */
+  public void setUpTo(Instant upTo) {
+    this.upTo = upTo;
+  }
+
+  /**
+   * Get the ID up to which the job has processed its input.
+   *
+   * @return The checkpoint ID, or null if the job does not go through a table by ID.
+   */
+  public Long getUpToId() {
+    return upToId;
+  }
+
+  /**
+   * Set the ID up to which the job has processed its input.
+   *
+   * @param upToId The checkpoint ID.
+   */
+  public void setUpToId(Long upToId) {
+    this.upToId = upToId;
+  }
+}
@@ -0,0 +1,158 @@
+package com.nadia.library.models;
+
+import java.time.Instant;
+
+import jakarta.persistence.*;
+
+import org.hibernate.annotations.Immutable;
+
+/**
+ * Represents a CirculationEvent entity.
+ *
+ * An entry of the append-only circulation ledger: a checkout, renewal or return of a loan,
+ * or a change of a book's stock. Events are only ever inserted, with IDs from a pooled
+ * sequence, so writing them never updates or locks existing rows. `bookId` is indexed for
+ * the history of a book and `recordedAt` for replaying the events since a snapshot.
+ */
+@Entity
+@Immutable
+@Table(indexes = {
+  @Index(name = "idx_circulation_event_book_id", columnList = "bookId"),
+  @Index(name = "idx_circulation_event_recorded_at", columnList = "recordedAt")
+})
+public class CirculationEvent {
+  /**
+   * The unique identifier for the event, generated from a pooled sequence.
+   */
+  @Id
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "circulation_event_seq")
+  @SequenceGenerator(name = "circulation_event_seq", sequenceName = "circulation_event_seq", allocationSize = 50)
+  private Long id;
+
+  /**
+   * The type of the event.
+   */
+  @Enumerated(EnumType.STRING)
+  private Type type;
+
+  /**
+   * Enumeration representing the type of a circulation event.
+   */
+  public enum Type {
+    CHECKOUT,
+    RENEWAL,
+    RETURN,
+    STOCK_ADJUSTMENT
+  }
+
+  /**
+   * The ID of the book concerned.
+   */
+  private Long bookId;
+
+  /**
+   * The ID of the borrower, or null for stock adjustments.
+   */
+  private Long userId;
+
+  /**
+   * The ID of the loan, or null for stock adjustments.
+   */
+  private Long loanId;
+
+  /**
+   * The change of the number of copies in stock caused by the event.
+   */
+  private int stockDelta;
+
+  /**
+   * The time at which the event was recorded.
+   */
+  private Instant recordedAt;
+
+  /**
+   * Default constructor for the CirculationEvent class.
+   */
+  public CirculationEvent() {}
+
+  /**
+   * Constructor to create a CirculationEvent recorded now.
+   *
+   * @param type       The type of the event.
+   * @param bookId     The ID of the book concerned.
+   * @param userId     The ID of the borrower, or null.
+   * @param loanId     The ID of the loan, or null.
+   * @param stockDelta The change of the number of copies in stock.
+   */
+  public CirculationEvent(Type type, Long bookId, Long userId, Long loanId, int stockDelta) {
+    this.type = type;
+    this.bookId = bookId;
+    this.userId = userId;
+    this.loanId = loanId;
+    this.stockDelta = stockDelta;
+    this.recordedAt = Instant.now();
+  }
+
+  /**
+   * Get the ID of the event.
+   *
+   * @return The ID of the event.
+   */
+  public Long getId() {
+    return id;
+  }
+
+  /**
+   * Get the type of the event.
+   *
+   * @return The type of the event.
+   */
+  public Type getType() {
+    return type;
+  }
+
+  /**
+   * Get the ID of the book concerned.
+   *
+   * @return The book ID.
+   */
+  public Long getBookId() {
+    return bookId;
+  }
+
+  /**
+   * Get the ID of the borrower.
+   *
+   * @return The user ID, or null for stock adjustments.
+   */
+  public Long getUserId() {
+    return userId;
+  }
+
+  /**
+   * Get the ID of the loan.
+   *
+   * @return The loan ID, or null for stock adjustments.
+   */
+  public Long getLoanId() {
+    return loanId;
+  }
+
+  /**
+   * Get the change of the number of copies in stock.
+   *
+   * @return The stock change (negative for checkouts).
+   */
+  public int getStockDelta() {
+    return stockDelta;
+  }
+
+  /**
+   * Get the time at which the event was recorded.
+   *
+   * @return The recording time.
+   */
+  public Instant getRecordedAt() {
+    return recordedAt;
+  }
+}
@@ -0,0 +1,93 @@
+package com.nadia.library.models;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+
+/**
+ * Represents a CirculationSnapshot entity.
+ *
+ * The state of one book derived from the circulation ledger, up to the time stored in the
+ * `circulation-snapshot` checkpoint. Replaying the ledger starts from these rows instead of
+ * from the first event.
+ */
+@Entity
+public class CirculationSnapshot {
+  /**
+   * The ID of the book.
+   */
+  @Id
+  private Long bookId;
+
+  /**
+   * The number of copies in stock.
+   */
+  private int inStock;
+
+  /**
+   * The number of copies on loan.
+   */
+  private long activeLoans;
+
+  /**
+   * Default constructor for the CirculationSnapshot class.
+   */
+  public CirculationSnapshot() {}
+
+  /**
+   * Constructor to create a CirculationSnapshot.
+   *
+   * @param bookId      The ID of the book.
+   * @param inStock     The number of copies in stock.
+   * @param activeLoans The number of copies on loan.
+   */
+  public CirculationSnapshot(Long bookId, int inStock, long activeLoans) {
+    this.bookId = bookId;
+    this.inStock = inStock;
+    this.activeLoans = activeLoans;
+  }
+
+  /**
+   * Get the ID of the book.
+   *
+   * @return The book ID.
+   */
+  public Long getBookId() {
+    return bookId;
+  }
+
+  /**
+   * Get the number of copies in stock.
+   *
+   * @return The number of copies in stock.
+   */
+  public int getInStock() {
+    return inStock;
+  }
+
+  /**
+   * Set the number of copies in stock.
+   *
+   * @param inStock The number of copies in stock.
+   */
+  public void setInStock(int inStock) {
+    this.inStock = inStock;
+  }
+
+  /**
+   * Get the number of copies on loan.
+   *
+   * @return The number of active loans.
+   */
+  public long getActiveLoans() {
+    return activeLoans;
+  }
+
+  /**
+   * Set the number of copies on loan.
+   *
+   * @param activeLoans The number of active loans.
+   */
+  public void setActiveLoans(long activeLoans) {
+    this.activeLoans = activeLoans;
+  }
+}
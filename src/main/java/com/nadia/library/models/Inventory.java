@@ -12,16 +12,19 @@ import jakarta.validation.constraints.NotNull;
 @Entity
 public class Inventory {
   /**
-   * The unique identifier for the inventory.
+   * The unique identifier for the inventory, generated from a pooled sequence.
    */
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "inventory_seq")
+  @SequenceGenerator(name = "inventory_seq", sequenceName = "inventory_seq", allocationSize = 50)
   private Long id;
 
   /**
    * A many-to-one relationship with the `Book` entity.
+   *
+   * Loaded lazily, so listing inventory items does not load their books.
    */
-  @ManyToOne
+  @ManyToOne(fetch = FetchType.LAZY)
   @JoinColumn(name = "bookId", referencedColumnName = "id", insertable = false, updatable = false)
   private Book book;
 
@@ -2,6 +2,8 @@ package com.nadia.library.models;
 
 import java.time.LocalDate;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
+
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
 
@@ -9,20 +11,30 @@ import jakarta.validation.constraints.NotNull;
  * Represents a Loan entity.
  *
  * An entity class representing a book loan in the database.
+ * The `loanDate` column is indexed so that late loans can be found with a range query, and
+ * the loans of a user are listed from a covering index led by `userId`.
  */
 @Entity
+@Table(indexes = {
+  @Index(name = "idx_loan_loan_date", columnList = "loanDate"),
+  @Index(name = "idx_loan_user_loan_date", columnList = "userId, loanDate, bookId, status")
+})
 public class Loan {
   /**
-   * The unique identifier for the loan.
+   * The unique identifier for the loan, generated from a pooled sequence.
    */
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "loan_seq")
+  @SequenceGenerator(name = "loan_seq", sequenceName = "loan_seq", allocationSize = 50)
   private Long id;
 
   /**
    * A many-to-one relationship with the `Book` entity.
+   *
+   * Loaded lazily, like `user`: listing loans only needs the `bookId` and `userId` columns,
+   * and eager loading fired one extra select per distinct book and user.
    */
-  @ManyToOne
+  @ManyToOne(fetch = FetchType.LAZY)
   @JoinColumn(name = "bookId", referencedColumnName = "id", insertable = false, updatable = false)
   private Book book;
 
@@ -35,7 +47,7 @@ public class Loan {
   /**
    * A many-to-one relationship with the `User` entity.
    */
-  @ManyToOne
+  @ManyToOne(fetch = FetchType.LAZY)
   @JoinColumn(name = "userId", referencedColumnName = "id", insertable = false, updatable = false)
   private User user;
 
@@ -64,6 +76,12 @@ public class Loan {
    */
   private LocalDate loanDate = LocalDate.now();
 
+  /**
+   * Whether the overdue sweep has found the loan late. Set by the sweep only.
+   */
+  @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+  private boolean overdue;
+
   /**
    * Default constructor for the Loan class.
    */
@@ -174,4 +192,22 @@ public class Loan {
   public void setLoanDate(LocalDate loanDate) {
     this.loanDate = loanDate;
   }
+
+  /**
+   * Check whether the overdue sweep has found the loan late.
+   *
+   * @return True if the loan is flagged as overdue.
+   */
+  public boolean isOverdue() {
+    return overdue;
+  }
+
+  /**
+   * Set whether the loan is flagged as overdue.
+   *
+   * @param overdue True if the loan is overdue.
+   */
+  public void setOverdue(boolean overdue) {
+    this.overdue = overdue;
+  }
 }
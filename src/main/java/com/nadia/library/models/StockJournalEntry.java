@@ -0,0 +1,80 @@
+package com.nadia.library.models;
+
+import jakarta.persistence.*;
+
+import org.hibernate.annotations.Immutable;
+
+/**
+ * Represents a StockJournalEntry entity.
+ *
+ * A change of the stock of a write-behind book that has not been applied to its inventory
+ * row yet. Entries are inserted in the transaction of the checkout or return, with IDs from
+ * a pooled sequence, so they never update or lock a shared row; they are deleted in the
+ * transaction that adds them to the inventory table. `bookId` is indexed to rebuild the
+ * stock of a book from its row and its pending entries.
+ */
+@Entity
+@Immutable
+@Table(indexes = @Index(name = "idx_stock_journal_entry_book_id", columnList = "bookId"))
+public class StockJournalEntry {
+  /**
+   * The unique identifier for the entry, generated from a pooled sequence.
+   */
+  @Id
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "stock_journal_entry_seq")
+  @SequenceGenerator(name = "stock_journal_entry_seq", sequenceName = "stock_journal_entry_seq", allocationSize = 50)
+  private Long id;
+
+  /**
+   * The ID of the book concerned.
+   */
+  private Long bookId;
+
+  /**
+   * The change of the number of copies in stock.
+   */
+  private int delta;
+
+  /**
+   * Default constructor for the StockJournalEntry class.
+   */
+  public StockJournalEntry() {}
+
+  /**
+   * Constructor to create a StockJournalEntry.
+   *
+   * @param bookId The ID of the book concerned.
+   * @param delta  The change of the number of copies in stock.
+   */
+  public StockJournalEntry(Long bookId, int delta) {
+    this.bookId = bookId;
+    this.delta = delta;
+  }
+
+  /**
+   * Get the ID of the entry.
+   *
+   * @return The ID of the entry.
+   */
+  public Long getId() {
+    return id;
+  }
+
+  /**
+   * Get the ID of the book concerned.
+   *
+   * @return The book ID.
+   */
+  public Long getBookId() {
+    return bookId;
+  }
+
+  /**
+   * Get the change of the number of copies in stock.
+   *
+   * @return The stock change (negative for checkouts).
+   */
+  public int getDelta() {
+    return delta;
+  }
+}
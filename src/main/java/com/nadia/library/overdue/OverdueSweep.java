@@ -0,0 +1,322 @@
+package com.nadia.library.overdue;
+
+import com.nadia.library.dto.LoanDate;
+import com.nadia.library.models.Checkpoint;
+import com.nadia.library.repositories.CheckpointRepository;
+import com.nadia.library.repositories.LoanRepository;
+import com.nadia.library.services.LoanService;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Background job flagging the late loans as overdue, in chunks of IDs processed in parallel.
+ *
+ * A sweep goes through the loan table by primary key range: each chunk reads the ID and date
+ * of the loans of its range that are not flagged yet, applies the lateness policy of
+ * LoanService, and flags the late ones with one `UPDATE`, in its own transaction. Chunks run
+ * on a fixed pool of workers, with a bounded number of chunks queued.
+ *
+ * Progress is checkpointed as the ID below which every chunk is done, with the start of the
+ * day of the sweep as the checkpoint time, so a sweep interrupted by a failure or a restart
+ * continues from there at the next run. A new sweep starts from the first ID each day, as
+ * loans become late; later runs of the same day only go through the loans created since.
+ * Flagging is idempotent, so chunks done above the checkpoint when a sweep stops are simply
+ * done again.
+ *
+ * Runs are started on a thread of their own rather than by the shared scheduler, whose single
+ * thread they would otherwise hold for the whole sweep, delaying every other scheduled job.
+ */
+@Component
+public class OverdueSweep {
+  /**
+   * The name of the checkpoint of the sweep.
+   */
+  static final String CHECKPOINT = "overdue-sweep";
+
+  private static final Logger log = LoggerFactory.getLogger(OverdueSweep.class);
+
+  @Autowired
+  private LoanRepository loanRepository;
+
+  @Autowired
+  private CheckpointRepository checkpointRepository;
+
+  @Autowired
+  private PlatformTransactionManager transactionManager;
+
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  @Value("${library.overdue.sweep.chunk-size:10000}")
+  private int chunkSize = 10000;
+
+  @Value("${library.overdue.sweep.threads:4}")
+  private int threads = 4;
+
+  @Value("${library.overdue.sweep.loan-length:" + LoanService.DEFAULT_LOAN_LENGTH + "}")
+  private int loanLength = LoanService.DEFAULT_LOAN_LENGTH;
+
+  @Value("${library.overdue.sweep.interval-ms:3600000}")
+  private long interval = 3600000;
+
+  @Value("${library.overdue.sweep.initial-delay-ms:60000}")
+  private long initialDelay = 60000;
+
+  private final Clock clock = Clock.systemDefaultZone();
+  private ScheduledExecutorService scheduler;
+  private Counter scannedRows;
+  private Counter flaggedRows;
+  private volatile double progress = 1;
+  private volatile double rowsPerSecond;
+
+  /**
+   * Publish the rows scanned and flagged, the progress of the current sweep and its throughput.
+   */
+  @PostConstruct
+  void registerMetrics() {
+    scannedRows = Counter.builder("library.overdue.sweep.rows")
+        .description("Number of loans read by the overdue sweep")
+        .register(meterRegistry);
+    flaggedRows = Counter.builder("library.overdue.sweep.flagged")
+        .description("Number of loans flagged as overdue")
+        .register(meterRegistry);
+    Gauge.builder("library.overdue.sweep.progress", this, sweep -> sweep.progress)
+        .description("Fraction of the ID range of the current overdue sweep that is done")
+        .register(meterRegistry);
+    Gauge.builder("library.overdue.sweep.throughput", this, sweep -> sweep.rowsPerSecond)
+        .description("Loans read per second by the current or last overdue sweep")
+        .baseUnit("rows/s")
+        .register(meterRegistry);
+  }
+
+  /**
+   * Start running the sweep on its own thread once the application is ready.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void start() {
+    scheduler = Executors.newSingleThreadScheduledExecutor(task -> new Thread(task, "overdue-sweep"));
+    scheduler.scheduleWithFixedDelay(() -> {
+      try {
+        run();
+      } catch (RuntimeException e) {
+        log.warn("Overdue sweep failed, it is tried again at the next run", e);
+      }
+    }, initialDelay, interval, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Stop running the sweep, interrupting the current run.
+   */
+  @PreDestroy
+  public void stop() {
+    if (scheduler != null) {
+      scheduler.shutdownNow();
+    }
+  }
+
+  /**
+   * Continue the sweep of the day from its checkpoint, up to the current last loan.
+   */
+  public void run() {
+    TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+    LocalDate today = LocalDate.now(clock);
+    Checkpoint checkpoint = transaction.execute(status -> startOrResume(today));
+    Long maxId = transaction.execute(status -> loanRepository.findMaxId());
+    long fromId = checkpoint.getUpToId();
+
+    if (maxId == null || maxId <= fromId) {
+      return;
+    }
+
+    new Run(transaction, today, fromId, maxId).execute();
+  }
+
+  /**
+   * Get the checkpoint of the sweep of a day, starting a new sweep if the last one was
+   * started on another day.
+   *
+   * @param today The day of the sweep.
+   * @return The checkpoint.
+   */
+  private Checkpoint startOrResume(LocalDate today) {
+    Instant startOfDay = today.atStartOfDay(clock.getZone()).toInstant();
+    Checkpoint checkpoint = checkpointRepository.findById(CHECKPOINT).orElse(null);
+
+    if (checkpoint == null) {
+      checkpoint = new Checkpoint(CHECKPOINT, startOfDay);
+    } else if (checkpoint.getUpTo().equals(startOfDay) && checkpoint.getUpToId() != null) {
+      return checkpoint;
+    }
+
+    checkpoint.setUpTo(startOfDay);
+    checkpoint.setUpToId(0L);
+    return checkpointRepository.save(checkpoint);
+  }
+
+  /**
+   * Flag the late loans of an ID range.
+   *
+   * @param today  The day on which lateness is checked.
+   * @param fromId The ID after which the range starts (exclusive).
+   * @param toId   The ID at which the range ends (inclusive).
+   * @return The number of loans read.
+   */
+  int processChunk(LocalDate today, long fromId, long toId) {
+    List<LoanDate> loans = loanRepository.findNotOverdueInRange(fromId, toId);
+    List<Long> lateIds = loans.stream()
+        .filter(loan -> LoanService.isLate(loan.getLoanDate(), today, loanLength))
+        .map(LoanDate::getId)
+        .toList();
+
+    if (!lateIds.isEmpty()) {
+      flaggedRows.increment(loanRepository.flagOverdue(lateIds));
+    }
+
+    scannedRows.increment(loans.size());
+    return loans.size();
+  }
+
+  /**
+   * One run of the sweep, over the IDs after the checkpoint.
+   */
+  private final class Run {
+    private final TransactionTemplate transaction;
+    private final LocalDate today;
+    private final long fromId;
+    private final long maxId;
+    private final long chunks;
+    private final TreeSet<Long> doneAhead = new TreeSet<>();
+    private final AtomicReference<RuntimeException> failure = new AtomicReference<>();
+    private final long startNanos = System.nanoTime();
+    private long nextChunk;
+    private long rows;
+
+    /**
+     * Prepare a run.
+     *
+     * @param transaction The template running each chunk in its own transaction.
+     * @param today       The day of the sweep.
+     * @param fromId      The checkpoint ID, after which the run starts.
+     * @param maxId       The last ID of the run.
+     */
+    Run(TransactionTemplate transaction, LocalDate today, long fromId, long maxId) {
+      this.transaction = transaction;
+      this.today = today;
+      this.fromId = fromId;
+      this.maxId = maxId;
+      this.chunks = (maxId - fromId + chunkSize - 1) / chunkSize;
+    }
+
+    /**
+     * Process every chunk, stopping at the first failure, then wait for the workers.
+     */
+    void execute() {
+      ExecutorService workers = Executors.newFixedThreadPool(threads);
+      Semaphore queued = new Semaphore(threads * 2);
+      progress = 0;
+
+      try {
+        for (long chunk = 0; chunk < chunks && failure.get() == null; chunk++) {
+          queued.acquire();
+          long index = chunk;
+          workers.execute(() -> {
+            try {
+              processChunk(index);
+            } catch (RuntimeException e) {
+              failure.compareAndSet(null, e);
+            } finally {
+              queued.release();
+            }
+          });
+        }
+
+        workers.shutdown();
+        workers.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+      } catch (InterruptedException e) {
+        workers.shutdownNow();
+        Thread.currentThread().interrupt();
+        return;
+      }
+
+      if (failure.get() != null) {
+        log.warn("Overdue sweep stopped at loan ID {}, it continues from there at the next run", checkpointId(), failure.get());
+      }
+    }
+
+    /**
+     * Process a chunk in its own transaction, then move the checkpoint forward if it can.
+     *
+     * @param chunk The index of the chunk in the run.
+     */
+    private void processChunk(long chunk) {
+      long chunkFromId = fromId + chunk * chunkSize;
+      long chunkToId = Math.min(chunkFromId + chunkSize, maxId);
+      Integer count = transaction.execute(status -> OverdueSweep.this.processChunk(today, chunkFromId, chunkToId));
+      done(chunk, count);
+    }
+
+    /**
+     * Record that a chunk is done, and save the checkpoint if every chunk before it is done.
+     *
+     * @param chunk The index of the chunk.
+     * @param count The number of loans read by the chunk.
+     */
+    private synchronized void done(long chunk, int count) {
+      rows += count;
+      doneAhead.add(chunk);
+      long advancedTo = nextChunk;
+
+      while (doneAhead.remove(advancedTo)) {
+        advancedTo++;
+      }
+
+      double seconds = (System.nanoTime() - startNanos) / 1e9;
+      rowsPerSecond = seconds > 0 ? rows / seconds : 0;
+
+      if (advancedTo == nextChunk) {
+        return;
+      }
+
+      nextChunk = advancedTo;
+      progress = (double) nextChunk / chunks;
+      long upToId = checkpointId();
+      transaction.executeWithoutResult(status -> checkpointRepository.findById(CHECKPOINT)
+          .ifPresent(checkpoint -> checkpoint.setUpToId(upToId)));
+    }
+
+    /**
+     * Get the ID below which every chunk of the run is done.
+     *
+     * @return The ID.
+     */
+    private synchronized long checkpointId() {
+      return Math.min(fromId + nextChunk * chunkSize, maxId);
+    }
+  }
+}
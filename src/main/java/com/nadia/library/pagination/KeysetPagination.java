@@ -0,0 +1,185 @@
+package com.nadia.library.pagination;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Helpers for keyset (cursor) pagination of the list endpoints.
+ *
+ * A page holds the next `limit` rows ordered by ID after the row identified by the cursor,
+ * so every page is read with an index range scan, however far into the table it is.
+ * Cursors are opaque to clients: they encode the ID of the last row of the previous page.
+ * Lists ordered by date encode the date and the ID of that row instead, as a DateKey.
+ */
+public final class KeysetPagination {
+  /**
+   * The number of rows returned when no `limit` is given.
+   */
+  public static final int DEFAULT_LIMIT = 100;
+
+  /**
+   * The largest accepted `limit`.
+   */
+  public static final int MAX_LIMIT = 1000;
+
+  /**
+   * The response header holding the cursor of the next page.
+   */
+  public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+  private KeysetPagination() {}
+
+  /**
+   * The position of a row in a list ordered by date and then by ID.
+   *
+   * @param date The date of the row, or null before the first row.
+   * @param id   The ID of the row.
+   */
+  public record DateKey(LocalDate date, Long id) {}
+
+  /**
+   * Encode the ID of the last row of a page as an opaque cursor.
+   *
+   * @param id The ID of the last row of the page.
+   * @return The cursor pointing after that row.
+   */
+  public static String encodeCursor(Long id) {
+    return encode(id.toString());
+  }
+
+  /**
+   * Decode a cursor into the ID after which the next page starts.
+   *
+   * @param cursor The cursor received from the client, or null for the first page.
+   * @return The ID after which the page starts (0 for the first page), or null if the cursor is invalid.
+   */
+  public static Long decodeCursor(String cursor) {
+    if (cursor == null || cursor.isEmpty()) {
+      return 0L;
+    }
+
+    try {
+      String id = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII);
+      long afterId = Long.parseLong(id);
+      return afterId >= 0 ? afterId : null;
+    } catch (IllegalArgumentException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Encode the date and ID of the last row of a page ordered by date as an opaque cursor.
+   *
+   * @param date The date of the last row of the page.
+   * @param id   The ID of the last row of the page.
+   * @return The cursor pointing after that row.
+   */
+  public static String encodeCursor(LocalDate date, Long id) {
+    return encode(date + "_" + id);
+  }
+
+  /**
+   * Decode a cursor of a list ordered by date into the row after which the next page starts.
+   *
+   * @param cursor The cursor received from the client, or null for the first page.
+   * @return The key after which the page starts (with a null date for the first page), or null if the cursor is invalid.
+   */
+  public static DateKey decodeDateCursor(String cursor) {
+    if (cursor == null || cursor.isEmpty()) {
+      return new DateKey(null, 0L);
+    }
+
+    try {
+      String[] key = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII).split("_", -1);
+
+      if (key.length != 2) {
+        return null;
+      }
+
+      long afterId = Long.parseLong(key[1]);
+      return afterId >= 0 ? new DateKey(LocalDate.parse(key[0]), afterId) : null;
+    } catch (IllegalArgumentException | DateTimeParseException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Check if a page size is accepted.
+   *
+   * @param limit The requested number of rows.
+   * @return True if the limit is between 1 and MAX_LIMIT, false otherwise.
+   */
+  public static boolean isValidLimit(int limit) {
+    return limit >= 1 && limit <= MAX_LIMIT;
+  }
+
+  /**
+   * Build the Pageable reading the first `limit` rows ordered by ID.
+   *
+   * @param limit The number of rows of the page.
+   * @return A Pageable for the first `limit` rows in ID order.
+   */
+  public static Pageable firstRows(int limit) {
+    return PageRequest.of(0, limit, Sort.by("id"));
+  }
+
+  /**
+   * Build the response for a page, with the next cursor in the `Link` and `X-Next-Cursor` headers.
+   *
+   * The `Link` target is relative to the request URL, so it keeps the path of the list endpoint.
+   *
+   * @param page  The slice of rows read from the repository.
+   * @param idOf  A function returning the ID of a row.
+   * @param limit The number of rows of the page.
+   * @param <T>   The type of the rows.
+   * @return A ResponseEntity containing the rows of the page.
+   */
+  public static <T> ResponseEntity<List<T>> toResponse(Slice<T> page, Function<T, Long> idOf, int limit) {
+    return toCursorResponse(page, row -> encodeCursor(idOf.apply(row)), limit);
+  }
+
+  /**
+   * Build the response for a page, with the cursor of its last row in the `Link` and
+   * `X-Next-Cursor` headers.
+   *
+   * @param page     The slice of rows read from the repository.
+   * @param cursorOf A function returning the cursor pointing after a row.
+   * @param limit    The number of rows of the page.
+   * @param <T>      The type of the rows.
+   * @return A ResponseEntity containing the rows of the page.
+   */
+  public static <T> ResponseEntity<List<T>> toCursorResponse(Slice<T> page, Function<T, String> cursorOf, int limit) {
+    List<T> rows = page.getContent();
+    HttpHeaders headers = new HttpHeaders();
+
+    if (page.hasNext() && !rows.isEmpty()) {
+      String nextCursor = cursorOf.apply(rows.get(rows.size() - 1));
+      headers.add(NEXT_CURSOR_HEADER, nextCursor);
+      headers.add(HttpHeaders.LINK, "<?after=" + nextCursor + "&limit=" + limit + ">; rel=\"next\"");
+    }
+
+    return new ResponseEntity<>(rows, headers, HttpStatus.OK);
+  }
+
+  /**
+   * Encode the text of a cursor, so that it is opaque and safe in a URL.
+   *
+   * @param key The text of the cursor.
+   * @return The encoded cursor.
+   */
+  private static String encode(String key) {
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.US_ASCII));
+  }
+}
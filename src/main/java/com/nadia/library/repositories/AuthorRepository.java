@@ -2,7 +2,16 @@ package com.nadia.library.repositories;
 
 import com.nadia.library.models.Author;
 
+import java.util.stream.Stream;
+
+import jakarta.persistence.QueryHint;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 /**
@@ -15,9 +24,43 @@ public interface AuthorRepository extends JpaRepository<Author, Long> {
   /**
    * Find an author by their name and country.
    *
+   * The result is kept in the query cache until the person table changes.
+   *
    * @param name The name of the author to search for.
    * @param country The country of the author to search for.
    * @return The Author entity with the specified name and country, if found.
    */
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
   Author findByNameAndCountry(String name, String country);
+
+  /**
+   * Find the next authors in ID order after a given ID (keyset pagination).
+   *
+   * @param id       The ID after which the page starts.
+   * @param pageable The number of rows to read, ordered by ID.
+   * @return A slice of Author entities with an ID greater than the given ID.
+   */
+  Slice<Author> findByIdGreaterThan(Long id, Pageable pageable);
+
+  /**
+   * Stream every author in ID order, reading rows from the database in batches of 1000.
+   *
+   * Must be called inside a (read-only) transaction, and the stream must be closed after use.
+   *
+   * @return A stream of all Author entities.
+   */
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+  @Query("SELECT a FROM Author a ORDER BY a.id")
+  Stream<Author> streamAll();
+
+  /**
+   * Stream the IDs of all authors, reading rows from the database in batches of 1000.
+   *
+   * Must be called inside a (read-only) transaction, and the stream must be closed after use.
+   *
+   * @return A stream of all Author IDs.
+   */
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+  @Query("SELECT a.id FROM Author a")
+  Stream<Long> streamAllIds();
 }
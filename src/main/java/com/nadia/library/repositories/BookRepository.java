@@ -1,8 +1,22 @@
 package com.nadia.library.repositories;
 
+import com.nadia.library.dto.BookTitle;
 import com.nadia.library.models.Book;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import jakarta.persistence.QueryHint;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 
@@ -21,9 +35,75 @@ public interface BookRepository extends JpaRepository<Book, Long> {
   /**
    * Find a book by the author and title.
    *
+   * The result is kept in the query cache until the book table changes.
+   *
    * @param authorId The ID of the author of the book to search for.
    * @param title  The title of the book to search for.
    * @return The Book entity with the specified author and title, if found.
    */
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
   Book findByAuthorIdAndTitle(Long authorId, String title);
+
+  /**
+   * Find the books by any of the given authors with any of the given titles, with a single query.
+   *
+   * The result may include books whose (author, title) pair was not asked for: callers keep
+   * only the exact pairs they look for.
+   *
+   * @param authorIds The IDs of the authors.
+   * @param titles    The titles.
+   * @return The Book entities with one of the authors and one of the titles.
+   */
+  List<Book> findByAuthorIdInAndTitleIn(Collection<Long> authorIds, Collection<String> titles);
+
+  /**
+   * Find which of the given book IDs exist, with a single `IN` query.
+   *
+   * @param ids The book IDs to check.
+   * @return The subset of the given IDs that belong to an existing book.
+   */
+  @Query("SELECT b.id FROM Book b WHERE b.id IN :ids")
+  Set<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+  /**
+   * Find the next books in ID order after a given ID (keyset pagination).
+   *
+   * @param id       The ID after which the page starts.
+   * @param pageable The number of rows to read, ordered by ID.
+   * @return A slice of Book entities with an ID greater than the given ID.
+   */
+  Slice<Book> findByIdGreaterThan(Long id, Pageable pageable);
+
+  /**
+   * Stream every book in ID order, reading rows from the database in batches of 1000.
+   *
+   * Must be called inside a (read-only) transaction, and the stream must be closed after use.
+   *
+   * @return A stream of all Book entities.
+   */
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+  @Query("SELECT b FROM Book b ORDER BY b.id")
+  Stream<Book> streamAll();
+
+  /**
+   * Stream the IDs of all books, reading rows from the database in batches of 1000.
+   *
+   * Must be called inside a (read-only) transaction, and the stream must be closed after use.
+   *
+   * @return A stream of all Book IDs.
+   */
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+  @Query("SELECT b.id FROM Book b")
+  Stream<Long> streamAllIds();
+
+  /**
+   * Stream the ID, title and author name of every book, reading rows in batches of 1000.
+   *
+   * Must be called inside a (read-only) transaction, and the stream must be closed after use.
+   *
+   * @return A stream of BookTitle projections.
+   */
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+  @Query("SELECT b.id AS id, b.authorId AS authorId, b.title AS title, a.name AS authorName FROM Book b LEFT JOIN b.author a")
+  Stream<BookTitle> streamTitles();
 }
@@ -0,0 +1,32 @@
+package com.nadia.library.repositories;
+
+import com.nadia.library.models.Checkpoint;
+
+import java.util.Optional;
+
+import jakarta.persistence.LockModeType;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository for handling Checkpoint entities.
+ *
+ * A repository interface for managing the progress of background jobs in the database.
+ */
+@Repository
+public interface CheckpointRepository extends JpaRepository<Checkpoint, String> {
+  /**
+   * Find a checkpoint by name and lock its row until the end of the transaction, so that
+   * only one instance runs the job at a time.
+   *
+   * @param name The name of the job.
+   * @return The checkpoint, or empty if the job has never run.
+   */
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @Query("SELECT c FROM Checkpoint c WHERE c.name = :name")
+  Optional<Checkpoint> lockByName(@Param("name") String name);
+}
@@ -0,0 +1,51 @@
+package com.nadia.library.repositories;
+
+import com.nadia.library.dto.BookBalance;
+import com.nadia.library.models.CirculationEvent;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository for handling CirculationEvent entities.
+ *
+ * A repository interface for appending to and reading the circulation ledger.
+ */
+@Repository
+public interface CirculationEventRepository extends JpaRepository<CirculationEvent, Long> {
+  /**
+   * Find the next events of a book in ID order after a given ID (keyset pagination).
+   *
+   * @param bookId   The ID of the book.
+   * @param id       The ID after which the page starts.
+   * @param pageable The number of rows to read, ordered by ID.
+   * @return A slice of CirculationEvent entities of the book with an ID greater than the given ID.
+   */
+  Slice<CirculationEvent> findByBookIdAndIdGreaterThan(Long bookId, Long id, Pageable pageable);
+
+  /**
+   * Sum the effect of the events recorded in a time range, per book.
+   *
+   * Loan events take a copy from the stock (checkouts) or put one back (returns), so their
+   * stock change negated is their change of the number of loans.
+   *
+   * @param after The start of the range (exclusive).
+   * @param upTo  The end of the range (inclusive).
+   * @return The net stock and loan changes of each book with events in the range.
+   */
+  @Query("""
+    SELECT e.bookId AS bookId,
+      SUM(e.stockDelta) AS stockDelta,
+      SUM(CASE WHEN e.loanId IS NULL THEN 0 ELSE -e.stockDelta END) AS loanDelta
+    FROM CirculationEvent e
+    WHERE e.recordedAt > :after AND e.recordedAt <= :upTo
+    GROUP BY e.bookId""")
+  List<BookBalance> sumByBook(@Param("after") Instant after, @Param("upTo") Instant upTo);
+}
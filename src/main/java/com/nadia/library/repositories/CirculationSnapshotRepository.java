@@ -0,0 +1,14 @@
+package com.nadia.library.repositories;
+
+import com.nadia.library.models.CirculationSnapshot;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository for handling CirculationSnapshot entities.
+ *
+ * A repository interface for managing the snapshot of the circulation ledger in the database.
+ */
+@Repository
+public interface CirculationSnapshotRepository extends JpaRepository<CirculationSnapshot, Long> {}
@@ -1,9 +1,19 @@
 package com.nadia.library.repositories;
 
+import com.nadia.library.dto.BookCount;
 import com.nadia.library.models.Inventory;
 
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 /**
  * Repository for handling Inventory entities.
@@ -11,7 +21,7 @@ import org.springframework.stereotype.Repository;
  * A repository interface for managing Inventory entities in the database.
  */
 @Repository
-public interface InventoryRepository extends JpaRepository<Inventory, Long> {
+public interface InventoryRepository extends JpaRepository<Inventory, Long>, InventoryRepositoryCustom {
   /**
    * Find an inventory item by the book ID.
    *
@@ -20,6 +30,14 @@ public interface InventoryRepository extends JpaRepository<Inventory, Long> {
    */
   Inventory findByBookId(Long bookId);
 
+  /**
+   * Find the inventory items of several books.
+   *
+   * @param bookIds The IDs of the books.
+   * @return The Inventory entities of the books that have one, in no particular order.
+   */
+  List<Inventory> findByBookIdIn(Collection<Long> bookIds);
+
   /**
    * Get the inventory in-stock value for a book.
    *
@@ -46,22 +64,44 @@ public interface InventoryRepository extends JpaRepository<Inventory, Long> {
   /**
    * Increment the in-stock value for a book's inventory.
    *
+   * Runs as a single `UPDATE` statement so concurrent returns never lose an update.
+   *
    * @param bookId The ID of the book associated with the inventory item.
+   * @return The number of inventory rows updated (0 if the book has no inventory item).
    */
-  public default void incrementInventory(Long bookId) {
-    Inventory inventoryEntry = findByBookId(bookId);
-    inventoryEntry.setInStock(inventoryEntry.getInStock() + 1);
-    save(inventoryEntry);
-  }
+  @Modifying
+  @Transactional
+  @Query("UPDATE Inventory i SET i.inStock = i.inStock + 1 WHERE i.bookId = :bookId")
+  int incrementInventory(@Param("bookId") Long bookId);
 
   /**
-   * Decrement the in-stock value for a book's inventory.
+   * Decrement the in-stock value for a book's inventory, if at least one copy is in stock.
+   *
+   * Runs as a single conditional `UPDATE` statement, so concurrent checkouts of the same
+   * book can never drive the in-stock value below 0.
    *
    * @param bookId The ID of the book associated with the inventory item.
+   * @return 1 if a copy was taken from the inventory, 0 if no copy was in stock.
    */
-  public default void decrementInventory(Long bookId) {
-    Inventory inventoryEntry = findByBookId(bookId);
-    inventoryEntry.setInStock(inventoryEntry.getInStock() - 1);
-    save(inventoryEntry);
-  }
+  @Modifying
+  @Transactional
+  @Query("UPDATE Inventory i SET i.inStock = i.inStock - 1 WHERE i.bookId = :bookId AND i.inStock > 0")
+  int decrementInventory(@Param("bookId") Long bookId);
+
+  /**
+   * Find the next inventory items in ID order after a given ID (keyset pagination).
+   *
+   * @param id       The ID after which the page starts.
+   * @param pageable The number of rows to read, ordered by ID.
+   * @return A slice of Inventory entities with an ID greater than the given ID.
+   */
+  Slice<Inventory> findByIdGreaterThan(Long id, Pageable pageable);
+
+  /**
+   * Get the number of copies in stock of every book.
+   *
+   * @return The in-stock value of each book that has an inventory item.
+   */
+  @Query("SELECT i.bookId AS bookId, CAST(i.inStock AS Long) AS count FROM Inventory i")
+  List<BookCount> findStockByBook();
 }
@@ -0,0 +1,29 @@
+package com.nadia.library.repositories;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Custom Inventory repository operations implemented with plain JDBC.
+ *
+ * Spring Data adds these methods to InventoryRepository through InventoryRepositoryCustomImpl.
+ */
+public interface InventoryRepositoryCustom {
+  /**
+   * Decrement the in-stock value of several books' inventory in a single JDBC batch.
+   *
+   * Each entry is a conditional update that only takes a copy if one is in stock, applied
+   * in order, so a book listed twice takes two copies.
+   *
+   * @param bookIds The IDs of the books to take a copy of, one entry per copy.
+   * @return The number of rows updated for each entry, in order: 1 if a copy was taken, 0 otherwise.
+   */
+  int[] decrementInventories(List<Long> bookIds);
+
+  /**
+   * Add a change to the in-stock value of several books' inventory in a single JDBC batch.
+   *
+   * @param stockDeltas The change of the number of copies in stock of each book.
+   */
+  void addToInventories(Map<Long, Integer> stockDeltas);
+}
@@ -0,0 +1,59 @@
+package com.nadia.library.repositories;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * JDBC implementation of the custom Inventory repository operations.
+ *
+ * Runs on the connection of the current transaction, so the updates commit or roll back
+ * together with the JPA changes of the same service call.
+ */
+public class InventoryRepositoryCustomImpl implements InventoryRepositoryCustom {
+  private static final String DECREMENT_INVENTORY_SQL =
+    "UPDATE inventory SET in_stock = in_stock - 1 WHERE book_id = ? AND in_stock > 0";
+  private static final String ADD_TO_INVENTORY_SQL =
+    "UPDATE inventory SET in_stock = in_stock + ? WHERE book_id = ?";
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  /**
+   * Decrement the in-stock value of several books' inventory in a single JDBC batch.
+   *
+   * @param bookIds The IDs of the books to take a copy of, one entry per copy.
+   * @return The number of rows updated for each entry, in order: 1 if a copy was taken, 0 otherwise.
+   */
+  @Override
+  public int[] decrementInventories(List<Long> bookIds) {
+    if (bookIds.isEmpty()) {
+      return new int[0];
+    }
+
+    int[][] updateCounts = jdbcTemplate.batchUpdate(DECREMENT_INVENTORY_SQL, bookIds, bookIds.size(),
+      (statement, bookId) -> statement.setLong(1, bookId));
+    return updateCounts[0];
+  }
+
+  /**
+   * Add a change to the in-stock value of several books' inventory in a single JDBC batch.
+   *
+   * @param stockDeltas The change of the number of copies in stock of each book.
+   */
+  @Override
+  public void addToInventories(Map<Long, Integer> stockDeltas) {
+    if (stockDeltas.isEmpty()) {
+      return;
+    }
+
+    List<Map.Entry<Long, Integer>> entries = new ArrayList<>(stockDeltas.entrySet());
+    jdbcTemplate.batchUpdate(ADD_TO_INVENTORY_SQL, entries, entries.size(), (statement, entry) -> {
+      statement.setInt(1, entry.getValue());
+      statement.setLong(2, entry.getKey());
+    });
+  }
+}
@@ -1,8 +1,25 @@
 package com.nadia.library.repositories;
 
+import com.nadia.library.dto.BookCount;
+import com.nadia.library.dto.LoanDate;
+import com.nadia.library.dto.UserLoan;
 import com.nadia.library.models.Loan;
 
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+import jakarta.persistence.QueryHint;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 /**
@@ -21,12 +38,33 @@ public interface LoanRepository extends JpaRepository<Loan, Long> {
   Loan findByBookId(Long bookId);
 
   /**
-   * Find a loan by the user ID.
+   * Find a page of the loans of a user.
+   *
+   * Runs as a range scan on the `(userId, loanDate, bookId, status)` index, which holds every
+   * column of the projection, and returns a slice, so no count query is issued.
    *
-   * @param userId The ID of the user associated with the loan to search for.
-   * @return The Loan entity with the specified user ID, if found.
+   * @param userId   The ID of the user.
+   * @param pageable The page to retrieve, ordered by loan date.
+   * @return A slice of UserLoan projections.
    */
-  Loan findByUserId(Long userId);
+  Slice<UserLoan> findByUserId(Long userId, Pageable pageable);
+
+  /**
+   * Find a page of the loans of a user after a given loan, ordered by loan date and then by ID.
+   *
+   * Continues the range scan of findByUserId on the `(userId, loanDate, bookId, status)`
+   * index from the given key, so every page costs the same however far into the list it is.
+   *
+   * @param userId   The ID of the user.
+   * @param loanDate The loan date of the last loan of the previous page.
+   * @param id       The ID of the last loan of the previous page.
+   * @param pageable The size of the page.
+   * @return A slice of UserLoan projections.
+   */
+  @Query("SELECT l.id AS id, l.bookId AS bookId, l.status AS status, l.loanDate AS loanDate FROM Loan l"
+    + " WHERE l.userId = :userId AND (l.loanDate > :loanDate OR (l.loanDate = :loanDate AND l.id > :id))"
+    + " ORDER BY l.loanDate, l.id")
+  Slice<UserLoan> findByUserIdAfter(@Param("userId") Long userId, @Param("loanDate") LocalDate loanDate, @Param("id") Long id, Pageable pageable);
 
   /**
    * Check if a loan exists for a given book ID.
@@ -35,4 +73,85 @@ public interface LoanRepository extends JpaRepository<Loan, Long> {
    * @return true if a loan exists for the book, false otherwise.
    */
   boolean existsByBookId(Long bookId);
+
+  /**
+   * Find a page of loans made before a given date.
+   *
+   * Runs as a range scan on the indexed `loanDate` column and returns a slice,
+   * so no count query is issued.
+   *
+   * @param cutoff   The date before which the loans were made (exclusive).
+   * @param pageable The page to retrieve.
+   * @return A slice of Loan entities with a loan date before the cutoff.
+   */
+  Slice<Loan> findByLoanDateBefore(LocalDate cutoff, Pageable pageable);
+
+  /**
+   * Find the next loans in ID order after a given ID (keyset pagination).
+   *
+   * @param id       The ID after which the page starts.
+   * @param pageable The number of rows to read, ordered by ID.
+   * @return A slice of Loan entities with an ID greater than the given ID.
+   */
+  Slice<Loan> findByIdGreaterThan(Long id, Pageable pageable);
+
+  /**
+   * Stream every loan in ID order, reading rows from the database in batches of 1000.
+   *
+   * Must be called inside a (read-only) transaction, and the stream must be closed after use.
+   *
+   * @return A stream of all Loan entities.
+   */
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+  @Query("SELECT l FROM Loan l ORDER BY l.id")
+  Stream<Loan> streamAll();
+
+  /**
+   * Stream the ID and date of every loan, reading rows from the database in batches of 1000.
+   *
+   * Must be called inside a (read-only) transaction, and the stream must be closed after use.
+   *
+   * @return A stream of LoanDate projections.
+   */
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+  @Query("SELECT l.id AS id, l.loanDate AS loanDate FROM Loan l")
+  Stream<LoanDate> streamLoanDates();
+
+  /**
+   * Find the largest loan ID.
+   *
+   * @return The largest ID, or null if there is no loan.
+   */
+  @Query("SELECT MAX(l.id) FROM Loan l")
+  Long findMaxId();
+
+  /**
+   * Find the ID and date of the loans of an ID range that are not flagged as overdue yet.
+   *
+   * Runs as a range scan on the primary key.
+   *
+   * @param fromId The ID after which the range starts (exclusive).
+   * @param toId   The ID at which the range ends (inclusive).
+   * @return The LoanDate projections of the range.
+   */
+  @Query("SELECT l.id AS id, l.loanDate AS loanDate FROM Loan l WHERE l.id > :fromId AND l.id <= :toId AND l.overdue = false")
+  List<LoanDate> findNotOverdueInRange(@Param("fromId") Long fromId, @Param("toId") Long toId);
+
+  /**
+   * Flag loans as overdue, with a single `UPDATE` statement.
+   *
+   * @param ids The IDs of the loans to flag.
+   * @return The number of loans flagged (loans already flagged are not counted).
+   */
+  @Modifying
+  @Query("UPDATE Loan l SET l.overdue = true WHERE l.id IN :ids AND l.overdue = false")
+  int flagOverdue(@Param("ids") Collection<Long> ids);
+
+  /**
+   * Count the loans of each book.
+   *
+   * @return The number of loans of each book that has at least one.
+   */
+  @Query("SELECT l.bookId AS bookId, COUNT(l) AS count FROM Loan l GROUP BY l.bookId")
+  List<BookCount> countByBook();
 }
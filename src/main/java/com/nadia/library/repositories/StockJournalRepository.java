@@ -0,0 +1,36 @@
+package com.nadia.library.repositories;
+
+import com.nadia.library.models.StockJournalEntry;
+
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository for handling StockJournalEntry entities.
+ *
+ * A repository interface for the journal of the stock changes not yet written to the inventory table.
+ */
+@Repository
+public interface StockJournalRepository extends JpaRepository<StockJournalEntry, Long> {
+  /**
+   * Find the oldest pending entries.
+   *
+   * @param pageable The number of entries to read.
+   * @return The entries, in ID order.
+   */
+  List<StockJournalEntry> findByOrderById(Pageable pageable);
+
+  /**
+   * Sum the pending changes of a book.
+   *
+   * @param bookId The ID of the book.
+   * @return The net stock change not yet applied to the book's inventory row, or null if none.
+   */
+  @Query("SELECT SUM(e.delta) FROM StockJournalEntry e WHERE e.bookId = :bookId")
+  Long sumDeltaByBookId(@Param("bookId") Long bookId);
+}
@@ -2,7 +2,16 @@ package com.nadia.library.repositories;
 
 import com.nadia.library.models.User;
 
+import java.util.stream.Stream;
+
+import jakarta.persistence.QueryHint;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 /**
@@ -19,4 +28,24 @@ public interface UserRepository extends JpaRepository<User, Long> {
    * @return The User entity with the specified email, if found.
    */
   User findByEmail(String email);
+
+  /**
+   * Find the next users in ID order after a given ID (keyset pagination).
+   *
+   * @param id       The ID after which the page starts.
+   * @param pageable The number of rows to read, ordered by ID.
+   * @return A slice of User entities with an ID greater than the given ID.
+   */
+  Slice<User> findByIdGreaterThan(Long id, Pageable pageable);
+
+  /**
+   * Stream the IDs of all users, reading rows from the database in batches of 1000.
+   *
+   * Must be called inside a (read-only) transaction, and the stream must be closed after use.
+   *
+   * @return A stream of all User IDs.
+   */
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+  @Query("SELECT u.id FROM User u")
+  Stream<Long> streamAllIds();
 }
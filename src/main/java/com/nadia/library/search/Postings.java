@@ -0,0 +1,126 @@
+package com.nadia.library.search;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The books containing one term, with the number of times the term appears in each.
+ *
+ * Stored in two parallel primitive arrays, in no particular order. Once a term is in more
+ * than INDEXED_SIZE books, the position of each book is also kept in a map, so that removing
+ * a book from a common term does not scan its whole list under the write lock. Not
+ * thread-safe: TitleSearchIndex guards every access with its lock.
+ */
+class Postings {
+  /**
+   * The number of books above which their positions are kept in a map.
+   */
+  static final int INDEXED_SIZE = 32;
+
+  private long[] bookIds = new long[2];
+  private int[] frequencies = new int[2];
+  private Map<Long, Integer> positions;
+  private int size;
+
+  /**
+   * Add a book containing the term.
+   *
+   * @param bookId    The ID of the book.
+   * @param frequency The number of times the term appears in the book.
+   */
+  void add(long bookId, int frequency) {
+    if (size == bookIds.length) {
+      bookIds = Arrays.copyOf(bookIds, size * 2);
+      frequencies = Arrays.copyOf(frequencies, size * 2);
+    }
+
+    bookIds[size] = bookId;
+    frequencies[size] = frequency;
+    size++;
+
+    if (positions != null) {
+      positions.put(bookId, size - 1);
+    } else if (size > INDEXED_SIZE) {
+      positions = new HashMap<>();
+
+      for (int i = 0; i < size; i++) {
+        positions.put(bookIds[i], i);
+      }
+    }
+  }
+
+  /**
+   * Remove a book, moving the last entry into its place.
+   *
+   * @param bookId The ID of the book.
+   */
+  void remove(long bookId) {
+    int i = positionOf(bookId);
+
+    if (i < 0) {
+      return;
+    }
+
+    size--;
+    bookIds[i] = bookIds[size];
+    frequencies[i] = frequencies[size];
+
+    if (positions != null) {
+      positions.remove(bookId);
+
+      if (i < size) {
+        positions.put(bookIds[i], i);
+      }
+    }
+  }
+
+  /**
+   * Get the number of books containing the term (its document frequency).
+   *
+   * @return The number of books.
+   */
+  int size() {
+    return size;
+  }
+
+  /**
+   * Get the ID of the i-th book.
+   *
+   * @param i The position, from 0 to size - 1.
+   * @return The book ID.
+   */
+  long bookId(int i) {
+    return bookIds[i];
+  }
+
+  /**
+   * Get the number of times the term appears in the i-th book.
+   *
+   * @param i The position, from 0 to size - 1.
+   * @return The term frequency.
+   */
+  int frequency(int i) {
+    return frequencies[i];
+  }
+
+  /**
+   * Find the position of a book, from the map if there is one, by scanning otherwise.
+   *
+   * @param bookId The ID of the book.
+   * @return The position, or -1 if the book does not contain the term.
+   */
+  private int positionOf(long bookId) {
+    if (positions != null) {
+      return positions.getOrDefault(bookId, -1);
+    }
+
+    for (int i = 0; i < size; i++) {
+      if (bookIds[i] == bookId) {
+        return i;
+      }
+    }
+
+    return -1;
+  }
+}
@@ -0,0 +1,453 @@
+package com.nadia.library.search;
+
+import com.nadia.library.dto.BookSearchHit;
+import com.nadia.library.dto.BookTitle;
+import com.nadia.library.models.Book;
+import com.nadia.library.repositories.BookRepository;
+import com.nadia.library.transaction.AfterCommit;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * In-memory inverted index over the titles and author names of all books.
+ *
+ * Text is split into lowercase terms without accents. A query matches the books containing
+ * all of its terms, the last one also matching as a prefix (so results can follow typing),
+ * and matches are ranked with BM25. A prefix is matched against every term it starts: when
+ * other terms come before it, only against the terms of the books they match; otherwise
+ * against the whole range of terms it starts, if it has at least MIN_PREFIX_LENGTH
+ * characters, and as a whole term only if it is shorter. The index is loaded once the application is ready and
+ * kept up to date by BookService and AuthorService, whose changes are applied once their
+ * transaction commits. Searches share a read lock; updates take the write lock.
+ */
+@Component
+public class TitleSearchIndex {
+  /**
+   * The number of results returned when no limit is given.
+   */
+  public static final int DEFAULT_LIMIT = 20;
+
+  /**
+   * The largest number of results a search can return.
+   */
+  public static final int MAX_LIMIT = 100;
+
+  /**
+   * The BM25 term frequency saturation parameter.
+   */
+  private static final double K1 = 1.2;
+
+  /**
+   * The BM25 document length normalization parameter.
+   */
+  private static final double B = 0.75;
+
+  /**
+   * The shortest query made of a prefix alone that is expanded to the terms it starts.
+   */
+  static final int MIN_PREFIX_LENGTH = 2;
+
+  private static final Pattern ACCENTS = Pattern.compile("\\p{M}+");
+  private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+  @Autowired
+  private BookRepository bookRepository;
+
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+  private final NavigableMap<String, Postings> postings = new TreeMap<>();
+  private final Map<Long, IndexedBook> books = new HashMap<>();
+  private long totalLength;
+
+  /**
+   * A book as stored in the index.
+   *
+   * @param authorId   The ID of the author.
+   * @param title      The title.
+   * @param authorName The name of the author, or null.
+   * @param terms       The distinct terms of the title and author name.
+   * @param frequencies The number of times each of the terms appears.
+   * @param length      The total number of terms of the title and author name.
+   */
+  private record IndexedBook(Long authorId, String title, String authorName, String[] terms, int[] frequencies, int length) {}
+
+  /**
+   * A scored match, ordered by score and then by book ID.
+   *
+   * @param bookId The ID of the book.
+   * @param score  The score of the book.
+   */
+  private record Match(long bookId, double score) {}
+
+  /**
+   * Index every book of the database.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  @Transactional(readOnly = true)
+  public void load() {
+    try (Stream<BookTitle> titles = bookRepository.streamTitles()) {
+      titles.forEach(book -> put(book.getId(), book.getAuthorId(), book.getTitle(), book.getAuthorName()));
+    }
+  }
+
+  /**
+   * Add a book to the index, or replace it if it is already indexed, once the current
+   * transaction commits.
+   *
+   * @param book       The book.
+   * @param authorName The name of the author of the book, or null if unknown.
+   */
+  public void put(Book book, String authorName) {
+    Long bookId = book.getId();
+    Long authorId = book.getAuthorId();
+    String title = book.getTitle();
+    AfterCommit.run(() -> put(bookId, authorId, title, authorName));
+  }
+
+  /**
+   * Remove a book from the index, once the current transaction commits.
+   *
+   * @param bookId The ID of the book.
+   */
+  public void remove(Long bookId) {
+    AfterCommit.run(() -> {
+      lock.writeLock().lock();
+      try {
+        removeLocked(bookId);
+      } finally {
+        lock.writeLock().unlock();
+      }
+    });
+  }
+
+  /**
+   * Re-index the books of an author under a new name, once the current transaction commits.
+   *
+   * Scans every indexed book, which is acceptable because authors are rarely renamed.
+   *
+   * @param authorId   The ID of the author.
+   * @param authorName The new name of the author.
+   */
+  public void renameAuthor(Long authorId, String authorName) {
+    AfterCommit.run(() -> {
+      lock.writeLock().lock();
+      try {
+        List<Long> bookIds = books.entrySet().stream()
+            .filter(entry -> authorId.equals(entry.getValue().authorId()))
+            .map(Map.Entry::getKey)
+            .toList();
+
+        for (Long bookId : bookIds) {
+          IndexedBook book = books.get(bookId);
+          putLocked(bookId, book.authorId(), book.title(), authorName);
+        }
+      } finally {
+        lock.writeLock().unlock();
+      }
+    });
+  }
+
+  /**
+   * Get the number of indexed books.
+   *
+   * @return The number of books.
+   */
+  public int size() {
+    lock.readLock().lock();
+    try {
+      return books.size();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Find the books matching a query, most relevant first.
+   *
+   * @param query The words to look for in titles and author names.
+   * @param limit The maximum number of results.
+   * @return The matching books, or an empty list if the query has no terms or nothing matches.
+   */
+  public List<BookSearchHit> search(String query, int limit) {
+    List<String> terms = tokenize(query);
+
+    if (terms.isEmpty()) {
+      return List.of();
+    }
+
+    lock.readLock().lock();
+    try {
+      if (books.isEmpty()) {
+        return List.of();
+      }
+
+      double averageLength = (double) totalLength / books.size();
+      List<Map<Long, Double>> scoresPerTerm = new ArrayList<>();
+
+      for (String term : terms.subList(0, terms.size() - 1)) {
+        scoresPerTerm.add(score(term, averageLength));
+      }
+
+      String prefix = terms.get(terms.size() - 1);
+
+      if (scoresPerTerm.isEmpty()) {
+        scoresPerTerm.add(prefix.length() < MIN_PREFIX_LENGTH ? score(prefix, averageLength) : scorePrefix(prefix, averageLength));
+      } else {
+        Map<Long, Double> candidates = Collections.min(scoresPerTerm, Comparator.comparingInt(Map::size));
+        scoresPerTerm.add(scorePrefix(prefix, candidates.keySet(), averageLength));
+      }
+
+      return topMatches(scoresPerTerm, limit);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Split text into lowercase terms, without accents.
+   *
+   * @param text The text to split.
+   * @return The terms, in order (with repetitions).
+   */
+  static List<String> tokenize(String text) {
+    if (text == null) {
+      return List.of();
+    }
+
+    String normalized = ACCENTS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+    List<String> terms = new ArrayList<>();
+
+    for (String term : SEPARATORS.split(normalized.toLowerCase(Locale.ROOT))) {
+      if (!term.isEmpty()) {
+        terms.add(term);
+      }
+    }
+
+    return terms;
+  }
+
+  /**
+   * Add or replace a book, taking the write lock.
+   *
+   * @param bookId     The ID of the book.
+   * @param authorId   The ID of the author.
+   * @param title      The title.
+   * @param authorName The name of the author, or null.
+   */
+  private void put(Long bookId, Long authorId, String title, String authorName) {
+    lock.writeLock().lock();
+    try {
+      putLocked(bookId, authorId, title, authorName);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Add or replace a book. The write lock must be held.
+   *
+   * @param bookId     The ID of the book.
+   * @param authorId   The ID of the author.
+   * @param title      The title.
+   * @param authorName The name of the author, or null.
+   */
+  private void putLocked(Long bookId, Long authorId, String title, String authorName) {
+    removeLocked(bookId);
+
+    List<String> terms = tokenize(title);
+    terms.addAll(tokenize(authorName));
+    Map<String, Integer> frequencies = new LinkedHashMap<>();
+
+    for (String term : terms) {
+      frequencies.merge(term, 1, Integer::sum);
+    }
+
+    frequencies.forEach((term, frequency) -> postings.computeIfAbsent(term, t -> new Postings()).add(bookId, frequency));
+    String[] distinctTerms = frequencies.keySet().toArray(String[]::new);
+    int[] termFrequencies = frequencies.values().stream().mapToInt(Integer::intValue).toArray();
+    books.put(bookId, new IndexedBook(authorId, title, authorName, distinctTerms, termFrequencies, terms.size()));
+    totalLength += terms.size();
+  }
+
+  /**
+   * Remove a book if it is indexed. The write lock must be held.
+   *
+   * @param bookId The ID of the book.
+   */
+  private void removeLocked(Long bookId) {
+    IndexedBook book = books.remove(bookId);
+
+    if (book == null) {
+      return;
+    }
+
+    for (String term : book.terms()) {
+      Postings termPostings = postings.get(term);
+      termPostings.remove(bookId);
+
+      if (termPostings.size() == 0) {
+        postings.remove(term);
+      }
+    }
+
+    totalLength -= book.length();
+  }
+
+  /**
+   * Score the books containing one query term with BM25.
+   *
+   * @param term          The query term.
+   * @param averageLength The average number of terms per book.
+   * @return The score of each matching book.
+   */
+  private Map<Long, Double> score(String term, double averageLength) {
+    Map<Long, Double> scores = new HashMap<>();
+    Postings termPostings = postings.get(term);
+
+    if (termPostings != null) {
+      addScores(termPostings, averageLength, scores);
+    }
+
+    return scores;
+  }
+
+  /**
+   * Score the books containing a term that starts with a prefix, over the whole range of
+   * terms it starts. Each book gets the best score among the terms it contains.
+   *
+   * @param prefix        The query prefix.
+   * @param averageLength The average number of terms per book.
+   * @return The score of each matching book.
+   */
+  private Map<Long, Double> scorePrefix(String prefix, double averageLength) {
+    Map<Long, Double> scores = new HashMap<>();
+
+    for (Postings termPostings : postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values()) {
+      addScores(termPostings, averageLength, scores);
+    }
+
+    return scores;
+  }
+
+  /**
+   * Score the candidate books containing a term that starts with a prefix, by going through
+   * the terms of each candidate rather than through the range of terms the prefix starts.
+   * Each book gets the best score among the terms it contains.
+   *
+   * @param prefix        The query prefix.
+   * @param candidates    The IDs of the books matched by the other query terms.
+   * @param averageLength The average number of terms per book.
+   * @return The score of each matching candidate.
+   */
+  private Map<Long, Double> scorePrefix(String prefix, Set<Long> candidates, double averageLength) {
+    Map<Long, Double> scores = new HashMap<>();
+
+    for (Long bookId : candidates) {
+      IndexedBook book = books.get(bookId);
+
+      for (int i = 0; i < book.terms().length; i++) {
+        if (book.terms()[i].startsWith(prefix)) {
+          double score = bm25(postings.get(book.terms()[i]).size(), book.frequencies()[i], book.length(), averageLength);
+          scores.merge(bookId, score, Math::max);
+        }
+      }
+    }
+
+    return scores;
+  }
+
+  /**
+   * Score every book containing a term, keeping the best score of each book.
+   *
+   * @param termPostings  The books containing the term.
+   * @param averageLength The average number of terms per book.
+   * @param scores        The scores to update.
+   */
+  private void addScores(Postings termPostings, double averageLength, Map<Long, Double> scores) {
+    for (int i = 0; i < termPostings.size(); i++) {
+      long bookId = termPostings.bookId(i);
+      double score = bm25(termPostings.size(), termPostings.frequency(i), books.get(bookId).length(), averageLength);
+      scores.merge(bookId, score, Math::max);
+    }
+  }
+
+  /**
+   * Compute the BM25 score of a term in a book.
+   *
+   * @param documentFrequency The number of books containing the term.
+   * @param frequency         The number of times the term appears in the book.
+   * @param length            The number of terms of the book.
+   * @param averageLength     The average number of terms per book.
+   * @return The score.
+   */
+  private double bm25(int documentFrequency, int frequency, int length, double averageLength) {
+    double idf = Math.log(1 + (books.size() - documentFrequency + 0.5) / (documentFrequency + 0.5));
+    double lengthRatio = length / averageLength;
+    return idf * frequency * (K1 + 1) / (frequency + K1 * (1 - B + B * lengthRatio));
+  }
+
+  /**
+   * Keep the books matched by every term, and return the best of them.
+   *
+   * @param scoresPerTerm The scores of the books matched by each query term.
+   * @param limit         The maximum number of results.
+   * @return The best matches, most relevant first.
+   */
+  private List<BookSearchHit> topMatches(List<Map<Long, Double>> scoresPerTerm, int limit) {
+    scoresPerTerm.sort(Comparator.comparingInt(Map::size));
+    Comparator<Match> byRelevance = Comparator.comparingDouble(Match::score).thenComparing(Match::bookId, Comparator.reverseOrder());
+    PriorityQueue<Match> best = new PriorityQueue<>(byRelevance);
+
+    candidates:
+    for (Map.Entry<Long, Double> candidate : scoresPerTerm.get(0).entrySet()) {
+      double score = candidate.getValue();
+
+      for (int i = 1; i < scoresPerTerm.size(); i++) {
+        Double termScore = scoresPerTerm.get(i).get(candidate.getKey());
+
+        if (termScore == null) {
+          continue candidates;
+        }
+
+        score += termScore;
+      }
+
+      best.add(new Match(candidate.getKey(), score));
+
+      if (best.size() > limit) {
+        best.poll();
+      }
+    }
+
+    List<BookSearchHit> hits = new ArrayList<>(best.size());
+    while (!best.isEmpty()) {
+      Match match = best.poll();
+      IndexedBook book = books.get(match.bookId());
+      hits.add(new BookSearchHit(match.bookId(), book.authorId(), book.title(), book.authorName(), match.score()));
+    }
+
+    Collections.reverse(hits);
+    return hits;
+  }
+}
@@ -1,14 +1,26 @@
 package com.nadia.library.services;
 
+import com.nadia.library.conditional.ChangeTracker;
+import com.nadia.library.conditional.ChangeTracker.Table;
+import com.nadia.library.export.NdjsonWriter;
+import com.nadia.library.index.ExistenceIndex;
+import com.nadia.library.index.ExistenceIndex.Kind;
 import com.nadia.library.models.Author;
+import com.nadia.library.pagination.KeysetPagination;
 import com.nadia.library.repositories.AuthorRepository;
+import com.nadia.library.search.TitleSearchIndex;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
+import java.util.stream.Stream;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 /**
  * Service class for managing Author entities.
@@ -17,14 +29,48 @@ import org.springframework.stereotype.Service;
 public class AuthorService {
   @Autowired
   private AuthorRepository authorRepository;
+  @Autowired
+  private ExistenceIndex existenceIndex;
+  @Autowired
+  private TitleSearchIndex titleSearchIndex;
+  @Autowired
+  private ChangeTracker changeTracker;
+  @Autowired
+  private NdjsonWriter ndjsonWriter;
+
+  /**
+   * Get a page of authors, ordered by ID.
+   *
+   * @param after The cursor of the previous page, or null for the first page.
+   * @param limit The maximum number of authors to return.
+   * @return A ResponseEntity containing a list of Author entities, with the next page cursor in its headers.
+   */
+  @Transactional(readOnly = true)
+  public ResponseEntity<List<Author>> getAllAuthors(String after, int limit) {
+    Long afterId = KeysetPagination.decodeCursor(after);
+
+    if (afterId == null || !KeysetPagination.isValidLimit(limit)) {
+      return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+    }
+
+    Slice<Author> page = authorRepository.findByIdGreaterThan(afterId, KeysetPagination.firstRows(limit));
+    return KeysetPagination.toResponse(page, Author::getId, limit);
+  }
 
   /**
-   * Get a list of all authors.
+   * Export every author as newline-delimited JSON.
+   *
+   * Rows are read with a database cursor inside a read-only transaction and written
+   * as they are read, so memory use does not depend on the size of the table.
    *
-   * @return A list of Author entities.
+   * @param out The output stream to write to.
+   * @throws IOException If writing to the output stream fails.
    */
-  public List<Author> getAllAuthors() {
-    return authorRepository.findAll();
+  @Transactional(readOnly = true)
+  public void exportAllAuthors(OutputStream out) throws IOException {
+    try (Stream<Author> authors = authorRepository.streamAll()) {
+      ndjsonWriter.write(authors, out);
+    }
   }
 
   /**
@@ -33,6 +79,7 @@ public class AuthorService {
    * @param id The ID of the author to retrieve.
    * @return A ResponseEntity containing the Author entity if found.
    */
+  @Transactional(readOnly = true)
   public ResponseEntity<Author> getAuthorById(Long id) {
     Author author = findAuthorById(id);
 
@@ -49,6 +96,7 @@ public class AuthorService {
    * @param author The Author entity to create.
    * @return A ResponseEntity containing the created Author entity.
    */
+  @Transactional
   public ResponseEntity<?> createAuthor(Author author) {
     Author currentAuthor = authorRepository.findByNameAndCountry(author.getName(), author.getCountry());
 
@@ -57,6 +105,8 @@ public class AuthorService {
     }
 
     Author savedAuthor = authorRepository.save(author);
+    existenceIndex.add(Kind.AUTHOR, savedAuthor.getId());
+    changeTracker.recordChange(Table.AUTHOR, savedAuthor.getId());
     return new ResponseEntity<>(savedAuthor, HttpStatus.CREATED);
   }
 
@@ -67,6 +117,7 @@ public class AuthorService {
    * @param author The updated Author entity.
    * @return A ResponseEntity containing the updated Author entity.
    */
+  @Transactional
   public ResponseEntity<Author> updateAuthor(Long id, Author author) {
     Author currentAuthor = findAuthorById(id);
 
@@ -77,6 +128,8 @@ public class AuthorService {
     currentAuthor.setName(author.getName());
     currentAuthor.setCountry(author.getCountry());
     Author updatedAuthor = authorRepository.save(currentAuthor);
+    titleSearchIndex.renameAuthor(id, updatedAuthor.getName());
+    changeTracker.recordChange(Table.AUTHOR, id);
     return new ResponseEntity<>(updatedAuthor, HttpStatus.OK);
   }
 
@@ -86,6 +139,7 @@ public class AuthorService {
    * @param id The ID of the author to delete.
    * @return A ResponseEntity with HTTP status indicating the result of the delete operation.
    */
+  @Transactional
   public ResponseEntity<HttpStatus> deleteAuthor(Long id) {
     Author author = findAuthorById(id);
 
@@ -94,6 +148,8 @@ public class AuthorService {
     }
 
     authorRepository.delete(author);
+    existenceIndex.remove(Kind.AUTHOR, id);
+    changeTracker.recordChange(Table.AUTHOR, id);
     return new ResponseEntity<>(HttpStatus.NO_CONTENT);
   }
 
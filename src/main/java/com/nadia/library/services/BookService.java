@@ -1,18 +1,54 @@
 package com.nadia.library.services;
 
+import com.nadia.library.conditional.ChangeTracker;
+import com.nadia.library.conditional.ChangeTracker.Table;
+import com.nadia.library.dto.BookImportResult;
+import com.nadia.library.dto.BookImportRow;
+import com.nadia.library.dto.BookSearchHit;
+import com.nadia.library.export.NdjsonWriter;
+import com.nadia.library.index.ExistenceIndex;
+import com.nadia.library.index.ExistenceIndex.Kind;
+import com.nadia.library.ingest.CatalogReader;
+import com.nadia.library.ingest.CatalogReader.Format;
+import com.nadia.library.inventory.InventoryLocks;
+import com.nadia.library.inventory.WriteBehindInventory;
+import com.nadia.library.ledger.CirculationLedger;
+import com.nadia.library.models.Author;
 import com.nadia.library.models.Book;
 import com.nadia.library.models.Inventory;
+import com.nadia.library.pagination.KeysetPagination;
 import com.nadia.library.repositories.AuthorRepository;
 import com.nadia.library.repositories.BookRepository;
 import com.nadia.library.repositories.InventoryRepository;
 import com.nadia.library.repositories.LoanRepository;
+import com.nadia.library.search.TitleSearchIndex;
+import com.nadia.library.stream.InventoryChangedEvent;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 /**
  * Service class for managing Book entities.
@@ -26,15 +62,116 @@ public class BookService {
   @Autowired
   private LoanRepository loanRepository;
   @Autowired
+  private ExistenceIndex existenceIndex;
+  @Autowired
+  private NdjsonWriter ndjsonWriter;
+  @Autowired
   private AuthorRepository authorRepository;
+  @Autowired
+  private TitleSearchIndex titleSearchIndex;
+  @Autowired
+  private CirculationLedger circulationLedger;
+  @Autowired
+  private ChangeTracker changeTracker;
+  @Autowired
+  private InventoryLocks inventoryLocks;
+  @Autowired
+  private WriteBehindInventory writeBehindInventory;
+  @Autowired
+  private CatalogReader catalogReader;
+  @Autowired
+  private PlatformTransactionManager transactionManager;
+  @Autowired
+  private ApplicationEventPublisher eventPublisher;
+
+  /**
+   * The author and title identifying a book in a catalog import.
+   *
+   * Titles are compared ignoring case and accents, as the database does with its default
+   * collation (`utf8mb4_0900_ai_ci`), so that a row matches the same book as the query that
+   * looked it up. The collation also equates a few other characters (such as `ß` and `ss`),
+   * which importChunk resolves by asking the database.
+   *
+   * @param authorId The ID of the author.
+   * @param title    The title, in lowercase and without accents.
+   */
+  private record BookKey(Long authorId, String title) {
+    private static final Pattern ACCENTS = Pattern.compile("\\p{M}+");
+
+    /**
+     * Build the key of a book.
+     *
+     * @param authorId The ID of the author.
+     * @param title    The title, in any case, with or without accents.
+     * @return The key.
+     */
+    static BookKey of(Long authorId, String title) {
+      String withoutAccents = ACCENTS.matcher(Normalizer.normalize(title, Normalizer.Form.NFD)).replaceAll("");
+      return new BookKey(authorId, withoutAccents.toLowerCase(Locale.ROOT));
+    }
+  }
+
+  /**
+   * The changes of a chunk of a catalog import to apply once its transaction has committed.
+   *
+   * @param newBooks       The books created.
+   * @param authorNames    The names of the authors of the new books, by author ID.
+   * @param stockedBookIds The IDs of the books whose inventory table row changed.
+   */
+  private record ImportedChunk(List<Book> newBooks, Map<Long, String> authorNames, List<Long> stockedBookIds) {
+    static final ImportedChunk EMPTY = new ImportedChunk(List.of(), Map.of(), List.of());
+  }
 
   /**
-   * Get a list of all books.
+   * Get a page of books, ordered by ID.
    *
-   * @return A list of Book entities.
+   * @param after The cursor of the previous page, or null for the first page.
+   * @param limit The maximum number of books to return.
+   * @return A ResponseEntity containing a list of Book entities, with the next page cursor in its headers.
    */
-  public List<Book> getAllBooks() {
-    return bookRepository.findAll();
+  @Transactional(readOnly = true)
+  public ResponseEntity<List<Book>> getAllBooks(String after, int limit) {
+    Long afterId = KeysetPagination.decodeCursor(after);
+
+    if (afterId == null || !KeysetPagination.isValidLimit(limit)) {
+      return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+    }
+
+    Slice<Book> page = bookRepository.findByIdGreaterThan(afterId, KeysetPagination.firstRows(limit));
+    return KeysetPagination.toResponse(page, Book::getId, limit);
+  }
+
+  /**
+   * Export every book as newline-delimited JSON.
+   *
+   * Rows are read with a database cursor inside a read-only transaction and written
+   * as they are read, so memory use does not depend on the size of the table.
+   *
+   * @param out The output stream to write to.
+   * @throws IOException If writing to the output stream fails.
+   */
+  @Transactional(readOnly = true)
+  public void exportAllBooks(OutputStream out) throws IOException {
+    try (Stream<Book> books = bookRepository.streamAll()) {
+      ndjsonWriter.write(books, out);
+    }
+  }
+
+  /**
+   * Search books by words of their title or of their author's name, most relevant first.
+   *
+   * The last word of the query also matches as a prefix.
+   *
+   * @param q     The search query.
+   * @param limit The maximum number of books to return.
+   * @return A ResponseEntity containing the matching books, or BAD_REQUEST if the query has no words.
+   */
+  public ResponseEntity<List<BookSearchHit>> searchBooks(String q, int limit) {
+    if (q == null || q.isBlank() || limit < 1 || limit > TitleSearchIndex.MAX_LIMIT) {
+      return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+    }
+
+    return new ResponseEntity<>(titleSearchIndex.search(q, limit), HttpStatus.OK);
   }
 
   /**
@@ -43,6 +180,7 @@ public class BookService {
    * @param id The ID of the book to retrieve.
    * @return A ResponseEntity containing the Book entity if found.
    */
+  @Transactional(readOnly = true)
   public ResponseEntity<Book> getBookById(Long id) {
     Book book = findBookById(id);
 
@@ -60,6 +198,7 @@ public class BookService {
    * @param book The Book entity to add.
    * @return A ResponseEntity containing the added Book entity.
    */
+  @Transactional
   public ResponseEntity<Book> addBook(Book book) {
     Book bookEntry = bookRepository.findByAuthorIdAndTitle(book.getAuthorId(), book.getTitle());
 
@@ -68,15 +207,45 @@ public class BookService {
     }
 
     if (bookEntry != null) {
-      inventoryRepository.incrementInventory(bookEntry.getId());
+      addCopyToInventory(bookEntry.getId());
+      circulationLedger.recordStockAdjustment(bookEntry.getId(), 1);
       return new ResponseEntity<>(bookEntry, HttpStatus.OK);
     }
 
     Book savedBook = bookRepository.save(book);
     inventoryRepository.addInventoryItem(savedBook.getId());
+    circulationLedger.recordStockAdjustment(savedBook.getId(), 1);
+    existenceIndex.add(Kind.BOOK, savedBook.getId());
+    changeTracker.recordChange(Table.BOOK, savedBook.getId());
+    titleSearchIndex.put(savedBook, findAuthorName(savedBook.getAuthorId()));
     return new ResponseEntity<>(savedBook, HttpStatus.CREATED);
   }
 
+  /**
+   * Import books from a CSV or NDJSON upload, adding copies to the books that already exist.
+   *
+   * The upload is parsed in parallel chunks by the CatalogReader and each chunk is written in
+   * its own transaction, in upload order, so the chunks before a failure stay imported. Rows
+   * that cannot be parsed or whose author does not exist are rejected and reported, the others
+   * are imported.
+   *
+   * @param in     The upload.
+   * @param format The format of the upload.
+   * @return A ResponseEntity containing the numbers of books and copies added and the rejected rows.
+   * @throws IOException If reading the upload fails.
+   */
+  public ResponseEntity<BookImportResult> importBooks(InputStream in, Format format) throws IOException {
+    TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+    BookImportResult result = new BookImportResult();
+
+    catalogReader.read(in, format, chunk -> {
+      chunk.errors().forEach(result::reject);
+      publishImportedChunk(transaction.execute(status -> importChunk(chunk.rows(), result)));
+    });
+
+    return new ResponseEntity<>(result, HttpStatus.OK);
+  }
+
   /**
    * Update an existing Book by its ID.
    *
@@ -84,6 +253,7 @@ public class BookService {
    * @param book The updated Book entity.
    * @return A ResponseEntity containing the updated Book entity.
    */
+  @Transactional
   public ResponseEntity<Book> updateBook(Long id, Book book) {
     Book currentBook = findBookById(id);
 
@@ -94,6 +264,8 @@ public class BookService {
     currentBook.setAuthorId(book.getAuthorId());
     currentBook.setTitle(book.getTitle());
     Book updatedBook = bookRepository.save(currentBook);
+    titleSearchIndex.put(updatedBook, findAuthorName(updatedBook.getAuthorId()));
+    changeTracker.recordChange(Table.BOOK, id);
     return new ResponseEntity<>(updatedBook, HttpStatus.OK);
   }
 
@@ -103,7 +275,9 @@ public class BookService {
    * @param id The ID of the book to delete.
    * @return A ResponseEntity with HTTP status indicating the result of the delete operation.
    */
+  @Transactional
   public ResponseEntity<HttpStatus> deleteAllBookCopies(Long id) {
+    inventoryLocks.lock(id);
     Book book = findBookById(id);
     Inventory inventory = inventoryRepository.findByBookId(id);
 
@@ -115,11 +289,152 @@ public class BookService {
       return new ResponseEntity<>(HttpStatus.CONFLICT);
     }
 
+    int inStock = inventory.getInStock();
+
+    if (writeBehindInventory.isWriteBehind(id)) {
+      inStock = (int) writeBehindInventory.inStock(id);
+      writeBehindInventory.forget(id);
+    }
+
     inventoryRepository.delete(inventory);
     bookRepository.delete(book);
+    circulationLedger.recordStockAdjustment(id, -inStock);
+    existenceIndex.remove(Kind.BOOK, id);
+    titleSearchIndex.remove(id);
+    changeTracker.recordChange(Table.BOOK, id);
+    changeTracker.recordChange(Table.INVENTORY, null);
     return new ResponseEntity<>(HttpStatus.NO_CONTENT);
   }
 
+  /**
+   * Helper method to write a chunk of imported rows, inside the current transaction.
+   *
+   * Rows of the same book, whatever the case and accents of their title, are merged, and the
+   * existing books of the chunk are found with a single query. A book that query returns
+   * under a title the keys do not equate is not dropped: the remaining titles of its author
+   * are then looked up one by one, with the database's own comparison, so that copies are
+   * added to it rather than to a duplicate. The unique `(authorId, title)` constraint rejects
+   * any duplicate left. Their copies are added with one batched update (or to the in-memory stock of
+   * write-behind books), while the new books and their inventory items are inserted in batches.
+   * The in-memory indexes and the inventory events are left to publishImportedChunk, once the
+   * transaction has committed.
+   *
+   * @param rows   The valid rows of the chunk.
+   * @param result The result of the import, to record the rows imported and rejected.
+   * @return The changes to publish after commit.
+   */
+  private ImportedChunk importChunk(List<BookImportRow> rows, BookImportResult result) {
+    Map<BookKey, Integer> copies = new LinkedHashMap<>();
+    Map<BookKey, String> titles = new HashMap<>();
+
+    for (BookImportRow row : rows) {
+      if (!doesAuthorExistById(row.getAuthorId())) {
+        result.reject("line " + row.getLine() + ": author " + row.getAuthorId() + " does not exist");
+        continue;
+      }
+
+      BookKey key = BookKey.of(row.getAuthorId(), row.getTitle());
+      copies.merge(key, row.getCopies(), Integer::sum);
+      titles.putIfAbsent(key, row.getTitle());
+    }
+
+    if (copies.isEmpty()) {
+      return ImportedChunk.EMPTY;
+    }
+
+    long copiesAdded = copies.values().stream().mapToLong(Integer::longValue).sum();
+    Set<Long> authorIds = new HashSet<>();
+    copies.keySet().forEach(key -> authorIds.add(key.authorId()));
+    Map<Long, Integer> stockDeltas = new HashMap<>();
+
+    Set<Long> authorsOfUnmatchedBooks = new HashSet<>();
+
+    for (Book book : bookRepository.findByAuthorIdInAndTitleIn(authorIds, new HashSet<>(titles.values()))) {
+      Integer added = copies.remove(BookKey.of(book.getAuthorId(), book.getTitle()));
+
+      if (added != null) {
+        addImportedCopies(book, added, stockDeltas);
+      } else {
+        authorsOfUnmatchedBooks.add(book.getAuthorId());
+      }
+    }
+
+    Iterator<Map.Entry<BookKey, Integer>> remaining = copies.entrySet().iterator();
+
+    while (remaining.hasNext() && !authorsOfUnmatchedBooks.isEmpty()) {
+      Map.Entry<BookKey, Integer> entry = remaining.next();
+
+      if (authorsOfUnmatchedBooks.contains(entry.getKey().authorId())) {
+        Book book = bookRepository.findByAuthorIdAndTitle(entry.getKey().authorId(), titles.get(entry.getKey()));
+
+        if (book != null) {
+          addImportedCopies(book, entry.getValue(), stockDeltas);
+          remaining.remove();
+        }
+      }
+    }
+
+    if (!stockDeltas.isEmpty()) {
+      inventoryLocks.lockAll(stockDeltas.keySet());
+      inventoryRepository.addToInventories(stockDeltas);
+    }
+
+    List<Book> newBooks = new ArrayList<>(copies.size());
+    copies.keySet().forEach(key -> newBooks.add(new Book(key.authorId(), titles.get(key))));
+    List<Book> savedBooks = bookRepository.saveAll(newBooks);
+    List<Inventory> newInventories = new ArrayList<>(savedBooks.size());
+    List<Long> stockedBookIds = new ArrayList<>(stockDeltas.keySet());
+    Map<Long, String> authorNames = new HashMap<>();
+
+    if (!savedBooks.isEmpty()) {
+      authorRepository.findAllById(authorIds).forEach(author -> authorNames.put(author.getId(), author.getName()));
+    }
+
+    for (Book book : savedBooks) {
+      int added = copies.get(BookKey.of(book.getAuthorId(), book.getTitle()));
+      newInventories.add(new Inventory(book.getId(), added));
+      stockedBookIds.add(book.getId());
+      circulationLedger.recordStockAdjustment(book.getId(), added);
+    }
+
+    inventoryRepository.saveAll(newInventories);
+    result.addImported(savedBooks.size(), copiesAdded);
+    return new ImportedChunk(savedBooks, authorNames, stockedBookIds);
+  }
+
+  /**
+   * Helper method to add imported copies to an existing book, in memory for write-behind books
+   * and otherwise with the batched update of the chunk.
+   *
+   * @param book        The existing book.
+   * @param added       The number of copies imported.
+   * @param stockDeltas The copies to add to the inventory table, by book ID.
+   */
+  private void addImportedCopies(Book book, int added, Map<Long, Integer> stockDeltas) {
+    if (writeBehindInventory.isWriteBehind(book.getId())) {
+      writeBehindInventory.add(book.getId(), added);
+    } else {
+      stockDeltas.merge(book.getId(), added, Integer::sum);
+    }
+
+    circulationLedger.recordStockAdjustment(book.getId(), added);
+  }
+
+  /**
+   * Helper method to publish the changes of an imported chunk, once its transaction has committed.
+   *
+   * @param imported The changes of the chunk.
+   */
+  private void publishImportedChunk(ImportedChunk imported) {
+    imported.stockedBookIds().forEach(bookId -> eventPublisher.publishEvent(new InventoryChangedEvent(bookId)));
+
+    for (Book book : imported.newBooks()) {
+      existenceIndex.add(Kind.BOOK, book.getId());
+      changeTracker.recordChange(Table.BOOK, book.getId());
+      titleSearchIndex.put(book, imported.authorNames().get(book.getAuthorId()));
+    }
+  }
+
   /**
    * Helper method to find a book by its ID.
    *
@@ -131,12 +446,37 @@ public class BookService {
   }
 
   /**
-   * Check if an author with the given ID exists in the repository.
+   * Helper method to add a copy of an existing book to its inventory.
+   *
+   * @param bookId The ID of the book.
+   */
+  private void addCopyToInventory(Long bookId) {
+    if (writeBehindInventory.isWriteBehind(bookId)) {
+      writeBehindInventory.add(bookId, 1);
+      return;
+    }
+
+    inventoryLocks.lock(bookId);
+    inventoryRepository.incrementInventory(bookId);
+  }
+
+  /**
+   * Helper method to find the name of an author, for the title search index.
+   *
+   * @param authorId The ID of the author.
+   * @return The name of the author, or null if not found.
+   */
+  private String findAuthorName(Long authorId) {
+    return authorRepository.findById(authorId).map(Author::getName).orElse(null);
+  }
+
+  /**
+   * Check if an author with the given ID exists, using the in-memory existence index.
    * @param id The ID of the author to check.
    * @return True if the author exists, false otherwise.
    */
   private boolean doesAuthorExistById(Long id) {
-    return authorRepository.existsById(id);
+    return existenceIndex.exists(Kind.AUTHOR, id);
   }
 
   /**
@@ -1,14 +1,23 @@
 package com.nadia.library.services;
 
+import com.nadia.library.inventory.InventoryLocks;
+import com.nadia.library.inventory.WriteBehindInventory;
+import com.nadia.library.ledger.CirculationLedger;
 import com.nadia.library.models.Inventory;
+import com.nadia.library.pagination.KeysetPagination;
 import com.nadia.library.repositories.InventoryRepository;
+import com.nadia.library.stream.InventoryBroadcaster;
 
 import java.util.List;
+import java.util.Objects;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 /**
  * Service class for managing Inventory entities.
@@ -17,22 +26,47 @@ import org.springframework.stereotype.Service;
 public class InventoryService {
   @Autowired
   private InventoryRepository inventoryRepository;
+  @Autowired
+  private InventoryBroadcaster inventoryBroadcaster;
+  @Autowired
+  private CirculationLedger circulationLedger;
+  @Autowired
+  private InventoryLocks inventoryLocks;
+  @Autowired
+  private WriteBehindInventory writeBehindInventory;
 
   /**
-   * Get a list of all inventory items.
+   * Get a page of inventory items, ordered by ID.
+   *
+   * The in-stock values of write-behind books are read from memory, since their rows lag
+   * behind until the next flush.
    *
-   * @return A list of Inventory entities.
+   * @param after The cursor of the previous page, or null for the first page.
+   * @param limit The maximum number of inventory items to return.
+   * @return A ResponseEntity containing a list of Inventory entities, with the next page cursor in its headers.
    */
-  public List<Inventory> getAllInventory() {
-    return inventoryRepository.findAll();
+  @Transactional(readOnly = true)
+  public ResponseEntity<List<Inventory>> getAllInventory(String after, int limit) {
+    Long afterId = KeysetPagination.decodeCursor(after);
+
+    if (afterId == null || !KeysetPagination.isValidLimit(limit)) {
+      return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+    }
+
+    Slice<Inventory> page = inventoryRepository.findByIdGreaterThan(afterId, KeysetPagination.firstRows(limit))
+        .map(this::withCurrentStock);
+    return KeysetPagination.toResponse(page, Inventory::getId, limit);
   }
 
   /**
    * Get an inventory item by its ID.
    *
+   * The in-stock value of a write-behind book is read from memory.
+   *
    * @param id The ID of the inventory item to retrieve.
    * @return A ResponseEntity containing the Inventory entity if found.
    */
+  @Transactional(readOnly = true)
   public ResponseEntity<Inventory> getInventoryItemById(Long id) {
     Inventory inventory = inventoryRepository.findById(id).orElse(null);
 
@@ -40,26 +74,93 @@ public class InventoryService {
       return new ResponseEntity<>(HttpStatus.NOT_FOUND);
     }
 
-    return new ResponseEntity<>(inventory, HttpStatus.OK);
+    return new ResponseEntity<>(withCurrentStock(inventory), HttpStatus.OK);
   }
 
+  /**
+   * Helper method to give an inventory item the current stock of its book.
+   *
+   * @param inventory The inventory item, as last flushed.
+   * @return The inventory item itself, or a copy with the in-memory stock for a write-behind book.
+   */
+  private Inventory withCurrentStock(Inventory inventory) {
+    Long bookId = inventory.getBookId();
+
+    if (!writeBehindInventory.isWriteBehind(bookId)) {
+      return inventory;
+    }
+
+    Inventory currentInventory = new Inventory(bookId, (int) writeBehindInventory.inStock(bookId));
+    currentInventory.setId(inventory.getId());
+    return currentInventory;
+  }
+
+  /**
+   * Open a stream of the in-stock values of some books, sent as Server-Sent Events.
+   *
+   * @param bookIds The IDs of the books to follow.
+   * @return A ResponseEntity containing the event stream, or BAD_REQUEST if no book or too many books are given.
+   */
+  public ResponseEntity<SseEmitter> streamInventory(List<Long> bookIds) {
+    if (bookIds == null || bookIds.isEmpty() || bookIds.size() > InventoryBroadcaster.MAX_BOOK_IDS || bookIds.stream().anyMatch(Objects::isNull)) {
+      return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+    }
+
+    return new ResponseEntity<>(inventoryBroadcaster.subscribe(bookIds), HttpStatus.OK);
+  }
 
   /**
    * Update the stock of an inventory item by book ID.
    *
+   * The stock of a write-behind book is changed in memory and journaled; if copies were
+   * checked out in the meantime and fewer are left than must be removed, CONFLICT is returned.
+   *
    * @param bookId    The book ID associated with the inventory item to update.
    * @param inventory The updated Inventory entity.
    * @return A ResponseEntity containing the updated Inventory entity.
    */
+  @Transactional
   public ResponseEntity<Inventory> updateStockofInventoryItemByBookId(Long bookId, Inventory inventory) {
+    inventoryLocks.lock(bookId);
     Inventory currentInventory = inventoryRepository.findByBookId(bookId);
 
     if (currentInventory == null) {
       return new ResponseEntity<>(HttpStatus.NOT_FOUND);
     }
 
+    if (writeBehindInventory.isWriteBehind(bookId)) {
+      return updateWriteBehindStock(currentInventory, inventory.getInStock());
+    }
+
+    int stockDelta = inventory.getInStock() - currentInventory.getInStock();
     currentInventory.setInStock(inventory.getInStock());
     Inventory updatedInventory = inventoryRepository.save(currentInventory);
+    circulationLedger.recordStockAdjustment(bookId, stockDelta);
+    return new ResponseEntity<>(updatedInventory, HttpStatus.OK);
+  }
+
+  /**
+   * Set the stock of a write-behind book, leaving its inventory row to the next flush.
+   *
+   * @param currentInventory The inventory item of the book, as last flushed.
+   * @param inStock          The new in-stock value.
+   * @return A ResponseEntity containing the inventory item with the new value, or CONFLICT.
+   */
+  private ResponseEntity<Inventory> updateWriteBehindStock(Inventory currentInventory, int inStock) {
+    Long bookId = currentInventory.getBookId();
+    int stockDelta = inStock - (int) writeBehindInventory.inStock(bookId);
+
+    if (stockDelta < 0 && !writeBehindInventory.take(bookId, -stockDelta)) {
+      return new ResponseEntity<>(HttpStatus.CONFLICT);
+    }
+
+    if (stockDelta > 0) {
+      writeBehindInventory.add(bookId, stockDelta);
+    }
+
+    circulationLedger.recordStockAdjustment(bookId, stockDelta);
+    Inventory updatedInventory = new Inventory(bookId, inStock);
+    updatedInventory.setId(currentInventory.getId());
     return new ResponseEntity<>(updatedInventory, HttpStatus.OK);
   }
 }
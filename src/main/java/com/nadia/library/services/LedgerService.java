@@ -0,0 +1,54 @@
+package com.nadia.library.services;
+
+import com.nadia.library.dto.LedgerDrift;
+import com.nadia.library.ledger.CirculationLedger;
+import com.nadia.library.models.CirculationEvent;
+import com.nadia.library.pagination.KeysetPagination;
+import com.nadia.library.repositories.CirculationEventRepository;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+
+/**
+ * Service class for reading the circulation ledger.
+ */
+@Service
+public class LedgerService {
+  @Autowired
+  private CirculationEventRepository eventRepository;
+  @Autowired
+  private CirculationLedger circulationLedger;
+
+  /**
+   * Get a page of the circulation events of a book, oldest first.
+   *
+   * @param bookId The ID of the book.
+   * @param after  The cursor of the previous page, or null for the first page.
+   * @param limit  The maximum number of events to return.
+   * @return A ResponseEntity containing a list of CirculationEvent entities, with the next page cursor in its headers.
+   */
+  public ResponseEntity<List<CirculationEvent>> getBookHistory(Long bookId, String after, int limit) {
+    Long afterId = KeysetPagination.decodeCursor(after);
+
+    if (afterId == null || !KeysetPagination.isValidLimit(limit)) {
+      return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+    }
+
+    Slice<CirculationEvent> page = eventRepository.findByBookIdAndIdGreaterThan(bookId, afterId, KeysetPagination.firstRows(limit));
+    return KeysetPagination.toResponse(page, CirculationEvent::getId, limit);
+  }
+
+  /**
+   * Get the books whose inventory or loans disagree with the circulation ledger.
+   *
+   * @return A ResponseEntity containing the books that drifted (an empty list if none did).
+   */
+  public ResponseEntity<List<LedgerDrift>> getDrift() {
+    return new ResponseEntity<>(circulationLedger.findDrift(), HttpStatus.OK);
+  }
+}
@@ -1,27 +1,55 @@
 package com.nadia.library.services;
 
+import com.nadia.library.dto.BatchLoanRequest;
+import com.nadia.library.dto.BatchLoanResult;
+import com.nadia.library.export.NdjsonWriter;
+import com.nadia.library.index.DueDateIndex;
+import com.nadia.library.index.ExistenceIndex;
+import com.nadia.library.index.ExistenceIndex.Kind;
+import com.nadia.library.inventory.InventoryLocks;
+import com.nadia.library.inventory.WriteBehindInventory;
+import com.nadia.library.ledger.CirculationLedger;
 import com.nadia.library.models.Loan;
 import com.nadia.library.models.Loan.Status;
+import com.nadia.library.pagination.KeysetPagination;
 import com.nadia.library.repositories.BookRepository;
 import com.nadia.library.repositories.InventoryRepository;
 import com.nadia.library.repositories.LoanRepository;
-import com.nadia.library.repositories.UserRepository;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 /**
  * Service class for managing Loan entities.
  */
 @Service
 public class LoanService {
+  /**
+   * The default number of days a book can be kept before the loan is late.
+   */
+  public static final int DEFAULT_LOAN_LENGTH = 21;
+
   @Autowired
   private LoanRepository loanRepository;
   @Autowired
@@ -29,31 +57,74 @@ public class LoanService {
   @Autowired
   private BookRepository bookRepository;
   @Autowired
-  private UserRepository userRepository;
+  private ExistenceIndex existenceIndex;
+  @Autowired
+  private NdjsonWriter ndjsonWriter;
+  @Autowired
+  private CirculationLedger circulationLedger;
+  @Autowired
+  private DueDateIndex dueDateIndex;
+  @Autowired
+  private InventoryLocks inventoryLocks;
+  @Autowired
+  private WriteBehindInventory writeBehindInventory;
+
+  /**
+   * Get a page of loans, ordered by ID.
+   *
+   * @param after The cursor of the previous page, or null for the first page.
+   * @param limit The maximum number of loans to return.
+   * @return A ResponseEntity containing a list of Loan entities, with the next page cursor in its headers.
+   */
+  @Transactional(readOnly = true)
+  public ResponseEntity<List<Loan>> getAllLoans(String after, int limit) {
+    Long afterId = KeysetPagination.decodeCursor(after);
+
+    if (afterId == null || !KeysetPagination.isValidLimit(limit)) {
+      return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+    }
+
+    Slice<Loan> page = loanRepository.findByIdGreaterThan(afterId, KeysetPagination.firstRows(limit));
+    return KeysetPagination.toResponse(page, Loan::getId, limit);
+  }
 
   /**
-   * Get a list of all loans.
+   * Export every loan as newline-delimited JSON.
+   *
+   * Rows are read with a database cursor inside a read-only transaction and written
+   * as they are read, so memory use does not depend on the size of the table.
    *
-   * @return A list of Loan entities.
+   * @param out The output stream to write to.
+   * @throws IOException If writing to the output stream fails.
    */
-  public List<Loan> getAllLoans() {
-    List<Loan> loans = loanRepository.findAll();
-    return loans;
+  @Transactional(readOnly = true)
+  public void exportAllLoans(OutputStream out) throws IOException {
+    try (Stream<Loan> loans = loanRepository.streamAll()) {
+      ndjsonWriter.write(loans, out);
+    }
   }
 
   /**
-   * Get a list of all late loans.
+   * Get a page of late loans, oldest first.
+   *
+   * A loan is late when it was made more than `loanLength` days ago. Once the due-date index
+   * is loaded, the IDs of the page are read from it and only those loans are fetched; before
+   * that, the lookup is a range query on the indexed loan date.
    *
+   * @param loanLength The number of days a book can be kept before the loan is late.
+   * @param pageable   The page to retrieve.
    * @return A list of late Loan entities.
    */
-  public List<Loan> getAllLateLoans() {
-    List<Loan> loans = loanRepository.findAll();
+  @Transactional(readOnly = true)
+  public List<Loan> getAllLateLoans(int loanLength, Pageable pageable) {
+    LocalDate cutoff = LocalDate.now().minusDays(loanLength);
 
-    List<Loan> lateLoans = loans.stream()
-      .filter(loan -> isLate(loan))
-      .collect(Collectors.toList());
+    if (dueDateIndex.isLoaded()) {
+      return findLoansInOrder(dueDateIndex.findLoanedBefore(cutoff, pageable.getOffset(), pageable.getPageSize()));
+    }
 
-    return lateLoans;
+    Pageable oldestFirst = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), Sort.by("loanDate", "id"));
+    return loanRepository.findByLoanDateBefore(cutoff, oldestFirst).getContent();
   }
 
   /**
@@ -62,6 +133,7 @@ public class LoanService {
    * @param id The ID of the loan to retrieve.
    * @return A ResponseEntity containing the Loan entity if found.
    */
+  @Transactional(readOnly = true)
   public ResponseEntity<Loan> getLoanById(Long id) {
     Loan loan = findLoanById(id);
 
@@ -75,9 +147,14 @@ public class LoanService {
   /**
    * Create a new loan.
    *
+   * A copy is taken from the inventory with a single conditional update: if no copy is
+   * in stock, no row is updated and the loan is refused. When striped locks are enabled, the
+   * inventory of the book is locked in the application first, until the transaction completes.
+   *
    * @param loan The Loan entity to create.
    * @return A ResponseEntity containing the created Loan entity.
    */
+  @Transactional
   public ResponseEntity<Loan> createLoan(Loan loan) {
     if (!doesBookExistById(loan.getBookId())) {
       return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
@@ -87,21 +164,76 @@ public class LoanService {
       return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
     }
 
-    if (!isBookAvailableForLoan(loan.getBookId())) {
+    if (!takeCopyFromInventory(loan.getBookId())) {
       return new ResponseEntity<>(HttpStatus.FORBIDDEN);
     }
 
-    inventoryRepository.decrementInventory(loan.getBookId());
     Loan savedLoan = loanRepository.save(loan);
+    circulationLedger.recordCheckouts(List.of(savedLoan));
+    dueDateIndex.put(savedLoan.getId(), savedLoan.getLoanDate());
     return new ResponseEntity<>(savedLoan, HttpStatus.CREATED);
   }
 
+  /**
+   * Create one loan per requested book for the same user, in a single transaction.
+   *
+   * The books are checked with one `IN` query and the copies are taken from the inventory
+   * in a single JDBC batch, so the number of database round trips does not depend on the
+   * number of books. Each book gets its own result: CREATED, BAD_REQUEST if the book does
+   * not exist, or FORBIDDEN if no copy is in stock.
+   *
+   * @param request The user ID and the IDs of the books to loan.
+   * @return A ResponseEntity containing the result for each requested book, in request order.
+   */
+  @Transactional
+  public ResponseEntity<List<BatchLoanResult>> createLoans(BatchLoanRequest request) {
+    if (!doesUserExistById(request.getUserId())) {
+      return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+    }
+
+    List<Long> bookIds = request.getBookIds();
+    Set<Long> existingBookIds = bookRepository.findExistingIds(bookIds);
+    List<Long> booksToTake = bookIds.stream()
+      .filter(existingBookIds::contains)
+      .collect(Collectors.toList());
+    int[] copiesTaken = takeCopiesFromInventory(booksToTake);
+
+    List<Loan> newLoans = new ArrayList<>();
+    int takenIndex = 0;
+
+    for (Long bookId : bookIds) {
+      if (existingBookIds.contains(bookId) && copiesTaken[takenIndex++] > 0) {
+        newLoans.add(new Loan(bookId, request.getUserId(), Status.NEW_LOAN, LocalDate.now()));
+      }
+    }
+
+    List<Loan> savedLoanList = loanRepository.saveAll(newLoans);
+    circulationLedger.recordCheckouts(savedLoanList);
+    savedLoanList.forEach(savedLoan -> dueDateIndex.put(savedLoan.getId(), savedLoan.getLoanDate()));
+    Iterator<Loan> savedLoans = savedLoanList.iterator();
+    List<BatchLoanResult> results = new ArrayList<>();
+    takenIndex = 0;
+
+    for (Long bookId : bookIds) {
+      if (!existingBookIds.contains(bookId)) {
+        results.add(new BatchLoanResult(bookId, HttpStatus.BAD_REQUEST, null));
+      } else if (copiesTaken[takenIndex++] > 0) {
+        results.add(new BatchLoanResult(bookId, HttpStatus.CREATED, savedLoans.next()));
+      } else {
+        results.add(new BatchLoanResult(bookId, HttpStatus.FORBIDDEN, null));
+      }
+    }
+
+    return new ResponseEntity<>(results, HttpStatus.OK);
+  }
+
   /**
    * Renew an existing loan.
    *
    * @param id The ID of the loan to renew.
    * @return A ResponseEntity containing the renewed Loan entity.
    */
+  @Transactional
   public ResponseEntity<Loan> renewLoan(Long id) {
     Loan currentLoan = findLoanById(id);
 
@@ -116,6 +248,8 @@ public class LoanService {
     currentLoan.setStatus(Status.RENEWAL);
     currentLoan.setLoanDate(LocalDate.now());
     Loan updatedLoan = loanRepository.save(currentLoan);
+    circulationLedger.recordRenewal(updatedLoan);
+    dueDateIndex.put(id, updatedLoan.getLoanDate());
     return new ResponseEntity<>(updatedLoan, HttpStatus.OK);
   }
 
@@ -125,6 +259,7 @@ public class LoanService {
    * @param id The ID of the loan to delete.
    * @return A ResponseEntity with HTTP status indicating the result of the delete operation.
    */
+  @Transactional
   public ResponseEntity<HttpStatus> deleteLoan(Long id) {
     Loan loan = findLoanById(id);
 
@@ -132,8 +267,10 @@ public class LoanService {
       return new ResponseEntity<>(HttpStatus.NOT_FOUND);
     }
 
-    inventoryRepository.incrementInventory(loan.getBookId());
+    returnCopyToInventory(loan.getBookId());
     loanRepository.delete(loan);
+    circulationLedger.recordReturn(loan);
+    dueDateIndex.remove(id);
     return new ResponseEntity<>(HttpStatus.NO_CONTENT);
   }
 
@@ -148,31 +285,109 @@ public class LoanService {
   }
 
   /**
-   * Check if a book is available for loan.
+   * Helper method to fetch loans by ID, in the order of the IDs.
+   *
+   * Loans deleted since their ID was read are left out.
+   *
+   * @param ids The IDs of the loans to fetch.
+   * @return The found Loan entities.
+   */
+  private List<Loan> findLoansInOrder(List<Long> ids) {
+    if (ids.isEmpty()) {
+      return List.of();
+    }
+
+    Map<Long, Loan> loans = loanRepository.findAllById(ids).stream()
+      .collect(Collectors.toMap(Loan::getId, Function.identity()));
+    return ids.stream().map(loans::get).filter(Objects::nonNull).toList();
+  }
+
+  /**
+   * Take a copy of a book from the inventory, if one is available for loan.
+   *
+   * @param bookId The ID of the book to take a copy of.
+   * @return True if a copy was taken, false if no copy is in stock.
+   */
+  private boolean takeCopyFromInventory(Long bookId) {
+    if (writeBehindInventory.isWriteBehind(bookId)) {
+      return writeBehindInventory.take(bookId, 1);
+    }
+
+    inventoryLocks.lock(bookId);
+    return inventoryRepository.decrementInventory(bookId) > 0;
+  }
+
+  /**
+   * Take a copy of several books from the inventory, where one is available for loan.
+   *
+   * The books held in the write-behind stock are taken from memory; the others are taken
+   * from the inventory table in a single JDBC batch.
+   *
+   * @param bookIds The IDs of the books to take a copy of, one entry per copy.
+   * @return For each entry, in order: 1 if a copy was taken, 0 if no copy is in stock.
+   */
+  private int[] takeCopiesFromInventory(List<Long> bookIds) {
+    List<Long> booksFromTable = bookIds.stream()
+      .filter(bookId -> !writeBehindInventory.isWriteBehind(bookId))
+      .collect(Collectors.toList());
+    inventoryLocks.lockAll(booksFromTable);
+    int[] takenFromTable = inventoryRepository.decrementInventories(booksFromTable);
+
+    int[] copiesTaken = new int[bookIds.size()];
+    int tableIndex = 0;
+
+    for (int i = 0; i < copiesTaken.length; i++) {
+      Long bookId = bookIds.get(i);
+
+      if (writeBehindInventory.isWriteBehind(bookId)) {
+        copiesTaken[i] = writeBehindInventory.take(bookId, 1) ? 1 : 0;
+      } else {
+        copiesTaken[i] = takenFromTable[tableIndex++];
+      }
+    }
+
+    return copiesTaken;
+  }
+
+  /**
+   * Put a returned copy of a book back in the inventory.
    *
-   * @param bookId The ID of the book to check.
-   * @return True if the book is available, false otherwise.
+   * @param bookId The ID of the book returned.
    */
-  private boolean isBookAvailableForLoan(Long bookId) {
-    return inventoryRepository.inventoryInStockValue(bookId) > 0;
+  private void returnCopyToInventory(Long bookId) {
+    if (writeBehindInventory.isWriteBehind(bookId)) {
+      writeBehindInventory.add(bookId, 1);
+      return;
+    }
+
+    inventoryLocks.lock(bookId);
+    inventoryRepository.incrementInventory(bookId);
   }
 
   /**
    * Check if a loan is late based on the loan date and current date.
    *
-   * @param loan The Loan entity to check for lateness.
+   * @param loan       The Loan entity to check for lateness.
+   * @param loanLength The number of days a book can be kept before the loan is late.
    * @return true if the loan is late, false otherwise.
    */
-  // TODO: maybe add a parameter to allow passing a loan length instead of setting it here?
-  private boolean isLate(Loan loan) {
-    LocalDate currentDate = LocalDate.now();
-    LocalDate loanDate = loan.getLoanDate();
+  private boolean isLate(Loan loan, int loanLength) {
+    return isLate(loan.getLoanDate(), LocalDate.now(), loanLength);
+  }
+
+  /**
+   * Check if a loan made on a given date is late on another date.
+   *
+   * This is the lateness policy shared by the loan endpoints and the overdue sweep.
+   *
+   * @param loanDate    The date on which the book was loaned.
+   * @param currentDate The date on which lateness is checked.
+   * @param loanLength  The number of days a book can be kept before the loan is late.
+   * @return true if the loan is late, false otherwise.
+   */
+  public static boolean isLate(LocalDate loanDate, LocalDate currentDate, int loanLength) {
     long daysDifference = ChronoUnit.DAYS.between(loanDate, currentDate);
-    if (daysDifference > 21) {
-      return true;
-    } else {
-      return false;
-    }
+    return daysDifference > loanLength;
   }
 
   /**
@@ -182,24 +397,24 @@ public class LoanService {
    * @return True if the loan is renewable, false otherwise.
    */
   private boolean isLoanRenewable(Loan loan) {
-    return loan.getStatus() == Status.NEW_LOAN && !isLate(loan);
+    return loan.getStatus() == Status.NEW_LOAN && !isLate(loan, DEFAULT_LOAN_LENGTH);
   }
 
   /**
-   * Check if a user with the given ID exists in the repository.
+   * Check if a user with the given ID exists, using the in-memory existence index.
    * @param id The ID of the user to check.
    * @return True if the user exists, false otherwise.
    */
   private boolean doesUserExistById(Long id) {
-    return userRepository.existsById(id);
+    return existenceIndex.exists(Kind.USER, id);
   }
 
   /**
-   * Check if a book with the given ID exists in the repository.
+   * Check if a book with the given ID exists, using the in-memory existence index.
    * @param id The ID of the book to check.
    * @return True if the book exists, false otherwise.
    */
   private boolean doesBookExistById(Long id) {
-    return bookRepository.existsById(id);
+    return existenceIndex.exists(Kind.BOOK, id);
   }
 }
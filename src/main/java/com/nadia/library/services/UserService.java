@@ -1,14 +1,24 @@
 package com.nadia.library.services;
 
+import com.nadia.library.dto.UserLoan;
+import com.nadia.library.index.ExistenceIndex;
+import com.nadia.library.index.ExistenceIndex.Kind;
 import com.nadia.library.models.User;
+import com.nadia.library.pagination.KeysetPagination;
+import com.nadia.library.pagination.KeysetPagination.DateKey;
+import com.nadia.library.repositories.LoanRepository;
 import com.nadia.library.repositories.UserRepository;
 
 import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 /**
  * Service class for managing User entities.
@@ -17,14 +27,28 @@ import org.springframework.stereotype.Service;
 public class UserService {
   @Autowired
   private UserRepository userRepository;
+  @Autowired
+  private ExistenceIndex existenceIndex;
+  @Autowired
+  private LoanRepository loanRepository;
 
   /**
-   * Get a list of all users.
+   * Get a page of users, ordered by ID.
    *
-   * @return A list of User entities.
+   * @param after The cursor of the previous page, or null for the first page.
+   * @param limit The maximum number of users to return.
+   * @return A ResponseEntity containing a list of User entities, with the next page cursor in its headers.
    */
-  public List<User> getAllUsers() {
-    return userRepository.findAll();
+  @Transactional(readOnly = true)
+  public ResponseEntity<List<User>> getAllUsers(String after, int limit) {
+    Long afterId = KeysetPagination.decodeCursor(after);
+
+    if (afterId == null || !KeysetPagination.isValidLimit(limit)) {
+      return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+    }
+
+    Slice<User> page = userRepository.findByIdGreaterThan(afterId, KeysetPagination.firstRows(limit));
+    return KeysetPagination.toResponse(page, User::getId, limit);
   }
 
   /**
@@ -33,6 +57,7 @@ public class UserService {
    * @param id The ID of the user to retrieve.
    * @return A ResponseEntity containing the User entity if found.
    */
+  @Transactional(readOnly = true)
   public ResponseEntity<User> getUserById(Long id) {
       User user = findUserById(id);
 
@@ -43,6 +68,32 @@ public class UserService {
       return new ResponseEntity<>(user, HttpStatus.OK);
   }
 
+  /**
+   * Get a page of the loans of a user, oldest first.
+   *
+   * @param id    The ID of the user.
+   * @param after The cursor of the previous page, or null for the first page.
+   * @param limit The maximum number of loans to return.
+   * @return A ResponseEntity containing the loans of the page, with the next page cursor in its headers, or NOT_FOUND if the user does not exist.
+   */
+  @Transactional(readOnly = true)
+  public ResponseEntity<List<UserLoan>> getUserLoans(Long id, String after, int limit) {
+    DateKey afterKey = KeysetPagination.decodeDateCursor(after);
+
+    if (afterKey == null || !KeysetPagination.isValidLimit(limit)) {
+      return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+    }
+
+    if (!existenceIndex.exists(Kind.USER, id)) {
+      return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+    }
+
+    Slice<UserLoan> page = afterKey.date() == null
+        ? loanRepository.findByUserId(id, PageRequest.of(0, limit, Sort.by("loanDate", "id")))
+        : loanRepository.findByUserIdAfter(id, afterKey.date(), afterKey.id(), PageRequest.ofSize(limit));
+    return KeysetPagination.toCursorResponse(page, loan -> KeysetPagination.encodeCursor(loan.getLoanDate(), loan.getId()), limit);
+  }
+
   /**
    * Create a new user.
    * If the user already exists, display an error message; otherwise, create a new entry.
@@ -50,6 +101,7 @@ public class UserService {
    * @param user The User entity to create.
    * @return A ResponseEntity containing the created User entity.
    */
+  @Transactional
   public ResponseEntity<?> createUser(User user) {
     User currentUser = userRepository.findByEmail(user.getEmail());
 
@@ -58,6 +110,7 @@ public class UserService {
     }
 
     User savedUser = userRepository.save(user);
+    existenceIndex.add(Kind.USER, savedUser.getId());
     return new ResponseEntity<>(savedUser, HttpStatus.CREATED);
   }
 
@@ -68,6 +121,7 @@ public class UserService {
    * @param user The updated User entity.
    * @return A ResponseEntity containing the updated User entity.
    */
+  @Transactional
   public ResponseEntity<User> updateUser(Long id, User user) {
     User currentUser = findUserById(id);
 
@@ -88,6 +142,7 @@ public class UserService {
    * @param id The ID of the user to delete.
    * @return A ResponseEntity indicating the result of the delete operation.
    */
+  @Transactional
   public ResponseEntity<HttpStatus> deleteUser(Long id) {
     User user = findUserById(id);
 
@@ -96,6 +151,7 @@ public class UserService {
     }
 
     userRepository.delete(user);
+    existenceIndex.remove(Kind.USER, id);
 
     return new ResponseEntity<>(HttpStatus.NO_CONTENT);
   }
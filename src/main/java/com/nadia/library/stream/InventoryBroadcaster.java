@@ -0,0 +1,222 @@
+package com.nadia.library.stream;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nadia.library.models.Inventory;
+import com.nadia.library.repositories.InventoryRepository;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import jakarta.annotation.PostConstruct;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Pushes the in-stock value of books to Server-Sent Events subscribers when it changes.
+ *
+ * Committed changes only mark a book as changed. Every flush interval, the current stock of
+ * all changed books that have subscribers is read in one query, each event is serialized
+ * once, and the same bytes are written to every subscriber of the book. Rapid changes to a
+ * book within an interval are therefore sent as a single event with the latest value, and
+ * the database load does not depend on the number of subscribers.
+ */
+@Component
+public class InventoryBroadcaster {
+  /**
+   * The maximum number of books a single subscription can follow.
+   */
+  public static final int MAX_BOOK_IDS = 100;
+
+  /**
+   * The name of the events sent to subscribers.
+   */
+  static final String EVENT_NAME = "inventory";
+
+  @Autowired
+  private InventoryRepository inventoryRepository;
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  @Value("${library.inventory.stream.timeout:30m}")
+  private Duration timeout = Duration.ofMinutes(30);
+
+  private final Map<Long, Set<SseEmitter>> subscribers = new ConcurrentHashMap<>();
+  private final Set<SseEmitter> emitters = ConcurrentHashMap.newKeySet();
+  private final Set<Long> changedBookIds = ConcurrentHashMap.newKeySet();
+  private Counter sentEvents;
+
+  /**
+   * Publish the number of open subscriptions and the number of events sent.
+   */
+  @PostConstruct
+  void registerMetrics() {
+    Gauge.builder("library.inventory.stream.subscribers", emitters, Set::size)
+        .description("Number of open inventory event streams")
+        .register(meterRegistry);
+    sentEvents = Counter.builder("library.inventory.stream.events")
+        .description("Number of inventory events written to subscribers")
+        .register(meterRegistry);
+  }
+
+  /**
+   * Open a stream of inventory events for some books.
+   *
+   * The current stock of each book is sent first, so that no change is missed between the
+   * client's last read and the subscription. Clients reconnect when the stream times out.
+   *
+   * @param bookIds The IDs of the books to follow.
+   * @return The event stream.
+   */
+  public SseEmitter subscribe(Collection<Long> bookIds) {
+    SseEmitter emitter = new SseEmitter(timeout.toMillis());
+    Set<Long> followed = Set.copyOf(bookIds);
+
+    emitter.onCompletion(() -> unsubscribe(emitter, followed));
+    emitter.onTimeout(emitter::complete);
+    emitter.onError(error -> unsubscribe(emitter, followed));
+    emitters.add(emitter);
+
+    for (Long bookId : followed) {
+      subscribers.computeIfAbsent(bookId, id -> ConcurrentHashMap.newKeySet()).add(emitter);
+    }
+
+    for (Inventory inventory : inventoryRepository.findByBookIdIn(followed)) {
+      send(emitter, event(inventory));
+    }
+
+    return emitter;
+  }
+
+  /**
+   * Mark a book as changed once the change is committed (or immediately outside a transaction).
+   *
+   * @param event The inventory change.
+   */
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onInventoryChanged(InventoryChangedEvent event) {
+    if (subscribers.containsKey(event.bookId())) {
+      changedBookIds.add(event.bookId());
+    }
+  }
+
+  /**
+   * Send the current stock of every changed book to its subscribers.
+   */
+  @Scheduled(fixedDelayString = "${library.inventory.stream.flush-interval-ms:250}")
+  public void flush() {
+    if (changedBookIds.isEmpty()) {
+      return;
+    }
+
+    List<Long> bookIds = new ArrayList<>(changedBookIds);
+    changedBookIds.removeAll(bookIds);
+
+    for (Inventory inventory : inventoryRepository.findByBookIdIn(bookIds)) {
+      Set<SseEmitter> bookSubscribers = subscribers.get(inventory.getBookId());
+
+      if (bookSubscribers == null) {
+        continue;
+      }
+
+      Set<DataWithMediaType> event = event(inventory);
+
+      for (SseEmitter emitter : bookSubscribers) {
+        send(emitter, event);
+      }
+    }
+  }
+
+  /**
+   * Send a comment to every subscriber, so that connections closed by clients are detected
+   * and proxies do not close idle streams.
+   */
+  @Scheduled(fixedDelayString = "${library.inventory.stream.heartbeat-interval-ms:30000}")
+  public void heartbeat() {
+    Set<DataWithMediaType> comment = SseEmitter.event().comment("").build();
+
+    for (SseEmitter emitter : emitters) {
+      send(emitter, comment);
+    }
+  }
+
+  /**
+   * Get the number of open subscriptions.
+   *
+   * @return The number of subscriptions.
+   */
+  public int subscriberCount() {
+    return emitters.size();
+  }
+
+  /**
+   * Build the event carrying the stock of a book, serialized once for all its subscribers.
+   *
+   * @param inventory The inventory item of the book.
+   * @return The event, ready to be written.
+   */
+  private Set<DataWithMediaType> event(Inventory inventory) {
+    try {
+      return SseEmitter.event()
+          .name(EVENT_NAME)
+          .data(objectMapper.writeValueAsString(inventory), MediaType.APPLICATION_JSON)
+          .build();
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException("Could not serialize inventory item " + inventory.getId(), e);
+    }
+  }
+
+  /**
+   * Write an event to a subscriber, dropping the subscriber if the write fails.
+   *
+   * @param emitter The subscriber's stream.
+   * @param event   The event to write.
+   */
+  private void send(SseEmitter emitter, Set<DataWithMediaType> event) {
+    try {
+      emitter.send(event);
+      sentEvents.increment();
+    } catch (IOException | IllegalStateException e) {
+      emitter.completeWithError(e);
+    }
+  }
+
+  /**
+   * Remove a closed stream from the subscribers of its books.
+   *
+   * @param emitter  The closed stream.
+   * @param bookIds  The books it followed.
+   */
+  private void unsubscribe(SseEmitter emitter, Set<Long> bookIds) {
+    if (!emitters.remove(emitter)) {
+      return;
+    }
+
+    for (Long bookId : bookIds) {
+      subscribers.computeIfPresent(bookId, (id, bookSubscribers) -> {
+        bookSubscribers.remove(emitter);
+        return bookSubscribers.isEmpty() ? null : bookSubscribers;
+      });
+    }
+  }
+}
@@ -0,0 +1,93 @@
+package com.nadia.library.stream;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.aspectj.lang.annotation.AfterReturning;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+/**
+ * Publishes an InventoryChangedEvent after each successful change of a book's in-stock value.
+ *
+ * Changes go through InventoryRepository (loans, batch loans, returns and new copies) or
+ * through InventoryService (manual stock updates); intercepting them here covers every caller.
+ * The advice runs outside the repository's own transaction, but inside the caller's one
+ * if there is one, so listeners use @TransactionalEventListener to wait for the commit.
+ */
+@Aspect
+@Component
+public class InventoryChangeAspect {
+  @Autowired
+  private ApplicationEventPublisher eventPublisher;
+
+  /**
+   * Publish a change after a copy was returned or taken, unless no row was updated.
+   *
+   * @param bookId  The ID of the book.
+   * @param updated The number of inventory rows updated.
+   */
+  @AfterReturning(
+    pointcut = "execution(int com.nadia.library.repositories.InventoryRepository.*crementInventory(Long)) && args(bookId)",
+    returning = "updated"
+  )
+  public void afterStockUpdate(Long bookId, int updated) {
+    if (updated > 0) {
+      eventPublisher.publishEvent(new InventoryChangedEvent(bookId));
+    }
+  }
+
+  /**
+   * Publish a change for each book of a batch checkout of which a copy was taken.
+   *
+   * @param bookIds The IDs of the books, one entry per copy.
+   * @param updated The number of inventory rows updated for each entry, in order.
+   */
+  @AfterReturning(
+    pointcut = "execution(int[] com.nadia.library.repositories.InventoryRepositoryCustom.decrementInventories(java.util.List))"
+      + " && args(bookIds) && this(com.nadia.library.repositories.InventoryRepository)",
+    returning = "updated"
+  )
+  public void afterStockUpdates(List<Long> bookIds, int[] updated) {
+    Set<Long> changedBookIds = new LinkedHashSet<>();
+
+    for (int i = 0; i < updated.length; i++) {
+      if (updated[i] > 0) {
+        changedBookIds.add(bookIds.get(i));
+      }
+    }
+
+    changedBookIds.forEach(bookId -> eventPublisher.publishEvent(new InventoryChangedEvent(bookId)));
+  }
+
+  /**
+   * Publish a change after the inventory item of a new book was created.
+   *
+   * @param bookId The ID of the book.
+   */
+  @AfterReturning("execution(void com.nadia.library.repositories.InventoryRepository.addInventoryItem(Long)) && args(bookId)")
+  public void afterInventoryItemAdded(Long bookId) {
+    eventPublisher.publishEvent(new InventoryChangedEvent(bookId));
+  }
+
+  /**
+   * Publish a change after the stock of a book was set manually.
+   *
+   * @param bookId   The ID of the book.
+   * @param response The response of the service, published only if OK.
+   */
+  @AfterReturning(
+    pointcut = "execution(* com.nadia.library.services.InventoryService.updateStockofInventoryItemByBookId(Long, ..)) && args(bookId, ..)",
+    returning = "response"
+  )
+  public void afterStockSet(Long bookId, ResponseEntity<?> response) {
+    if (response.getStatusCode() == HttpStatus.OK) {
+      eventPublisher.publishEvent(new InventoryChangedEvent(bookId));
+    }
+  }
+}
@@ -0,0 +1,11 @@
+package com.nadia.library.stream;
+
+/**
+ * Published when the in-stock value of a book may have changed.
+ *
+ * The event only carries the book ID: the value sent to subscribers is read again once
+ * the change is committed, so several changes in a row are sent as one.
+ *
+ * @param bookId The ID of the book whose inventory changed.
+ */
+public record InventoryChangedEvent(Long bookId) {}
@@ -0,0 +1,34 @@
+package com.nadia.library.transaction;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Defers changes to in-memory state until the transaction that caused them has committed.
+ *
+ * The indexes, change counters and caches kept in memory must never show a write that could
+ * still roll back, so their changes made inside a transaction are held back until it commits,
+ * and dropped if it rolls back.
+ */
+public final class AfterCommit {
+  private AfterCommit() {}
+
+  /**
+   * Run a change once the current transaction commits, or now outside a transaction.
+   *
+   * @param change The change to apply.
+   */
+  public static void run(Runnable change) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      change.run();
+      return;
+    }
+
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCommit() {
+        change.run();
+      }
+    });
+  }
+}
@@ -0,0 +1,108 @@
+package com.nadia.library.threads;
+
+import java.time.Duration;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reports virtual threads that stay pinned to their carrier thread.
+ *
+ * A virtual thread that blocks inside a `synchronized` block or a native call cannot be
+ * unmounted, so it keeps its carrier (platform) thread busy; a few of those are enough to
+ * stall every other virtual thread. This monitor listens to the `jdk.VirtualThreadPinned` JFR
+ * event in-process, counts and times pinning in the `library.virtual.threads.pinned` timer and
+ * logs the stack trace where it happened.
+ */
+@Component
+@ConditionalOnProperty(name = "library.virtual-threads.enabled", havingValue = "true")
+public class PinnedThreadMonitor implements SmartLifecycle {
+  private static final Logger logger = LoggerFactory.getLogger(PinnedThreadMonitor.class);
+
+  /**
+   * The number of stack frames logged for each pinning event.
+   */
+  private static final int LOGGED_FRAMES = 12;
+
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  @Value("${library.virtual-threads.pinned-threshold:20ms}")
+  private Duration threshold;
+
+  private RecordingStream recording;
+
+  /**
+   * Start listening to pinning events.
+   */
+  @Override
+  public synchronized void start() {
+    Timer pinned = Timer.builder("library.virtual.threads.pinned")
+        .description("Time virtual threads spent pinned to their carrier thread")
+        .register(meterRegistry);
+
+    recording = new RecordingStream();
+    recording.enable("jdk.VirtualThreadPinned").withThreshold(threshold).withStackTrace();
+    recording.onEvent("jdk.VirtualThreadPinned", event -> {
+      pinned.record(event.getDuration());
+      logger.warn("Virtual thread pinned for {} ms:{}", event.getDuration().toMillis(), stackTrace(event));
+    });
+    recording.startAsync();
+  }
+
+  /**
+   * Stop listening to pinning events.
+   */
+  @Override
+  public synchronized void stop() {
+    if (recording != null) {
+      recording.close();
+      recording = null;
+    }
+  }
+
+  /**
+   * Check if the monitor is listening.
+   *
+   * @return True between start and stop.
+   */
+  @Override
+  public synchronized boolean isRunning() {
+    return recording != null;
+  }
+
+  /**
+   * Format the top of the stack trace of a pinning event.
+   *
+   * @param event The JFR event.
+   * @return The frames, one per line.
+   */
+  private static String stackTrace(RecordedEvent event) {
+    if (event.getStackTrace() == null) {
+      return " (no stack trace)";
+    }
+
+    StringBuilder frames = new StringBuilder();
+    for (RecordedFrame frame : event.getStackTrace().getFrames().stream().limit(LOGGED_FRAMES).toList()) {
+      frames.append(System.lineSeparator())
+          .append("\tat ")
+          .append(frame.getMethod().getType().getName())
+          .append('.')
+          .append(frame.getMethod().getName())
+          .append(" line ")
+          .append(frame.getLineNumber());
+    }
+    return frames.toString();
+  }
+}
@@ -0,0 +1,44 @@
+package com.nadia.library.threads;
+
+import java.util.concurrent.Executors;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+
+/**
+ * Serves requests on virtual threads instead of Tomcat's pool of platform threads.
+ *
+ * Only compiled by the `jdk21` Maven profile, and enabled with
+ * `library.virtual-threads.enabled=true`. Each request, and each asynchronous response such
+ * as an NDJSON export, runs on its own virtual thread, which gives its carrier thread back
+ * while it waits on JDBC. The database limiter (`library.datasource.limiter.enabled`) should
+ * be enabled at the same time.
+ */
+@Configuration
+@ConditionalOnProperty(name = "library.virtual-threads.enabled", havingValue = "true")
+public class VirtualThreadConfiguration {
+  /**
+   * Run Tomcat's request processing on a new virtual thread per request.
+   *
+   * @return The Tomcat protocol handler customizer.
+   */
+  @Bean
+  TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+    return protocolHandler -> protocolHandler.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+  }
+
+  /**
+   * Run asynchronous Spring MVC responses on virtual threads.
+   *
+   * @return The executor used for StreamingResponseBody and other async requests.
+   */
+  @Bean(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+  AsyncTaskExecutor applicationTaskExecutor() {
+    return new TaskExecutorAdapter(Executors.newVirtualThreadPerTaskExecutor());
+  }
+}
@@ -0,0 +1,54 @@
+package com.nadia.library.benchmarks;
+
+import com.nadia.library.models.Book;
+import com.nadia.library.services.BookService;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Benchmarks of adding books with BookService.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class BookServiceBenchmark {
+  private long added;
+
+  /**
+   * Benchmark adding a title the library does not have yet (new book and inventory rows).
+   *
+   * @param library The running application.
+   * @return The response of the service.
+   */
+  @Benchmark
+  public ResponseEntity<Book> addNewBook(LibraryState library) {
+    Book book = new Book(library.getAuthorId(), "New book " + added++);
+    return library.bean(BookService.class).addBook(book);
+  }
+
+  /**
+   * Benchmark adding a copy of a title the library already has (inventory increment).
+   *
+   * @param library The running application.
+   * @return The response of the service.
+   */
+  @Benchmark
+  public ResponseEntity<Book> addCopyOfExistingBook(LibraryState library) {
+    Book book = new Book(library.getAuthorId(), "Book " + (added++ % library.size));
+    return library.bean(BookService.class).addBook(book);
+  }
+}
@@ -0,0 +1,44 @@
+package com.nadia.library.benchmarks;
+
+import com.nadia.library.LibraryApplication;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Starts the application on an in-memory H2 database in MySQL compatibility mode.
+ *
+ * Used by the benchmarks and the load test instead of the MySQL database configured in
+ * `application.properties`.
+ */
+public final class EmbeddedLibrary {
+  private EmbeddedLibrary() {}
+
+  /**
+   * Start the application on a fresh in-memory database.
+   *
+   * @param webApplicationType NONE to call the services directly, SERVLET to serve HTTP requests on a random port.
+   * @param extraArgs          Additional `--property=value` arguments.
+   * @return The running application context.
+   */
+  public static ConfigurableApplicationContext start(WebApplicationType webApplicationType, String... extraArgs) {
+    List<String> args = new ArrayList<>(List.of(
+        "--spring.datasource.url=jdbc:h2:mem:library;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "--spring.datasource.driver-class-name=org.h2.Driver",
+        "--spring.datasource.username=sa",
+        "--spring.datasource.password=",
+        "--spring.jpa.show-sql=false",
+        "--spring.main.banner-mode=off",
+        "--server.port=0",
+        "--logging.level.root=WARN"));
+    args.addAll(List.of(extraArgs));
+
+    return new SpringApplicationBuilder(LibraryApplication.class)
+        .web(webApplicationType)
+        .run(args.toArray(String[]::new));
+  }
+}
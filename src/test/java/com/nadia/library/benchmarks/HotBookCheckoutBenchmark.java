@@ -0,0 +1,138 @@
+package com.nadia.library.benchmarks;
+
+import com.nadia.library.models.Loan;
+import com.nadia.library.models.Loan.Status;
+import com.nadia.library.services.LoanService;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+import jakarta.persistence.EntityManagerFactory;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Benchmark of concurrent checkouts concentrated on a few books, with and without the
+ * striped inventory locks.
+ *
+ * Every benchmark thread checks out one of the `hotBooks` first seeded books. With a single
+ * hot book, all checkouts update the same inventory row; with many, they spread over rows
+ * and stripes, which shows that unrelated titles are not slowed down by the locks.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(32)
+@Fork(1)
+public class HotBookCheckoutBenchmark {
+  /**
+   * The number of books, users and loans seeded.
+   */
+  private static final int SIZE = 1000;
+
+  /**
+   * The number of copies each hot book has in stock at the start of an iteration.
+   */
+  private static final int COPIES = 1_000_000;
+
+  /**
+   * The application, with striped locks enabled or not.
+   */
+  @State(Scope.Benchmark)
+  public static class HotBooks {
+    /**
+     * Whether inventory changes are serialized by the striped locks.
+     */
+    @Param({"false", "true"})
+    public boolean stripedLocks;
+
+    /**
+     * The number of books the checkouts are spread over.
+     */
+    @Param({"1", "1000"})
+    public int hotBooks;
+
+    private ConfigurableApplicationContext context;
+    private SyntheticDataset dataset;
+    private LoanService loanService;
+
+    /**
+     * Start the application on a fresh H2 database (MySQL mode) and fill it.
+     */
+    @Setup(Level.Trial)
+    public void start() {
+      context = EmbeddedLibrary.start(WebApplicationType.NONE,
+          "--library.inventory.striped-locks.enabled=" + stripedLocks);
+      dataset = new SyntheticDataset(context, SIZE);
+      loanService = context.getBean(LoanService.class);
+    }
+
+    /**
+     * Delete the loans added during the iteration and restore the stock of every book.
+     */
+    @TearDown(Level.Iteration)
+    public void reset() {
+      JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+      jdbcTemplate.update("DELETE FROM loan WHERE id > ?", dataset.lastLoanId());
+      jdbcTemplate.update("UPDATE inventory SET in_stock = ?", COPIES);
+      context.getBean(EntityManagerFactory.class).getCache().evictAll();
+    }
+
+    /**
+     * Stop the application.
+     */
+    @TearDown(Level.Trial)
+    public void stop() {
+      context.close();
+    }
+  }
+
+  /**
+   * The books and users of a benchmark thread.
+   */
+  @State(Scope.Thread)
+  public static class Borrower {
+    private int next;
+
+    /**
+     * Start each thread at a different position, so threads do not move in lockstep.
+     */
+    @Setup(Level.Trial)
+    public void start() {
+      next = (int) (Thread.currentThread().getId() * 7919);
+    }
+  }
+
+  /**
+   * Benchmark checking out one of the hot books.
+   *
+   * @param library  The running application.
+   * @param borrower The state of the benchmark thread.
+   * @return The response of the service.
+   */
+  @Benchmark
+  public ResponseEntity<Loan> createLoan(HotBooks library, Borrower borrower) {
+    int i = Math.floorMod(borrower.next++, SIZE);
+    long bookId = library.dataset.bookId(i % library.hotBooks);
+    Loan loan = new Loan(bookId, library.dataset.userId(i), Status.NEW_LOAN, LocalDate.now());
+    return library.loanService.createLoan(loan);
+  }
+}
@@ -0,0 +1,120 @@
+package com.nadia.library.benchmarks;
+
+import com.nadia.library.index.DueDateIndex;
+import com.nadia.library.index.ExistenceIndex;
+import com.nadia.library.index.ExistenceIndex.Kind;
+import com.nadia.library.search.TitleSearchIndex;
+
+import jakarta.persistence.EntityManagerFactory;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * The application running against an embedded H2 database, shared by all benchmarks.
+ *
+ * The database holds a synthetic dataset of `size` books, users and loans. Rows added by a
+ * benchmark are deleted after each iteration, along with their entries in the in-memory
+ * indexes, and the stock of every book is put back, so every iteration starts from the same
+ * state. The largest dataset is opt-in: run it with `-p size=1000000`.
+ */
+@State(Scope.Benchmark)
+public class LibraryState {
+  /**
+   * The number of books, users and loans in the database.
+   */
+  @Param({"1000", "100000"})
+  public int size;
+
+  private ConfigurableApplicationContext context;
+  private SyntheticDataset dataset;
+  private int next;
+
+  /**
+   * Start the application on a fresh H2 database (MySQL mode) and fill it.
+   */
+  @Setup(Level.Trial)
+  public void start() {
+    context = EmbeddedLibrary.start(WebApplicationType.NONE);
+    dataset = new SyntheticDataset(context, size);
+  }
+
+  /**
+   * Delete the books and loans added during the iteration, with their index entries, put
+   * back the stock of every book, and empty the second-level cache.
+   */
+  @TearDown(Level.Iteration)
+  public void restore() {
+    JdbcTemplate jdbcTemplate = bean(JdbcTemplate.class);
+    DueDateIndex dueDateIndex = bean(DueDateIndex.class);
+    ExistenceIndex existenceIndex = bean(ExistenceIndex.class);
+    TitleSearchIndex titleSearchIndex = bean(TitleSearchIndex.class);
+
+    for (Long loanId : jdbcTemplate.queryForList("SELECT id FROM loan WHERE id > ?", Long.class, dataset.lastLoanId())) {
+      dueDateIndex.remove(loanId);
+    }
+
+    for (Long bookId : jdbcTemplate.queryForList("SELECT id FROM book WHERE id > ?", Long.class, dataset.lastBookId())) {
+      existenceIndex.remove(Kind.BOOK, bookId);
+      titleSearchIndex.remove(bookId);
+    }
+
+    jdbcTemplate.update("DELETE FROM loan WHERE id > ?", dataset.lastLoanId());
+    jdbcTemplate.update("DELETE FROM inventory WHERE book_id > ?", dataset.lastBookId());
+    jdbcTemplate.update("DELETE FROM book WHERE id > ?", dataset.lastBookId());
+    jdbcTemplate.update("UPDATE inventory SET in_stock = ? WHERE in_stock <> ?", SyntheticDataset.COPIES, SyntheticDataset.COPIES);
+    bean(EntityManagerFactory.class).getCache().evictAll();
+  }
+
+  /**
+   * Stop the application.
+   */
+  @TearDown(Level.Trial)
+  public void stop() {
+    context.close();
+  }
+
+  /**
+   * Get a bean of the running application.
+   *
+   * @param type The type of the bean.
+   * @return The bean.
+   */
+  public <T> T bean(Class<T> type) {
+    return context.getBean(type);
+  }
+
+  /**
+   * Get the ID of the author of every seeded book.
+   *
+   * @return The author ID.
+   */
+  public Long getAuthorId() {
+    return dataset.getAuthorId();
+  }
+
+  /**
+   * Get a seeded book ID, cycling through all of them.
+   *
+   * @return A book ID.
+   */
+  public long nextBookId() {
+    return dataset.bookId(next++ % size);
+  }
+
+  /**
+   * Get a seeded user ID, cycling through all of them.
+   *
+   * @return A user ID.
+   */
+  public long nextUserId() {
+    return dataset.userId(next++ % size);
+  }
+}
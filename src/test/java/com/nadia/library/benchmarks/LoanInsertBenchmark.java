@@ -0,0 +1,96 @@
+package com.nadia.library.benchmarks;
+
+import com.nadia.library.models.Loan;
+import com.nadia.library.models.Loan.Status;
+import com.nadia.library.repositories.LoanRepository;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import jakarta.persistence.EntityManager;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Benchmark of bulk loan inserts, which are sent to the database in JDBC batches.
+ *
+ * The score is the time per inserted row. The baseline inserts the same rows one statement
+ * at a time, as IDENTITY ids forced Hibernate to.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LoanInsertBenchmark {
+  /**
+   * The number of loans saved per saveAll call.
+   */
+  private static final int ROWS = 500;
+
+  /**
+   * Benchmark saving loans with a single saveAll call.
+   *
+   * @param library The running application.
+   * @return The saved loans.
+   */
+  @Benchmark
+  @OperationsPerInvocation(ROWS)
+  public List<Loan> saveAll(LibraryState library) {
+    return library.bean(LoanRepository.class).saveAll(newLoans(library));
+  }
+
+  /**
+   * Baseline for saveAll: save the same loans in one transaction, each one flushed on its own
+   * and then detached, so that every flush only inserts its row.
+   *
+   * @param library The running application.
+   * @return The saved loans.
+   */
+  @Benchmark
+  @OperationsPerInvocation(ROWS)
+  public List<Loan> saveEach(LibraryState library) {
+    List<Loan> loans = newLoans(library);
+    LoanRepository loanRepository = library.bean(LoanRepository.class);
+    EntityManager entityManager = library.bean(EntityManager.class);
+    TransactionTemplate transaction = new TransactionTemplate(library.bean(PlatformTransactionManager.class));
+
+    return transaction.execute(status -> {
+      for (Loan loan : loans) {
+        loanRepository.save(loan);
+        entityManager.flush();
+        entityManager.detach(loan);
+      }
+
+      return loans;
+    });
+  }
+
+  /**
+   * Build the loans to insert.
+   *
+   * @param library The running application.
+   * @return New loans of seeded books and users.
+   */
+  private static List<Loan> newLoans(LibraryState library) {
+    List<Loan> loans = new ArrayList<>(ROWS);
+    LocalDate today = LocalDate.now();
+
+    for (int i = 0; i < ROWS; i++) {
+      loans.add(new Loan(library.nextBookId(), library.nextUserId(), Status.NEW_LOAN, today));
+    }
+
+    return loans;
+  }
+}
@@ -0,0 +1,154 @@
+package com.nadia.library.benchmarks;
+
+import com.nadia.library.models.Loan;
+import com.nadia.library.models.Loan.Status;
+import com.nadia.library.repositories.LoanRepository;
+import com.nadia.library.services.LoanService;
+
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Benchmarks of the LoanService circulation operations.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LoanServiceBenchmark {
+  /**
+   * The number of late loans requested per page.
+   */
+  private static final int PAGE_SIZE = 100;
+
+  /**
+   * Check that the late loans are found, so that an empty due-date index cannot be measured
+   * as a fast lookup.
+   *
+   * @param library The running application.
+   * @throws IllegalStateException If no late loan is found.
+   */
+  @Setup(Level.Trial)
+  public void checkLateLoans(LibraryState library) {
+    if (getAllLateLoans(library).isEmpty()) {
+      throw new IllegalStateException("No late loan found among the " + library.size + " loans of the dataset");
+    }
+  }
+
+  /**
+   * A loan made today, created before each invocation (outside the measured time).
+   */
+  @State(Scope.Thread)
+  public static class NewLoan {
+    private Long id;
+
+    /**
+     * Save a new, renewable loan.
+     *
+     * @param library The running application.
+     */
+    @Setup(Level.Invocation)
+    public void create(LibraryState library) {
+      Loan loan = new Loan(library.nextBookId(), library.nextUserId(), Status.NEW_LOAN, LocalDate.now());
+      id = library.bean(LoanRepository.class).save(loan).getId();
+    }
+  }
+
+  /**
+   * Benchmark checking out a book.
+   *
+   * @param library The running application.
+   * @return The response of the service.
+   */
+  @Benchmark
+  public ResponseEntity<Loan> createLoan(LibraryState library) {
+    Loan loan = new Loan(library.nextBookId(), library.nextUserId(), Status.NEW_LOAN, LocalDate.now());
+    return library.bean(LoanService.class).createLoan(loan);
+  }
+
+  /**
+   * Benchmark renewing a loan.
+   *
+   * @param library The running application.
+   * @param loan    The loan to renew.
+   * @return The response of the service.
+   */
+  @Benchmark
+  public ResponseEntity<Loan> renewLoan(LibraryState library, NewLoan loan) {
+    return library.bean(LoanService.class).renewLoan(loan.id);
+  }
+
+  /**
+   * Benchmark returning a book.
+   *
+   * @param library The running application.
+   * @param loan    The loan to delete.
+   * @return The response of the service.
+   */
+  @Benchmark
+  public Object deleteLoan(LibraryState library, NewLoan loan) {
+    return library.bean(LoanService.class).deleteLoan(loan.id);
+  }
+
+  /**
+   * Benchmark reading the first page of late loans with the indexed loan date range query.
+   *
+   * @param library The running application.
+   * @return The late loans.
+   */
+  @Benchmark
+  public List<Loan> getAllLateLoans(LibraryState library) {
+    PageRequest firstPage = PageRequest.of(0, PAGE_SIZE);
+    return library.bean(LoanService.class).getAllLateLoans(LoanService.DEFAULT_LOAN_LENGTH, firstPage);
+  }
+
+  /**
+   * Reference for getAllLateLoans: the range query on the indexed loan date, used until the
+   * due-date index is loaded.
+   *
+   * @param library The running application.
+   * @return The late loans.
+   */
+  @Benchmark
+  public List<Loan> findLateLoansInDatabase(LibraryState library) {
+    LocalDate cutoff = LocalDate.now().minusDays(LoanService.DEFAULT_LOAN_LENGTH);
+    PageRequest firstPage = PageRequest.of(0, PAGE_SIZE, Sort.by("loanDate", "id"));
+    return library.bean(LoanRepository.class).findByLoanDateBefore(cutoff, firstPage).getContent();
+  }
+
+  /**
+   * Baseline for getAllLateLoans: load every loan and filter the late ones in memory.
+   *
+   * @param library The running application.
+   * @return The late loans.
+   */
+  @Benchmark
+  public List<Loan> filterLateLoansInMemory(LibraryState library) {
+    LocalDate cutoff = LocalDate.now().minusDays(LoanService.DEFAULT_LOAN_LENGTH);
+
+    return library.bean(LoanRepository.class).findAll().stream()
+        .filter(loan -> loan.getLoanDate().isBefore(cutoff))
+        .sorted(Comparator.comparing(Loan::getLoanDate).thenComparing(Loan::getId))
+        .limit(PAGE_SIZE)
+        .toList();
+  }
+}
@@ -0,0 +1,170 @@
+package com.nadia.library.benchmarks;
+
+import com.nadia.library.index.DueDateIndex;
+import com.nadia.library.index.ExistenceIndex;
+import com.nadia.library.models.Author;
+import com.nadia.library.models.Book;
+import com.nadia.library.models.Inventory;
+import com.nadia.library.models.Loan;
+import com.nadia.library.models.Loan.Status;
+import com.nadia.library.models.User;
+import com.nadia.library.repositories.AuthorRepository;
+import com.nadia.library.repositories.BookRepository;
+import com.nadia.library.repositories.InventoryRepository;
+import com.nadia.library.repositories.LoanRepository;
+import com.nadia.library.repositories.UserRepository;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.context.ApplicationContext;
+
+/**
+ * A generated library of `size` books, users and loans, written through the repositories.
+ *
+ * The rows are written after the application is ready, so the in-memory indexes loaded at
+ * startup are loaded again once they are in.
+ *
+ * Every book has the same author and enough copies in stock to never run out. User `i`
+ * borrowed book `i`; loan dates are spread over the last 90 days, so about three quarters
+ * of the loans are late.
+ */
+public class SyntheticDataset {
+  /**
+   * The number of rows written per saveAll call.
+   */
+  private static final int CHUNK = 1000;
+
+  /**
+   * The number of copies in stock for each book.
+   */
+  static final int COPIES = 1_000_000;
+
+  private final Long authorId;
+  private final long[] bookIds;
+  private final long[] userIds;
+  private final long[] loanIds;
+
+  /**
+   * Create the dataset in the database of a running application.
+   *
+   * @param context The running application.
+   * @param size    The number of books, users and loans to create.
+   */
+  public SyntheticDataset(ApplicationContext context, int size) {
+    BookRepository bookRepository = context.getBean(BookRepository.class);
+    InventoryRepository inventoryRepository = context.getBean(InventoryRepository.class);
+    UserRepository userRepository = context.getBean(UserRepository.class);
+    LoanRepository loanRepository = context.getBean(LoanRepository.class);
+    LocalDate today = LocalDate.now();
+
+    authorId = context.getBean(AuthorRepository.class).save(new Author("Synthetic Author", "Nowhere")).getId();
+    bookIds = new long[size];
+    userIds = new long[size];
+    loanIds = new long[size];
+
+    for (int start = 0; start < size; start += CHUNK) {
+      int end = Math.min(start + CHUNK, size);
+      List<Book> books = new ArrayList<>();
+      List<User> users = new ArrayList<>();
+
+      for (int i = start; i < end; i++) {
+        books.add(new Book(authorId, "Book " + i));
+        users.add(new User("User " + i, i + " Main Street", "user" + i + "@example.com"));
+      }
+
+      List<Inventory> inventory = new ArrayList<>();
+      List<Loan> loans = new ArrayList<>();
+      int i = start;
+
+      for (Book book : bookRepository.saveAll(books)) {
+        bookIds[i++] = book.getId();
+        inventory.add(new Inventory(book.getId(), COPIES));
+      }
+
+      i = start;
+      for (User user : userRepository.saveAll(users)) {
+        userIds[i] = user.getId();
+        loans.add(new Loan(bookIds[i], user.getId(), Status.NEW_LOAN, today.minusDays(i % 90)));
+        i++;
+      }
+
+      inventoryRepository.saveAll(inventory);
+
+      i = start;
+      for (Loan loan : loanRepository.saveAll(loans)) {
+        loanIds[i++] = loan.getId();
+      }
+    }
+
+    context.getBean(ExistenceIndex.class).load();
+    context.getBean(DueDateIndex.class).load();
+  }
+
+  /**
+   * Get the ID of the author of every book.
+   *
+   * @return The author ID.
+   */
+  public Long getAuthorId() {
+    return authorId;
+  }
+
+  /**
+   * Get the number of books, users and loans in the dataset.
+   *
+   * @return The size of the dataset.
+   */
+  public int size() {
+    return bookIds.length;
+  }
+
+  /**
+   * Get the ID of the i-th book.
+   *
+   * @param i The position of the book, from 0 to size - 1.
+   * @return The book ID.
+   */
+  public long bookId(int i) {
+    return bookIds[i];
+  }
+
+  /**
+   * Get the ID of the i-th user.
+   *
+   * @param i The position of the user, from 0 to size - 1.
+   * @return The user ID.
+   */
+  public long userId(int i) {
+    return userIds[i];
+  }
+
+  /**
+   * Get the ID of the i-th loan.
+   *
+   * @param i The position of the loan, from 0 to size - 1.
+   * @return The loan ID.
+   */
+  public long loanId(int i) {
+    return loanIds[i];
+  }
+
+  /**
+   * Get the largest book ID of the dataset; books added later have larger IDs.
+   *
+   * @return The last book ID.
+   */
+  public long lastBookId() {
+    return bookIds[bookIds.length - 1];
+  }
+
+  /**
+   * Get the largest loan ID of the dataset; loans added later have larger IDs.
+   *
+   * @return The last loan ID.
+   */
+  public long lastLoanId() {
+    return loanIds[loanIds.length - 1];
+  }
+}
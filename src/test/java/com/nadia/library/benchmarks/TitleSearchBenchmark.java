@@ -0,0 +1,109 @@
+package com.nadia.library.benchmarks;
+
+import com.nadia.library.dto.BookSearchHit;
+import com.nadia.library.models.Book;
+import com.nadia.library.search.TitleSearchIndex;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark of title searches on an in-memory index of synthetic books.
+ *
+ * Titles are three words drawn from a vocabulary of 20000 generated words, and authors
+ * from 50000 generated names, so that most words match a few hundred books. The index is
+ * used directly, without the application or a database.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+@State(Scope.Benchmark)
+public class TitleSearchBenchmark {
+  private static final int WORDS = 20_000;
+  private static final int AUTHORS = 50_000;
+
+  /**
+   * The number of indexed books.
+   */
+  @Param({"1000000"})
+  public int size;
+
+  private TitleSearchIndex index;
+  private String[] words;
+
+  /**
+   * Fill the index with synthetic books.
+   */
+  @Setup(Level.Trial)
+  public void setUp() {
+    Random random = new Random(42);
+    words = new String[WORDS];
+
+    for (int i = 0; i < WORDS; i++) {
+      words[i] = word(random);
+    }
+
+    index = new TitleSearchIndex();
+
+    for (long id = 1; id <= size; id++) {
+      long authorId = 1 + random.nextInt(AUTHORS);
+      Book book = new Book(authorId, words[random.nextInt(WORDS)] + " " + words[random.nextInt(WORDS)] + " " + words[random.nextInt(WORDS)]);
+      book.setId(id);
+      index.put(book, "Author " + authorId);
+    }
+  }
+
+  /**
+   * Benchmark a query of two full words.
+   *
+   * @return The matching books.
+   */
+  @Benchmark
+  public List<BookSearchHit> twoWords() {
+    int i = (int) (System.nanoTime() & Integer.MAX_VALUE) % WORDS;
+    return index.search(words[i] + " " + words[(i + 1) % WORDS], TitleSearchIndex.DEFAULT_LIMIT);
+  }
+
+  /**
+   * Benchmark a query of a full word followed by a prefix, as sent while typing.
+   *
+   * @return The matching books.
+   */
+  @Benchmark
+  public List<BookSearchHit> wordAndPrefix() {
+    int i = (int) (System.nanoTime() & Integer.MAX_VALUE) % WORDS;
+    return index.search(words[i] + " " + words[(i + 7) % WORDS].substring(0, 3), TitleSearchIndex.DEFAULT_LIMIT);
+  }
+
+  /**
+   * Generate a random lowercase word of 4 to 9 letters.
+   *
+   * @param random The random generator.
+   * @return The word.
+   */
+  private static String word(Random random) {
+    char[] letters = new char[4 + random.nextInt(6)];
+
+    for (int i = 0; i < letters.length; i++) {
+      letters[i] = (char) ('a' + random.nextInt(26));
+    }
+
+    return new String(letters);
+  }
+}
@@ -0,0 +1,237 @@
+package com.nadia.library.conditional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.nadia.library.conditional.ChangeTracker.Table;
+import com.nadia.library.datasource.ReplicaLagMonitor;
+import com.nadia.library.stream.InventoryChangedEvent;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.ServletWebRequest;
+
+/**
+ * Unit tests for ChangeTracker class.
+ */
+public class ChangeTrackerTest {
+  private static final long STARTUP = 1_700_000_000_000L;
+
+  private MutableClock clock;
+  private ChangeTracker changeTracker;
+
+  @BeforeEach
+  void setUp() {
+    clock = new MutableClock(STARTUP);
+    changeTracker = new ChangeTracker(clock);
+  }
+
+  @AfterEach
+  void tearDown() {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+  }
+
+  /**
+   * Test that a write changes the ETag of its table and of its row only.
+   */
+  @Test
+  void testRecordChangeBumpsTableAndRow() {
+    String bookTable = changeTracker.etag(Table.BOOK);
+    String book1 = changeTracker.etag(Table.BOOK, 1L);
+    String book2 = changeTracker.etag(Table.BOOK, 2L);
+    String authorTable = changeTracker.etag(Table.AUTHOR);
+
+    changeTracker.recordChange(Table.BOOK, 1L);
+
+    assertNotEquals(bookTable, changeTracker.etag(Table.BOOK));
+    assertNotEquals(book1, changeTracker.etag(Table.BOOK, 1L));
+    assertEquals(book2, changeTracker.etag(Table.BOOK, 2L));
+    assertEquals(authorTable, changeTracker.etag(Table.AUTHOR));
+  }
+
+  /**
+   * Test that a write inside a transaction is only recorded once it commits.
+   */
+  @Test
+  void testRecordChangeWaitsForCommit() {
+    String etag = changeTracker.etag(Table.AUTHOR);
+    TransactionSynchronizationManager.initSynchronization();
+
+    changeTracker.recordChange(Table.AUTHOR, 1L);
+
+    assertEquals(etag, changeTracker.etag(Table.AUTHOR));
+    TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+    assertNotEquals(etag, changeTracker.etag(Table.AUTHOR));
+  }
+
+  /**
+   * Test that an inventory change event changes the ETag of the inventory table.
+   */
+  @Test
+  void testInventoryChangedBumpsInventory() {
+    String etag = changeTracker.etag(Table.INVENTORY);
+
+    changeTracker.onInventoryChanged(new InventoryChangedEvent(1L));
+
+    assertNotEquals(etag, changeTracker.etag(Table.INVENTORY));
+  }
+
+  /**
+   * Test that a matching If-None-Match is answered with 304 Not Modified.
+   */
+  @Test
+  void testCheckNotModifiedWithMatchingEtag() {
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    MockHttpServletRequest request = get();
+    request.addHeader(HttpHeaders.IF_NONE_MATCH, changeTracker.etag(Table.BOOK));
+
+    assertTrue(changeTracker.checkNotModified(new ServletWebRequest(request, response), Table.BOOK));
+    assertEquals(304, response.getStatus());
+  }
+
+  /**
+   * Test that an outdated If-None-Match is not answered, and the current ETag is sent.
+   */
+  @Test
+  void testCheckNotModifiedWithOutdatedEtag() {
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    MockHttpServletRequest request = get();
+    request.addHeader(HttpHeaders.IF_NONE_MATCH, changeTracker.etag(Table.BOOK, 1L));
+    changeTracker.recordChange(Table.BOOK, 1L);
+
+    assertFalse(changeTracker.checkNotModified(new ServletWebRequest(request, response), Table.BOOK, 1L));
+    assertEquals(changeTracker.etag(Table.BOOK, 1L), response.getHeader(HttpHeaders.ETAG));
+  }
+
+  /**
+   * Test that If-Modified-Since is answered from the time of the last change of the table.
+   */
+  @Test
+  void testCheckNotModifiedWithModifiedSince() {
+    clock.advance(5_000);
+    changeTracker.recordChange(Table.INVENTORY, null);
+    clock.advance(5_000);
+
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    MockHttpServletRequest request = get();
+    request.addHeader(HttpHeaders.IF_MODIFIED_SINCE, changeTracker.lastModified(Table.INVENTORY));
+
+    assertTrue(changeTracker.checkNotModified(new ServletWebRequest(request, response), Table.INVENTORY));
+    assertEquals(304, response.getStatus());
+  }
+
+  /**
+   * Test that no Last-Modified date is sent during the second of the last change.
+   */
+  @Test
+  void testNoLastModifiedDuringTheSecondOfTheLastChange() {
+    clock.advance(5_000);
+    changeTracker.recordChange(Table.INVENTORY, null);
+
+    MockHttpServletResponse response = new MockHttpServletResponse();
+
+    assertFalse(changeTracker.checkNotModified(new ServletWebRequest(get(), response), Table.INVENTORY));
+    assertNull(response.getHeader(HttpHeaders.LAST_MODIFIED));
+  }
+
+  /**
+   * Test that no validators are sent, nor conditional requests answered, while the replica may still be behind a change.
+   */
+  @Test
+  void testNoValidatorsWhileReplicaMayBeBehind() {
+    ReplicaLagMonitor monitor = mock(ReplicaLagMonitor.class);
+    when(monitor.getStalenessBoundMillis()).thenReturn(2_000L);
+    ReflectionTestUtils.setField(changeTracker, "replicaLagMonitor", monitor);
+    clock.advance(5_000);
+    String etag = changeTracker.etag(Table.INVENTORY);
+    changeTracker.recordChange(Table.INVENTORY, null);
+    clock.advance(1_500);
+
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    MockHttpServletRequest request = get();
+    request.addHeader(HttpHeaders.IF_NONE_MATCH, etag);
+
+    assertFalse(changeTracker.checkNotModified(new ServletWebRequest(request, response), Table.INVENTORY));
+    assertEquals(200, response.getStatus());
+    assertNull(response.getHeader(HttpHeaders.ETAG));
+    assertNull(response.getHeader(HttpHeaders.LAST_MODIFIED));
+  }
+
+  /**
+   * Test that validators are sent again once the replica has caught up with the last change.
+   */
+  @Test
+  void testValidatorsOnceReplicaHasCaughtUp() {
+    ReplicaLagMonitor monitor = mock(ReplicaLagMonitor.class);
+    when(monitor.getStalenessBoundMillis()).thenReturn(2_000L);
+    ReflectionTestUtils.setField(changeTracker, "replicaLagMonitor", monitor);
+    clock.advance(5_000);
+    changeTracker.recordChange(Table.INVENTORY, null);
+    clock.advance(2_500);
+
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    MockHttpServletRequest request = get();
+    request.addHeader(HttpHeaders.IF_NONE_MATCH, changeTracker.etag(Table.INVENTORY));
+
+    assertTrue(changeTracker.checkNotModified(new ServletWebRequest(request, response), Table.INVENTORY));
+    assertEquals(304, response.getStatus());
+  }
+
+  private static MockHttpServletRequest get() {
+    return new MockHttpServletRequest("GET", "/inventory");
+  }
+
+  /**
+   * A clock that only moves when told to.
+   */
+  private static final class MutableClock extends Clock {
+    private long millis;
+
+    MutableClock(long millis) {
+      this.millis = millis;
+    }
+
+    void advance(long delta) {
+      millis += delta;
+    }
+
+    @Override
+    public long millis() {
+      return millis;
+    }
+
+    @Override
+    public Instant instant() {
+      return Instant.ofEpochMilli(millis);
+    }
+
+    @Override
+    public ZoneId getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      return this;
+    }
+  }
+}
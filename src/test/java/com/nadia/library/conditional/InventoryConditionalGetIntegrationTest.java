@@ -0,0 +1,112 @@
+package com.nadia.library.conditional;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.nadia.library.index.ExistenceIndex;
+import com.nadia.library.index.ExistenceIndex.Kind;
+import com.nadia.library.models.Author;
+import com.nadia.library.models.Book;
+import com.nadia.library.models.Inventory;
+import com.nadia.library.models.User;
+import com.nadia.library.repositories.AuthorRepository;
+import com.nadia.library.repositories.BookRepository;
+import com.nadia.library.repositories.InventoryRepository;
+import com.nadia.library.repositories.LoanRepository;
+import com.nadia.library.repositories.UserRepository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * Integration tests of the conditional GET requests on the inventory, through the whole application.
+ */
+@SpringBootTest(properties = "library.catalog.snapshot.enabled=false")
+@AutoConfigureTestDatabase
+@AutoConfigureMockMvc
+public class InventoryConditionalGetIntegrationTest {
+  @Autowired
+  private MockMvc mockMvc;
+
+  @Autowired
+  private AuthorRepository authorRepository;
+
+  @Autowired
+  private BookRepository bookRepository;
+
+  @Autowired
+  private InventoryRepository inventoryRepository;
+
+  @Autowired
+  private UserRepository userRepository;
+
+  @Autowired
+  private LoanRepository loanRepository;
+
+  @Autowired
+  private ExistenceIndex existenceIndex;
+
+  private Author author;
+  private Book book;
+  private Inventory inventory;
+  private User user;
+
+  @BeforeEach
+  void setUp() {
+    author = authorRepository.save(new Author("Tove Jansson", "Finland"));
+    book = bookRepository.save(new Book(author.getId(), "The Summer Book"));
+    inventory = inventoryRepository.save(new Inventory(book.getId(), 2));
+    user = userRepository.save(new User("Test user", "1 Main Street", "test@example.com"));
+    existenceIndex.add(Kind.BOOK, book.getId());
+    existenceIndex.add(Kind.USER, user.getId());
+  }
+
+  @AfterEach
+  void tearDown() {
+    loanRepository.deleteAll(loanRepository.findAll().stream()
+        .filter(loan -> user.getId().equals(loan.getUserId()))
+        .toList());
+    inventoryRepository.delete(inventory);
+    bookRepository.delete(book);
+    userRepository.delete(user);
+    authorRepository.delete(author);
+  }
+
+  /**
+   * Test that a batch checkout changes the ETag of the inventory, so that a conditional GET
+   * sent with the previous one gets the new stock instead of 304 Not Modified.
+   */
+  @Test
+  void testBatchCheckoutChangesInventoryEtag() throws Exception {
+    String etag = mockMvc.perform(get("/inventory/{id}", inventory.getId()))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.inStock").value(2))
+        .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    assertNotNull(etag);
+
+    mockMvc.perform(post("/loans/batch")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content("{\"userId\": " + user.getId() + ", \"bookIds\": [" + book.getId() + "]}"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$[0].status").value("CREATED"));
+
+    mockMvc.perform(get("/inventory/{id}", inventory.getId()).header(HttpHeaders.IF_NONE_MATCH, etag))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.inStock").value(1));
+    mockMvc.perform(get("/inventory").header(HttpHeaders.IF_NONE_MATCH, etag))
+        .andExpect(status().isOk())
+        .andExpect(header().exists(HttpHeaders.ETAG));
+  }
+}
@@ -0,0 +1,94 @@
+package com.nadia.library.datasource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for BoundedDataSource class.
+ */
+public class BoundedDataSourceTest {
+  private DataSource pool;
+  private Connection connection;
+
+  @BeforeEach
+  void setUp() throws SQLException {
+    pool = mock(DataSource.class);
+    connection = mock(Connection.class);
+    when(pool.getConnection()).thenReturn(connection);
+  }
+
+  /**
+   * Test that a permit is held while a connection is open and given back when it is closed.
+   *
+   * This test opens the only allowed connection, checks that a second one times out, then closes the first.
+   * It ensures that the permit is released once, even if the connection is closed twice.
+   */
+  @Test
+  void testPermitIsHeldUntilConnectionIsClosed() throws SQLException {
+    BoundedDataSource dataSource = new BoundedDataSource(pool, 1, 10, Duration.ofMillis(10));
+
+    Connection first = dataSource.getConnection();
+
+    assertEquals(0, dataSource.getAvailablePermits());
+    assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+
+    first.close();
+    first.close();
+
+    assertEquals(1, dataSource.getAvailablePermits());
+    verify(connection, times(2)).close();
+    dataSource.getConnection();
+    assertEquals(0, dataSource.getAvailablePermits());
+  }
+
+  /**
+   * Test that callers are rejected without waiting when the waiting queue is full.
+   */
+  @Test
+  void testRejectsWhenTooManyThreadsAreWaiting() throws SQLException {
+    BoundedDataSource dataSource = new BoundedDataSource(pool, 1, 0, Duration.ofMinutes(1));
+    dataSource.getConnection();
+
+    long start = System.nanoTime();
+    assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+
+    assertEquals(0, Duration.ofNanos(System.nanoTime() - start).toSeconds());
+  }
+
+  /**
+   * Test that the permit is given back when the pool fails to open a connection.
+   */
+  @Test
+  void testPermitIsReleasedWhenPoolFails() throws SQLException {
+    when(pool.getConnection()).thenThrow(new SQLException("pool exhausted"));
+    BoundedDataSource dataSource = new BoundedDataSource(pool, 1, 10, Duration.ofMillis(10));
+
+    assertThrows(SQLException.class, dataSource::getConnection);
+
+    assertEquals(1, dataSource.getAvailablePermits());
+  }
+
+  /**
+   * Test that the data source can be unwrapped to find the limiter.
+   */
+  @Test
+  void testUnwrap() throws SQLException {
+    BoundedDataSource dataSource = new BoundedDataSource(pool, 1, 10, Duration.ofMillis(10));
+
+    assertEquals(dataSource, dataSource.unwrap(BoundedDataSource.class));
+  }
+}
@@ -0,0 +1,48 @@
+package com.nadia.library.datasource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import java.sql.Connection;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+/**
+ * Unit tests for DataSourceLimiterConfiguration class.
+ */
+public class DataSourceLimiterConfigurationTest {
+  private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+      .withConfiguration(AutoConfigurations.of(DataSourceAutoConfiguration.class))
+      .withUserConfiguration(DataSourceLimiterConfiguration.class)
+      .withPropertyValues("spring.datasource.url=jdbc:h2:mem:limiter", "spring.datasource.hikari.maximum-pool-size=4");
+
+  /**
+   * Test that the Hikari pool is wrapped, with one permit per pooled connection.
+   */
+  @Test
+  void testHikariPoolIsLimitedWhenEnabled() {
+    contextRunner.withPropertyValues("library.datasource.limiter.enabled=true").run(context -> {
+      BoundedDataSource dataSource = assertInstanceOf(BoundedDataSource.class, context.getBean(DataSource.class));
+
+      try (Connection connection = dataSource.getConnection()) {
+        assertEquals(3, dataSource.getAvailablePermits());
+      }
+      assertEquals(4, dataSource.getAvailablePermits());
+    });
+  }
+
+  /**
+   * Test that the Hikari pool is used directly when the limiter is not enabled.
+   */
+  @Test
+  void testHikariPoolIsNotWrappedByDefault() {
+    contextRunner.run(context -> assertInstanceOf(HikariDataSource.class, context.getBean(DataSource.class)));
+  }
+}
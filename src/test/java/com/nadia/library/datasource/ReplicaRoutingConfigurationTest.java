@@ -0,0 +1,156 @@
+package com.nadia.library.datasource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceTransactionManagerAutoConfiguration;
+import org.springframework.boot.test.context.assertj.AssertableApplicationContext;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Tests of ReplicaRoutingConfiguration against two embedded databases, one for the primary
+ * and one standing in for the replica. Replication is simulated by writing the heartbeat
+ * to the replica directly.
+ */
+public class ReplicaRoutingConfigurationTest {
+  private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+      .withConfiguration(AutoConfigurations.of(DataSourceAutoConfiguration.class, DataSourceTransactionManagerAutoConfiguration.class))
+      .withUserConfiguration(ReplicaRoutingConfiguration.class)
+      .withPropertyValues("spring.datasource.url=jdbc:h2:mem:primary", "library.datasource.replica.max-lag=5s");
+
+  /**
+   * Run a query in a transaction and return which database answered it.
+   *
+   * @param context  The application context.
+   * @param readOnly True to run the query in a read-only transaction.
+   * @return The name of the database, as stored in its `whoami` table.
+   */
+  private static String whoAnswers(AssertableApplicationContext context, boolean readOnly) {
+    TransactionTemplate transaction = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+    transaction.setReadOnly(readOnly);
+    JdbcTemplate jdbc = new JdbcTemplate(context.getBean(DataSource.class));
+    return transaction.execute(status -> jdbc.queryForObject("SELECT name FROM whoami", String.class));
+  }
+
+  /**
+   * Create the `whoami` table of each database and replicate a heartbeat of the given time.
+   *
+   * @param context The application context.
+   * @param beatAt  The time of the heartbeat found on the replica.
+   */
+  private static void setUpDatabases(AssertableApplicationContext context, Instant beatAt) {
+    JdbcTemplate primary = new JdbcTemplate(context.getBean("primaryDataSource", DataSource.class));
+    JdbcTemplate replica = new JdbcTemplate(context.getBean("replicaDataSource", DataSource.class));
+    primary.execute("CREATE TABLE IF NOT EXISTS whoami (name VARCHAR(16))");
+    primary.update("DELETE FROM whoami");
+    primary.update("INSERT INTO whoami VALUES ('primary')");
+    replica.execute("CREATE TABLE IF NOT EXISTS whoami (name VARCHAR(16))");
+    replica.update("DELETE FROM whoami");
+    replica.update("INSERT INTO whoami VALUES ('replica')");
+    replica.execute("CREATE TABLE IF NOT EXISTS replica_heartbeat (id INT PRIMARY KEY, beat_at BIGINT NOT NULL)");
+    replica.update("DELETE FROM replica_heartbeat");
+    replica.update("INSERT INTO replica_heartbeat VALUES (1, ?)", beatAt.toEpochMilli());
+  }
+
+  /**
+   * Test that read-only transactions use the replica and other transactions use the primary.
+   */
+  @Test
+  void testReadOnlyTransactionsGoToReplica() {
+    contextRunner.withPropertyValues("library.datasource.replica.jdbc-url=jdbc:h2:mem:replica;DB_CLOSE_DELAY=-1").run(context -> {
+      setUpDatabases(context, Instant.now());
+      ReplicaLagMonitor monitor = context.getBean(ReplicaLagMonitor.class);
+      monitor.check();
+
+      assertTrue(monitor.isReplicaUsable());
+      assertEquals("replica", whoAnswers(context, true));
+      assertEquals("primary", whoAnswers(context, false));
+    });
+  }
+
+  /**
+   * Test that reads go to the primary while the replica lags too far behind.
+   */
+  @Test
+  void testLaggingReplicaIsSkipped() {
+    contextRunner.withPropertyValues("library.datasource.replica.jdbc-url=jdbc:h2:mem:lagging;DB_CLOSE_DELAY=-1").run(context -> {
+      setUpDatabases(context, Instant.now().minus(1, ChronoUnit.MINUTES));
+      ReplicaLagMonitor monitor = context.getBean(ReplicaLagMonitor.class);
+      monitor.check();
+
+      assertFalse(monitor.isReplicaUsable());
+      assertEquals("primary", whoAnswers(context, true));
+    });
+  }
+
+  /**
+   * Test that the replica is skipped once the last successful check is older than the lag tolerance.
+   */
+  @Test
+  void testStaleCheckIsNotTrusted() {
+    contextRunner.withPropertyValues("library.datasource.replica.jdbc-url=jdbc:h2:mem:stale;DB_CLOSE_DELAY=-1").run(context -> {
+      Instant now = Instant.now();
+      setUpDatabases(context, now);
+      Clock clock = mock(Clock.class);
+      ReplicaLagMonitor monitor = new ReplicaLagMonitor(context.getBean("primaryDataSource", DataSource.class),
+        context.getBean("replicaDataSource", DataSource.class), Duration.ofSeconds(5), Duration.ofSeconds(1), clock);
+
+      when(clock.millis()).thenReturn(now.toEpochMilli());
+      monitor.check();
+      assertTrue(monitor.isReplicaUsable());
+
+      when(clock.millis()).thenReturn(now.plusSeconds(2).toEpochMilli());
+      assertEquals(2_000, monitor.getStalenessBoundMillis());
+
+      when(clock.millis()).thenReturn(now.plusSeconds(6).toEpochMilli());
+      assertFalse(monitor.isReplicaUsable());
+      assertEquals(5_000, monitor.getStalenessBoundMillis());
+    });
+  }
+
+  /**
+   * Test that the lag is checked on the monitor's own thread once the context has started.
+   */
+  @Test
+  void testLagIsCheckedOnStart() {
+    contextRunner.withPropertyValues("library.datasource.replica.jdbc-url=jdbc:h2:mem:started;DB_CLOSE_DELAY=-1",
+        "library.datasource.replica.lag-check-interval-ms=50").run(context -> {
+      setUpDatabases(context, Instant.now());
+      ReplicaLagMonitor monitor = context.getBean(ReplicaLagMonitor.class);
+      long deadline = System.currentTimeMillis() + 5000;
+
+      while (!monitor.isReplicaUsable() && System.currentTimeMillis() < deadline) {
+        Thread.sleep(20);
+      }
+
+      assertTrue(monitor.isReplicaUsable());
+    });
+  }
+
+  /**
+   * Test that a single pool is used when no replica is configured.
+   */
+  @Test
+  void testNoRoutingWithoutReplica() {
+    contextRunner.run(context -> assertInstanceOf(HikariDataSource.class, context.getBean(DataSource.class)));
+  }
+}
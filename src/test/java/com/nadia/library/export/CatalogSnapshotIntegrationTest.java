@@ -0,0 +1,99 @@
+package com.nadia.library.export;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+import com.nadia.library.conditional.ChangeTracker;
+import com.nadia.library.conditional.ChangeTracker.Table;
+import com.nadia.library.models.Author;
+import com.nadia.library.models.Book;
+import com.nadia.library.repositories.AuthorRepository;
+import com.nadia.library.repositories.BookRepository;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.context.request.ServletWebRequest;
+
+/**
+ * Integration tests for CatalogSnapshot against an embedded database.
+ *
+ * The tests run outside of a test transaction, as the snapshots are refreshed by the scheduler.
+ * Snapshots are disabled when the context starts and the scheduled refresh is pushed back, so
+ * that only the tests refresh them.
+ */
+@DataJpaTest(properties = {
+  "library.catalog.snapshot.enabled=false",
+  "library.catalog.snapshot.refresh-interval-ms=3600000"
+})
+@Import({CatalogSnapshot.class, NdjsonWriter.class})
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class CatalogSnapshotIntegrationTest {
+  @Autowired
+  private CatalogSnapshot catalogSnapshot;
+
+  @Autowired
+  private BookRepository bookRepository;
+
+  @Autowired
+  private AuthorRepository authorRepository;
+
+  @MockBean
+  private ChangeTracker changeTracker;
+
+  @BeforeEach
+  void setUp() {
+    Author author = authorRepository.save(new Author("Samuel Beckett", "Ireland"));
+    bookRepository.save(new Book(author.getId(), "Molloy"));
+    bookRepository.save(new Book(author.getId(), "Watt"));
+    when(changeTracker.etag(Table.BOOK)).thenReturn("\"b-1\"");
+    when(changeTracker.etag(Table.AUTHOR)).thenReturn("\"a-1\"");
+    ReflectionTestUtils.setField(catalogSnapshot, "enabled", true);
+  }
+
+  @AfterEach
+  void tearDown() {
+    bookRepository.deleteAll();
+    authorRepository.deleteAll();
+  }
+
+  /**
+   * Test that both snapshots are built from the rows of their table, although the books
+   * are read first and refer to the authors.
+   */
+  @Test
+  void testRefreshBuildsBookAndAuthorSnapshots() {
+    catalogSnapshot.start();
+    catalogSnapshot.refresh();
+
+    ResponseEntity<byte[]> books = catalogSnapshot.respond(Table.BOOK, request());
+    ResponseEntity<byte[]> authors = catalogSnapshot.respond(Table.AUTHOR, request());
+
+    assertNotNull(books);
+    assertEquals(2, new String(books.getBody(), StandardCharsets.UTF_8).lines().count());
+    assertNotNull(authors);
+    String authorLines = new String(authors.getBody(), StandardCharsets.UTF_8);
+    assertEquals(1, authorLines.lines().count());
+    assertTrue(authorLines.contains("\"name\":\"Samuel Beckett\""));
+  }
+
+  private static ServletWebRequest request() {
+    return new ServletWebRequest(new MockHttpServletRequest("GET", "/authors"));
+  }
+}
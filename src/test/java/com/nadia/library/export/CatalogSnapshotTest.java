@@ -0,0 +1,142 @@
+package com.nadia.library.export;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.nadia.library.conditional.ChangeTracker;
+import com.nadia.library.conditional.ChangeTracker.Table;
+import com.nadia.library.models.Book;
+import com.nadia.library.repositories.AuthorRepository;
+import com.nadia.library.repositories.BookRepository;
+
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.context.request.ServletWebRequest;
+
+/**
+ * Unit tests for CatalogSnapshot class.
+ */
+public class CatalogSnapshotTest {
+  private static final byte[] BOOKS = "{\"id\":1}\n".getBytes(StandardCharsets.UTF_8);
+
+  @Mock
+  private BookRepository bookRepository;
+
+  @Mock
+  private AuthorRepository authorRepository;
+
+  @Mock
+  private NdjsonWriter ndjsonWriter;
+
+  @Mock
+  private ChangeTracker changeTracker;
+
+  @Mock
+  private PlatformTransactionManager transactionManager;
+
+  @InjectMocks
+  private CatalogSnapshot catalogSnapshot;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    MockitoAnnotations.openMocks(this);
+    when(changeTracker.etag(Table.BOOK)).thenReturn("\"a-1\"");
+    when(changeTracker.etag(Table.AUTHOR)).thenReturn("\"a-0\"");
+    when(bookRepository.streamAll()).thenAnswer(invocation -> Stream.of(new Book(1L, "Title")));
+    when(authorRepository.streamAll()).thenAnswer(invocation -> Stream.empty());
+    when(ndjsonWriter.write(any(), any())).thenAnswer(invocation -> {
+      invocation.<OutputStream>getArgument(1).write(BOOKS);
+      return 1L;
+    });
+  }
+
+  /**
+   * Test that nothing is built or served before the application is ready.
+   */
+  @Test
+  void testNothingServedBeforeReady() {
+    catalogSnapshot.refresh();
+
+    verify(bookRepository, never()).streamAll();
+    assertNull(catalogSnapshot.respond(Table.BOOK, request(null)));
+  }
+
+  /**
+   * Test that an up-to-date snapshot is served plain, or gzipped to clients that accept it.
+   */
+  @Test
+  void testRespondFromSnapshot() throws Exception {
+    catalogSnapshot.start();
+    catalogSnapshot.refresh();
+
+    ResponseEntity<byte[]> plain = catalogSnapshot.respond(Table.BOOK, request(null));
+    ResponseEntity<byte[]> gzipped = catalogSnapshot.respond(Table.BOOK, request("br, gzip"));
+
+    assertEquals(HttpStatus.OK, plain.getStatusCode());
+    assertArrayEquals(BOOKS, plain.getBody());
+    assertEquals("gzip", gzipped.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+    assertArrayEquals(BOOKS, new GZIPInputStream(new ByteArrayInputStream(gzipped.getBody())).readAllBytes());
+  }
+
+  /**
+   * Test that a snapshot is not served once its table changed, and is rebuilt once only.
+   */
+  @Test
+  void testRebuildAfterChange() {
+    catalogSnapshot.start();
+    catalogSnapshot.refresh();
+    catalogSnapshot.refresh();
+    verify(bookRepository, times(1)).streamAll();
+
+    when(changeTracker.etag(Table.BOOK)).thenReturn("\"a-2\"");
+    assertNull(catalogSnapshot.respond(Table.BOOK, request(null)));
+
+    catalogSnapshot.refresh();
+    verify(bookRepository, times(2)).streamAll();
+    assertArrayEquals(BOOKS, catalogSnapshot.respond(Table.BOOK, request(null)).getBody());
+  }
+
+  /**
+   * Test the parsing of the Accept-Encoding header.
+   */
+  @Test
+  void testAcceptsGzip() {
+    assertTrue(CatalogSnapshot.acceptsGzip("gzip, deflate"));
+    assertTrue(CatalogSnapshot.acceptsGzip("deflate, GZIP;q=0.5"));
+    assertFalse(CatalogSnapshot.acceptsGzip("gzip;q=0"));
+    assertFalse(CatalogSnapshot.acceptsGzip("deflate"));
+    assertFalse(CatalogSnapshot.acceptsGzip(null));
+  }
+
+  private static ServletWebRequest request(String acceptEncoding) {
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/books");
+
+    if (acceptEncoding != null) {
+      request.addHeader(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+    }
+
+    return new ServletWebRequest(request);
+  }
+}
@@ -0,0 +1,75 @@
+package com.nadia.library.export;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nadia.library.models.Book;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.stream.Stream;
+
+import jakarta.persistence.EntityManager;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+
+/**
+ * Unit tests for NdjsonWriter class.
+ */
+public class NdjsonWriterTest {
+  @Spy
+  private ObjectMapper objectMapper = new ObjectMapper();
+
+  @Mock
+  private EntityManager entityManager;
+
+  @InjectMocks
+  private NdjsonWriter ndjsonWriter;
+
+  @BeforeEach
+  void setUp() {
+    MockitoAnnotations.openMocks(this);
+  }
+
+  /**
+   * Test that every row is written as one JSON document per line.
+   *
+   * This test writes two books to an output stream.
+   * It ensures that there is one line per book and that each written book is detached.
+   */
+  @Test
+  void testWriteOneDocumentPerLine() throws Exception {
+    Book firstBook = new Book(1L, "First book");
+    Book secondBook = new Book(2L, "Second book");
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    long count = ndjsonWriter.write(Stream.of(firstBook, secondBook), out);
+
+    assertEquals(2, count);
+    assertEquals(
+      "{\"id\":null,\"authorId\":1,\"title\":\"First book\"}\n{\"id\":null,\"authorId\":2,\"title\":\"Second book\"}\n",
+      out.toString(StandardCharsets.UTF_8));
+    verify(entityManager, times(1)).detach(firstBook);
+    verify(entityManager, times(1)).detach(secondBook);
+  }
+
+  /**
+   * Test that an empty stream writes nothing.
+   */
+  @Test
+  void testWriteEmptyStream() throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    long count = ndjsonWriter.write(Stream.empty(), out);
+
+    assertEquals(0, count);
+    assertEquals("", out.toString(StandardCharsets.UTF_8));
+  }
+}
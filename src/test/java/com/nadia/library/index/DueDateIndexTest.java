@@ -0,0 +1,125 @@
+package com.nadia.library.index;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+import com.nadia.library.dto.LoanDate;
+import com.nadia.library.repositories.LoanRepository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Stream;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Unit tests for DueDateIndex class.
+ */
+public class DueDateIndexTest {
+  private static final LocalDate DAY = LocalDate.parse("2024-03-01");
+
+  @Mock
+  private LoanRepository loanRepository;
+
+  @Spy
+  private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  @InjectMocks
+  private DueDateIndex dueDateIndex;
+
+  @BeforeEach
+  void setUp() {
+    MockitoAnnotations.openMocks(this);
+    when(loanRepository.streamLoanDates()).thenReturn(Stream.of(
+      loanDate(3L, DAY.plusDays(1)),
+      loanDate(2L, DAY),
+      loanDate(1L, DAY.plusDays(1)),
+      loanDate(4L, DAY.plusDays(5))
+    ));
+  }
+
+  @AfterEach
+  void tearDown() {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+  }
+
+  /**
+   * Test that late loans are listed oldest first, then by ID, up to the cutoff.
+   */
+  @Test
+  void testFindLoanedBeforeAfterLoad() {
+    dueDateIndex.load();
+
+    assertTrue(dueDateIndex.isLoaded());
+    assertEquals(4, dueDateIndex.size());
+    assertEquals(List.of(2L, 1L, 3L), dueDateIndex.findLoanedBefore(DAY.plusDays(5), 0, 10));
+    assertEquals(List.of(), dueDateIndex.findLoanedBefore(DAY, 0, 10));
+  }
+
+  /**
+   * Test that pages skip whole buckets and then loans within a bucket.
+   */
+  @Test
+  void testFindLoanedBeforeWithOffset() {
+    dueDateIndex.load();
+
+    assertEquals(List.of(1L), dueDateIndex.findLoanedBefore(DAY.plusDays(10), 1, 1));
+    assertEquals(List.of(3L, 4L), dueDateIndex.findLoanedBefore(DAY.plusDays(10), 2, 5));
+    assertEquals(List.of(), dueDateIndex.findLoanedBefore(DAY.plusDays(10), 4, 5));
+  }
+
+  /**
+   * Test that a renewed loan moves to its new day and a returned loan is removed.
+   */
+  @Test
+  void testPutAndRemove() {
+    dueDateIndex.load();
+
+    dueDateIndex.put(2L, DAY.plusDays(7));
+    dueDateIndex.remove(4L);
+
+    assertEquals(3, dueDateIndex.size());
+    assertEquals(List.of(1L, 3L, 2L), dueDateIndex.findLoanedBefore(DAY.plusDays(10), 0, 10));
+  }
+
+  /**
+   * Test that changes made inside a transaction are only applied when it commits.
+   */
+  @Test
+  void testChangesWaitForCommit() {
+    TransactionSynchronizationManager.initSynchronization();
+
+    dueDateIndex.put(5L, DAY);
+
+    assertEquals(0, dueDateIndex.size());
+    TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+    assertEquals(1, dueDateIndex.size());
+  }
+
+  private static LoanDate loanDate(Long id, LocalDate date) {
+    return new LoanDate() {
+      @Override
+      public Long getId() {
+        return id;
+      }
+
+      @Override
+      public LocalDate getLoanDate() {
+        return date;
+      }
+    };
+  }
+}
@@ -0,0 +1,149 @@
+package com.nadia.library.index;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.nadia.library.index.ExistenceIndex.Kind;
+import com.nadia.library.repositories.AuthorRepository;
+import com.nadia.library.repositories.BookRepository;
+import com.nadia.library.repositories.UserRepository;
+
+import java.util.stream.Stream;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Unit tests for ExistenceIndex class.
+ */
+public class ExistenceIndexTest {
+  @Mock
+  private BookRepository bookRepository;
+
+  @Mock
+  private UserRepository userRepository;
+
+  @Mock
+  private AuthorRepository authorRepository;
+
+  @Spy
+  private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  @InjectMocks
+  private ExistenceIndex existenceIndex;
+
+  @BeforeEach
+  void setUp() {
+    MockitoAnnotations.openMocks(this);
+    when(bookRepository.streamAllIds()).thenReturn(Stream.of(1L, 2L));
+    when(userRepository.streamAllIds()).thenReturn(Stream.of(3L));
+    when(authorRepository.streamAllIds()).thenReturn(Stream.of(4L));
+  }
+
+  @AfterEach
+  void tearDown() {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+  }
+
+  /**
+   * Test that once loaded, lookups are answered without querying the database.
+   */
+  @Test
+  void testExistsAfterLoad() {
+    existenceIndex.load();
+
+    assertTrue(existenceIndex.isLoaded());
+    assertTrue(existenceIndex.exists(Kind.BOOK, 2L));
+    assertFalse(existenceIndex.exists(Kind.BOOK, 3L));
+    assertTrue(existenceIndex.exists(Kind.USER, 3L));
+    assertTrue(existenceIndex.exists(Kind.AUTHOR, 4L));
+    assertFalse(existenceIndex.exists(Kind.AUTHOR, null));
+    verify(bookRepository, never()).existsById(any());
+    verify(userRepository, never()).existsById(any());
+  }
+
+  /**
+   * Test that lookups fall back to the database until the index is loaded.
+   */
+  @Test
+  void testExistsFallsBackToDatabaseBeforeLoad() {
+    when(bookRepository.existsById(7L)).thenReturn(true);
+
+    assertTrue(existenceIndex.exists(Kind.BOOK, 7L));
+    verify(bookRepository, times(1)).existsById(7L);
+  }
+
+  /**
+   * Test that lookups fall back to the database for IDs the bitmap cannot hold.
+   */
+  @Test
+  void testExistsFallsBackToDatabaseForLargeIds() {
+    long largeId = IdBitmap.MAX_ID + 1;
+    when(userRepository.existsById(largeId)).thenReturn(true);
+    existenceIndex.load();
+
+    assertTrue(existenceIndex.exists(Kind.USER, largeId));
+  }
+
+  /**
+   * Test that created and deleted entities are reflected in lookups.
+   */
+  @Test
+  void testAddAndRemove() {
+    existenceIndex.load();
+
+    existenceIndex.add(Kind.BOOK, 5L);
+    existenceIndex.remove(Kind.BOOK, 1L);
+
+    assertTrue(existenceIndex.exists(Kind.BOOK, 5L));
+    assertFalse(existenceIndex.exists(Kind.BOOK, 1L));
+    assertEquals(2, existenceIndex.size(Kind.BOOK));
+  }
+
+  /**
+   * Test that changes made inside a transaction are only applied when it commits.
+   */
+  @Test
+  void testChangesWaitForCommit() {
+    existenceIndex.load();
+    TransactionSynchronizationManager.initSynchronization();
+
+    existenceIndex.add(Kind.USER, 6L);
+    existenceIndex.remove(Kind.USER, 3L);
+
+    assertFalse(existenceIndex.exists(Kind.USER, 6L));
+    assertTrue(existenceIndex.exists(Kind.USER, 3L));
+    TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+    assertTrue(existenceIndex.exists(Kind.USER, 6L));
+    assertFalse(existenceIndex.exists(Kind.USER, 3L));
+  }
+
+  /**
+   * Test that the size and memory footprint of each bitmap are published as gauges.
+   */
+  @Test
+  void testMetrics() {
+    existenceIndex.registerMetrics();
+    existenceIndex.load();
+
+    assertEquals(2.0, meterRegistry.get("library.existence.index.ids").tag("kind", "book").gauge().value());
+    assertTrue(meterRegistry.get("library.existence.index.bytes").tag("kind", "user").gauge().value() > 0);
+  }
+}
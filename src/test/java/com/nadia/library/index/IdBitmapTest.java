@@ -0,0 +1,69 @@
+package com.nadia.library.index;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for IdBitmap class.
+ */
+public class IdBitmapTest {
+  /**
+   * Test that added IDs are found until they are removed.
+   */
+  @Test
+  void testAddAndRemove() {
+    IdBitmap ids = new IdBitmap();
+
+    ids.add(1L);
+    ids.add(64L);
+    ids.add(64L);
+
+    assertTrue(ids.contains(1L));
+    assertTrue(ids.contains(64L));
+    assertFalse(ids.contains(2L));
+    assertEquals(2, ids.size());
+
+    ids.remove(64L);
+    ids.remove(65L);
+
+    assertFalse(ids.contains(64L));
+    assertEquals(1, ids.size());
+  }
+
+  /**
+   * Test that the bitmap grows to hold large IDs and keeps the IDs added before.
+   */
+  @Test
+  void testGrowsForLargeIds() {
+    IdBitmap ids = new IdBitmap();
+    long initialBytes = ids.sizeInBytes();
+
+    ids.add(3L);
+    ids.add(10_000_000L);
+
+    assertTrue(ids.contains(3L));
+    assertTrue(ids.contains(10_000_000L));
+    assertFalse(ids.contains(9_999_999L));
+    assertTrue(ids.sizeInBytes() > initialBytes);
+  }
+
+  /**
+   * Test that IDs outside the covered range are never stored.
+   */
+  @Test
+  void testIdsOutsideRangeAreNotCovered() {
+    IdBitmap ids = new IdBitmap();
+
+    ids.add(-1L);
+    ids.add(IdBitmap.MAX_ID + 1);
+
+    assertFalse(ids.covers(-1L));
+    assertFalse(ids.covers(IdBitmap.MAX_ID + 1));
+    assertTrue(ids.covers(IdBitmap.MAX_ID));
+    assertFalse(ids.contains(IdBitmap.MAX_ID + 1));
+    assertEquals(0, ids.size());
+  }
+}
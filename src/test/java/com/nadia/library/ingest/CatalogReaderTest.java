@@ -0,0 +1,161 @@
+package com.nadia.library.ingest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nadia.library.dto.BookImportRow;
+import com.nadia.library.ingest.CatalogReader.Chunk;
+import com.nadia.library.ingest.CatalogReader.Format;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Unit tests for CatalogReader class.
+ */
+public class CatalogReaderTest {
+  @Spy
+  private ObjectMapper objectMapper = new ObjectMapper();
+
+  @InjectMocks
+  private CatalogReader catalogReader;
+
+  @BeforeEach
+  void setUp() {
+    MockitoAnnotations.openMocks(this);
+    ReflectionTestUtils.setField(catalogReader, "chunkSize", 2);
+    ReflectionTestUtils.setField(catalogReader, "threads", 2);
+    catalogReader.start();
+  }
+
+  @AfterEach
+  void tearDown() {
+    catalogReader.stop();
+  }
+
+  /**
+   * Test that a CSV upload is handed over in chunks, in upload order, without its header and blank lines.
+   */
+  @Test
+  void testReadCsvInOrder() throws Exception {
+    StringBuilder csv = new StringBuilder("authorId,title,copies\n");
+
+    for (int i = 1; i <= 20; i++) {
+      csv.append(i).append(",Book ").append(i).append(",").append(i).append("\n");
+    }
+
+    csv.append("\n");
+    List<BookImportRow> rows = new ArrayList<>();
+    List<Chunk> chunks = new ArrayList<>();
+
+    catalogReader.read(upload(csv.toString()), Format.CSV, chunk -> {
+      chunks.add(chunk);
+      rows.addAll(chunk.rows());
+    });
+
+    assertEquals(11, chunks.size());
+    assertEquals(20, rows.size());
+
+    for (int i = 0; i < 20; i++) {
+      assertEquals(i + 1, rows.get(i).getAuthorId());
+      assertEquals("Book " + (i + 1), rows.get(i).getTitle());
+      assertEquals(i + 1, rows.get(i).getCopies());
+      assertEquals(i + 2, rows.get(i).getLine());
+    }
+  }
+
+  /**
+   * Test that invalid CSV lines are reported with their line number, and the others kept.
+   */
+  @Test
+  void testParseCsvErrors() {
+    Chunk chunk = catalogReader.parse(List.of(
+      "1,Molloy",
+      "x,Murphy",
+      "1,",
+      "1,Watt,0",
+      "1,\"Unclosed",
+      "1,Malone Dies,1,2"
+    ), 1, Format.CSV);
+
+    assertEquals(1, chunk.rows().size());
+    assertEquals(1, chunk.rows().get(0).getCopies());
+    assertEquals(List.of(
+      "line 2: cannot be parsed",
+      "line 3: `title` is a mandatory field",
+      "line 4: `copies` must be at least 1",
+      "line 5: cannot be parsed",
+      "line 6: cannot be parsed"
+    ), chunk.errors());
+  }
+
+  /**
+   * Test that quoted CSV titles keep their commas, quotes and spaces.
+   */
+  @Test
+  void testParseCsvQuoted() {
+    BookImportRow row = CatalogReader.parseCsv(" 3 , \"Love, \"\"Anger\"\", Madness \" ,2");
+
+    assertEquals(3L, row.getAuthorId());
+    assertEquals("Love, \"Anger\", Madness ", row.getTitle());
+    assertEquals(2, row.getCopies());
+    assertNull(CatalogReader.parseCsv("3,Title").getCopies());
+    assertThrows(IllegalArgumentException.class, () -> CatalogReader.parseCsv("3,\"Title"));
+  }
+
+  /**
+   * Test that an NDJSON upload is read, with invalid lines reported.
+   */
+  @Test
+  void testReadNdjson() throws Exception {
+    String ndjson = """
+      {"authorId": 1, "title": "Molloy", "copies": 3}
+      {"authorId": 2, "title": "Murphy"}
+      {"authorId": 1
+      {"title": "No author"}
+      """;
+    List<BookImportRow> rows = new ArrayList<>();
+    List<String> errors = new ArrayList<>();
+
+    catalogReader.read(upload(ndjson), Format.NDJSON, chunk -> {
+      rows.addAll(chunk.rows());
+      errors.addAll(chunk.errors());
+    });
+
+    assertEquals(2, rows.size());
+    assertEquals(3, rows.get(0).getCopies());
+    assertEquals(1, rows.get(1).getCopies());
+    assertEquals(List.of("line 3: cannot be parsed", "line 4: `authorId` is a mandatory field"), errors);
+  }
+
+  /**
+   * Test that the format of an upload is read from its content type.
+   */
+  @Test
+  void testFormatOf() {
+    assertEquals(Format.NDJSON, Format.of("application/x-ndjson"));
+    assertEquals(Format.CSV, Format.of("text/csv; charset=UTF-8"));
+  }
+
+  /**
+   * Build an upload.
+   *
+   * @param content The content of the upload.
+   * @return The upload, encoded in UTF-8.
+   */
+  private static ByteArrayInputStream upload(String content) {
+    return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+  }
+}
@@ -0,0 +1,146 @@
+package com.nadia.library.inventory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.when;
+
+import com.nadia.library.dto.BatchLoanRequest;
+import com.nadia.library.dto.BatchLoanResult;
+import com.nadia.library.models.Loan;
+import com.nadia.library.services.LoanService;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Unit tests for InventoryLockAspect class.
+ */
+public class InventoryLockAspectTest {
+  @Mock
+  private WriteBehindInventory writeBehindInventory;
+
+  @InjectMocks
+  private InventoryLockAspect inventoryLockAspect;
+
+  private InventoryLocks inventoryLocks;
+  private final List<Boolean> heldDuringCall = new ArrayList<>();
+  private RuntimeException failure;
+  private long otherBookId;
+  private LoanService loanServiceProxy;
+
+  /**
+   * A LoanService recording, when called, whether the locks of books 1 and otherBookId are held
+   * and whether a transaction is active.
+   */
+  class RecordingLoanService extends LoanService {
+    @Override
+    public ResponseEntity<Loan> createLoan(Loan loan) {
+      record();
+      return new ResponseEntity<>(HttpStatus.CREATED);
+    }
+
+    @Override
+    public ResponseEntity<List<BatchLoanResult>> createLoans(BatchLoanRequest request) {
+      record();
+      return new ResponseEntity<>(HttpStatus.OK);
+    }
+
+    private void record() {
+      if (failure != null) {
+        throw failure;
+      }
+
+      heldDuringCall.add(inventoryLocks.isHeldByCurrentThread(1L));
+      heldDuringCall.add(inventoryLocks.isHeldByCurrentThread(otherBookId));
+      heldDuringCall.add(TransactionSynchronizationManager.isSynchronizationActive());
+    }
+  }
+
+  @BeforeEach
+  void setUp() {
+    MockitoAnnotations.openMocks(this);
+    inventoryLocks = new InventoryLocks();
+    ReflectionTestUtils.setField(inventoryLocks, "meterRegistry", new SimpleMeterRegistry());
+    ReflectionTestUtils.setField(inventoryLocks, "enabled", true);
+    ReflectionTestUtils.setField(inventoryLocks, "stripeCount", 16);
+    inventoryLocks.init();
+    ReflectionTestUtils.setField(inventoryLockAspect, "inventoryLocks", inventoryLocks);
+
+    otherBookId = 2L;
+
+    while (inventoryLocks.stripe(otherBookId) == inventoryLocks.stripe(1L)) {
+      otherBookId++;
+    }
+
+    AspectJProxyFactory factory = new AspectJProxyFactory(new RecordingLoanService());
+    factory.addAspect(inventoryLockAspect);
+    loanServiceProxy = factory.getProxy();
+  }
+
+  /**
+   * Test that the stripe of the book is held while the checkout runs, outside of any transaction, and released after.
+   */
+  @Test
+  void testCheckoutIsLockedBeforeItsTransaction() {
+    loanServiceProxy.createLoan(new Loan(1L, 2L, null, null));
+
+    assertEquals(List.of(true, false, false), heldDuringCall);
+    assertFalse(inventoryLocks.isHeldByCurrentThread(1L));
+  }
+
+  /**
+   * Test that every book of a batch checkout is locked, except the write-behind ones.
+   */
+  @Test
+  void testBatchCheckoutSkipsWriteBehindBooks() {
+    long thirdBookId = otherBookId + 1;
+    when(writeBehindInventory.isWriteBehind(otherBookId)).thenReturn(true);
+
+    loanServiceProxy.createLoans(new BatchLoanRequest(2L, List.of(1L, otherBookId)));
+
+    assertEquals(List.of(true, false, false), heldDuringCall);
+    heldDuringCall.clear();
+    when(writeBehindInventory.isWriteBehind(otherBookId)).thenReturn(false);
+
+    loanServiceProxy.createLoans(new BatchLoanRequest(2L, List.of(otherBookId, thirdBookId, 1L)));
+
+    assertEquals(List.of(true, true, false), heldDuringCall);
+    assertFalse(inventoryLocks.isHeldByCurrentThread(otherBookId));
+  }
+
+  /**
+   * Test that the locks are released when the call fails.
+   */
+  @Test
+  void testLockIsReleasedOnFailure() {
+    failure = new IllegalStateException("Failed");
+
+    assertThrows(IllegalStateException.class, () -> loanServiceProxy.createLoan(new Loan(1L, 2L, null, null)));
+    assertFalse(inventoryLocks.isHeldByCurrentThread(1L));
+  }
+
+  /**
+   * Test that nothing is locked when the mode is disabled.
+   */
+  @Test
+  void testDisabled() {
+    ReflectionTestUtils.setField(inventoryLocks, "enabled", false);
+
+    loanServiceProxy.createLoan(new Loan(1L, 2L, null, null));
+
+    assertEquals(List.of(false, false, false), heldDuringCall);
+  }
+}
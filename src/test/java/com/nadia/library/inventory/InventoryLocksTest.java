@@ -0,0 +1,155 @@
+package com.nadia.library.inventory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Unit tests for InventoryLocks class.
+ */
+public class InventoryLocksTest {
+  @Spy
+  private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  @InjectMocks
+  private InventoryLocks inventoryLocks;
+
+  @BeforeEach
+  void setUp() {
+    MockitoAnnotations.openMocks(this);
+    ReflectionTestUtils.setField(inventoryLocks, "enabled", true);
+    ReflectionTestUtils.setField(inventoryLocks, "stripeCount", 16);
+    inventoryLocks.init();
+  }
+
+  @AfterEach
+  void tearDown() {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+  }
+
+  /**
+   * Test that a lock is held until the transaction completes, blocking other callers of the same book.
+   */
+  @Test
+  void testLockIsHeldUntilTransactionCompletes() throws Exception {
+    TransactionSynchronizationManager.initSynchronization();
+    inventoryLocks.lock(1L);
+
+    CountDownLatch locked = new CountDownLatch(1);
+    CompletableFuture<Void> other = CompletableFuture.runAsync(() -> {
+      TransactionSynchronizationManager.initSynchronization();
+      inventoryLocks.lock(1L);
+      locked.countDown();
+      complete();
+    });
+
+    assertFalse(locked.await(100, TimeUnit.MILLISECONDS));
+    complete();
+    assertTrue(locked.await(5, TimeUnit.SECONDS));
+    other.get(5, TimeUnit.SECONDS);
+    assertEquals(2, meterRegistry.get("library.inventory.lock.wait").timer().count());
+  }
+
+  /**
+   * Test that books of other stripes are not blocked.
+   */
+  @Test
+  void testOtherStripesAreNotBlocked() throws Exception {
+    long otherBookId = 2L;
+
+    while (inventoryLocks.stripe(otherBookId) == inventoryLocks.stripe(1L)) {
+      otherBookId++;
+    }
+
+    TransactionSynchronizationManager.initSynchronization();
+    inventoryLocks.lock(1L);
+
+    long bookId = otherBookId;
+    CompletableFuture.runAsync(() -> {
+      TransactionSynchronizationManager.initSynchronization();
+      inventoryLocks.lock(bookId);
+      complete();
+    }).get(5, TimeUnit.SECONDS);
+
+    complete();
+  }
+
+  /**
+   * Test that locking several books registers a single release and tolerates books sharing a stripe.
+   */
+  @Test
+  void testLockAll() {
+    TransactionSynchronizationManager.initSynchronization();
+
+    inventoryLocks.lockAll(List.of(3L, 1L, 3L, 2L));
+
+    assertEquals(1, TransactionSynchronizationManager.getSynchronizations().size());
+    complete();
+  }
+
+  /**
+   * Test that locks cannot be taken outside a transaction, since they would never be released.
+   */
+  @Test
+  void testLockOutsideTransaction() {
+    assertThrows(IllegalStateException.class, () -> inventoryLocks.lock(1L));
+  }
+
+  /**
+   * Test that nothing is locked when the mode is disabled.
+   */
+  @Test
+  void testDisabled() {
+    ReflectionTestUtils.setField(inventoryLocks, "enabled", false);
+
+    inventoryLocks.lock(1L);
+    inventoryLocks.lockAll(List.of(1L, 2L));
+
+    assertFalse(TransactionSynchronizationManager.isSynchronizationActive());
+  }
+
+  /**
+   * Test that the number of stripes is rounded up to a power of two.
+   */
+  @Test
+  void testStripesAreRoundedUpToAPowerOfTwo() {
+    ReflectionTestUtils.setField(inventoryLocks, "stripeCount", 1000);
+    inventoryLocks.init();
+
+    for (long bookId = 0; bookId < 10000; bookId++) {
+      int stripe = inventoryLocks.stripe(bookId);
+      assertTrue(stripe >= 0 && stripe < 1024);
+    }
+  }
+
+  /**
+   * Complete the transaction of the current thread, running its registered synchronizations.
+   */
+  private static void complete() {
+    for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+      synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+    }
+
+    TransactionSynchronizationManager.clearSynchronization();
+  }
+}
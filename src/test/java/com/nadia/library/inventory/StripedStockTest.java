@@ -0,0 +1,96 @@
+package com.nadia.library.inventory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for StripedStock class.
+ */
+public class StripedStockTest {
+  /**
+   * Test that the copies are spread over the cells and can all be taken, whatever the cell of the thread.
+   */
+  @Test
+  void testTakeEveryCopy() {
+    StripedStock stock = new StripedStock(4, 10);
+
+    assertEquals(10, stock.sum());
+
+    for (int i = 0; i < 10; i++) {
+      assertTrue(stock.tryTake(1));
+    }
+
+    assertFalse(stock.tryTake(1));
+    assertEquals(0, stock.sum());
+  }
+
+  /**
+   * Test that taking more copies than in stock takes none.
+   */
+  @Test
+  void testTakeTooManyCopies() {
+    StripedStock stock = new StripedStock(4, 5);
+
+    assertFalse(stock.tryTake(6));
+    assertEquals(5, stock.sum());
+    assertTrue(stock.tryTake(5));
+    assertEquals(0, stock.sum());
+  }
+
+  /**
+   * Test that copies put back can be taken again.
+   */
+  @Test
+  void testAdd() {
+    StripedStock stock = new StripedStock(4, 0);
+
+    stock.add(2);
+
+    assertEquals(2, stock.sum());
+    assertTrue(stock.tryTake(2));
+  }
+
+  /**
+   * Test that concurrent takes never take more copies than in stock.
+   */
+  @Test
+  void testConcurrentTakesNeverOversell() throws Exception {
+    StripedStock stock = new StripedStock(8, 1000);
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    List<Callable<Integer>> takers = new ArrayList<>();
+
+    for (int i = 0; i < 8; i++) {
+      takers.add(() -> {
+        int taken = 0;
+
+        for (int j = 0; j < 500; j++) {
+          if (stock.tryTake(1)) {
+            taken++;
+          }
+        }
+
+        return taken;
+      });
+    }
+
+    int taken = 0;
+
+    for (Future<Integer> result : executor.invokeAll(takers)) {
+      taken += result.get();
+    }
+
+    executor.shutdown();
+    assertEquals(1000, taken);
+    assertEquals(0, stock.sum());
+  }
+}
@@ -0,0 +1,253 @@
+package com.nadia.library.inventory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.nadia.library.models.Inventory;
+import com.nadia.library.models.StockJournalEntry;
+import com.nadia.library.repositories.InventoryRepository;
+import com.nadia.library.repositories.StockJournalRepository;
+import com.nadia.library.stream.InventoryChangedEvent;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Unit tests for WriteBehindInventory class.
+ */
+public class WriteBehindInventoryTest {
+  private static final Long BOOK_ID = 1L;
+
+  @Mock
+  private InventoryRepository inventoryRepository;
+
+  @Mock
+  private StockJournalRepository stockJournalRepository;
+
+  @Mock
+  private PlatformTransactionManager transactionManager;
+
+  @Mock
+  private ApplicationEventPublisher eventPublisher;
+
+  @Spy
+  private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  @InjectMocks
+  private WriteBehindInventory writeBehindInventory;
+
+  @BeforeEach
+  void setUp() {
+    MockitoAnnotations.openMocks(this);
+    ReflectionTestUtils.setField(writeBehindInventory, "bookIds", Set.of(BOOK_ID));
+    writeBehindInventory.registerMetrics();
+    when(inventoryRepository.findByBookId(BOOK_ID)).thenReturn(new Inventory(BOOK_ID, 3));
+    when(stockJournalRepository.sumDeltaByBookId(BOOK_ID)).thenReturn(-1L);
+    writeBehindInventory.load();
+  }
+
+  @AfterEach
+  void tearDown() {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+  }
+
+  /**
+   * Test that only the listed books are write-behind.
+   */
+  @Test
+  void testIsWriteBehind() {
+    assertTrue(writeBehindInventory.isWriteBehind(BOOK_ID));
+    assertFalse(writeBehindInventory.isWriteBehind(2L));
+    assertFalse(writeBehindInventory.isWriteBehind(null));
+  }
+
+  /**
+   * Test that the stock is loaded as the inventory row plus the pending journal entries.
+   */
+  @Test
+  void testStockIncludesPendingEntries() {
+    assertEquals(2, writeBehindInventory.inStock(BOOK_ID));
+  }
+
+  /**
+   * Test that the stock is loaded once at startup, not on each use.
+   */
+  @Test
+  void testStockLoadedOnce() {
+    writeBehindInventory.inStock(BOOK_ID);
+    writeBehindInventory.inStock(BOOK_ID);
+
+    verify(inventoryRepository, times(1)).findByBookId(BOOK_ID);
+  }
+
+  /**
+   * Test that the stock cannot be used before it is loaded.
+   */
+  @Test
+  void testStockNotLoaded() {
+    WriteBehindInventory notLoaded = new WriteBehindInventory();
+    ReflectionTestUtils.setField(notLoaded, "bookIds", Set.of(BOOK_ID));
+
+    assertThrows(IllegalStateException.class, () -> notLoaded.inStock(BOOK_ID));
+  }
+
+  /**
+   * Test that copies are taken until the stock is out, each one journaled.
+   */
+  @Test
+  void testTake() {
+    TransactionSynchronizationManager.initSynchronization();
+
+    assertTrue(writeBehindInventory.take(BOOK_ID, 1));
+    assertTrue(writeBehindInventory.take(BOOK_ID, 1));
+    assertFalse(writeBehindInventory.take(BOOK_ID, 1));
+
+    assertEquals(0, writeBehindInventory.inStock(BOOK_ID));
+    ArgumentCaptor<StockJournalEntry> entry = ArgumentCaptor.forClass(StockJournalEntry.class);
+    verify(stockJournalRepository, times(2)).save(entry.capture());
+    assertEquals(-1, entry.getValue().getDelta());
+  }
+
+  /**
+   * Test that a copy taken in a transaction that rolls back is put back.
+   */
+  @Test
+  void testTakeRolledBack() {
+    TransactionSynchronizationManager.initSynchronization();
+    writeBehindInventory.take(BOOK_ID, 2);
+
+    complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+    assertEquals(2, writeBehindInventory.inStock(BOOK_ID));
+  }
+
+  /**
+   * Test that copies added can only be taken once the transaction commits.
+   */
+  @Test
+  void testAdd() {
+    TransactionSynchronizationManager.initSynchronization();
+    writeBehindInventory.add(BOOK_ID, 3);
+
+    assertEquals(2, writeBehindInventory.inStock(BOOK_ID));
+    complete(TransactionSynchronization.STATUS_COMMITTED);
+    assertEquals(5, writeBehindInventory.inStock(BOOK_ID));
+  }
+
+  /**
+   * Test that the stock of a book whose copies are deleted is emptied once the transaction commits.
+   */
+  @Test
+  void testForget() {
+    TransactionSynchronizationManager.initSynchronization();
+    writeBehindInventory.forget(BOOK_ID);
+
+    assertEquals(2, writeBehindInventory.inStock(BOOK_ID));
+    complete(TransactionSynchronization.STATUS_COMMITTED);
+    assertEquals(0, writeBehindInventory.inStock(BOOK_ID));
+  }
+
+  /**
+   * Test that the stock cannot be changed outside a transaction, since the change could not be undone.
+   */
+  @Test
+  void testTakeOutsideTransaction() {
+    assertThrows(IllegalStateException.class, () -> writeBehindInventory.take(BOOK_ID, 1));
+  }
+
+  /**
+   * Test that a flush adds the sum of the entries of each book to the inventory and deletes the entries it read.
+   */
+  @Test
+  @SuppressWarnings("unchecked")
+  void testFlush() {
+    List<StockJournalEntry> entries = List.of(
+      entry(10L, BOOK_ID, -1),
+      entry(11L, 2L, 1),
+      entry(12L, BOOK_ID, -1),
+      entry(13L, 3L, 1),
+      entry(14L, 3L, -1)
+    );
+    when(stockJournalRepository.findByOrderById(any())).thenReturn(entries);
+
+    writeBehindInventory.flush();
+
+    ArgumentCaptor<Map<Long, Integer>> deltas = ArgumentCaptor.forClass(Map.class);
+    verify(inventoryRepository).addToInventories(deltas.capture());
+    assertEquals(Map.of(BOOK_ID, -2, 2L, 1), deltas.getValue());
+    verify(stockJournalRepository).deleteAllByIdInBatch(List.of(10L, 11L, 12L, 13L, 14L));
+    verify(eventPublisher).publishEvent(new InventoryChangedEvent(BOOK_ID));
+    verify(eventPublisher, never()).publishEvent(new InventoryChangedEvent(3L));
+    assertEquals(5, meterRegistry.get("library.inventory.write-behind.flushed").counter().count());
+  }
+
+  /**
+   * Test that a flush does nothing when the journal is empty.
+   */
+  @Test
+  void testFlushEmptyJournal() {
+    when(stockJournalRepository.findByOrderById(any())).thenReturn(List.of());
+
+    writeBehindInventory.flush();
+
+    verify(inventoryRepository, never()).addToInventories(any());
+    verify(stockJournalRepository, never()).deleteAllByIdInBatch(any());
+  }
+
+  /**
+   * Build a journal entry.
+   *
+   * @param id     The ID of the entry.
+   * @param bookId The ID of the book.
+   * @param delta  The stock change.
+   * @return The entry.
+   */
+  private static StockJournalEntry entry(Long id, Long bookId, int delta) {
+    StockJournalEntry entry = new StockJournalEntry(bookId, delta);
+    ReflectionTestUtils.setField(entry, "id", id);
+    return entry;
+  }
+
+  /**
+   * Complete the transaction of the current thread, running its registered synchronizations.
+   *
+   * @param status The outcome of the transaction.
+   */
+  private static void complete(int status) {
+    for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+      if (status == TransactionSynchronization.STATUS_COMMITTED) {
+        synchronization.afterCommit();
+      }
+
+      synchronization.afterCompletion(status);
+    }
+
+    TransactionSynchronizationManager.clearSynchronization();
+  }
+}
@@ -0,0 +1,196 @@
+package com.nadia.library.ledger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.nadia.library.dto.BookBalance;
+import com.nadia.library.dto.BookCount;
+import com.nadia.library.dto.LedgerDrift;
+import com.nadia.library.ledger.CirculationLedger.Balance;
+import com.nadia.library.models.CirculationEvent;
+import com.nadia.library.models.CirculationEvent.Type;
+import com.nadia.library.models.CirculationSnapshot;
+import com.nadia.library.models.Checkpoint;
+import com.nadia.library.models.Loan;
+import com.nadia.library.models.Loan.Status;
+import com.nadia.library.repositories.CheckpointRepository;
+import com.nadia.library.repositories.CirculationEventRepository;
+import com.nadia.library.repositories.CirculationSnapshotRepository;
+import com.nadia.library.repositories.InventoryRepository;
+import com.nadia.library.repositories.LoanRepository;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.projection.ProjectionFactory;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+
+/**
+ * Unit tests for CirculationLedger class.
+ */
+public class CirculationLedgerTest {
+  @Mock
+  private CirculationEventRepository eventRepository;
+
+  @Mock
+  private CirculationSnapshotRepository snapshotRepository;
+
+  @Mock
+  private CheckpointRepository checkpointRepository;
+
+  @Mock
+  private InventoryRepository inventoryRepository;
+
+  @Mock
+  private LoanRepository loanRepository;
+
+  @InjectMocks
+  private CirculationLedger circulationLedger;
+
+  @BeforeEach
+  void setUp() {
+    MockitoAnnotations.openMocks(this);
+  }
+
+  private static final ProjectionFactory PROJECTIONS = new SpelAwareProxyProjectionFactory();
+
+  private static BookBalance balance(long bookId, long stockDelta, long loanDelta) {
+    return PROJECTIONS.createProjection(BookBalance.class, Map.of("bookId", bookId, "stockDelta", stockDelta, "loanDelta", loanDelta));
+  }
+
+  private static BookCount count(long bookId, long count) {
+    return PROJECTIONS.createProjection(BookCount.class, Map.of("bookId", bookId, "count", count));
+  }
+
+  /**
+   * Test that checkouts are appended with the loan, the borrower and a negative stock change.
+   */
+  @SuppressWarnings("unchecked")
+  @Test
+  void testRecordCheckouts() {
+    Loan loan = new Loan(1L, 2L, Status.NEW_LOAN, LocalDate.now());
+    loan.setId(3L);
+    ArgumentCaptor<List<CirculationEvent>> events = ArgumentCaptor.forClass(List.class);
+
+    circulationLedger.recordCheckouts(List.of(loan));
+
+    verify(eventRepository).saveAll(events.capture());
+    CirculationEvent event = events.getValue().get(0);
+    assertEquals(Type.CHECKOUT, event.getType());
+    assertEquals(1L, event.getBookId());
+    assertEquals(2L, event.getUserId());
+    assertEquals(3L, event.getLoanId());
+    assertEquals(-1, event.getStockDelta());
+  }
+
+  /**
+   * Test that the first snapshot is taken from the inventory and loan tables.
+   */
+  @SuppressWarnings("unchecked")
+  @Test
+  void testInitializeTakesFirstSnapshot() {
+    when(checkpointRepository.lockByName(CirculationLedger.SNAPSHOT_CHECKPOINT)).thenReturn(Optional.empty());
+    when(inventoryRepository.findStockByBook()).thenReturn(List.of(count(1L, 4), count(2L, 0)));
+    when(loanRepository.countByBook()).thenReturn(List.of(count(2L, 3)));
+    ArgumentCaptor<List<CirculationSnapshot>> rows = ArgumentCaptor.forClass(List.class);
+
+    circulationLedger.initialize();
+
+    verify(snapshotRepository).saveAll(rows.capture());
+    verify(checkpointRepository).save(any(Checkpoint.class));
+    assertEquals(2, rows.getValue().size());
+    CirculationSnapshot second = rows.getValue().stream().filter(row -> row.getBookId() == 2L).findFirst().orElseThrow();
+    assertEquals(0, second.getInStock());
+    assertEquals(3, second.getActiveLoans());
+  }
+
+  /**
+   * Test that no snapshot is taken again once one exists.
+   */
+  @Test
+  void testInitializeKeepsExistingSnapshot() {
+    when(checkpointRepository.lockByName(CirculationLedger.SNAPSHOT_CHECKPOINT))
+        .thenReturn(Optional.of(new Checkpoint(CirculationLedger.SNAPSHOT_CHECKPOINT, Instant.now())));
+
+    circulationLedger.initialize();
+
+    verify(snapshotRepository, never()).saveAll(anyList());
+  }
+
+  /**
+   * Test that a snapshot applies the events since the checkpoint and moves the checkpoint forward.
+   */
+  @SuppressWarnings("unchecked")
+  @Test
+  void testSnapshotAppliesNewEvents() {
+    Instant lastSnapshot = Instant.now().minus(1, ChronoUnit.HOURS);
+    Checkpoint checkpoint = new Checkpoint(CirculationLedger.SNAPSHOT_CHECKPOINT, lastSnapshot);
+    when(checkpointRepository.lockByName(CirculationLedger.SNAPSHOT_CHECKPOINT)).thenReturn(Optional.of(checkpoint));
+    when(eventRepository.sumByBook(any(), any())).thenReturn(List.of(balance(1L, -2, 2), balance(2L, 1, 0)));
+    when(snapshotRepository.findAllById(List.of(1L, 2L))).thenReturn(List.of(new CirculationSnapshot(1L, 5, 0)));
+    ArgumentCaptor<Iterable<CirculationSnapshot>> rows = ArgumentCaptor.forClass(Iterable.class);
+
+    circulationLedger.snapshot();
+
+    verify(snapshotRepository).saveAll(rows.capture());
+    List<CirculationSnapshot> saved = new ArrayList<>();
+    rows.getValue().forEach(saved::add);
+    CirculationSnapshot first = saved.stream().filter(row -> row.getBookId() == 1L).findFirst().orElseThrow();
+    CirculationSnapshot second = saved.stream().filter(row -> row.getBookId() == 2L).findFirst().orElseThrow();
+    assertEquals(3, first.getInStock());
+    assertEquals(2, first.getActiveLoans());
+    assertEquals(1, second.getInStock());
+    assertTrue(checkpoint.getUpTo().isAfter(lastSnapshot));
+  }
+
+  /**
+   * Test that replaying adds the events since the snapshot to the snapshot rows.
+   */
+  @Test
+  void testReplay() {
+    when(checkpointRepository.findById(CirculationLedger.SNAPSHOT_CHECKPOINT))
+        .thenReturn(Optional.of(new Checkpoint(CirculationLedger.SNAPSHOT_CHECKPOINT, Instant.now())));
+    when(snapshotRepository.findAll()).thenReturn(List.of(new CirculationSnapshot(1L, 5, 1)));
+    when(eventRepository.sumByBook(any(), any())).thenReturn(List.of(balance(1L, -1, 1), balance(2L, 1, 0)));
+
+    Map<Long, Balance> balances = circulationLedger.replay();
+
+    assertEquals(new Balance(4, 2), balances.get(1L));
+    assertEquals(new Balance(1, 0), balances.get(2L));
+  }
+
+  /**
+   * Test that only the books whose tables disagree with the ledger are reported.
+   */
+  @Test
+  void testFindDrift() {
+    when(checkpointRepository.findById(CirculationLedger.SNAPSHOT_CHECKPOINT)).thenReturn(Optional.empty());
+    when(snapshotRepository.findAll()).thenReturn(List.of(new CirculationSnapshot(1L, 5, 1), new CirculationSnapshot(2L, 2, 0)));
+    when(eventRepository.sumByBook(any(), any())).thenReturn(List.of());
+    when(inventoryRepository.findStockByBook()).thenReturn(List.of(count(1L, 5), count(2L, 3)));
+    when(loanRepository.countByBook()).thenReturn(List.of(count(1L, 1)));
+
+    List<LedgerDrift> drift = circulationLedger.findDrift();
+
+    assertEquals(1, drift.size());
+    assertEquals(2L, drift.get(0).getBookId());
+    assertEquals(2, drift.get(0).getLedgerInStock());
+    assertEquals(3, drift.get(0).getInventoryInStock());
+  }
+}
@@ -0,0 +1,133 @@
+package com.nadia.library.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+/**
+ * Latency histograms and error counts per operation.
+ *
+ * Latencies are recorded in microseconds from the time a request was scheduled to be sent,
+ * not from the time it was actually sent, so that a slow server also delays (and is charged
+ * for) the requests queued behind it.
+ */
+public class LatencyReport {
+  /**
+   * The largest latency the histograms can hold: one minute, in microseconds.
+   */
+  private static final long MAX_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+  private final Map<Operation, Histogram> latencies = new EnumMap<>(Operation.class);
+  private final Map<Operation, LongAdder> errors = new EnumMap<>(Operation.class);
+
+  /**
+   * Create an empty report.
+   */
+  public LatencyReport() {
+    for (Operation operation : Operation.values()) {
+      latencies.put(operation, new ConcurrentHistogram(MAX_LATENCY_MICROS, 3));
+      errors.put(operation, new LongAdder());
+    }
+  }
+
+  /**
+   * Record a completed request.
+   *
+   * @param operation     The operation of the request.
+   * @param latencyMicros The time from scheduling to response, in microseconds.
+   * @param success       True if the response had a 2xx status.
+   */
+  public void record(Operation operation, long latencyMicros, boolean success) {
+    latencies.get(operation).recordValue(Math.min(latencyMicros, MAX_LATENCY_MICROS));
+
+    if (!success) {
+      errors.get(operation).increment();
+    }
+  }
+
+  /**
+   * Print a table of throughput and latency percentiles per endpoint.
+   *
+   * @param out             Where to print the table.
+   * @param durationSeconds The length of the measured period.
+   */
+  public void print(PrintStream out, double durationSeconds) {
+    out.printf("%-22s %9s %8s %9s %9s %9s %9s %9s%n",
+        "endpoint", "requests", "errors", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms");
+
+    for (Operation operation : Operation.values()) {
+      Histogram histogram = latencies.get(operation);
+
+      if (histogram.getTotalCount() == 0) {
+        continue;
+      }
+
+      out.printf("%-22s %9d %8d %9.1f %9.2f %9.2f %9.2f %9.2f%n",
+          operation.getEndpoint(),
+          histogram.getTotalCount(),
+          errors.get(operation).sum(),
+          histogram.getTotalCount() / durationSeconds,
+          millis(histogram.getValueAtPercentile(50)),
+          millis(histogram.getValueAtPercentile(99)),
+          millis(histogram.getValueAtPercentile(99.9)),
+          millis(histogram.getMaxValue()));
+    }
+  }
+
+  /**
+   * Write the report as JSON, so that runs can be compared across commits.
+   *
+   * @param file            The file to write.
+   * @param durationSeconds The length of the measured period.
+   * @param settings        The settings of the run, written alongside the results.
+   * @throws IOException If the file cannot be written.
+   */
+  public void writeJson(File file, double durationSeconds, Map<String, Object> settings) throws IOException {
+    ObjectMapper objectMapper = new ObjectMapper();
+    ObjectNode root = objectMapper.createObjectNode();
+    root.set("settings", objectMapper.valueToTree(settings));
+    ArrayNode endpoints = root.putArray("endpoints");
+
+    for (Operation operation : Operation.values()) {
+      Histogram histogram = latencies.get(operation);
+
+      if (histogram.getTotalCount() == 0) {
+        continue;
+      }
+
+      endpoints.addObject()
+          .put("endpoint", operation.getEndpoint())
+          .put("requests", histogram.getTotalCount())
+          .put("errors", errors.get(operation).sum())
+          .put("throughput", histogram.getTotalCount() / durationSeconds)
+          .put("p50Ms", millis(histogram.getValueAtPercentile(50)))
+          .put("p99Ms", millis(histogram.getValueAtPercentile(99)))
+          .put("p999Ms", millis(histogram.getValueAtPercentile(99.9)))
+          .put("maxMs", millis(histogram.getMaxValue()));
+    }
+
+    file.getParentFile().mkdirs();
+    objectMapper.writerWithDefaultPrettyPrinter().writeValue(file, root);
+  }
+
+  /**
+   * Convert a latency from microseconds to milliseconds.
+   *
+   * @param micros The latency in microseconds.
+   * @return The latency in milliseconds.
+   */
+  private static double millis(long micros) {
+    return micros / 1000.0;
+  }
+}
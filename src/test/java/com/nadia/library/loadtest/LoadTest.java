@@ -0,0 +1,238 @@
+package com.nadia.library.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nadia.library.benchmarks.EmbeddedLibrary;
+import com.nadia.library.benchmarks.SyntheticDataset;
+import com.nadia.library.pagination.KeysetPagination;
+
+import java.io.File;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * End-to-end HTTP load test of the REST API.
+ *
+ * Starts the application on an embedded H2 database, fills it with a synthetic dataset and
+ * sends a mix of catalog reads, checkouts, renewals and returns at a fixed rate (open loop:
+ * requests are sent on schedule whether or not earlier ones have completed). After a warmup
+ * period, it reports the throughput and the p50/p99/p999 latency of each endpoint.
+ *
+ * Settings are read from system properties (see the `loadtest` profile in `pom.xml`):
+ * `loadtest.size`, `loadtest.rate` (requests per second), `loadtest.warmup` and
+ * `loadtest.duration` (seconds), `loadtest.mix`, `loadtest.maxInFlight` and `loadtest.report`.
+ */
+public class LoadTest {
+  private final ObjectMapper objectMapper = new ObjectMapper();
+  private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+  private final Queue<Long> renewableLoans = new ConcurrentLinkedQueue<>();
+  private final Queue<Long> returnableLoans = new ConcurrentLinkedQueue<>();
+  private final Random random = new Random(42);
+  private final SyntheticDataset dataset;
+  private final String baseUrl;
+
+  /**
+   * Create a load test against a running application.
+   *
+   * @param dataset The dataset loaded in the application's database.
+   * @param port    The HTTP port of the application.
+   */
+  LoadTest(SyntheticDataset dataset, int port) {
+    this.dataset = dataset;
+    this.baseUrl = "http://localhost:" + port;
+  }
+
+  /**
+   * Run the load test with the settings given as system properties.
+   *
+   * @param args Not used.
+   * @throws Exception If the application cannot start or the report cannot be written.
+   */
+  public static void main(String[] args) throws Exception {
+    int size = Integer.getInteger("loadtest.size", 10_000);
+    int rate = Integer.getInteger("loadtest.rate", 200);
+    int warmup = Integer.getInteger("loadtest.warmup", 10);
+    int duration = Integer.getInteger("loadtest.duration", 60);
+    int maxInFlight = Integer.getInteger("loadtest.maxInFlight", 1000);
+    String mix = System.getProperty("loadtest.mix", "LIST_BOOKS=30,GET_BOOK=30,CHECKOUT=20,RENEW=10,RETURN=10");
+    File reportFile = new File(System.getProperty("loadtest.report", "target/loadtest-result.json"));
+
+    ConfigurableApplicationContext context = EmbeddedLibrary.start(WebApplicationType.SERVLET);
+    int exitCode = 0;
+
+    try {
+      System.out.printf("Seeding %d books, users and loans...%n", size);
+      SyntheticDataset dataset = new SyntheticDataset(context, size);
+      int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+      LoadTest loadTest = new LoadTest(dataset, port);
+
+      System.out.printf("Sending %d requests/s for %d s of warmup and %d s of measurement...%n", rate, warmup, duration);
+      LatencyReport report = loadTest.run(new TrafficMix(mix), rate, warmup, duration, maxInFlight);
+
+      report.print(System.out, duration);
+      Map<String, Object> settings = new LinkedHashMap<>();
+      settings.put("size", size);
+      settings.put("rate", rate);
+      settings.put("warmupSeconds", warmup);
+      settings.put("durationSeconds", duration);
+      settings.put("mix", mix);
+      report.writeJson(reportFile, duration, settings);
+      System.out.println("Report written to " + reportFile);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      exitCode = 1;
+    } finally {
+      context.close();
+    }
+
+    System.exit(exitCode);
+  }
+
+  /**
+   * Send requests at a fixed rate and record their latencies.
+   *
+   * @param mix             The share of each operation.
+   * @param rate            The number of requests to send per second.
+   * @param warmupSeconds   The time to send requests before recording them.
+   * @param durationSeconds The time to send and record requests after the warmup.
+   * @param maxInFlight     The largest number of requests waiting for a response.
+   * @return The latencies and errors recorded after the warmup.
+   * @throws InterruptedException If interrupted while waiting for responses.
+   */
+  LatencyReport run(TrafficMix mix, int rate, int warmupSeconds, int durationSeconds, int maxInFlight)
+      throws InterruptedException {
+    LatencyReport warmupReport = new LatencyReport();
+    LatencyReport report = new LatencyReport();
+    Semaphore inFlight = new Semaphore(maxInFlight);
+    long interval = TimeUnit.SECONDS.toNanos(1) / rate;
+    long start = System.nanoTime();
+    long measureFrom = start + TimeUnit.SECONDS.toNanos(warmupSeconds);
+    long end = measureFrom + TimeUnit.SECONDS.toNanos(durationSeconds);
+
+    for (long intended = start; intended < end; intended += interval) {
+      long wait = intended - System.nanoTime();
+
+      if (wait > 0) {
+        LockSupport.parkNanos(wait);
+      }
+
+      inFlight.acquire();
+      send(mix.next(random), intended, intended >= measureFrom ? report : warmupReport, inFlight);
+    }
+
+    inFlight.acquire(maxInFlight);
+    return report;
+  }
+
+  /**
+   * Send one request asynchronously and record its latency when the response arrives.
+   *
+   * @param operation The operation to send.
+   * @param intended  The time at which the request was scheduled to be sent (System.nanoTime).
+   * @param report    The report to record the request in.
+   * @param inFlight  The permits of requests waiting for a response, released on completion.
+   */
+  private void send(Operation operation, long intended, LatencyReport report, Semaphore inFlight) {
+    Long loanId = null;
+
+    if (operation == Operation.RENEW) {
+      loanId = renewableLoans.poll();
+    } else if (operation == Operation.RETURN) {
+      loanId = returnableLoans.poll();
+
+      if (loanId == null) {
+        loanId = renewableLoans.poll();
+      }
+    }
+
+    if ((operation == Operation.RENEW || operation == Operation.RETURN) && loanId == null) {
+      operation = Operation.CHECKOUT;
+    }
+
+    Operation sent = operation;
+    Long sentLoanId = loanId;
+
+    client.sendAsync(request(sent, sentLoanId), HttpResponse.BodyHandlers.ofString())
+        .whenComplete((response, error) -> {
+          long latencyMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - intended);
+          boolean success = error == null && response.statusCode() / 100 == 2;
+          report.record(sent, latencyMicros, success);
+
+          if (success) {
+            trackLoan(sent, sentLoanId, response.body());
+          }
+
+          inFlight.release();
+        });
+  }
+
+  /**
+   * Build the HTTP request of an operation, on random books and users of the dataset.
+   *
+   * @param operation The operation to send.
+   * @param loanId    The loan to renew or return, null for other operations.
+   * @return The HTTP request.
+   */
+  private HttpRequest request(Operation operation, Long loanId) {
+    int i = random.nextInt(dataset.size());
+
+    return switch (operation) {
+      case LIST_BOOKS -> get("/books?limit=20&after=" + KeysetPagination.encodeCursor(dataset.bookId(i)));
+      case GET_BOOK -> get("/books/" + dataset.bookId(i));
+      case CHECKOUT -> HttpRequest.newBuilder(URI.create(baseUrl + "/loans"))
+          .header("Content-Type", "application/json")
+          .POST(HttpRequest.BodyPublishers.ofString(
+              "{\"bookId\":" + dataset.bookId(i) + ",\"userId\":" + dataset.userId(random.nextInt(dataset.size())) + "}"))
+          .build();
+      case RENEW -> HttpRequest.newBuilder(URI.create(baseUrl + "/loans/" + loanId))
+          .method("PATCH", HttpRequest.BodyPublishers.noBody())
+          .build();
+      case RETURN -> HttpRequest.newBuilder(URI.create(baseUrl + "/loans/" + loanId)).DELETE().build();
+    };
+  }
+
+  /**
+   * Build a GET request.
+   *
+   * @param path The path and query of the request.
+   * @return The HTTP request.
+   */
+  private HttpRequest get(String path) {
+    return HttpRequest.newBuilder(URI.create(baseUrl + path)).GET().build();
+  }
+
+  /**
+   * Remember the loans made during the test, so they can later be renewed and returned.
+   *
+   * @param operation The operation that succeeded.
+   * @param loanId    The loan that was renewed, if any.
+   * @param body      The response body.
+   */
+  private void trackLoan(Operation operation, Long loanId, String body) {
+    if (operation == Operation.CHECKOUT) {
+      try {
+        JsonNode loan = objectMapper.readTree(body);
+        renewableLoans.add(loan.get("id").asLong());
+      } catch (Exception e) {
+        // Not a loan: nothing to renew or return later.
+      }
+    } else if (operation == Operation.RENEW) {
+      returnableLoans.add(loanId);
+    }
+  }
+}
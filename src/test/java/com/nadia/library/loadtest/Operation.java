@@ -0,0 +1,46 @@
+package com.nadia.library.loadtest;
+
+/**
+ * The kinds of requests sent by the load test.
+ */
+public enum Operation {
+  /**
+   * Read the first page of the catalog.
+   */
+  LIST_BOOKS("GET /books"),
+
+  /**
+   * Read one book of the catalog.
+   */
+  GET_BOOK("GET /books/{id}"),
+
+  /**
+   * Check out a book.
+   */
+  CHECKOUT("POST /loans"),
+
+  /**
+   * Renew a loan made during the test.
+   */
+  RENEW("PATCH /loans/{id}"),
+
+  /**
+   * Return a book borrowed during the test.
+   */
+  RETURN("DELETE /loans/{id}");
+
+  private final String endpoint;
+
+  Operation(String endpoint) {
+    this.endpoint = endpoint;
+  }
+
+  /**
+   * Get the HTTP method and URI pattern of the operation.
+   *
+   * @return The endpoint, for example "POST /loans".
+   */
+  public String getEndpoint() {
+    return endpoint;
+  }
+}
@@ -0,0 +1,67 @@
+package com.nadia.library.loadtest;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * The share of each operation in the generated traffic.
+ */
+public class TrafficMix {
+  private final Operation[] operations;
+  private final int[] cumulativeWeights;
+  private final int totalWeight;
+
+  /**
+   * Parse a traffic mix such as "LIST_BOOKS=30,GET_BOOK=30,CHECKOUT=20,RENEW=10,RETURN=10".
+   *
+   * @param mix Comma-separated operation=weight pairs; operations not listed are not sent.
+   */
+  public TrafficMix(String mix) {
+    Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+
+    for (String entry : mix.split(",")) {
+      String[] parts = entry.trim().split("=");
+      int weight = Integer.parseInt(parts[1].trim());
+
+      if (weight < 0) {
+        throw new IllegalArgumentException("Negative weight in traffic mix: " + entry);
+      }
+
+      weights.put(Operation.valueOf(parts[0].trim()), weight);
+    }
+
+    operations = weights.keySet().toArray(Operation[]::new);
+    cumulativeWeights = new int[operations.length];
+    int sum = 0;
+
+    for (int i = 0; i < operations.length; i++) {
+      sum += weights.get(operations[i]);
+      cumulativeWeights[i] = sum;
+    }
+
+    if (sum == 0) {
+      throw new IllegalArgumentException("The traffic mix has no operation: " + mix);
+    }
+
+    totalWeight = sum;
+  }
+
+  /**
+   * Pick the next operation at random, according to the weights.
+   *
+   * @param random The random number generator to use.
+   * @return The operation to send.
+   */
+  public Operation next(Random random) {
+    int draw = random.nextInt(totalWeight);
+
+    for (int i = 0; i < operations.length; i++) {
+      if (draw < cumulativeWeights[i]) {
+        return operations[i];
+      }
+    }
+
+    return operations[operations.length - 1];
+  }
+}
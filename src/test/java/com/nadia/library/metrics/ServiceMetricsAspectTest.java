@@ -0,0 +1,108 @@
+package com.nadia.library.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.nadia.library.inventory.WriteBehindInventory;
+import com.nadia.library.models.Inventory;
+import com.nadia.library.repositories.InventoryRepository;
+import com.nadia.library.services.InventoryService;
+
+import java.util.Optional;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Unit tests for ServiceMetricsAspect class.
+ */
+public class ServiceMetricsAspectTest {
+  @Spy
+  private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  @Mock
+  private InventoryRepository inventoryRepository;
+
+  @InjectMocks
+  private ServiceMetricsAspect serviceMetricsAspect;
+
+  @BeforeEach
+  void setUp() {
+    MockitoAnnotations.openMocks(this);
+  }
+
+  /**
+   * Test that service calls are timed and tagged with the status of their response.
+   *
+   * This test looks up an inventory item that exists and one that does not.
+   * It ensures that each call is counted under its own outcome.
+   */
+  @Test
+  void testServiceCallsAreTimedByOutcome() {
+    InventoryService inventoryService = new InventoryService();
+    ReflectionTestUtils.setField(inventoryService, "inventoryRepository", inventoryRepository);
+    ReflectionTestUtils.setField(inventoryService, "writeBehindInventory", mock(WriteBehindInventory.class));
+    when(inventoryRepository.findById(1L)).thenReturn(Optional.of(new Inventory()));
+    when(inventoryRepository.findById(2L)).thenReturn(Optional.empty());
+    InventoryService proxy = proxy(inventoryService);
+
+    proxy.getInventoryItemById(1L);
+    proxy.getInventoryItemById(2L);
+    proxy.getInventoryItemById(2L);
+
+    assertEquals(1, timerCount("library.service.calls", "getInventoryItemById", "OK"));
+    assertEquals(2, timerCount("library.service.calls", "getInventoryItemById", "NOT_FOUND"));
+  }
+
+  /**
+   * Test that only the default methods of InventoryRepository are timed.
+   */
+  @Test
+  void testOnlyDefaultRepositoryMethodsAreTimed() {
+    AspectJProxyFactory factory = new AspectJProxyFactory(inventoryRepository);
+    factory.addInterface(InventoryRepository.class);
+    factory.addAspect(serviceMetricsAspect);
+    InventoryRepository proxy = factory.getProxy();
+
+    proxy.addInventoryItem(1L);
+    proxy.findByBookId(1L);
+
+    assertEquals(1, timerCount("library.repository.calls", "addInventoryItem", "SUCCESS"));
+    assertNull(meterRegistry.find("library.repository.calls").tag("method", "findByBookId").timer());
+  }
+
+  /**
+   * Wrap an object in a proxy advised by the aspect under test.
+   *
+   * @param target The object to wrap.
+   * @return The proxy.
+   */
+  private <T> T proxy(T target) {
+    AspectJProxyFactory factory = new AspectJProxyFactory(target);
+    factory.setProxyTargetClass(true);
+    factory.addAspect(serviceMetricsAspect);
+    return factory.getProxy();
+  }
+
+  /**
+   * Get the number of calls recorded by a timer.
+   *
+   * @param name    The name of the timer.
+   * @param method  The method tag.
+   * @param outcome The outcome tag.
+   * @return The number of recorded calls.
+   */
+  private long timerCount(String name, String method, String outcome) {
+    return meterRegistry.get(name).tag("method", method).tag("outcome", outcome).timer().count();
+  }
+}
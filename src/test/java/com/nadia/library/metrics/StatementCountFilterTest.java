@@ -0,0 +1,63 @@
+package com.nadia.library.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Unit tests for StatementCountFilter and JdbcStatementCounter classes.
+ */
+public class StatementCountFilterTest {
+  @Spy
+  private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  @InjectMocks
+  private StatementCountFilter statementCountFilter;
+
+  @BeforeEach
+  void setUp() {
+    MockitoAnnotations.openMocks(this);
+  }
+
+  /**
+   * Test that the statements prepared while handling a request are recorded for its URI pattern.
+   */
+  @Test
+  void testStatementsAreRecordedPerRequest() throws Exception {
+    JdbcStatementCounter counter = new JdbcStatementCounter();
+    MockHttpServletRequest request = new MockHttpServletRequest("POST", "/loans");
+
+    statementCountFilter.doFilter(request, new MockHttpServletResponse(), (req, res) -> {
+      counter.inspect("select 1");
+      counter.inspect("insert into loan values (?)");
+      req.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/loans");
+    });
+
+    DistributionSummary statements = meterRegistry.get("library.http.jdbc.statements")
+        .tag("method", "POST")
+        .tag("uri", "/loans")
+        .summary();
+    assertEquals(1, statements.count());
+    assertEquals(2.0, statements.totalAmount());
+  }
+
+  /**
+   * Test that statements prepared outside a request are not counted.
+   */
+  @Test
+  void testStatementsOutsideRequestAreNotCounted() {
+    new JdbcStatementCounter().inspect("select 1");
+
+    assertEquals(0, JdbcStatementCounter.stop());
+  }
+}
@@ -0,0 +1,180 @@
+package com.nadia.library.overdue;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.nadia.library.dto.LoanDate;
+import com.nadia.library.models.Checkpoint;
+import com.nadia.library.repositories.CheckpointRepository;
+import com.nadia.library.repositories.LoanRepository;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.data.projection.ProjectionFactory;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+/**
+ * Unit tests for OverdueSweep class.
+ */
+public class OverdueSweepTest {
+  private static final ProjectionFactory PROJECTIONS = new SpelAwareProxyProjectionFactory();
+
+  @Mock
+  private LoanRepository loanRepository;
+
+  @Mock
+  private CheckpointRepository checkpointRepository;
+
+  @Mock
+  private PlatformTransactionManager transactionManager;
+
+  @Spy
+  private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  @InjectMocks
+  private OverdueSweep overdueSweep;
+
+  private final AtomicReference<Checkpoint> checkpoint = new AtomicReference<>();
+
+  private final List<LoanDate> loans = List.of(
+    loanDate(1L, LocalDate.now().minusDays(30)),
+    loanDate(2L, LocalDate.now()),
+    loanDate(3L, LocalDate.now().minusDays(3)),
+    loanDate(4L, LocalDate.now().minusDays(22)),
+    loanDate(5L, LocalDate.now())
+  );
+
+  @BeforeEach
+  void setUp() {
+    MockitoAnnotations.openMocks(this);
+    ReflectionTestUtils.setField(overdueSweep, "chunkSize", 2);
+    ReflectionTestUtils.setField(overdueSweep, "threads", 2);
+    overdueSweep.registerMetrics();
+
+    when(checkpointRepository.findById(OverdueSweep.CHECKPOINT)).thenAnswer(invocation -> Optional.ofNullable(checkpoint.get()));
+    when(checkpointRepository.save(any())).thenAnswer(invocation -> {
+      checkpoint.set(invocation.getArgument(0));
+      return invocation.getArgument(0);
+    });
+    when(loanRepository.findMaxId()).thenReturn(5L);
+    when(loanRepository.findNotOverdueInRange(anyLong(), anyLong())).thenAnswer(invocation -> {
+      long fromId = invocation.getArgument(0);
+      long toId = invocation.getArgument(1);
+      return loans.stream().filter(loan -> loan.getId() > fromId && loan.getId() <= toId).toList();
+    });
+    when(loanRepository.flagOverdue(any())).thenAnswer(invocation -> invocation.<List<Long>>getArgument(0).size());
+  }
+
+  private static LoanDate loanDate(Long id, LocalDate loanDate) {
+    return PROJECTIONS.createProjection(LoanDate.class, Map.of("id", id, "loanDate", loanDate));
+  }
+
+  private double counter(String name) {
+    return meterRegistry.get(name).counter().count();
+  }
+
+  /**
+   * Test that a first sweep goes through every chunk, flags the late loans and checkpoints the last ID.
+   */
+  @Test
+  void testFirstSweepFlagsLateLoans() {
+    overdueSweep.run();
+
+    verify(loanRepository).flagOverdue(List.of(1L));
+    verify(loanRepository).flagOverdue(List.of(4L));
+    assertEquals(5L, checkpoint.get().getUpToId());
+    assertEquals(5, counter("library.overdue.sweep.rows"));
+    assertEquals(2, counter("library.overdue.sweep.flagged"));
+    assertEquals(1.0, meterRegistry.get("library.overdue.sweep.progress").gauge().value());
+  }
+
+  /**
+   * Test that a sweep of the same day continues from the checkpoint.
+   */
+  @Test
+  void testSweepResumesFromCheckpoint() {
+    Checkpoint today = new Checkpoint(OverdueSweep.CHECKPOINT, LocalDate.now().atStartOfDay(ZoneId.systemDefault()).toInstant());
+    today.setUpToId(2L);
+    checkpoint.set(today);
+
+    overdueSweep.run();
+
+    verify(loanRepository, never()).findNotOverdueInRange(0L, 2L);
+    verify(loanRepository, never()).flagOverdue(List.of(1L));
+    verify(loanRepository).flagOverdue(List.of(4L));
+    assertEquals(5L, checkpoint.get().getUpToId());
+  }
+
+  /**
+   * Test that a sweep started on another day starts again from the first ID.
+   */
+  @Test
+  void testNewDayStartsNewSweep() {
+    Checkpoint yesterday = new Checkpoint(OverdueSweep.CHECKPOINT, LocalDate.now().minusDays(1).atStartOfDay(ZoneId.systemDefault()).toInstant());
+    yesterday.setUpToId(5L);
+    checkpoint.set(yesterday);
+
+    overdueSweep.run();
+
+    verify(loanRepository).findNotOverdueInRange(0L, 2L);
+    verify(loanRepository).flagOverdue(List.of(1L));
+    assertEquals(5L, checkpoint.get().getUpToId());
+  }
+
+  /**
+   * Test that once started, the sweep runs on its own thread.
+   */
+  @Test
+  void testStartRunsSweepOnItsOwnThread() {
+    ReflectionTestUtils.setField(overdueSweep, "initialDelay", 0L);
+    Set<String> threadNames = ConcurrentHashMap.newKeySet();
+    when(loanRepository.findMaxId()).thenAnswer(invocation -> {
+      threadNames.add(Thread.currentThread().getName());
+      return 5L;
+    });
+
+    overdueSweep.start();
+
+    try {
+      verify(loanRepository, timeout(5000)).flagOverdue(List.of(4L));
+    } finally {
+      overdueSweep.stop();
+    }
+
+    assertEquals(Set.of("overdue-sweep"), threadNames);
+  }
+
+  /**
+   * Test that nothing is read when there is no loan after the checkpoint.
+   */
+  @Test
+  void testNothingToSweep() {
+    when(loanRepository.findMaxId()).thenReturn(null);
+
+    overdueSweep.run();
+
+    verify(loanRepository, never()).findNotOverdueInRange(anyLong(), anyLong());
+  }
+}
@@ -0,0 +1,110 @@
+package com.nadia.library.pagination;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.nadia.library.pagination.KeysetPagination.DateKey;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for KeysetPagination class.
+ */
+public class KeysetPaginationTest {
+  /**
+   * Test that a cursor decodes back to the ID it was encoded from.
+   */
+  @Test
+  void testCursorRoundTrip() {
+    String cursor = KeysetPagination.encodeCursor(12345L);
+
+    assertEquals(12345L, KeysetPagination.decodeCursor(cursor));
+  }
+
+  /**
+   * Test that a missing cursor starts from the first row.
+   */
+  @Test
+  void testMissingCursorStartsFromFirstRow() {
+    assertEquals(0L, KeysetPagination.decodeCursor(null));
+    assertEquals(0L, KeysetPagination.decodeCursor(""));
+  }
+
+  /**
+   * Test that cursors which were not produced by encodeCursor are rejected.
+   */
+  @Test
+  void testInvalidCursorIsRejected() {
+    assertNull(KeysetPagination.decodeCursor("not a cursor"));
+    assertNull(KeysetPagination.decodeCursor(KeysetPagination.encodeCursor(-1L)));
+  }
+
+  /**
+   * Test that a date cursor decodes back to the date and ID it was encoded from, and starts before the first row when missing.
+   */
+  @Test
+  void testDateCursorRoundTrip() {
+    String cursor = KeysetPagination.encodeCursor(LocalDate.of(2024, 3, 1), 12345L);
+
+    assertEquals(new DateKey(LocalDate.of(2024, 3, 1), 12345L), KeysetPagination.decodeDateCursor(cursor));
+    assertEquals(new DateKey(null, 0L), KeysetPagination.decodeDateCursor(null));
+  }
+
+  /**
+   * Test that date cursors which were not produced by encodeCursor are rejected.
+   */
+  @Test
+  void testInvalidDateCursorIsRejected() {
+    assertNull(KeysetPagination.decodeDateCursor("not a cursor"));
+    assertNull(KeysetPagination.decodeDateCursor(KeysetPagination.encodeCursor(12345L)));
+    assertNull(KeysetPagination.decodeDateCursor(KeysetPagination.encodeCursor(LocalDate.of(2024, 3, 1), -1L)));
+  }
+
+  /**
+   * Test the accepted range of page sizes.
+   */
+  @Test
+  void testIsValidLimit() {
+    assertFalse(KeysetPagination.isValidLimit(0));
+    assertTrue(KeysetPagination.isValidLimit(1));
+    assertTrue(KeysetPagination.isValidLimit(KeysetPagination.MAX_LIMIT));
+    assertFalse(KeysetPagination.isValidLimit(KeysetPagination.MAX_LIMIT + 1));
+  }
+
+  /**
+   * Test that a page followed by more rows links to the next page after its last row.
+   */
+  @Test
+  void testToResponseWithNextPage() {
+    List<Long> rows = List.of(3L, 7L);
+
+    ResponseEntity<List<Long>> response = KeysetPagination.toResponse(
+      new SliceImpl<>(rows, KeysetPagination.firstRows(2), true), id -> id, 2);
+
+    String nextCursor = response.getHeaders().getFirst(KeysetPagination.NEXT_CURSOR_HEADER);
+    assertEquals(7L, KeysetPagination.decodeCursor(nextCursor));
+    assertEquals("<?after=" + nextCursor + "&limit=2>; rel=\"next\"", response.getHeaders().getFirst(HttpHeaders.LINK));
+    assertEquals(rows, response.getBody());
+  }
+
+  /**
+   * Test that the last page has no next page headers.
+   */
+  @Test
+  void testToResponseOnLastPage() {
+    ResponseEntity<List<Long>> response = KeysetPagination.toResponse(
+      new SliceImpl<>(List.of(3L), KeysetPagination.firstRows(2), false), id -> id, 2);
+
+    assertFalse(response.getHeaders().containsKey(KeysetPagination.NEXT_CURSOR_HEADER));
+    assertFalse(response.getHeaders().containsKey(HttpHeaders.LINK));
+  }
+}
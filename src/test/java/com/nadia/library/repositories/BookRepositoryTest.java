@@ -0,0 +1,126 @@
+package com.nadia.library.repositories;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.nadia.library.models.Author;
+import com.nadia.library.models.Book;
+
+import jakarta.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Integration tests for BookRepository against an embedded database.
+ *
+ * Hibernate statistics are used to check that books are served from the second-level cache.
+ * The tests run outside of a test transaction because cache entries are only shared once committed.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class BookRepositoryTest {
+  @Autowired
+  private BookRepository bookRepository;
+
+  @Autowired
+  private AuthorRepository authorRepository;
+
+  @Autowired
+  private EntityManagerFactory entityManagerFactory;
+
+  private Book book;
+  private Statistics statistics;
+
+  @BeforeEach
+  void setUp() {
+    Author author = authorRepository.save(new Author("Test author", "Sweden"));
+    book = bookRepository.save(new Book(author.getId(), "Test book"));
+
+    statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    statistics.clear();
+  }
+
+  @AfterEach
+  void tearDown() {
+    bookRepository.deleteAll();
+    authorRepository.deleteAll();
+  }
+
+  /**
+   * Test that a book read by ID is served from the second-level cache.
+   *
+   * This test reads the same book twice, each time in its own transaction.
+   * It ensures that the book is never loaded from the database again after it was saved.
+   */
+  @Test
+  void testFindByIdIsCached() {
+    bookRepository.findById(book.getId());
+    bookRepository.findById(book.getId());
+
+    assertEquals(0, statistics.getEntityLoadCount());
+    assertEquals(2, statistics.getDomainDataRegionStatistics("book").getHitCount());
+  }
+
+  /**
+   * Test that an updated book is not served from a stale cache entry.
+   *
+   * This test updates the title of a cached book.
+   * It ensures that the next read returns the new title.
+   */
+  @Test
+  void testUpdateRefreshesCachedBook() {
+    Book cachedBook = bookRepository.findById(book.getId()).orElseThrow();
+    cachedBook.setTitle("Updated title");
+    bookRepository.save(cachedBook);
+
+    assertEquals("Updated title", bookRepository.findById(book.getId()).orElseThrow().getTitle());
+  }
+
+  /**
+   * Test that the natural-key lookup is served from the query cache until books change.
+   *
+   * This test runs the same author and title lookup twice, then adds a book and runs it again.
+   * It ensures that the second lookup is a query cache hit and that the change invalidates the cached result.
+   */
+  @Test
+  void testFindByAuthorIdAndTitleIsCached() {
+    assertNull(bookRepository.findByAuthorIdAndTitle(book.getAuthorId(), "Other book"));
+    assertNull(bookRepository.findByAuthorIdAndTitle(book.getAuthorId(), "Other book"));
+    assertEquals(1, statistics.getQueryCacheHitCount());
+
+    bookRepository.save(new Book(book.getAuthorId(), "Other book"));
+
+    assertFalse(bookRepository.findByAuthorIdAndTitle(book.getAuthorId(), "Other book") == null);
+  }
+
+  /**
+   * Test that a deleted book is evicted from the cache.
+   */
+  @Test
+  void testDeleteEvictsCachedBook() {
+    bookRepository.findById(book.getId());
+    bookRepository.deleteById(book.getId());
+
+    assertFalse(bookRepository.findById(book.getId()).isPresent());
+  }
+
+  /**
+   * Test that an author cannot have two books with the same title.
+   */
+  @Test
+  void testAuthorIdAndTitleAreUnique() {
+    assertThrows(DataIntegrityViolationException.class, () -> bookRepository.save(new Book(book.getAuthorId(), "Test book")));
+  }
+}
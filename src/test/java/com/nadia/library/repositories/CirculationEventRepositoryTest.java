@@ -0,0 +1,78 @@
+package com.nadia.library.repositories;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.nadia.library.dto.BookBalance;
+import com.nadia.library.dto.BookCount;
+import com.nadia.library.models.Author;
+import com.nadia.library.models.Book;
+import com.nadia.library.models.CirculationEvent;
+import com.nadia.library.models.CirculationEvent.Type;
+import com.nadia.library.models.Inventory;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Integration tests for the ledger queries against an embedded database.
+ */
+@DataJpaTest
+public class CirculationEventRepositoryTest {
+  @Autowired
+  private CirculationEventRepository eventRepository;
+
+  @Autowired
+  private InventoryRepository inventoryRepository;
+
+  @Autowired
+  private BookRepository bookRepository;
+
+  @Autowired
+  private AuthorRepository authorRepository;
+
+  /**
+   * Test that the events of a time range are summed per book.
+   */
+  @Test
+  void testSumByBook() {
+    Instant before = Instant.now().minus(1, ChronoUnit.SECONDS);
+    eventRepository.saveAll(List.of(
+      new CirculationEvent(Type.STOCK_ADJUSTMENT, 1L, null, null, 3),
+      new CirculationEvent(Type.CHECKOUT, 1L, 10L, 100L, -1),
+      new CirculationEvent(Type.CHECKOUT, 1L, 11L, 101L, -1),
+      new CirculationEvent(Type.RENEWAL, 1L, 10L, 100L, 0),
+      new CirculationEvent(Type.RETURN, 1L, 10L, 100L, 1),
+      new CirculationEvent(Type.CHECKOUT, 2L, 10L, 102L, -1)
+    ));
+
+    List<BookBalance> balances = eventRepository.sumByBook(before, Instant.now().plus(1, ChronoUnit.SECONDS));
+    BookBalance first = balances.stream().filter(balance -> balance.getBookId() == 1L).findFirst().orElseThrow();
+
+    assertEquals(2, balances.size());
+    assertEquals(2L, first.getStockDelta());
+    assertEquals(1L, first.getLoanDelta());
+    assertEquals(List.of(), eventRepository.sumByBook(Instant.EPOCH, before));
+  }
+
+  /**
+   * Test that the stock of every book is read as a count.
+   */
+  @Test
+  void testFindStockByBook() {
+    Author author = authorRepository.save(new Author("Test author", "Sweden"));
+    Book book = bookRepository.save(new Book(author.getId(), "Test book"));
+    inventoryRepository.save(new Inventory(book.getId(), 4));
+
+    List<BookCount> stock = inventoryRepository.findStockByBook();
+
+    assertEquals(1, stock.size());
+    assertEquals(book.getId(), stock.get(0).getBookId());
+    assertEquals(4L, stock.get(0).getCount());
+  }
+}
@@ -0,0 +1,160 @@
+package com.nadia.library.repositories;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.nadia.library.models.Author;
+import com.nadia.library.models.Book;
+import com.nadia.library.models.Inventory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Integration tests for InventoryRepository against an embedded database.
+ *
+ * The tests run outside of a test transaction so that concurrent threads see each other's commits.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class InventoryRepositoryTest {
+  @Autowired
+  private InventoryRepository inventoryRepository;
+
+  @Autowired
+  private BookRepository bookRepository;
+
+  @Autowired
+  private AuthorRepository authorRepository;
+
+  private static final int COPIES_IN_STOCK = 50;
+  private static final int CHECKOUT_ATTEMPTS = 500;
+  private static final int THREADS = 16;
+
+  private Long bookId;
+
+  @BeforeEach
+  void setUp() {
+    Author author = authorRepository.save(new Author("Test author", "Sweden"));
+    Book book = bookRepository.save(new Book(author.getId(), "Test book"));
+    inventoryRepository.save(new Inventory(book.getId(), COPIES_IN_STOCK));
+    bookId = book.getId();
+  }
+
+  @AfterEach
+  void tearDown() {
+    inventoryRepository.deleteAll();
+    bookRepository.deleteAll();
+    authorRepository.deleteAll();
+  }
+
+  /**
+   * Test that decrementing the inventory stops at 0.
+   *
+   * This test takes every copy of a book and then tries once more.
+   * It ensures that the last attempt updates no row and that the in-stock value stays at 0.
+   */
+  @Test
+  void testDecrementInventoryStopsAtZero() {
+    for (int i = 0; i < COPIES_IN_STOCK; i++) {
+      assertEquals(1, inventoryRepository.decrementInventory(bookId));
+    }
+
+    assertEquals(0, inventoryRepository.decrementInventory(bookId));
+    assertEquals(0, inventoryRepository.inventoryInStockValue(bookId));
+  }
+
+  /**
+   * Test that concurrent checkouts of the same book never oversell it.
+   *
+   * This test runs many more checkout attempts than there are copies from several threads at once.
+   * It ensures that exactly as many checkouts succeed as there were copies in stock and that the
+   * in-stock value ends at 0.
+   */
+  @Test
+  void testConcurrentDecrementInventoryNeverOversells() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<Integer>> attempts = new ArrayList<>();
+
+    for (int i = 0; i < CHECKOUT_ATTEMPTS; i++) {
+      attempts.add(executor.submit(() -> {
+        start.await();
+        return inventoryRepository.decrementInventory(bookId);
+      }));
+    }
+
+    start.countDown();
+
+    int successfulCheckouts = 0;
+    for (Future<Integer> attempt : attempts) {
+      successfulCheckouts += attempt.get(30, TimeUnit.SECONDS);
+    }
+
+    executor.shutdown();
+
+    assertEquals(COPIES_IN_STOCK, successfulCheckouts);
+    assertEquals(0, inventoryRepository.inventoryInStockValue(bookId));
+  }
+
+  /**
+   * Test that a batch of decrements takes copies in order until none is left.
+   *
+   * This test asks for one more copy than there are in stock, in a single batch.
+   * It ensures that every entry but the last one takes a copy and that the in-stock value ends at 0.
+   */
+  @Test
+  void testDecrementInventoriesInBatch() {
+    List<Long> bookIds = new ArrayList<>();
+    for (int i = 0; i <= COPIES_IN_STOCK; i++) {
+      bookIds.add(bookId);
+    }
+
+    int[] copiesTaken = inventoryRepository.decrementInventories(bookIds);
+
+    assertEquals(COPIES_IN_STOCK + 1, copiesTaken.length);
+    assertEquals(1, copiesTaken[0]);
+    assertEquals(1, copiesTaken[COPIES_IN_STOCK - 1]);
+    assertEquals(0, copiesTaken[COPIES_IN_STOCK]);
+    assertEquals(0, inventoryRepository.inventoryInStockValue(bookId));
+  }
+
+  /**
+   * Test that incrementing the inventory adds one copy.
+   *
+   * This test returns a copy of a book to the inventory.
+   * It ensures that one row is updated and that the in-stock value goes up by one.
+   */
+  @Test
+  void testIncrementInventory() {
+    assertEquals(1, inventoryRepository.incrementInventory(bookId));
+    assertEquals(COPIES_IN_STOCK + 1, inventoryRepository.inventoryInStockValue(bookId));
+  }
+
+  /**
+   * Test that stock changes of several books are added in a single batch.
+   *
+   * This test adds a negative change to a book and a change to a book that has no inventory item.
+   * It ensures that the in-stock value of the first book changes and that the second change is ignored.
+   */
+  @Test
+  void testAddToInventories() {
+    inventoryRepository.addToInventories(Map.of(bookId, -3, bookId + 1000, 5));
+
+    assertEquals(COPIES_IN_STOCK - 3, inventoryRepository.inventoryInStockValue(bookId));
+  }
+}
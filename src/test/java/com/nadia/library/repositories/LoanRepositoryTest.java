@@ -0,0 +1,165 @@
+package com.nadia.library.repositories;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.nadia.library.dto.UserLoan;
+import com.nadia.library.models.Author;
+import com.nadia.library.models.Book;
+import com.nadia.library.models.Loan;
+import com.nadia.library.models.Loan.Status;
+import com.nadia.library.models.User;
+import com.nadia.library.pagination.KeysetPagination;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import jakarta.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Integration tests for LoanRepository against an embedded database.
+ *
+ * Hibernate statistics are enabled to count the JDBC statements sent by each operation.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+public class LoanRepositoryTest {
+  @Autowired
+  private LoanRepository loanRepository;
+
+  @Autowired
+  private BookRepository bookRepository;
+
+  @Autowired
+  private AuthorRepository authorRepository;
+
+  @Autowired
+  private UserRepository userRepository;
+
+  @Autowired
+  private TestEntityManager entityManager;
+
+  @Autowired
+  private EntityManagerFactory entityManagerFactory;
+
+  private static final int LOAN_COUNT = 200;
+  private static final int BORROWER_COUNT = 10;
+
+  private Book book;
+  private User user;
+  private Statistics statistics;
+
+  @BeforeEach
+  void setUp() {
+    Author author = authorRepository.save(new Author("Test author", "Sweden"));
+    book = bookRepository.save(new Book(author.getId(), "Test book"));
+    user = userRepository.save(new User("Test user", "123 Main St.", "user@example.com"));
+    entityManager.flush();
+    entityManager.clear();
+
+    statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    statistics.clear();
+  }
+
+  /**
+   * Test that saving many loans sends the inserts in JDBC batches.
+   *
+   * This test saves many loans at once.
+   * It ensures that every loan is inserted while only a few statements and batches are sent to the database.
+   */
+  @Test
+  void testSaveAllInsertsInBatches() {
+    List<Loan> loans = new ArrayList<>();
+    for (int i = 0; i < LOAN_COUNT; i++) {
+      loans.add(new Loan(book.getId(), user.getId(), Status.NEW_LOAN, LocalDate.now()));
+    }
+
+    loanRepository.saveAll(loans);
+    entityManager.flush();
+
+    assertEquals(LOAN_COUNT, statistics.getEntityInsertCount());
+    assertTrue(statistics.getPrepareStatementCount() < 20,
+      "expected batched inserts, got " + statistics.getPrepareStatementCount() + " statements");
+  }
+
+  /**
+   * Test that listing loans takes a single SQL statement however many books and users they refer to.
+   *
+   * This test lends a different book to each of several users and then reads a page of loans.
+   * It ensures that the page is read with one statement and that no book or user is loaded.
+   */
+  @Test
+  void testFindByIdGreaterThanDoesNotLoadBooksOrUsers() {
+    Author author = authorRepository.save(new Author("Other author", "France"));
+    for (int i = 0; i < BORROWER_COUNT; i++) {
+      Book borrowedBook = bookRepository.save(new Book(author.getId(), "Book " + i));
+      User borrower = userRepository.save(new User("User " + i, "456 Main St.", "user" + i + "@example.com"));
+      loanRepository.save(new Loan(borrowedBook.getId(), borrower.getId(), Status.NEW_LOAN, LocalDate.now()));
+    }
+    entityManager.flush();
+    entityManager.clear();
+    statistics.clear();
+
+    List<Loan> loans = loanRepository.findByIdGreaterThan(0L, KeysetPagination.firstRows(100)).getContent();
+
+    assertEquals(BORROWER_COUNT, loans.size());
+    assertEquals(1, statistics.getPrepareStatementCount());
+    assertEquals(BORROWER_COUNT, statistics.getEntityLoadCount());
+  }
+
+  /**
+   * Test that the loans of a user are read as projections with a single statement, oldest first.
+   *
+   * This test lends books to two users and then reads a page of the loans of one of them.
+   * It ensures that only that user's loans are returned, in loan date order, without loading any entity.
+   */
+  @Test
+  void testFindByUserIdReturnsProjectionsOldestFirst() {
+    User otherUser = userRepository.save(new User("Other user", "456 Main St.", "other@example.com"));
+    loanRepository.save(new Loan(book.getId(), user.getId(), Status.NEW_LOAN, LocalDate.now()));
+    loanRepository.save(new Loan(book.getId(), otherUser.getId(), Status.NEW_LOAN, LocalDate.now().minusDays(1)));
+    loanRepository.save(new Loan(book.getId(), user.getId(), Status.RENEWAL, LocalDate.now().minusDays(3)));
+    entityManager.flush();
+    entityManager.clear();
+    statistics.clear();
+
+    List<UserLoan> loans = loanRepository.findByUserId(user.getId(), PageRequest.of(0, 10, Sort.by("loanDate", "id"))).getContent();
+
+    assertEquals(2, loans.size());
+    assertEquals(LocalDate.now().minusDays(3), loans.get(0).getLoanDate());
+    assertEquals(Status.RENEWAL, loans.get(0).getStatus());
+    assertEquals(LocalDate.now(), loans.get(1).getLoanDate());
+    assertEquals(1, statistics.getPrepareStatementCount());
+    assertEquals(0, statistics.getEntityLoadCount());
+  }
+
+  /**
+   * Test that the loans of a user are continued after a loan date and ID, including loans of the same date.
+   *
+   * This test lends three books on two dates and reads the loans after the first of them.
+   * It ensures that the loan of the same date with a greater ID is included, and nothing before the key.
+   */
+  @Test
+  void testFindByUserIdAfterContinuesFromKey() {
+    Loan first = loanRepository.save(new Loan(book.getId(), user.getId(), Status.NEW_LOAN, LocalDate.now().minusDays(3)));
+    Loan sameDay = loanRepository.save(new Loan(book.getId(), user.getId(), Status.NEW_LOAN, LocalDate.now().minusDays(3)));
+    Loan later = loanRepository.save(new Loan(book.getId(), user.getId(), Status.NEW_LOAN, LocalDate.now()));
+    entityManager.flush();
+    entityManager.clear();
+
+    List<UserLoan> loans = loanRepository.findByUserIdAfter(user.getId(), first.getLoanDate(), first.getId(), PageRequest.ofSize(10)).getContent();
+
+    assertEquals(List.of(sameDay.getId(), later.getId()), loans.stream().map(UserLoan::getId).toList());
+  }
+}
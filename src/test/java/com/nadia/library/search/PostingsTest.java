@@ -0,0 +1,67 @@
+package com.nadia.library.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for Postings class.
+ */
+public class PostingsTest {
+  private static Map<Long, Integer> contents(Postings postings) {
+    Map<Long, Integer> contents = new HashMap<>();
+
+    for (int i = 0; i < postings.size(); i++) {
+      contents.put(postings.bookId(i), postings.frequency(i));
+    }
+
+    return contents;
+  }
+
+  /**
+   * Test that books are removed from short lists, and that unknown books are ignored.
+   */
+  @Test
+  void testRemoveFromShortList() {
+    Postings postings = new Postings();
+    postings.add(1L, 1);
+    postings.add(2L, 2);
+    postings.add(3L, 3);
+
+    postings.remove(1L);
+    postings.remove(99L);
+
+    assertEquals(Map.of(2L, 2, 3L, 3), contents(postings));
+  }
+
+  /**
+   * Test that books are removed from long lists, whose positions are kept in a map, in any order.
+   */
+  @Test
+  void testRemoveFromLongList() {
+    Postings postings = new Postings();
+    Map<Long, Integer> expected = new HashMap<>();
+
+    for (long bookId = 1; bookId <= Postings.INDEXED_SIZE * 3; bookId++) {
+      postings.add(bookId, (int) bookId);
+      expected.put(bookId, (int) bookId);
+    }
+
+    for (long bookId = 1; bookId <= Postings.INDEXED_SIZE * 3; bookId += 3) {
+      postings.remove(bookId);
+      expected.remove(bookId);
+    }
+
+    postings.remove(Postings.INDEXED_SIZE * 3L);
+    expected.remove(Postings.INDEXED_SIZE * 3L);
+    postings.add(1000L, 7);
+    expected.put(1000L, 7);
+    postings.remove(2L);
+    expected.remove(2L);
+
+    assertEquals(expected, contents(postings));
+  }
+}
@@ -0,0 +1,177 @@
+package com.nadia.library.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.nadia.library.dto.BookSearchHit;
+import com.nadia.library.models.Book;
+
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Unit tests for TitleSearchIndex class.
+ */
+public class TitleSearchIndexTest {
+  private TitleSearchIndex index;
+
+  @BeforeEach
+  void setUp() {
+    index = new TitleSearchIndex();
+    index.put(book(1L, 10L, "The Name of the Rose"), "Umberto Eco");
+    index.put(book(2L, 20L, "Les Misérables"), "Victor Hugo");
+    index.put(book(3L, 20L, "Notre-Dame de Paris"), "Victor Hugo");
+    index.put(book(4L, 30L, "A Rose for Emily"), "William Faulkner");
+  }
+
+  @AfterEach
+  void tearDown() {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+  }
+
+  private Book book(Long id, Long authorId, String title) {
+    Book book = new Book(authorId, title);
+    book.setId(id);
+    return book;
+  }
+
+  private List<Long> search(String query) {
+    return index.search(query, TitleSearchIndex.DEFAULT_LIMIT).stream().map(BookSearchHit::getBookId).toList();
+  }
+
+  /**
+   * Test that text is split into lowercase terms without accents or punctuation.
+   */
+  @Test
+  void testTokenize() {
+    assertEquals(List.of("les", "miserables", "notre", "dame", "1984"), TitleSearchIndex.tokenize("Les Misérables, Notre-Dame: 1984"));
+    assertEquals(List.of(), TitleSearchIndex.tokenize(" -- "));
+    assertEquals(List.of(), TitleSearchIndex.tokenize(null));
+  }
+
+  /**
+   * Test that every query term must match, in the title or the author name, regardless of accents.
+   */
+  @Test
+  void testSearchMatchesAllTerms() {
+    assertEquals(List.of(2L), search("miserables hugo"));
+    assertEquals(List.of(3L), search("NOTRE dame"));
+    assertEquals(List.of(), search("rose hugo"));
+    assertEquals(List.of(), search("?!"));
+  }
+
+  /**
+   * Test that the last query term also matches as a prefix.
+   */
+  @Test
+  void testSearchMatchesLastTermAsPrefix() {
+    assertEquals(List.of(2L, 3L), search("victor h"));
+    assertEquals(List.of(1L), search("umb"));
+    assertEquals(List.of(), search("umb eco"));
+  }
+
+  /**
+   * Test that a prefix matches every term it starts, however many there are.
+   */
+  @Test
+  void testPrefixMatchesWholeRange() {
+    for (long id = 100; id < 300; id++) {
+      index.put(book(id, 50L, "Volume" + id), "Anonymous");
+    }
+    index.put(book(300L, 60L, "Voyage au bout de la nuit"), "Louis-Ferdinand Celine");
+
+    assertEquals(List.of(300L), search("celine vo"));
+    assertEquals(201, index.search("vo", TitleSearchIndex.MAX_LIMIT * 3).size());
+  }
+
+  /**
+   * Test that a query made of a single character alone only matches that term, while longer ones are expanded.
+   */
+  @Test
+  void testShortPrefixAloneIsNotExpanded() {
+    index.put(book(5L, 40L, "V for Vendetta"), "Alan Moore");
+
+    assertEquals(List.of(5L), search("v"));
+    assertTrue(search("vi").containsAll(List.of(2L, 3L)));
+  }
+
+  /**
+   * Test that rarer terms and shorter documents rank first, and that the limit is applied.
+   */
+  @Test
+  void testSearchRanking() {
+    index.put(book(5L, 40L, "Rose"), "Anonymous");
+
+    List<BookSearchHit> hits = index.search("rose", 2);
+
+    assertEquals(2, hits.size());
+    assertEquals(5L, hits.get(0).getBookId());
+    assertTrue(hits.get(0).getScore() > hits.get(1).getScore());
+  }
+
+  /**
+   * Test that updated and removed books are re-indexed.
+   */
+  @Test
+  void testPutReplacesAndRemoveDeletes() {
+    index.put(book(1L, 10L, "Foucault's Pendulum"), "Umberto Eco");
+
+    assertEquals(List.of(4L), search("rose"));
+    assertEquals(List.of(1L), search("pendulum"));
+
+    index.remove(1L);
+    index.remove(99L);
+
+    assertEquals(List.of(), search("eco"));
+    assertEquals(3, index.size());
+  }
+
+  /**
+   * Test that renaming an author re-indexes all of their books.
+   */
+  @Test
+  void testRenameAuthor() {
+    index.renameAuthor(20L, "V. Hugo");
+
+    assertEquals(List.of(), search("victor"));
+    assertEquals(List.of(2L, 3L), search("hugo"));
+    assertEquals("V. Hugo", index.search("paris", 1).get(0).getAuthorName());
+  }
+
+  /**
+   * Test that changes made inside a transaction are only applied when it commits.
+   */
+  @Test
+  void testChangesWaitForCommit() {
+    TransactionSynchronizationManager.initSynchronization();
+
+    index.put(book(5L, 10L, "Foucault's Pendulum"), "Umberto Eco");
+    index.remove(1L);
+
+    assertEquals(List.of(1L), search("eco"));
+    TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+    assertEquals(List.of(5L), search("eco"));
+  }
+
+  /**
+   * Test that renaming an author inside a transaction only re-indexes their books when it commits.
+   */
+  @Test
+  void testRenameAuthorWaitsForCommit() {
+    TransactionSynchronizationManager.initSynchronization();
+
+    index.renameAuthor(20L, "V. M. Hugo");
+
+    assertEquals(List.of(2L, 3L), search("victor"));
+    TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+    assertEquals(List.of(), search("victor"));
+    assertEquals(List.of(2L, 3L), search("hugo"));
+  }
+}
@@ -8,13 +8,23 @@ import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import com.nadia.library.conditional.ChangeTracker;
+import com.nadia.library.conditional.ChangeTracker.Table;
+import com.nadia.library.export.NdjsonWriter;
+import com.nadia.library.index.ExistenceIndex;
+import com.nadia.library.index.ExistenceIndex.Kind;
 import com.nadia.library.models.Author;
+import com.nadia.library.pagination.KeysetPagination;
 import com.nadia.library.repositories.AuthorRepository;
+import com.nadia.library.search.TitleSearchIndex;
 
+import java.io.ByteArrayOutputStream;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
@@ -31,6 +41,18 @@ public class AuthorServiceTest {
   @Mock
   private AuthorRepository authorRepository;
 
+  @Mock
+  private ExistenceIndex existenceIndex;
+
+  @Mock
+  private TitleSearchIndex titleSearchIndex;
+
+  @Mock
+  private ChangeTracker changeTracker;
+
+  @Mock
+  private NdjsonWriter ndjsonWriter;
+
   @InjectMocks
   private AuthorService authorService;
 
@@ -48,12 +70,29 @@ public class AuthorServiceTest {
   @Test
   void testGetAllAuthors() {
     List<Author> authors = new ArrayList<>();
-    when(authorRepository.findAll()).thenReturn(authors);
+    when(authorRepository.findByIdGreaterThan(any(), any())).thenReturn(new SliceImpl<>(authors));
+
+    ResponseEntity<List<Author>> result = authorService.getAllAuthors(null, KeysetPagination.DEFAULT_LIMIT);
+
+    assertEquals(HttpStatus.OK, result.getStatusCode());
+    assertNotNull(result.getBody());
+    assertEquals(authors, result.getBody());
+  }
+
+  /**
+   * Test to verify the export of all authors as newline-delimited JSON.
+   *
+   * This test checks if the service writes the stream of authors read from the repository to the output stream.
+   */
+  @Test
+  void testExportAllAuthors() throws Exception {
+    Stream<Author> authors = Stream.empty();
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    when(authorRepository.streamAll()).thenReturn(authors);
 
-    List<Author> result = authorService.getAllAuthors();
+    authorService.exportAllAuthors(out);
 
-    assertNotNull(result);
-    assertEquals(authors, result);
+    verify(ndjsonWriter, times(1)).write(authors, out);
   }
 
   /**
@@ -154,6 +193,8 @@ public class AuthorServiceTest {
     assertEquals(updatedAuthor, result.getBody());
     assertEquals("Updated name", existingAuthor.getName());
     assertEquals("Updated country", existingAuthor.getCountry());
+    verify(titleSearchIndex, times(1)).renameAuthor(authorId, "Updated name");
+    verify(changeTracker, times(1)).recordChange(Table.AUTHOR, authorId);
   }
 
   /**
@@ -193,6 +234,8 @@ public class AuthorServiceTest {
 
     assertEquals(HttpStatus.NO_CONTENT, result.getStatusCode());
     verify(authorRepository, times(1)).delete(authorToDelete);
+    verify(existenceIndex, times(1)).remove(Kind.AUTHOR, authorId);
+    verify(changeTracker, times(1)).recordChange(Table.AUTHOR, authorId);
   }
 
   /**
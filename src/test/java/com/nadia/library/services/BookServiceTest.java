@@ -3,27 +3,58 @@ package com.nadia.library.services;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import com.nadia.library.conditional.ChangeTracker;
+import com.nadia.library.conditional.ChangeTracker.Table;
+import com.nadia.library.dto.BookImportResult;
+import com.nadia.library.dto.BookImportRow;
+import com.nadia.library.dto.BookSearchHit;
+import com.nadia.library.export.NdjsonWriter;
+import com.nadia.library.index.ExistenceIndex;
+import com.nadia.library.index.ExistenceIndex.Kind;
+import com.nadia.library.ingest.CatalogReader;
+import com.nadia.library.ingest.CatalogReader.Chunk;
+import com.nadia.library.ingest.CatalogReader.Format;
+import com.nadia.library.inventory.InventoryLocks;
+import com.nadia.library.inventory.WriteBehindInventory;
+import com.nadia.library.ledger.CirculationLedger;
+import com.nadia.library.models.Author;
 import com.nadia.library.models.Book;
 import com.nadia.library.models.Inventory;
+import com.nadia.library.pagination.KeysetPagination;
 import com.nadia.library.repositories.AuthorRepository;
 import com.nadia.library.repositories.BookRepository;
 import com.nadia.library.repositories.InventoryRepository;
 import com.nadia.library.repositories.LoanRepository;
+import com.nadia.library.search.TitleSearchIndex;
+import com.nadia.library.stream.InventoryChangedEvent;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
@@ -41,9 +72,39 @@ public class BookServiceTest {
   @Mock
   private LoanRepository loanRepository;
 
+  @Mock
+  private ExistenceIndex existenceIndex;
+
+  @Mock
+  private NdjsonWriter ndjsonWriter;
+
   @Mock
   private AuthorRepository authorRepository;
 
+  @Mock
+  private TitleSearchIndex titleSearchIndex;
+
+  @Mock
+  private CirculationLedger circulationLedger;
+
+  @Mock
+  private ChangeTracker changeTracker;
+
+  @Mock
+  private InventoryLocks inventoryLocks;
+
+  @Mock
+  private WriteBehindInventory writeBehindInventory;
+
+  @Mock
+  private CatalogReader catalogReader;
+
+  @Mock
+  private PlatformTransactionManager transactionManager;
+
+  @Mock
+  private ApplicationEventPublisher eventPublisher;
+
   @InjectMocks
   private BookService bookService;
 
@@ -82,12 +143,43 @@ public class BookServiceTest {
   @Test
   void testGetAllBooks() {
     List<Book> books = new ArrayList<>();
-    when(bookRepository.findAll()).thenReturn(books);
+    when(bookRepository.findByIdGreaterThan(any(), any())).thenReturn(new SliceImpl<>(books));
+
+    ResponseEntity<List<Book>> result = bookService.getAllBooks(null, KeysetPagination.DEFAULT_LIMIT);
+
+    assertEquals(HttpStatus.OK, result.getStatusCode());
+    assertNotNull(result.getBody());
+    assertEquals(books, result.getBody());
+  }
+
+  /**
+   * Test to verify the export of all books as newline-delimited JSON.
+   *
+   * This test checks if the service writes the stream of books read from the repository to the output stream.
+   */
+  @Test
+  void testExportAllBooks() throws Exception {
+    Stream<Book> books = Stream.empty();
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    when(bookRepository.streamAll()).thenReturn(books);
 
-    List<Book> result = bookService.getAllBooks();
+    bookService.exportAllBooks(out);
 
-    assertNotNull(result);
-    assertEquals(books, result);
+    verify(ndjsonWriter, times(1)).write(books, out);
+  }
+
+  /**
+   * Test to retrieve a page of books with an invalid cursor.
+   *
+   * This test validates the behavior when the cursor was not produced by the service.
+   * It ensures that a BAD_REQUEST status response is returned without querying the repository.
+   */
+  @Test
+  void testGetAllBooksWithInvalidCursor() {
+    ResponseEntity<List<Book>> result = bookService.getAllBooks("not a cursor", KeysetPagination.DEFAULT_LIMIT);
+
+    assertEquals(HttpStatus.BAD_REQUEST, result.getStatusCode());
+    verify(bookRepository, never()).findByIdGreaterThan(any(), any());
   }
 
   /**
@@ -122,6 +214,35 @@ public class BookServiceTest {
     assertEquals(HttpStatus.NOT_FOUND, result.getStatusCode());
   }
 
+  /**
+   * Test to search books with a valid query.
+   *
+   * This test verifies that the hits found by the title search index are returned with an OK status.
+   */
+  @Test
+  void testSearchBooks() {
+    List<BookSearchHit> hits = List.of(new BookSearchHit(EXISTING_BOOK_ID, EXISTING_AUTHOR_ID, "Test book", "Test author", 1.5));
+    when(titleSearchIndex.search("test bo", 10)).thenReturn(hits);
+
+    ResponseEntity<List<BookSearchHit>> result = bookService.searchBooks("test bo", 10);
+
+    assertEquals(HttpStatus.OK, result.getStatusCode());
+    assertEquals(hits, result.getBody());
+  }
+
+  /**
+   * Test to search books with a blank query or an invalid limit.
+   *
+   * This test ensures that a BAD_REQUEST status response is returned without searching.
+   */
+  @Test
+  void testSearchBooksWithInvalidParameters() {
+    assertEquals(HttpStatus.BAD_REQUEST, bookService.searchBooks("  ", 10).getStatusCode());
+    assertEquals(HttpStatus.BAD_REQUEST, bookService.searchBooks("test", 0).getStatusCode());
+    assertEquals(HttpStatus.BAD_REQUEST, bookService.searchBooks("test", TitleSearchIndex.MAX_LIMIT + 1).getStatusCode());
+    verify(titleSearchIndex, never()).search(any(), anyInt());
+  }
+
   /**
    * Test to add a book when the author exists and the book does not already exist.
    *
@@ -131,14 +252,20 @@ public class BookServiceTest {
   @Test
   void testAddBook() {
     Book newBook = createMockBook();
-    when(authorRepository.existsById(EXISTING_AUTHOR_ID)).thenReturn(true);
+    when(existenceIndex.exists(Kind.AUTHOR, EXISTING_AUTHOR_ID)).thenReturn(true);
     when(bookRepository.findByAuthorIdAndTitle(newBook.getAuthorId(), newBook.getTitle())).thenReturn(null);
     when(bookRepository.save(newBook)).thenReturn(newBook);
+    Author author = new Author();
+    author.setName("Test author");
+    when(authorRepository.findById(EXISTING_AUTHOR_ID)).thenReturn(Optional.of(author));
 
     ResponseEntity<Book> result = bookService.addBook(newBook);
 
     assertEquals(HttpStatus.CREATED, result.getStatusCode());
     assertEquals(newBook, result.getBody());
+    verify(existenceIndex, times(1)).add(Kind.BOOK, newBook.getId());
+    verify(titleSearchIndex, times(1)).put(newBook, "Test author");
+    verify(circulationLedger, times(1)).recordStockAdjustment(newBook.getId(), 1);
   }
 
   /**
@@ -152,14 +279,17 @@ public class BookServiceTest {
   @Test
   void testAddBookWhenBookAlreadyExists() {
     Book existingBook = createMockBook();
-    when(authorRepository.existsById(EXISTING_AUTHOR_ID)).thenReturn(true);
+    when(existenceIndex.exists(Kind.AUTHOR, EXISTING_AUTHOR_ID)).thenReturn(true);
     when(bookRepository.findByAuthorIdAndTitle(existingBook.getAuthorId(), existingBook.getTitle())).thenReturn(existingBook);
 
     ResponseEntity<Book> result = bookService.addBook(existingBook);
 
     assertEquals(HttpStatus.OK, result.getStatusCode());
     assertEquals(existingBook, result.getBody());
+    verify(inventoryLocks, times(1)).lock(existingBook.getId());
     verify(inventoryRepository, times(1)).incrementInventory(existingBook.getId());
+    verify(titleSearchIndex, never()).put(any(), any());
+    verify(circulationLedger, times(1)).recordStockAdjustment(existingBook.getId(), 1);
   }
 
   /**
@@ -171,7 +301,7 @@ public class BookServiceTest {
   @Test
   void testAddBookWhenAuthorDoesNotExist() {
     Book newBook = createMockBook();
-    when(authorRepository.existsById(EXISTING_AUTHOR_ID)).thenReturn(false);
+    when(existenceIndex.exists(Kind.AUTHOR, EXISTING_AUTHOR_ID)).thenReturn(false);
 
     ResponseEntity<Book> result = bookService.addBook(newBook);
 
@@ -201,6 +331,8 @@ public class BookServiceTest {
     assertEquals(updatedBook, result.getBody());
     assertEquals(2L, existingBook.getAuthorId());
     assertEquals("Updated title", existingBook.getTitle());
+    verify(titleSearchIndex, times(1)).put(updatedBook, null);
+    verify(changeTracker, times(1)).recordChange(Table.BOOK, EXISTING_BOOK_ID);
   }
 
   /**
@@ -244,6 +376,35 @@ public class BookServiceTest {
     assertEquals(HttpStatus.NO_CONTENT, result.getStatusCode());
     verify(bookRepository, times(1)).delete(existingBook);
     verify(inventoryRepository, times(1)).delete(existingInventory);
+    verify(existenceIndex, times(1)).remove(Kind.BOOK, EXISTING_BOOK_ID);
+    verify(titleSearchIndex, times(1)).remove(EXISTING_BOOK_ID);
+    verify(circulationLedger, times(1)).recordStockAdjustment(EXISTING_BOOK_ID, -existingInventory.getInStock());
+    verify(changeTracker, times(1)).recordChange(Table.BOOK, EXISTING_BOOK_ID);
+    verify(changeTracker, times(1)).recordChange(Table.INVENTORY, null);
+  }
+
+  /**
+   * Test to delete all copies of a write-behind book.
+   *
+   * This test checks that the copies removed are those of the write-behind stock, and that the stock is dropped.
+   */
+  @Test
+  void testDeleteAllBookCopiesOfWriteBehindBook() {
+    Book existingBook = createMockBook();
+    Inventory existingInventory = createMockInventory();
+
+    when(bookRepository.findById(EXISTING_BOOK_ID)).thenReturn(Optional.of(existingBook));
+    when(inventoryRepository.findByBookId(EXISTING_BOOK_ID)).thenReturn(existingInventory);
+    when(loanRepository.existsByBookId(EXISTING_BOOK_ID)).thenReturn(false);
+    when(writeBehindInventory.isWriteBehind(EXISTING_BOOK_ID)).thenReturn(true);
+    when(writeBehindInventory.inStock(EXISTING_BOOK_ID)).thenReturn(4L);
+
+    ResponseEntity<HttpStatus> result = bookService.deleteAllBookCopies(EXISTING_BOOK_ID);
+
+    assertEquals(HttpStatus.NO_CONTENT, result.getStatusCode());
+    verify(inventoryRepository, times(1)).delete(existingInventory);
+    verify(circulationLedger, times(1)).recordStockAdjustment(EXISTING_BOOK_ID, -4);
+    verify(writeBehindInventory, times(1)).forget(EXISTING_BOOK_ID);
   }
 
   /**
@@ -259,7 +420,8 @@ public class BookServiceTest {
     ResponseEntity<HttpStatus> result = bookService.deleteAllBookCopies(EXISTING_BOOK_ID);
 
     assertEquals(HttpStatus.NOT_FOUND, result.getStatusCode());
-    verify(authorRepository, never()).delete(any());
+    verify(bookRepository, never()).delete(any());
+    verify(existenceIndex, never()).remove(any(), any());
   }
 
   /**
@@ -278,6 +440,186 @@ public class BookServiceTest {
     ResponseEntity<HttpStatus> result = bookService.deleteAllBookCopies(EXISTING_BOOK_ID);
 
     assertEquals(HttpStatus.CONFLICT, result.getStatusCode());
-    verify(authorRepository, never()).delete(any());
+    verify(bookRepository, never()).delete(any());
+    verify(existenceIndex, never()).remove(any(), any());
+  }
+
+  /**
+   * Test to import a chunk of rows adding copies to an existing book and creating new books.
+   *
+   * This test checks that rows of the same book are merged, that existing books are found with a single query
+   * and get their copies in one batched update, that new books are created with their inventory,
+   * that rows whose author does not exist are rejected, and that the in-memory indexes and
+   * inventory events only follow once the chunk's transaction has committed.
+   */
+  @Test
+  @SuppressWarnings("unchecked")
+  void testImportBooks() throws Exception {
+    Book existingBook = createMockBook();
+    List<BookImportRow> rows = List.of(
+      row(EXISTING_AUTHOR_ID, "Test book", 2, 2),
+      row(EXISTING_AUTHOR_ID, "New book", 1, 3),
+      row(EXISTING_AUTHOR_ID, "Test book", 3, 4),
+      row(2L, "Unknown author", 1, 5)
+    );
+    feedChunk(new Chunk(rows, List.of("line 6: cannot be parsed")));
+    when(existenceIndex.exists(Kind.AUTHOR, EXISTING_AUTHOR_ID)).thenReturn(true);
+    when(bookRepository.findByAuthorIdInAndTitleIn(any(), any())).thenReturn(List.of(existingBook));
+    when(bookRepository.saveAll(any())).thenAnswer(invocation -> {
+      List<Book> books = invocation.getArgument(0);
+      books.forEach(book -> book.setId(2L));
+      return books;
+    });
+
+    ResponseEntity<BookImportResult> result = bookService.importBooks(new ByteArrayInputStream(new byte[0]), Format.CSV);
+
+    assertEquals(HttpStatus.OK, result.getStatusCode());
+    assertEquals(1, result.getBody().getBooksCreated());
+    assertEquals(6, result.getBody().getCopiesAdded());
+    assertEquals(2, result.getBody().getRowsRejected());
+    assertEquals(List.of("line 6: cannot be parsed", "line 5: author 2 does not exist"), result.getBody().getErrors());
+    verify(bookRepository, times(1)).findByAuthorIdInAndTitleIn(any(), any());
+    verify(inventoryRepository, times(1)).addToInventories(Map.of(EXISTING_BOOK_ID, 5));
+    ArgumentCaptor<List<Inventory>> inventories = ArgumentCaptor.forClass(List.class);
+    verify(inventoryRepository, times(1)).saveAll(inventories.capture());
+    assertEquals(1, inventories.getValue().size());
+    assertEquals(2L, inventories.getValue().get(0).getBookId());
+    assertEquals(1, inventories.getValue().get(0).getInStock());
+    verify(circulationLedger, times(1)).recordStockAdjustment(EXISTING_BOOK_ID, 5);
+    verify(circulationLedger, times(1)).recordStockAdjustment(2L, 1);
+    verify(existenceIndex, never()).add(Kind.BOOK, EXISTING_BOOK_ID);
+    InOrder afterCommit = inOrder(transactionManager, eventPublisher, existenceIndex, titleSearchIndex);
+    afterCommit.verify(transactionManager).commit(any());
+    afterCommit.verify(eventPublisher).publishEvent(new InventoryChangedEvent(EXISTING_BOOK_ID));
+    afterCommit.verify(eventPublisher).publishEvent(new InventoryChangedEvent(2L));
+    afterCommit.verify(existenceIndex).add(Kind.BOOK, 2L);
+    afterCommit.verify(titleSearchIndex).put(any(), any());
+  }
+
+  /**
+   * Test to import rows whose titles differ from the stored book only by case.
+   *
+   * This test checks that they add copies to the book found by the query, as addBook would,
+   * and that new titles differing only by case create a single book, under the first title seen.
+   */
+  @Test
+  @SuppressWarnings("unchecked")
+  void testImportBooksIgnoresTitleCase() throws Exception {
+    feedChunk(new Chunk(List.of(
+      row(EXISTING_AUTHOR_ID, "TEST BOOK", 1, 1),
+      row(EXISTING_AUTHOR_ID, "test book", 2, 2),
+      row(EXISTING_AUTHOR_ID, "New Book", 1, 3),
+      row(EXISTING_AUTHOR_ID, "new book", 1, 4)
+    ), List.of()));
+    when(existenceIndex.exists(Kind.AUTHOR, EXISTING_AUTHOR_ID)).thenReturn(true);
+    when(bookRepository.findByAuthorIdInAndTitleIn(any(), any())).thenReturn(List.of(createMockBook()));
+    when(bookRepository.saveAll(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+    ResponseEntity<BookImportResult> result = bookService.importBooks(new ByteArrayInputStream(new byte[0]), Format.CSV);
+
+    assertEquals(1, result.getBody().getBooksCreated());
+    assertEquals(5, result.getBody().getCopiesAdded());
+    verify(inventoryRepository, times(1)).addToInventories(Map.of(EXISTING_BOOK_ID, 3));
+    ArgumentCaptor<List<Book>> books = ArgumentCaptor.forClass(List.class);
+    verify(bookRepository, times(1)).saveAll(books.capture());
+    assertEquals(1, books.getValue().size());
+    assertEquals("New Book", books.getValue().get(0).getTitle());
+  }
+
+  /**
+   * Test to import rows whose titles differ from the stored book only by accents.
+   *
+   * This test checks that they add copies to the book found by the query, as the database collation ignores accents.
+   */
+  @Test
+  void testImportBooksIgnoresTitleAccents() throws Exception {
+    feedChunk(new Chunk(List.of(row(EXISTING_AUTHOR_ID, "Tést Böok", 2, 1)), List.of()));
+    when(existenceIndex.exists(Kind.AUTHOR, EXISTING_AUTHOR_ID)).thenReturn(true);
+    when(bookRepository.findByAuthorIdInAndTitleIn(any(), any())).thenReturn(List.of(createMockBook()));
+
+    ResponseEntity<BookImportResult> result = bookService.importBooks(new ByteArrayInputStream(new byte[0]), Format.CSV);
+
+    assertEquals(0, result.getBody().getBooksCreated());
+    verify(inventoryRepository, times(1)).addToInventories(Map.of(EXISTING_BOOK_ID, 2));
+    verify(bookRepository, never()).findByAuthorIdAndTitle(any(), any());
+  }
+
+  /**
+   * Test to import rows whose title the database equates with a stored book, but the import keys do not.
+   *
+   * This test checks that the remaining titles of the author are looked up by exact title,
+   * so that the copies go to the stored book instead of a duplicate, while other titles still create books.
+   */
+  @Test
+  @SuppressWarnings("unchecked")
+  void testImportBooksResolvesTitlesEquatedByTheDatabase() throws Exception {
+    Book existingBook = createMockBook();
+    existingBook.setTitle("Die Strasse");
+    feedChunk(new Chunk(List.of(
+      row(EXISTING_AUTHOR_ID, "Die Straße", 2, 1),
+      row(EXISTING_AUTHOR_ID, "Other book", 1, 2)
+    ), List.of()));
+    when(existenceIndex.exists(Kind.AUTHOR, EXISTING_AUTHOR_ID)).thenReturn(true);
+    when(bookRepository.findByAuthorIdInAndTitleIn(any(), any())).thenReturn(List.of(existingBook));
+    when(bookRepository.findByAuthorIdAndTitle(EXISTING_AUTHOR_ID, "Die Straße")).thenReturn(existingBook);
+    when(bookRepository.saveAll(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+    ResponseEntity<BookImportResult> result = bookService.importBooks(new ByteArrayInputStream(new byte[0]), Format.CSV);
+
+    assertEquals(1, result.getBody().getBooksCreated());
+    assertEquals(3, result.getBody().getCopiesAdded());
+    verify(inventoryRepository, times(1)).addToInventories(Map.of(EXISTING_BOOK_ID, 2));
+    verify(circulationLedger, times(1)).recordStockAdjustment(EXISTING_BOOK_ID, 2);
+    ArgumentCaptor<List<Book>> books = ArgumentCaptor.forClass(List.class);
+    verify(bookRepository, times(1)).saveAll(books.capture());
+    assertEquals(List.of("Other book"), books.getValue().stream().map(Book::getTitle).toList());
+  }
+
+  /**
+   * Test to import copies of a write-behind book.
+   *
+   * This test checks that the copies are added to the in-memory stock instead of the inventory table.
+   */
+  @Test
+  void testImportBooksToWriteBehindBook() throws Exception {
+    feedChunk(new Chunk(List.of(row(EXISTING_AUTHOR_ID, "Test book", 4, 1)), List.of()));
+    when(existenceIndex.exists(Kind.AUTHOR, EXISTING_AUTHOR_ID)).thenReturn(true);
+    when(bookRepository.findByAuthorIdInAndTitleIn(any(), any())).thenReturn(List.of(createMockBook()));
+    when(writeBehindInventory.isWriteBehind(EXISTING_BOOK_ID)).thenReturn(true);
+
+    ResponseEntity<BookImportResult> result = bookService.importBooks(new ByteArrayInputStream(new byte[0]), Format.CSV);
+
+    assertEquals(0, result.getBody().getBooksCreated());
+    assertEquals(4, result.getBody().getCopiesAdded());
+    verify(writeBehindInventory, times(1)).add(EXISTING_BOOK_ID, 4);
+    verify(inventoryRepository, never()).addToInventories(any());
+  }
+
+  /**
+   * Make the catalog reader hand over a single chunk, whatever the upload.
+   *
+   * @param chunk The chunk.
+   */
+  private void feedChunk(Chunk chunk) throws Exception {
+    doAnswer(invocation -> {
+      Consumer<Chunk> writer = invocation.getArgument(2);
+      writer.accept(chunk);
+      return null;
+    }).when(catalogReader).read(any(), any(), any());
+  }
+
+  /**
+   * Build a parsed import row.
+   *
+   * @param authorId The ID of the author.
+   * @param title    The title.
+   * @param copies   The number of copies.
+   * @param line     The line of the row.
+   * @return The row.
+   */
+  private static BookImportRow row(Long authorId, String title, int copies, long line) {
+    BookImportRow row = new BookImportRow(authorId, title, copies);
+    row.setLine(line);
+    return row;
   }
 }
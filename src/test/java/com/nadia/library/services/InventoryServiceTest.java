@@ -2,17 +2,29 @@ package com.nadia.library.services;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import com.nadia.library.inventory.InventoryLocks;
+import com.nadia.library.inventory.WriteBehindInventory;
+import com.nadia.library.ledger.CirculationLedger;
 import com.nadia.library.models.Inventory;
+import com.nadia.library.pagination.KeysetPagination;
 import com.nadia.library.repositories.InventoryRepository;
+import com.nadia.library.stream.InventoryBroadcaster;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.LongStream;
 
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -27,6 +39,18 @@ public class InventoryServiceTest {
   @Mock
   private InventoryRepository inventoryRepository;
 
+  @Mock
+  private InventoryBroadcaster inventoryBroadcaster;
+
+  @Mock
+  private CirculationLedger circulationLedger;
+
+  @Mock
+  private InventoryLocks inventoryLocks;
+
+  @Mock
+  private WriteBehindInventory writeBehindInventory;
+
   @InjectMocks
   private InventoryService inventoryService;
 
@@ -44,14 +68,34 @@ public class InventoryServiceTest {
    @Test
    void testGetAllInventory() {
     List<Inventory> allInventory = new ArrayList<>();
-    when(inventoryRepository.findAll()).thenReturn(allInventory);
+    when(inventoryRepository.findByIdGreaterThan(any(), any())).thenReturn(new SliceImpl<>(allInventory));
 
-    List<Inventory> result = inventoryService.getAllInventory();
+    ResponseEntity<List<Inventory>> result = inventoryService.getAllInventory(null, KeysetPagination.DEFAULT_LIMIT);
 
-    assertNotNull(result);
-    assertEquals(allInventory, result);
+    assertEquals(HttpStatus.OK, result.getStatusCode());
+    assertNotNull(result.getBody());
+    assertEquals(allInventory, result.getBody());
    }
 
+  /**
+   * Test to retrieve a page of inventory items including a write-behind book.
+   *
+   * This test ensures that only the write-behind book gets its in-stock value from memory.
+   */
+  @Test
+  void testGetAllInventoryWithWriteBehindBook() {
+    List<Inventory> allInventory = List.of(new Inventory(1L, 4), new Inventory(2L, 10));
+    when(inventoryRepository.findByIdGreaterThan(any(), any())).thenReturn(new SliceImpl<>(allInventory));
+    when(writeBehindInventory.isWriteBehind(2L)).thenReturn(true);
+    when(writeBehindInventory.inStock(2L)).thenReturn(7L);
+
+    ResponseEntity<List<Inventory>> result = inventoryService.getAllInventory(null, KeysetPagination.DEFAULT_LIMIT);
+
+    assertEquals(HttpStatus.OK, result.getStatusCode());
+    assertEquals(4, result.getBody().get(0).getInStock());
+    assertEquals(7, result.getBody().get(1).getInStock());
+  }
+
   /**
    * Test to retrieve an inventory item by ID when the inventory item exists in the repository.
    *
@@ -71,6 +115,30 @@ public class InventoryServiceTest {
     assertEquals(inventory, result.getBody());
   }
 
+  /**
+   * Test to retrieve the inventory item of a write-behind book.
+   *
+   * This test ensures that the in-stock value is read from the write-behind stock, not from the lagging row.
+   */
+  @Test
+  void testGetInventoryItemByIdOfWriteBehindBook() {
+    Long inventoryId = 1L;
+    Long bookId = 2L;
+    Inventory inventory = new Inventory(bookId, 10);
+    inventory.setId(inventoryId);
+    when(inventoryRepository.findById(inventoryId)).thenReturn(Optional.of(inventory));
+    when(writeBehindInventory.isWriteBehind(bookId)).thenReturn(true);
+    when(writeBehindInventory.inStock(bookId)).thenReturn(7L);
+
+    ResponseEntity<Inventory> result = inventoryService.getInventoryItemById(inventoryId);
+
+    assertEquals(HttpStatus.OK, result.getStatusCode());
+    assertEquals(inventoryId, result.getBody().getId());
+    assertEquals(bookId, result.getBody().getBookId());
+    assertEquals(7, result.getBody().getInStock());
+    assertEquals(10, inventory.getInStock());
+  }
+
   /**
    * Test to retrieve an inventory item by ID when the inventory item does not exist in the repository.
    *
@@ -113,6 +181,48 @@ public class InventoryServiceTest {
     assertEquals(HttpStatus.OK, result.getStatusCode());
     assertEquals(updatedInventory, result.getBody());
     assertEquals(20, existingInventory.getInStock()); // Additional validation for updated stock
+    verify(inventoryLocks).lock(bookId);
+    verify(circulationLedger).recordStockAdjustment(bookId, 10);
+  }
+
+  /**
+   * Test to update the stock of a write-behind book.
+   *
+   * This test checks that the copies removed are taken from the write-behind stock and that the row is not saved.
+   */
+  @Test
+  void testUpdateStockOfWriteBehindBook() {
+    Long bookId = 1L;
+    when(inventoryRepository.findByBookId(bookId)).thenReturn(new Inventory(bookId, 10));
+    when(writeBehindInventory.isWriteBehind(bookId)).thenReturn(true);
+    when(writeBehindInventory.inStock(bookId)).thenReturn(8L);
+    when(writeBehindInventory.take(bookId, 3)).thenReturn(true);
+
+    ResponseEntity<Inventory> result = inventoryService.updateStockofInventoryItemByBookId(bookId, new Inventory(bookId, 5));
+
+    assertEquals(HttpStatus.OK, result.getStatusCode());
+    assertEquals(5, result.getBody().getInStock());
+    verify(inventoryRepository, never()).save(any());
+    verify(circulationLedger).recordStockAdjustment(bookId, -3);
+  }
+
+  /**
+   * Test to update the stock of a write-behind book when too many copies were checked out meanwhile.
+   *
+   * This test ensures that a CONFLICT status response is returned and that nothing is recorded.
+   */
+  @Test
+  void testUpdateStockOfWriteBehindBookWhenCopiesAreMissing() {
+    Long bookId = 1L;
+    when(inventoryRepository.findByBookId(bookId)).thenReturn(new Inventory(bookId, 10));
+    when(writeBehindInventory.isWriteBehind(bookId)).thenReturn(true);
+    when(writeBehindInventory.inStock(bookId)).thenReturn(8L);
+    when(writeBehindInventory.take(bookId, 3)).thenReturn(false);
+
+    ResponseEntity<Inventory> result = inventoryService.updateStockofInventoryItemByBookId(bookId, new Inventory(bookId, 5));
+
+    assertEquals(HttpStatus.CONFLICT, result.getStatusCode());
+    verify(circulationLedger, never()).recordStockAdjustment(any(), anyInt());
   }
 
   /**
@@ -134,4 +244,34 @@ public class InventoryServiceTest {
 
     assertEquals(HttpStatus.NOT_FOUND, result.getStatusCode());
   }
+
+  /**
+   * Test to open an inventory event stream for some books.
+   *
+   * This test ensures that the stream opened by the broadcaster is returned with an OK status.
+   */
+  @Test
+  void testStreamInventory() {
+    SseEmitter emitter = new SseEmitter();
+    when(inventoryBroadcaster.subscribe(List.of(1L, 2L))).thenReturn(emitter);
+
+    ResponseEntity<SseEmitter> result = inventoryService.streamInventory(List.of(1L, 2L));
+
+    assertEquals(HttpStatus.OK, result.getStatusCode());
+    assertEquals(emitter, result.getBody());
+  }
+
+  /**
+   * Test to open an inventory event stream for no books or too many books.
+   *
+   * This test ensures that a BAD_REQUEST status response is returned and no stream is opened.
+   */
+  @Test
+  void testStreamInventoryWithInvalidBookIds() {
+    List<Long> tooMany = LongStream.rangeClosed(1, InventoryBroadcaster.MAX_BOOK_IDS + 1).boxed().toList();
+
+    assertEquals(HttpStatus.BAD_REQUEST, inventoryService.streamInventory(List.of()).getStatusCode());
+    assertEquals(HttpStatus.BAD_REQUEST, inventoryService.streamInventory(tooMany).getStatusCode());
+    verify(inventoryBroadcaster, never()).subscribe(any());
+  }
 }
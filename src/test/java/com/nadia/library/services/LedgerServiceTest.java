@@ -0,0 +1,89 @@
+package com.nadia.library.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.nadia.library.dto.LedgerDrift;
+import com.nadia.library.ledger.CirculationLedger;
+import com.nadia.library.models.CirculationEvent;
+import com.nadia.library.models.CirculationEvent.Type;
+import com.nadia.library.pagination.KeysetPagination;
+import com.nadia.library.repositories.CirculationEventRepository;
+
+import java.util.List;
+
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+/**
+ * Unit tests for LedgerService class.
+ */
+public class LedgerServiceTest {
+  @Mock
+  private CirculationEventRepository eventRepository;
+
+  @Mock
+  private CirculationLedger circulationLedger;
+
+  @InjectMocks
+  private LedgerService ledgerService;
+
+  @BeforeEach
+  void setUp() {
+    MockitoAnnotations.openMocks(this);
+  }
+
+  /**
+   * Test to retrieve the first page of the history of a book.
+   *
+   * This test ensures that the events of the book are returned with an OK status.
+   */
+  @Test
+  void testGetBookHistory() {
+    List<CirculationEvent> events = List.of(new CirculationEvent(Type.CHECKOUT, 1L, 2L, 3L, -1));
+    when(eventRepository.findByBookIdAndIdGreaterThan(eq(1L), eq(0L), any())).thenReturn(new SliceImpl<>(events));
+
+    ResponseEntity<List<CirculationEvent>> result = ledgerService.getBookHistory(1L, null, KeysetPagination.DEFAULT_LIMIT);
+
+    assertEquals(HttpStatus.OK, result.getStatusCode());
+    assertEquals(events, result.getBody());
+  }
+
+  /**
+   * Test to retrieve the history of a book with an invalid cursor.
+   *
+   * This test ensures that a BAD_REQUEST status response is returned without querying the ledger.
+   */
+  @Test
+  void testGetBookHistoryWithInvalidCursor() {
+    ResponseEntity<List<CirculationEvent>> result = ledgerService.getBookHistory(1L, "not a cursor", KeysetPagination.DEFAULT_LIMIT);
+
+    assertEquals(HttpStatus.BAD_REQUEST, result.getStatusCode());
+    verify(eventRepository, never()).findByBookIdAndIdGreaterThan(any(), any(), any());
+  }
+
+  /**
+   * Test to retrieve the books that drifted from the ledger.
+   */
+  @Test
+  void testGetDrift() {
+    List<LedgerDrift> drift = List.of(new LedgerDrift(1L, 2, 3, 0, 0));
+    when(circulationLedger.findDrift()).thenReturn(drift);
+
+    ResponseEntity<List<LedgerDrift>> result = ledgerService.getDrift();
+
+    assertEquals(HttpStatus.OK, result.getStatusCode());
+    assertEquals(drift, result.getBody());
+  }
+}
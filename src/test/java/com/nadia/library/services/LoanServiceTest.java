@@ -2,24 +2,41 @@ package com.nadia.library.services;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import com.nadia.library.dto.BatchLoanRequest;
+import com.nadia.library.dto.BatchLoanResult;
+import com.nadia.library.export.NdjsonWriter;
+import com.nadia.library.index.DueDateIndex;
+import com.nadia.library.index.ExistenceIndex;
+import com.nadia.library.index.ExistenceIndex.Kind;
+import com.nadia.library.inventory.InventoryLocks;
+import com.nadia.library.inventory.WriteBehindInventory;
+import com.nadia.library.ledger.CirculationLedger;
 import com.nadia.library.models.Loan;
 import com.nadia.library.models.Loan.Status;
+import com.nadia.library.pagination.KeysetPagination;
 import com.nadia.library.repositories.BookRepository;
 import com.nadia.library.repositories.InventoryRepository;
 import com.nadia.library.repositories.LoanRepository;
-import com.nadia.library.repositories.UserRepository;
 
+import java.io.ByteArrayOutputStream;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
@@ -43,7 +60,22 @@ public class LoanServiceTest {
   private BookRepository bookRepository;
 
   @Mock
-  private UserRepository userRepository;
+  private ExistenceIndex existenceIndex;
+
+  @Mock
+  private NdjsonWriter ndjsonWriter;
+
+  @Mock
+  private CirculationLedger circulationLedger;
+
+  @Mock
+  private DueDateIndex dueDateIndex;
+
+  @Mock
+  private InventoryLocks inventoryLocks;
+
+  @Mock
+  private WriteBehindInventory writeBehindInventory;
 
   @InjectMocks
   private LoanService loanService;
@@ -89,18 +121,35 @@ public class LoanServiceTest {
   @Test
   void testGetAllLoans() {
     List<Loan> loans = new ArrayList<>();
-    when(loanRepository.findAll()).thenReturn(loans);
+    when(loanRepository.findByIdGreaterThan(any(), any())).thenReturn(new SliceImpl<>(loans));
 
-    List<Loan> result = loanService.getAllLoans();
+    ResponseEntity<List<Loan>> result = loanService.getAllLoans(null, KeysetPagination.DEFAULT_LIMIT);
 
-    assertNotNull(result);
-    assertEquals(loans, result);
+    assertEquals(HttpStatus.OK, result.getStatusCode());
+    assertNotNull(result.getBody());
+    assertEquals(loans, result.getBody());
+  }
+
+  /**
+   * Test to verify the export of all loans as newline-delimited JSON.
+   *
+   * This test checks if the service writes the stream of loans read from the repository to the output stream.
+   */
+  @Test
+  void testExportAllLoans() throws Exception {
+    Stream<Loan> loans = Stream.empty();
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    when(loanRepository.streamAll()).thenReturn(loans);
+
+    loanService.exportAllLoans(out);
+
+    verify(ndjsonWriter, times(1)).write(loans, out);
   }
 
   /**
    * Test to verify the functionality of retrieving all late loans from the repository.
    *
-   * This test checks if the service retrieves only and all late loans from the repository.
+   * This test checks if the service retrieves the late loans with a range query on the loan date.
    * It ensures that the retrieved list is not null and its size matches the expected size.
    */
   @Test
@@ -108,14 +157,49 @@ public class LoanServiceTest {
     List<Loan> loans = new ArrayList<>();
     Loan lateLoan = createMockLateLoan();
     loans.add(lateLoan);
-    when(loanRepository.findAll()).thenReturn(loans);
+    when(loanRepository.findByLoanDateBefore(any(), any())).thenReturn(new SliceImpl<>(loans));
 
-    List<Loan> result = loanService.getAllLateLoans();
+    List<Loan> result = loanService.getAllLateLoans(LoanService.DEFAULT_LOAN_LENGTH, PageRequest.of(0, 20));
 
     assertNotNull(result);
     assertEquals(1, result.size());
   }
 
+  /**
+   * Test to verify that the loan length is used to compute the late loans cutoff date.
+   *
+   * This test checks that a loan length of 10 days queries loans made before 10 days ago.
+   */
+  @Test
+  void testGetAllLateLoansWithCustomLoanLength() {
+    when(loanRepository.findByLoanDateBefore(any(), any())).thenReturn(new SliceImpl<>(new ArrayList<>()));
+
+    loanService.getAllLateLoans(10, PageRequest.of(0, 20));
+
+    verify(loanRepository).findByLoanDateBefore(eq(LocalDate.now().minusDays(10)), any());
+  }
+
+  /**
+   * Test to retrieve the late loans from the due-date index once it is loaded.
+   *
+   * This test checks that the page of loan IDs read from the index is fetched by ID and returned in index order.
+   * It ensures that the range query on the loan date is not used.
+   */
+  @Test
+  void testGetAllLateLoansFromDueDateIndex() {
+    Loan firstLoan = createMockLateLoan();
+    Loan secondLoan = createMockLoan();
+    secondLoan.setId(2L);
+    when(dueDateIndex.isLoaded()).thenReturn(true);
+    when(dueDateIndex.findLoanedBefore(LocalDate.now().minusDays(10), 20, 10)).thenReturn(List.of(1L, 2L));
+    when(loanRepository.findAllById(List.of(1L, 2L))).thenReturn(List.of(secondLoan, firstLoan));
+
+    List<Loan> result = loanService.getAllLateLoans(10, PageRequest.of(2, 10));
+
+    assertEquals(List.of(firstLoan, secondLoan), result);
+    verify(loanRepository, never()).findByLoanDateBefore(any(), any());
+  }
+
   /**
    * Test to retrieve a loan by ID when the loan exists in the repository.
    *
@@ -157,15 +241,18 @@ public class LoanServiceTest {
   @Test
   void testCreateLoan() {
     Loan newLoan = createMockLoan();
-    when(bookRepository.existsById(EXISTING_BOOK_ID)).thenReturn(true);
-    when(userRepository.existsById(EXISTING_USER_ID)).thenReturn(true);
-    when(inventoryRepository.inventoryInStockValue(1L)).thenReturn(1);
+    when(existenceIndex.exists(Kind.BOOK, EXISTING_BOOK_ID)).thenReturn(true);
+    when(existenceIndex.exists(Kind.USER, EXISTING_USER_ID)).thenReturn(true);
+    when(inventoryRepository.decrementInventory(EXISTING_BOOK_ID)).thenReturn(1);
     when(loanRepository.save(newLoan)).thenReturn(newLoan);
 
     ResponseEntity<Loan> result = loanService.createLoan(newLoan);
 
     assertEquals(HttpStatus.CREATED, result.getStatusCode());
     assertEquals(newLoan, result.getBody());
+    verify(inventoryLocks, times(1)).lock(EXISTING_BOOK_ID);
+    verify(circulationLedger, times(1)).recordCheckouts(List.of(newLoan));
+    verify(dueDateIndex, times(1)).put(newLoan.getId(), newLoan.getLoanDate());
   }
 
   /**
@@ -177,8 +264,8 @@ public class LoanServiceTest {
   @Test
   void testCreateLoanWhenBookDoesNotExist() {
     Loan newLoan = createMockLoan();
-    when(bookRepository.existsById(EXISTING_BOOK_ID)).thenReturn(false);
-    when(userRepository.existsById(EXISTING_USER_ID)).thenReturn(true);
+    when(existenceIndex.exists(Kind.BOOK, EXISTING_BOOK_ID)).thenReturn(false);
+    when(existenceIndex.exists(Kind.USER, EXISTING_USER_ID)).thenReturn(true);
 
     ResponseEntity<Loan> result = loanService.createLoan(newLoan);
 
@@ -194,8 +281,8 @@ public class LoanServiceTest {
   @Test
   void testCreateLoanWhenUserDoesNotExist() {
     Loan newLoan = createMockLoan();
-    when(bookRepository.existsById(EXISTING_BOOK_ID)).thenReturn(true);
-    when(userRepository.existsById(EXISTING_USER_ID)).thenReturn(false);
+    when(existenceIndex.exists(Kind.BOOK, EXISTING_BOOK_ID)).thenReturn(true);
+    when(existenceIndex.exists(Kind.USER, EXISTING_USER_ID)).thenReturn(false);
 
     ResponseEntity<Loan> result = loanService.createLoan(newLoan);
 
@@ -211,13 +298,112 @@ public class LoanServiceTest {
   @Test
   void testCreateLoanWhenBookIsNotAvailableForLoan() {
     Loan newLoan = createMockLoan();
-    when(bookRepository.existsById(EXISTING_BOOK_ID)).thenReturn(true);
-    when(userRepository.existsById(EXISTING_USER_ID)).thenReturn(true);
-    when(inventoryRepository.inventoryInStockValue(1L)).thenReturn(0);
+    when(existenceIndex.exists(Kind.BOOK, EXISTING_BOOK_ID)).thenReturn(true);
+    when(existenceIndex.exists(Kind.USER, EXISTING_USER_ID)).thenReturn(true);
+    when(inventoryRepository.decrementInventory(EXISTING_BOOK_ID)).thenReturn(0);
 
     ResponseEntity<Loan> result = loanService.createLoan(newLoan);
 
     assertEquals(HttpStatus.FORBIDDEN, result.getStatusCode());
+    verify(loanRepository, never()).save(any());
+  }
+
+  /**
+   * Test to create loans for several books at once.
+   *
+   * This test requests a book that can be loaned, a book that does not exist and a book with no copy in stock.
+   * It ensures that one loan is saved and that each book gets its own result, in request order.
+   */
+  @Test
+  void testCreateLoans() {
+    long missingBookId = 2L;
+    long outOfStockBookId = 3L;
+    BatchLoanRequest request = new BatchLoanRequest(EXISTING_USER_ID, List.of(EXISTING_BOOK_ID, missingBookId, outOfStockBookId));
+    when(existenceIndex.exists(Kind.USER, EXISTING_USER_ID)).thenReturn(true);
+    when(bookRepository.findExistingIds(request.getBookIds())).thenReturn(Set.of(EXISTING_BOOK_ID, outOfStockBookId));
+    when(inventoryRepository.decrementInventories(List.of(EXISTING_BOOK_ID, outOfStockBookId))).thenReturn(new int[] {1, 0});
+    when(loanRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+    ResponseEntity<List<BatchLoanResult>> result = loanService.createLoans(request);
+
+    assertEquals(HttpStatus.OK, result.getStatusCode());
+    List<BatchLoanResult> results = result.getBody();
+    assertNotNull(results);
+    assertEquals(3, results.size());
+    assertEquals(HttpStatus.CREATED, results.get(0).getStatus());
+    assertEquals(EXISTING_BOOK_ID, results.get(0).getLoan().getBookId());
+    assertEquals(EXISTING_USER_ID, results.get(0).getLoan().getUserId());
+    assertEquals(HttpStatus.BAD_REQUEST, results.get(1).getStatus());
+    assertEquals(HttpStatus.FORBIDDEN, results.get(2).getStatus());
+    assertNull(results.get(2).getLoan());
+    verify(inventoryLocks, times(1)).lockAll(List.of(EXISTING_BOOK_ID, outOfStockBookId));
+    verify(circulationLedger, times(1)).recordCheckouts(List.of(results.get(0).getLoan()));
+  }
+
+  /**
+   * Test to create a loan of a write-behind book.
+   *
+   * This test checks that the copy is taken from the write-behind stock instead of the inventory table.
+   */
+  @Test
+  void testCreateLoanOfWriteBehindBook() {
+    Loan newLoan = createMockLoan();
+    when(existenceIndex.exists(Kind.BOOK, EXISTING_BOOK_ID)).thenReturn(true);
+    when(existenceIndex.exists(Kind.USER, EXISTING_USER_ID)).thenReturn(true);
+    when(writeBehindInventory.isWriteBehind(EXISTING_BOOK_ID)).thenReturn(true);
+    when(writeBehindInventory.take(EXISTING_BOOK_ID, 1)).thenReturn(true);
+    when(loanRepository.save(newLoan)).thenReturn(newLoan);
+
+    ResponseEntity<Loan> result = loanService.createLoan(newLoan);
+
+    assertEquals(HttpStatus.CREATED, result.getStatusCode());
+    verify(inventoryRepository, never()).decrementInventory(any());
+    verify(inventoryLocks, never()).lock(any());
+  }
+
+  /**
+   * Test to create loans for several books at once when one of them is a write-behind book.
+   *
+   * This test checks that the write-behind book is taken from memory, the other books in one batch,
+   * and that the results stay in request order.
+   */
+  @Test
+  void testCreateLoansWithWriteBehindBook() {
+    long writeBehindBookId = 2L;
+    long outOfStockBookId = 3L;
+    BatchLoanRequest request = new BatchLoanRequest(EXISTING_USER_ID, List.of(EXISTING_BOOK_ID, writeBehindBookId, outOfStockBookId));
+    when(existenceIndex.exists(Kind.USER, EXISTING_USER_ID)).thenReturn(true);
+    when(bookRepository.findExistingIds(request.getBookIds())).thenReturn(Set.of(EXISTING_BOOK_ID, writeBehindBookId, outOfStockBookId));
+    when(writeBehindInventory.isWriteBehind(writeBehindBookId)).thenReturn(true);
+    when(writeBehindInventory.take(writeBehindBookId, 1)).thenReturn(true);
+    when(inventoryRepository.decrementInventories(List.of(EXISTING_BOOK_ID, outOfStockBookId))).thenReturn(new int[] {1, 0});
+    when(loanRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+    ResponseEntity<List<BatchLoanResult>> result = loanService.createLoans(request);
+
+    List<BatchLoanResult> results = result.getBody();
+    assertNotNull(results);
+    assertEquals(HttpStatus.CREATED, results.get(0).getStatus());
+    assertEquals(HttpStatus.CREATED, results.get(1).getStatus());
+    assertEquals(writeBehindBookId, results.get(1).getLoan().getBookId());
+    assertEquals(HttpStatus.FORBIDDEN, results.get(2).getStatus());
+  }
+
+  /**
+   * Test to create loans for several books at once when the user does not exist.
+   *
+   * This test validates the behavior when the borrowing user does not exist.
+   * It ensures that a BAD_REQUEST status response is returned and that no copy is taken from the inventory.
+   */
+  @Test
+  void testCreateLoansWhenUserDoesNotExist() {
+    BatchLoanRequest request = new BatchLoanRequest(EXISTING_USER_ID, List.of(EXISTING_BOOK_ID));
+    when(existenceIndex.exists(Kind.USER, EXISTING_USER_ID)).thenReturn(false);
+
+    ResponseEntity<List<BatchLoanResult>> result = loanService.createLoans(request);
+
+    assertEquals(HttpStatus.BAD_REQUEST, result.getStatusCode());
+    verify(inventoryRepository, never()).decrementInventories(any());
   }
 
   /**
@@ -243,6 +429,8 @@ public class LoanServiceTest {
     assertEquals(updatedLoan, result.getBody());
     assertEquals(Status.RENEWAL, existingLoan.getStatus());
     assertEquals(LocalDate.now(), existingLoan.getLoanDate());
+    verify(circulationLedger, times(1)).recordRenewal(updatedLoan);
+    verify(dueDateIndex, times(1)).put(EXISTING_LOAN_ID, updatedLoan.getLoanDate());
   }
 
   /**
@@ -295,6 +483,28 @@ public class LoanServiceTest {
 
     assertEquals(HttpStatus.NO_CONTENT, result.getStatusCode());
     verify(loanRepository, times(1)).delete(loanToDelete);
+    verify(inventoryLocks, times(1)).lock(EXISTING_BOOK_ID);
+    verify(inventoryRepository, times(1)).incrementInventory(EXISTING_BOOK_ID);
+    verify(circulationLedger, times(1)).recordReturn(loanToDelete);
+    verify(dueDateIndex, times(1)).remove(EXISTING_LOAN_ID);
+  }
+
+  /**
+   * Test to delete a loan of a write-behind book.
+   *
+   * This test checks that the returned copy is added to the write-behind stock instead of the inventory table.
+   */
+  @Test
+  void testDeleteLoanOfWriteBehindBook() {
+    Loan loanToDelete = createMockLoan();
+    when(loanRepository.findById(EXISTING_LOAN_ID)).thenReturn(Optional.of(loanToDelete));
+    when(writeBehindInventory.isWriteBehind(EXISTING_BOOK_ID)).thenReturn(true);
+
+    ResponseEntity<HttpStatus> result = loanService.deleteLoan(EXISTING_LOAN_ID);
+
+    assertEquals(HttpStatus.NO_CONTENT, result.getStatusCode());
+    verify(writeBehindInventory, times(1)).add(EXISTING_BOOK_ID, 1);
+    verify(inventoryRepository, never()).incrementInventory(any());
   }
 
   /**
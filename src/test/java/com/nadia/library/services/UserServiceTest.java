@@ -1,20 +1,32 @@
 package com.nadia.library.services;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import com.nadia.library.dto.UserLoan;
+import com.nadia.library.index.ExistenceIndex;
+import com.nadia.library.index.ExistenceIndex.Kind;
 import com.nadia.library.models.User;
+import com.nadia.library.pagination.KeysetPagination;
+import com.nadia.library.repositories.LoanRepository;
 import com.nadia.library.repositories.UserRepository;
 
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
@@ -31,6 +43,12 @@ class UserServiceTest {
   @Mock
   private UserRepository userRepository;
 
+  @Mock
+  private ExistenceIndex existenceIndex;
+
+  @Mock
+  private LoanRepository loanRepository;
+
   @InjectMocks
   private UserService userService;
 
@@ -48,12 +66,82 @@ class UserServiceTest {
   @Test
   void testGetAllUsers() {
     List<User> users = new ArrayList<>();
-    when(userRepository.findAll()).thenReturn(users);
+    when(userRepository.findByIdGreaterThan(any(), any())).thenReturn(new SliceImpl<>(users));
 
-    List<User> result = userService.getAllUsers();
+    ResponseEntity<List<User>> result = userService.getAllUsers(null, KeysetPagination.DEFAULT_LIMIT);
 
-    assertNotNull(result);
-    assertEquals(users, result);
+    assertEquals(HttpStatus.OK, result.getStatusCode());
+    assertNotNull(result.getBody());
+    assertEquals(users, result.getBody());
+  }
+
+  /**
+   * Test to retrieve the first page of the loans of a user.
+   *
+   * This test checks that the loans are read with one query ordered by loan date and ID.
+   * It ensures that the cursor of the next page points after the last loan of the page.
+   */
+  @Test
+  void testGetUserLoans() {
+    Long userId = 1L;
+    UserLoan loan = mock(UserLoan.class);
+    when(loan.getId()).thenReturn(7L);
+    when(loan.getLoanDate()).thenReturn(LocalDate.of(2024, 3, 1));
+    Pageable expectedPage = PageRequest.of(0, 10, Sort.by("loanDate", "id"));
+    when(existenceIndex.exists(Kind.USER, userId)).thenReturn(true);
+    when(loanRepository.findByUserId(userId, expectedPage)).thenReturn(new SliceImpl<>(List.of(loan), expectedPage, true));
+
+    ResponseEntity<List<UserLoan>> result = userService.getUserLoans(userId, null, 10);
+
+    assertEquals(HttpStatus.OK, result.getStatusCode());
+    assertEquals(List.of(loan), result.getBody());
+    assertEquals(KeysetPagination.encodeCursor(LocalDate.of(2024, 3, 1), 7L), result.getHeaders().getFirst(KeysetPagination.NEXT_CURSOR_HEADER));
+  }
+
+  /**
+   * Test to retrieve a following page of the loans of a user.
+   *
+   * This test verifies that the page starts after the loan date and ID of the cursor.
+   */
+  @Test
+  void testGetUserLoansAfterCursor() {
+    Long userId = 1L;
+    when(existenceIndex.exists(Kind.USER, userId)).thenReturn(true);
+    when(loanRepository.findByUserIdAfter(userId, LocalDate.of(2024, 3, 1), 7L, PageRequest.ofSize(10))).thenReturn(new SliceImpl<>(List.of()));
+
+    ResponseEntity<List<UserLoan>> result = userService.getUserLoans(userId, KeysetPagination.encodeCursor(LocalDate.of(2024, 3, 1), 7L), 10);
+
+    assertEquals(HttpStatus.OK, result.getStatusCode());
+    assertEquals(List.of(), result.getBody());
+    assertFalse(result.getHeaders().containsKey(KeysetPagination.NEXT_CURSOR_HEADER));
+  }
+
+  /**
+   * Test to retrieve the loans of a user with an invalid cursor.
+   *
+   * This test verifies that a BAD_REQUEST status response is returned without querying the loans.
+   */
+  @Test
+  void testGetUserLoansWithInvalidCursor() {
+    ResponseEntity<List<UserLoan>> result = userService.getUserLoans(1L, KeysetPagination.encodeCursor(7L), 10);
+
+    assertEquals(HttpStatus.BAD_REQUEST, result.getStatusCode());
+    verify(loanRepository, never()).findByUserIdAfter(any(), any(), any(), any());
+  }
+
+  /**
+   * Test to retrieve the loans of a user that does not exist.
+   *
+   * This test verifies that a NOT_FOUND status response is returned without querying the loans.
+   */
+  @Test
+  void testGetUserLoansWhenUserDoesNotExist() {
+    when(existenceIndex.exists(Kind.USER, 1L)).thenReturn(false);
+
+    ResponseEntity<List<UserLoan>> result = userService.getUserLoans(1L, null, 10);
+
+    assertEquals(HttpStatus.NOT_FOUND, result.getStatusCode());
+    verify(loanRepository, never()).findByUserId(any(), any());
   }
 
   /**
@@ -194,6 +282,7 @@ class UserServiceTest {
 
     assertEquals(HttpStatus.NO_CONTENT, result.getStatusCode());
     verify(userRepository, times(1)).delete(userToDelete);
+    verify(existenceIndex, times(1)).remove(Kind.USER, userId);
   }
 
   /**
@@ -0,0 +1,95 @@
+package com.nadia.library.stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nadia.library.models.Inventory;
+import com.nadia.library.repositories.InventoryRepository;
+
+import java.util.List;
+import java.util.Set;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+
+/**
+ * Unit tests for InventoryBroadcaster class.
+ */
+public class InventoryBroadcasterTest {
+  @Mock
+  private InventoryRepository inventoryRepository;
+
+  @Spy
+  private ObjectMapper objectMapper = new ObjectMapper();
+
+  @Spy
+  private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  @InjectMocks
+  private InventoryBroadcaster inventoryBroadcaster;
+
+  @BeforeEach
+  void setUp() {
+    MockitoAnnotations.openMocks(this);
+    inventoryBroadcaster.registerMetrics();
+  }
+
+  private double sentEvents() {
+    return meterRegistry.get("library.inventory.stream.events").counter().count();
+  }
+
+  /**
+   * Test that a new subscriber is sent the current stock of the books it follows.
+   */
+  @Test
+  void testSubscribeSendsCurrentStock() {
+    when(inventoryRepository.findByBookIdIn(Set.of(1L, 2L))).thenReturn(List.of(new Inventory(1L, 0), new Inventory(2L, 3)));
+
+    inventoryBroadcaster.subscribe(List.of(1L, 2L, 2L));
+
+    assertEquals(1, inventoryBroadcaster.subscriberCount());
+    assertEquals(2, sentEvents());
+  }
+
+  /**
+   * Test that several changes to a book before a flush are read and sent once.
+   */
+  @Test
+  void testChangesAreCoalescedUntilFlush() {
+    inventoryBroadcaster.subscribe(List.of(1L));
+    inventoryBroadcaster.subscribe(List.of(1L));
+    when(inventoryRepository.findByBookIdIn(List.of(1L))).thenReturn(List.of(new Inventory(1L, 2)));
+
+    inventoryBroadcaster.onInventoryChanged(new InventoryChangedEvent(1L));
+    inventoryBroadcaster.onInventoryChanged(new InventoryChangedEvent(1L));
+    inventoryBroadcaster.onInventoryChanged(new InventoryChangedEvent(1L));
+    inventoryBroadcaster.flush();
+    inventoryBroadcaster.flush();
+
+    verify(inventoryRepository, times(1)).findByBookIdIn(List.of(1L));
+    assertEquals(2, sentEvents());
+  }
+
+  /**
+   * Test that changes to books nobody follows are not read.
+   */
+  @Test
+  void testChangesWithoutSubscribersAreIgnored() {
+    inventoryBroadcaster.onInventoryChanged(new InventoryChangedEvent(1L));
+    inventoryBroadcaster.flush();
+
+    verify(inventoryRepository, never()).findByBookIdIn(any());
+    assertEquals(0, sentEvents());
+  }
+}
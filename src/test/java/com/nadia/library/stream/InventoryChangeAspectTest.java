@@ -0,0 +1,114 @@
+package com.nadia.library.stream;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.nadia.library.inventory.InventoryLocks;
+import com.nadia.library.inventory.WriteBehindInventory;
+import com.nadia.library.ledger.CirculationLedger;
+import com.nadia.library.models.Inventory;
+import com.nadia.library.repositories.InventoryRepository;
+import com.nadia.library.services.InventoryService;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Unit tests for InventoryChangeAspect class.
+ */
+public class InventoryChangeAspectTest {
+  @Mock
+  private ApplicationEventPublisher eventPublisher;
+
+  @Mock
+  private InventoryRepository inventoryRepository;
+
+  @InjectMocks
+  private InventoryChangeAspect inventoryChangeAspect;
+
+  private InventoryRepository repositoryProxy;
+
+  @BeforeEach
+  void setUp() {
+    MockitoAnnotations.openMocks(this);
+    AspectJProxyFactory factory = new AspectJProxyFactory(inventoryRepository);
+    factory.addInterface(InventoryRepository.class);
+    factory.addAspect(inventoryChangeAspect);
+    repositoryProxy = factory.getProxy();
+  }
+
+  /**
+   * Test that a change is published when a copy is returned or taken, but not when none was in stock.
+   */
+  @Test
+  void testStockUpdatesPublishChanges() {
+    when(inventoryRepository.incrementInventory(1L)).thenReturn(1);
+    when(inventoryRepository.decrementInventory(2L)).thenReturn(0);
+
+    repositoryProxy.incrementInventory(1L);
+    repositoryProxy.decrementInventory(2L);
+
+    verify(eventPublisher, times(1)).publishEvent(new InventoryChangedEvent(1L));
+    verify(eventPublisher, never()).publishEvent(new InventoryChangedEvent(2L));
+  }
+
+  /**
+   * Test that a batch checkout publishes one change per book of which a copy was taken.
+   */
+  @Test
+  void testBatchCheckoutPublishesChanges() {
+    when(inventoryRepository.decrementInventories(List.of(1L, 2L, 1L, 3L))).thenReturn(new int[] {1, 0, 1, 1});
+
+    repositoryProxy.decrementInventories(List.of(1L, 2L, 1L, 3L));
+
+    verify(eventPublisher, times(1)).publishEvent(new InventoryChangedEvent(1L));
+    verify(eventPublisher, never()).publishEvent(new InventoryChangedEvent(2L));
+    verify(eventPublisher, times(1)).publishEvent(new InventoryChangedEvent(3L));
+  }
+
+  /**
+   * Test that a change is published when the inventory item of a new book is created.
+   */
+  @Test
+  void testNewInventoryItemPublishesChange() {
+    repositoryProxy.addInventoryItem(3L);
+
+    verify(eventPublisher, times(1)).publishEvent(new InventoryChangedEvent(3L));
+  }
+
+  /**
+   * Test that a change is published when the stock is set manually, only if the book has an inventory item.
+   */
+  @Test
+  void testManualStockUpdatePublishesChange() {
+    InventoryService inventoryService = new InventoryService();
+    ReflectionTestUtils.setField(inventoryService, "inventoryRepository", inventoryRepository);
+    ReflectionTestUtils.setField(inventoryService, "circulationLedger", mock(CirculationLedger.class));
+    ReflectionTestUtils.setField(inventoryService, "inventoryLocks", mock(InventoryLocks.class));
+    ReflectionTestUtils.setField(inventoryService, "writeBehindInventory", mock(WriteBehindInventory.class));
+    Inventory inventory = new Inventory(4L, 2);
+    when(inventoryRepository.findByBookId(4L)).thenReturn(inventory);
+    when(inventoryRepository.save(inventory)).thenReturn(inventory);
+    AspectJProxyFactory factory = new AspectJProxyFactory(inventoryService);
+    factory.addAspect(inventoryChangeAspect);
+    InventoryService proxy = factory.getProxy();
+
+    proxy.updateStockofInventoryItemByBookId(4L, new Inventory(4L, 5));
+    proxy.updateStockofInventoryItemByBookId(5L, new Inventory(5L, 5));
+
+    verify(eventPublisher, times(1)).publishEvent(any(Object.class));
+    verify(eventPublisher, times(1)).publishEvent(new InventoryChangedEvent(4L));
+  }
+}
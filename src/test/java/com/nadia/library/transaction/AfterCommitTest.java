@@ -0,0 +1,51 @@
+package com.nadia.library.transaction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Unit tests for AfterCommit class.
+ */
+public class AfterCommitTest {
+  private final List<String> changes = new ArrayList<>();
+
+  @AfterEach
+  void tearDown() {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+  }
+
+  /**
+   * Test that a change is applied at once outside a transaction.
+   */
+  @Test
+  void testRunOutsideTransaction() {
+    AfterCommit.run(() -> changes.add("change"));
+
+    assertEquals(List.of("change"), changes);
+  }
+
+  /**
+   * Test that a change waits for the commit, and is dropped on rollback.
+   */
+  @Test
+  void testRunInsideTransaction() {
+    TransactionSynchronizationManager.initSynchronization();
+    AfterCommit.run(() -> changes.add("change"));
+
+    assertEquals(List.of(), changes);
+    List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+    synchronizations.forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+    assertEquals(List.of(), changes);
+    synchronizations.forEach(TransactionSynchronization::afterCommit);
+    assertEquals(List.of("change"), changes);
+  }
+}
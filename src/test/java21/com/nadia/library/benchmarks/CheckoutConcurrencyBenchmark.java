@@ -0,0 +1,128 @@
+package com.nadia.library.benchmarks;
+
+import com.nadia.library.models.Loan;
+import com.nadia.library.models.Loan.Status;
+import com.nadia.library.services.LoanService;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Checkout throughput with many concurrent callers, on platform threads and on virtual threads.
+ *
+ * Each invocation starts `CHECKOUTS` concurrent checkouts. With platform threads they share a
+ * pool of 200 threads (Tomcat's default); with virtual threads each gets its own thread. In
+ * both cases the database limiter is enabled, so at most as many threads as the pool has
+ * connections use the database at once. Only compiled by the `jdk21` profile.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CheckoutConcurrencyBenchmark {
+  /**
+   * The number of concurrent checkouts per invocation.
+   */
+  private static final int CHECKOUTS = 2000;
+
+  /**
+   * The size of the platform thread pool, the default maximum of Tomcat's request threads.
+   */
+  private static final int PLATFORM_THREADS = 200;
+
+  /**
+   * The kind of threads running the checkouts: "platform" or "virtual".
+   */
+  @Param({"platform", "virtual"})
+  public String threads;
+
+  /**
+   * The number of books, users and loans in the database.
+   */
+  @Param({"10000"})
+  public int size;
+
+  private ConfigurableApplicationContext context;
+  private SyntheticDataset dataset;
+  private LoanService loanService;
+  private ExecutorService executor;
+
+  /**
+   * Start the application with the database limiter and fill the database.
+   */
+  @Setup(Level.Trial)
+  public void start() {
+    context = EmbeddedLibrary.start(WebApplicationType.NONE, "--library.datasource.limiter.enabled=true");
+    dataset = new SyntheticDataset(context, size);
+    loanService = context.getBean(LoanService.class);
+    executor = threads.equals("virtual")
+        ? Executors.newVirtualThreadPerTaskExecutor()
+        : Executors.newFixedThreadPool(PLATFORM_THREADS);
+  }
+
+  /**
+   * Delete the loans made during the iteration.
+   */
+  @TearDown(Level.Iteration)
+  public void removeLoans() {
+    context.getBean(JdbcTemplate.class).update("DELETE FROM loan WHERE id > ?", dataset.lastLoanId());
+  }
+
+  /**
+   * Stop the executor and the application.
+   */
+  @TearDown(Level.Trial)
+  public void stop() {
+    executor.shutdownNow();
+    context.close();
+  }
+
+  /**
+   * Benchmark checking out books from many threads at once.
+   *
+   * @return The number of successful checkouts.
+   * @throws Exception If a checkout fails.
+   */
+  @Benchmark
+  @OperationsPerInvocation(CHECKOUTS)
+  public int checkouts() throws Exception {
+    List<Future<Boolean>> results = new ArrayList<>(CHECKOUTS);
+    LocalDate today = LocalDate.now();
+
+    for (int i = 0; i < CHECKOUTS; i++) {
+      Loan loan = new Loan(dataset.bookId(i % size), dataset.userId(i % size), Status.NEW_LOAN, today);
+      results.add(executor.submit(() -> loanService.createLoan(loan).getStatusCode().is2xxSuccessful()));
+    }
+
+    int created = 0;
+    for (Future<Boolean> result : results) {
+      created += result.get() ? 1 : 0;
+    }
+    return created;
+  }
+}